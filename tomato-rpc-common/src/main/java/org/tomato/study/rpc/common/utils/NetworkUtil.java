@@ -16,6 +16,7 @@ package org.tomato.study.rpc.common.utils;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
@@ -72,6 +73,24 @@ public final class NetworkUtil {
         return null;
     }
 
+    /**
+     * 判断地址是否属于本机
+     * @param host ip或主机名
+     * @return true 本机地址
+     */
+    public static boolean isLocalHost(String host) {
+        if (StringUtils.isBlank(host)) {
+            return false;
+        }
+        try {
+            InetAddress address = InetAddress.getByName(host);
+            return address.isLoopbackAddress() || address.isAnyLocalAddress()
+                    || NetworkInterface.getByInetAddress(address) != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
     public static URI createURI(String protocol, String host, int port) {
         return URI.create(String.format("%s://%s:%d", protocol, host, port));
     }
@@ -0,0 +1,104 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.tomato.study.rpc.common.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程工具, 编译目标为java17, 运行在java21及以上时通过MethodHandle使用虚拟线程
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public final class VirtualThreadUtil {
+
+    /**
+     * Thread#isVirtual, 不支持时为空
+     */
+    private static final MethodHandle IS_VIRTUAL;
+
+    /**
+     * Thread#ofVirtual, 不支持时为空
+     */
+    private static final MethodHandle OF_VIRTUAL;
+
+    static {
+        MethodHandle isVirtual = null;
+        MethodHandle ofVirtual = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            isVirtual = lookup.findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(builderClass));
+            // 预览版本中调用会抛出异常
+            ofVirtual.invoke();
+        } catch (Throwable exception) {
+            isVirtual = null;
+            ofVirtual = null;
+        }
+        IS_VIRTUAL = isVirtual;
+        OF_VIRTUAL = ofVirtual;
+    }
+
+    private VirtualThreadUtil() {
+    }
+
+    /**
+     * 当前jvm是否支持虚拟线程
+     * @return true if supported
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 判断是否是虚拟线程
+     * @param thread 线程
+     * @return true if virtual
+     */
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(thread);
+        } catch (Throwable exception) {
+            return false;
+        }
+    }
+
+    /**
+     * 创建虚拟线程工厂
+     * @param prefix 线程名前缀, 后跟从0开始的序号
+     * @return 线程工厂, 不支持虚拟线程时返回null
+     */
+    public static ThreadFactory newThreadFactory(String prefix) {
+        if (OF_VIRTUAL == null) {
+            return null;
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke();
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (Throwable exception) {
+            Logger.DEFAULT.error("create virtual thread factory failed", exception);
+            return null;
+        }
+    }
+}
@@ -38,4 +38,11 @@ public @interface RpcServerStub {
      * @return interface class
      */
     Class<?>[] interfaceTypes() default {};
+
+    /**
+     * 服务实现的所有方法都不会阻塞时设置为true, 请求直接在IO线程中处理,
+     * 只有部分方法不阻塞时在接口方法上标记{@link org.tomato.study.rpc.core.annotation.RpcNonBlocking}
+     * @return non-blocking
+     */
+    boolean nonBlocking() default false;
 }
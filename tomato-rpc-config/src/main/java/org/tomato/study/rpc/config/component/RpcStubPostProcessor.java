@@ -63,7 +63,7 @@ public class RpcStubPostProcessor implements BeanPostProcessor, BeanFactoryAware
         Class[] interfaces = fetchServiceInstanceInterfaces(rpcServerStub, clazz);
 
         for (Class anInterface : interfaces) {
-            rpcCoreService.registerProvider(bean, anInterface);
+            rpcCoreService.registerProvider(bean, anInterface, rpcServerStub.nonBlocking());
         }
     }
 
@@ -82,6 +82,96 @@ public class TomatoRpcConfiguration {
         if (properties.getClientKeepAliveMs() != null) {
             rpcConfigBuilder.clientKeepAliveMilliseconds(properties.getClientKeepAliveMs());
         }
+        if (properties.getMaxFrameLength() != null) {
+            rpcConfigBuilder.maxFrameLength(properties.getMaxFrameLength());
+        }
+        if (properties.getChunkSize() != null) {
+            rpcConfigBuilder.chunkSize(properties.getChunkSize());
+        }
+        if (properties.getMaxMessageSize() != null) {
+            rpcConfigBuilder.maxMessageSize(properties.getMaxMessageSize());
+        }
+        if (properties.getMaxStreamingBytes() != null) {
+            rpcConfigBuilder.maxStreamingBytes(properties.getMaxStreamingBytes());
+        }
+        if (properties.getMaxStreamingMessages() != null) {
+            rpcConfigBuilder.maxStreamingMessages(properties.getMaxStreamingMessages());
+        }
+        if (properties.getFlushConsolidationLimit() != null) {
+            rpcConfigBuilder.flushConsolidationLimit(properties.getFlushConsolidationLimit());
+        }
+        if (properties.getClientBatchWindowUs() != null) {
+            rpcConfigBuilder.clientBatchWindowMicroseconds(properties.getClientBatchWindowUs());
+        }
+        if (properties.getClientBatchMaxSize() != null) {
+            rpcConfigBuilder.clientBatchMaxSize(properties.getClientBatchMaxSize());
+        }
+        if (properties.getClientIoThreads() != null) {
+            rpcConfigBuilder.clientIoThreads(properties.getClientIoThreads());
+        }
+        if (properties.getClientConnectionsPerNode() != null) {
+            rpcConfigBuilder.clientConnectionsPerNode(properties.getClientConnectionsPerNode());
+        }
+        if (properties.getClientReconnectBaseMilliseconds() != null) {
+            rpcConfigBuilder.clientReconnectBaseMilliseconds(properties.getClientReconnectBaseMilliseconds());
+        }
+        if (properties.getClientReconnectMaxMilliseconds() != null) {
+            rpcConfigBuilder.clientReconnectMaxMilliseconds(properties.getClientReconnectMaxMilliseconds());
+        }
+        if (properties.getClientWriteBufferLowWaterMark() != null) {
+            rpcConfigBuilder.clientWriteBufferLowWaterMark(properties.getClientWriteBufferLowWaterMark());
+        }
+        if (properties.getClientWriteBufferHighWaterMark() != null) {
+            rpcConfigBuilder.clientWriteBufferHighWaterMark(properties.getClientWriteBufferHighWaterMark());
+        }
+        if (properties.getClientMaxInFlightPerConnection() != null) {
+            rpcConfigBuilder.clientMaxInFlightPerConnection(properties.getClientMaxInFlightPerConnection());
+        }
+        if (properties.getClientSaturatedWaitMilliseconds() != null) {
+            rpcConfigBuilder.clientSaturatedWaitMilliseconds(properties.getClientSaturatedWaitMilliseconds());
+        }
+        if (properties.getTransport() != null) {
+            rpcConfigBuilder.transport(properties.getTransport());
+        }
+        if (properties.getServerReusePortBinds() != null) {
+            rpcConfigBuilder.serverReusePortBinds(properties.getServerReusePortBinds());
+        }
+        if (properties.getTcpQuickAck() != null) {
+            rpcConfigBuilder.tcpQuickAck(properties.getTcpQuickAck());
+        }
+        if (properties.getBusyPollMicroseconds() != null) {
+            rpcConfigBuilder.busyPollMicroseconds(properties.getBusyPollMicroseconds());
+        }
+        if (properties.getReceiveBufferSize() != null) {
+            rpcConfigBuilder.receiveBufferSize(properties.getReceiveBufferSize());
+        }
+        if (properties.getServerDomainSocketPath() != null) {
+            rpcConfigBuilder.serverDomainSocketPath(properties.getServerDomainSocketPath());
+        }
+        if (properties.getClientUseDomainSocket() != null) {
+            rpcConfigBuilder.clientUseDomainSocket(properties.getClientUseDomainSocket());
+        }
+        if (properties.getServerSharedMemoryPath() != null) {
+            rpcConfigBuilder.serverSharedMemoryPath(properties.getServerSharedMemoryPath());
+        }
+        if (properties.getClientUseSharedMemory() != null) {
+            rpcConfigBuilder.clientUseSharedMemory(properties.getClientUseSharedMemory());
+        }
+        if (properties.getClientSharedMemoryRingCapacity() != null) {
+            rpcConfigBuilder.clientSharedMemoryRingCapacity(properties.getClientSharedMemoryRingCapacity());
+        }
+        if (properties.getClientInJvm() != null) {
+            rpcConfigBuilder.clientInJvm(properties.getClientInJvm());
+        }
+        if (properties.getClientInJvmCopy() != null) {
+            rpcConfigBuilder.clientInJvmCopy(properties.getClientInJvmCopy());
+        }
+        if (properties.getBusinessExecutorMode() != null) {
+            rpcConfigBuilder.businessExecutorMode(properties.getBusinessExecutorMode());
+        }
+        if (properties.getBusinessMaxConcurrency() != null) {
+            rpcConfigBuilder.businessMaxConcurrency(properties.getBusinessMaxConcurrency());
+        }
         if (properties.isEnableCircuit()) {
             rpcConfigBuilder.enableCircuit(properties.isEnableCircuit());
             if (properties.getCircuitOpenRate() != null) {
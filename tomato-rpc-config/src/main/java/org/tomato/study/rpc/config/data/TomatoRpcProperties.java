@@ -97,4 +97,154 @@ public class TomatoRpcProperties {
      * 采样窗口
      */
     private Integer circuitWindow;
+
+    /**
+     * 单个数据帧的最大长度, 单位byte
+     */
+    private Integer maxFrameLength;
+
+    /**
+     * body超过该大小时分块发送, 单位byte
+     */
+    private Integer chunkSize;
+
+    /**
+     * 接收分块消息时还原出的单个消息的最大长度, 单位byte
+     */
+    private Integer maxMessageSize;
+
+    /**
+     * 单个连接上所有正在接收的分块消息的总大小上限, 单位byte
+     */
+    private Integer maxStreamingBytes;
+
+    /**
+     * 单个连接上同时接收的分块消息数上限
+     */
+    private Integer maxStreamingMessages;
+
+    /**
+     * 大于0时合并flush, 累计该数量的消息后强制flush
+     */
+    private Integer flushConsolidationLimit;
+
+    /**
+     * 大于0时开启客户端批量调用, 合并窗口, 单位us
+     */
+    private Long clientBatchWindowUs;
+
+    /**
+     * 一个批量请求最多包含的调用数
+     */
+    private Integer clientBatchMaxSize;
+
+    /**
+     * 所有客户端共用的IO线程数
+     */
+    private Integer clientIoThreads;
+
+    /**
+     * 每个服务节点建立的连接数
+     */
+    private Integer clientConnectionsPerNode;
+
+    /**
+     * 断线重连的初始退避时间(毫秒)
+     */
+    private Long clientReconnectBaseMilliseconds;
+
+    /**
+     * 断线重连的最大退避时间(毫秒)
+     */
+    private Long clientReconnectMaxMilliseconds;
+
+    /**
+     * 连接写缓冲区的低水位(字节)
+     */
+    private Integer clientWriteBufferLowWaterMark;
+
+    /**
+     * 连接写缓冲区的高水位(字节)
+     */
+    private Integer clientWriteBufferHighWaterMark;
+
+    /**
+     * 单个连接的最大在途请求数, 小于等于0时不限制
+     */
+    private Integer clientMaxInFlightPerConnection;
+
+    /**
+     * 连接饱和时发送方的最长等待时间, 0表示立即失败
+     */
+    private Long clientSaturatedWaitMilliseconds;
+
+    /**
+     * 网络传输实现: epoll, nio
+     */
+    private String transport;
+
+    /**
+     * 以SO_REUSEPORT绑定的监听channel数量
+     */
+    private Integer serverReusePortBinds;
+
+    /**
+     * 是否开启TCP_QUICKACK
+     */
+    private Boolean tcpQuickAck;
+
+    /**
+     * SO_BUSY_POLL忙轮询时间(微秒)
+     */
+    private Integer busyPollMicroseconds;
+
+    /**
+     * socket接收缓冲区大小(字节)
+     */
+    private Integer receiveBufferSize;
+
+    /**
+     * 服务端监听的unix domain socket路径
+     */
+    private String serverDomainSocketPath;
+
+    /**
+     * 同一主机上的服务端开启了unix domain socket时是否通过它连接
+     */
+    private Boolean clientUseDomainSocket;
+
+    /**
+     * 服务端共享内存传输目录, 为空时不开启
+     */
+    private String serverSharedMemoryPath;
+
+    /**
+     * 同一主机时客户端是否优先使用共享内存传输
+     */
+    private Boolean clientUseSharedMemory;
+
+    /**
+     * 共享内存连接每个方向的环形缓冲区大小
+     */
+    private Integer clientSharedMemoryRingCapacity;
+
+    /**
+     * 订阅的服务节点就是本进程时是否直接调用
+     */
+    private Boolean clientInJvm;
+
+    /**
+     * 进程内调用时是否复制参数和返回值
+     */
+    private Boolean clientInJvmCopy;
+
+    /**
+     * 业务线程执行方式, pool为固定大小的线程池, virtual为每个请求一个虚拟线程
+     */
+    private String businessExecutorMode;
+
+    /**
+     * virtual模式下同时处理的请求数上限
+     */
+    private Integer businessMaxConcurrency;
 }
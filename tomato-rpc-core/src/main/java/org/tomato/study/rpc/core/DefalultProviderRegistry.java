@@ -14,9 +14,15 @@
 
 package org.tomato.study.rpc.core;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.tomato.study.rpc.core.data.ProviderMethod;
 
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -31,12 +37,36 @@ public class DefalultProviderRegistry implements ProviderRegistry {
      */
     private final Map<String, Object> providerMap = new HashMap<>(0);
 
+    /**
+     * 方法签名 -> 已分配的方法id, 重复注册时复用id
+     */
+    private final Map<String, Integer> methodIdMap = new HashMap<>(0);
+
+    /**
+     * 方法id -> 方法, 下标0不使用, 注册时整体替换
+     */
+    private volatile ProviderMethod[] methods = new ProviderMethod[1];
+
+    /**
+     * 按方法描述查找的索引, 同名的重载方法放在同一个数组中, 注册时整体替换
+     */
+    private volatile Map<MethodKey, ProviderMethod[]> methodIndex = Map.of();
+
     @Override
     public <T> void register(String microServiceId, T instance, Class<T> providerInterface) {
+        register(microServiceId, instance, providerInterface, false);
+    }
+
+    @Override
+    public synchronized <T> void register(String microServiceId,
+                                          T instance,
+                                          Class<T> providerInterface,
+                                          boolean nonBlocking) {
         if (StringUtils.isBlank(microServiceId) || instance == null || !providerInterface.isInterface()) {
             throw new IllegalCallerException("register invalid data");
         }
         this.providerMap.put(providerId(providerInterface.getCanonicalName(), microServiceId), instance);
+        registerMethods(microServiceId, instance, providerInterface, nonBlocking);
     }
 
     @Override
@@ -48,7 +78,75 @@ public class DefalultProviderRegistry implements ProviderRegistry {
         return this.providerMap.get(providerId);
     }
 
+    @Override
+    public ProviderMethod getMethod(int methodId) {
+        ProviderMethod[] methods = this.methods;
+        return methodId > 0 && methodId < methods.length ? methods[methodId] : null;
+    }
+
+    @Override
+    public ProviderMethod getMethod(String microServiceId,
+                                    String interfaceName,
+                                    String methodName,
+                                    String[] argsTypes) {
+        ProviderMethod[] overloads = methodIndex.get(new MethodKey(microServiceId, interfaceName, methodName));
+        if (overloads == null) {
+            return null;
+        }
+        String[] types = argsTypes == null ? ArrayUtils.EMPTY_STRING_ARRAY : argsTypes;
+        for (ProviderMethod overload : overloads) {
+            if (Arrays.equals(overload.getArgsTypes(), types)) {
+                return overload;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<ProviderMethod> getMethods() {
+        ProviderMethod[] methods = this.methods;
+        return List.of(Arrays.copyOfRange(methods, 1, methods.length));
+    }
+
+    /**
+     * 同一个接口内按方法签名排序后依次分配id, 不同接口之间的id取决于注册顺序,
+     * 因此id只在当前进程内有效, 重启后可能变化, 客户端需要在每个连接上通过METHOD_TABLE_REQUEST获取
+     */
+    private void registerMethods(String microServiceId,
+                                 Object instance,
+                                 Class<?> providerInterface,
+                                 boolean nonBlocking) {
+        Method[] interfaceMethods = providerInterface.getMethods();
+        Arrays.sort(interfaceMethods, Comparator.comparing(Method::toGenericString));
+        ProviderMethod[] newMethods = Arrays.copyOf(methods, methods.length + interfaceMethods.length);
+        int size = methods.length;
+        for (Method method : interfaceMethods) {
+            String signature = microServiceId + "$" + method.toGenericString();
+            Integer methodId = methodIdMap.get(signature);
+            if (methodId == null) {
+                methodId = size++;
+                methodIdMap.put(signature, methodId);
+            }
+            newMethods[methodId] = new ProviderMethod(
+                    methodId, microServiceId, providerInterface, method, instance, nonBlocking);
+        }
+        newMethods = Arrays.copyOf(newMethods, size);
+
+        Map<MethodKey, ProviderMethod[]> newIndex = new HashMap<>(size * 2);
+        for (int i = 1; i < size; i++) {
+            ProviderMethod method = newMethods[i];
+            MethodKey key = new MethodKey(
+                    method.getMicroServiceId(), method.getProviderInterface().getName(), method.getMethod().getName());
+            newIndex.merge(key, new ProviderMethod[]{method}, ArrayUtils::addAll);
+        }
+        this.methods = newMethods;
+        this.methodIndex = Map.copyOf(newIndex);
+    }
+
     private String providerId(String interfaceName, String microServiceId) {
         return interfaceName + "$" + microServiceId;
     }
+
+    private record MethodKey(String microServiceId, String interfaceName, String methodName) {
+    }
 }
@@ -14,6 +14,10 @@
 
 package org.tomato.study.rpc.core;
 
+import org.tomato.study.rpc.core.data.ProviderMethod;
+
+import java.util.List;
+
 /**
  * @author Tomato
  * Created on 2021.04.18
@@ -29,6 +33,16 @@ public interface ProviderRegistry {
      */
     <T> void register(String microServiceId, T instance, Class<T> providerInterface);
 
+    /**
+     * register provider handler
+     * @param microServiceId micro-service-id
+     * @param instance provider instance
+     * @param providerInterface service provider interface
+     * @param nonBlocking all methods of the provider can be executed on the io thread
+     * @param <T> provider interface type
+     */
+    <T> void register(String microServiceId, T instance, Class<T> providerInterface, boolean nonBlocking);
+
     /**
      * get provider instance
      * @param microServiceId micro service id
@@ -36,4 +50,27 @@ public interface ProviderRegistry {
      * @return provider instance
      */
     Object getProvider(String microServiceId, Class<?> providerInterface);
+
+    /**
+     * get exported method by the id assigned at registration
+     * @param methodId method id
+     * @return exported method, null if not found
+     */
+    ProviderMethod getMethod(int methodId);
+
+    /**
+     * get exported method by its description
+     * @param microServiceId micro service id
+     * @param interfaceName service provider interface name
+     * @param methodName method name
+     * @param argsTypes parameter class names, null if the method has no parameter
+     * @return exported method, null if not found
+     */
+    ProviderMethod getMethod(String microServiceId, String interfaceName, String methodName, String[] argsTypes);
+
+    /**
+     * get all exported methods
+     * @return exported methods ordered by method id
+     */
+    List<ProviderMethod> getMethods();
 }
@@ -39,6 +39,16 @@ public interface RpcCoreService extends LifeCycle {
      */
     <T> URI registerProvider(T serviceInstance, Class<T> serviceInterface);
 
+    /**
+     * register service provider
+     * @param serviceInstance service bean
+     * @param serviceInterface service interface class
+     * @param nonBlocking all methods of the provider can be executed on the io thread
+     * @param <T> service type
+     * @return service address
+     */
+    <T> URI registerProvider(T serviceInstance, Class<T> serviceInterface, boolean nonBlocking);
+
     /**
      * create client proxy consumer
      * @param stubConfig stub config
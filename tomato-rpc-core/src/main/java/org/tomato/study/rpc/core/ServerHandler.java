@@ -17,6 +17,8 @@ package org.tomato.study.rpc.core;
 import org.tomato.study.rpc.core.data.Command;
 import org.tomato.study.rpc.core.data.CommandType;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * @author Tomato
  * Created on 2021.04.18
@@ -43,4 +45,11 @@ public interface ServerHandler {
      * @param providerRegistry 服务接口实例
      */
     void setProviderRegistry(ProviderRegistry providerRegistry);
+
+    /**
+     * 注入业务线程池, 需要并行处理的handler使用
+     * @param businessExecutor 业务线程池, 可能为空
+     */
+    default void setBusinessExecutor(ExecutorService businessExecutor) {
+    }
 }
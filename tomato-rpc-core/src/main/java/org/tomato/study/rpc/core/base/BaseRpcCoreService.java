@@ -23,6 +23,7 @@ import org.tomato.study.rpc.core.RpcCoreService;
 import org.tomato.study.rpc.core.RpcJvmConfigKey;
 import org.tomato.study.rpc.core.data.MetaData;
 import org.tomato.study.rpc.core.data.NameServerConfig;
+import org.tomato.study.rpc.core.data.ProtoConstants;
 import org.tomato.study.rpc.core.data.RpcConfig;
 import org.tomato.study.rpc.core.data.RpcServerConfig;
 import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
@@ -125,15 +126,34 @@ public abstract class BaseRpcCoreService extends BaseLifeCycleComponent implemen
         RpcServerConfig rpcServerConfig = RpcServerConfig.builder()
                 .host(NetworkUtil.getLocalHost())
                 .port(rpcConfig.port())
-                .useBusinessThreadPool(rpcConfig.businessThreadPoolSize() > 1)
+                .useBusinessThreadPool(rpcConfig.businessThreadPoolSize() > 1
+                        || RpcServerConfig.BUSINESS_EXECUTOR_VIRTUAL.equals(rpcConfig.businessExecutorMode()))
                 .businessThreadPoolSize(rpcConfig.businessThreadPoolSize())
+                .businessExecutorMode(rpcConfig.businessExecutorMode())
+                .businessMaxConcurrency(rpcConfig.businessMaxConcurrency())
                 .clientKeepAliveMilliseconds(rpcConfig.clientKeepAliveMilliseconds())
                 .serverReadIdleCheckMilliseconds(rpcConfig.serverIdleCheckMilliseconds())
+                .maxFrameLength(rpcConfig.maxFrameLength())
+                .chunkSize(rpcConfig.chunkSize())
+                .maxMessageSize(rpcConfig.maxMessageSize())
+                .maxStreamingBytes(rpcConfig.maxStreamingBytes())
+                .maxStreamingMessages(rpcConfig.maxStreamingMessages())
+                .flushConsolidationLimit(rpcConfig.flushConsolidationLimit())
+                .transport(rpcConfig.transport())
+                .reusePortBinds(rpcConfig.serverReusePortBinds())
+                .tcpQuickAck(rpcConfig.tcpQuickAck())
+                .busyPollMicroseconds(rpcConfig.busyPollMicroseconds())
+                .receiveBufferSize(rpcConfig.receiveBufferSize())
+                .domainSocketPath(rpcConfig.serverDomainSocketPath())
+                .sharedMemoryPath(rpcConfig.serverSharedMemoryPath())
                 .build();
         this.rpcServer = createRpcServer(rpcServerConfig, providerRegistry);
         String stage = getStage();
         MetaData.NodeProperty nodeProperty = new MetaData.NodeProperty();
         nodeProperty.weight = 1;
+        nodeProperty.version = ProtoConstants.LATEST_VERSION;
+        nodeProperty.domainSocket = rpcServer.getDomainSocketPath();
+        nodeProperty.sharedMemory = rpcServer.getSharedMemoryPath();
         this.rpcServerMetaData = MetaData.builder()
                 .protocol(rpcConfig.protocol())
                 .host(rpcServer.getHost())
@@ -150,6 +170,15 @@ public abstract class BaseRpcCoreService extends BaseLifeCycleComponent implemen
 
     @Override
     public void updateServerProperty(MetaData.NodeProperty property) throws Exception {
+        if (property.version <= 0) {
+            property.version = ProtoConstants.LATEST_VERSION;
+        }
+        if (property.domainSocket == null) {
+            property.domainSocket = rpcServer.getDomainSocketPath();
+        }
+        if (property.sharedMemory == null) {
+            property.sharedMemory = rpcServer.getSharedMemoryPath();
+        }
         rpcServerMetaData.setNodeProperty(property);
         nameServer.registerService(rpcServerMetaData);
     }
@@ -102,6 +102,11 @@ public abstract class CircuitRpcInvoker implements RpcInvoker {
         return rpcInvoker.isUsable();
     }
 
+    @Override
+    public boolean isSaturated() {
+        return rpcInvoker.isSaturated();
+    }
+
     /**
      * 方法调用完成后处理熔断
      * @param response 调用结果
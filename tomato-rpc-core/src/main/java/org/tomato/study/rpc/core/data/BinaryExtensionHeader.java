@@ -0,0 +1,173 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.core.data;
+
+import org.tomato.study.rpc.core.utils.VarIntUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 二进制(TLV)格式的拓展头部
+ * +----------------+-------------------------------+------------------+-------------+
+ * | varint key id  | varint key length + key bytes | varint val length|  val bytes  |
+ * |                | (仅key id为0的自定义key才有)      |                  |   (UTF-8)   |
+ * +----------------+-------------------------------+------------------+-------------+
+ * 内置key的id为{@link ExtensionHeader#getId()}, 自定义key的id为0
+ * 同一个key出现多次时以最后一次为准, 与旧的"k:v&k:v"格式保持一致
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public final class BinaryExtensionHeader {
+
+    /**
+     * 自定义key的id
+     */
+    public static final int CUSTOM_KEY_ID = 0;
+
+    private BinaryExtensionHeader() throws IllegalAccessException {
+        throw new IllegalAccessException("illegal access");
+    }
+
+    /**
+     * 追加一个键值对
+     * @param out 输出
+     * @param key 键
+     * @param value 值
+     */
+    public static void writeEntry(ByteArrayOutputStream out, String key, String value) {
+        ExtensionHeader wellKnown = ExtensionHeader.ofKeyName(key);
+        if (wellKnown != null) {
+            VarIntUtils.write(out, wellKnown.getId());
+        } else {
+            VarIntUtils.write(out, CUSTOM_KEY_ID);
+            writeBytes(out, key.getBytes(StandardCharsets.UTF_8));
+        }
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 查找内置key的值, 只扫描字节不构造Map
+     * @param extension 拓展头部
+     * @param key 内置key
+     * @return 值, 不存在时为null
+     */
+    public static String get(byte[] extension, ExtensionHeader key) {
+        return find(extension, key.getId(), null);
+    }
+
+    /**
+     * 查找任意key的值, 只扫描字节不构造Map
+     * @param extension 拓展头部
+     * @param key key
+     * @return 值, 不存在时为null
+     */
+    public static String get(byte[] extension, String key) {
+        ExtensionHeader wellKnown = ExtensionHeader.ofKeyName(key);
+        return wellKnown != null ? find(extension, wellKnown.getId(), null) : find(extension, CUSTOM_KEY_ID, key);
+    }
+
+    /**
+     * 完整解析, 结果会作为服务端的InvocationContext, 需要可以修改
+     * @param extension 拓展头部
+     * @return 可修改的HashMap
+     */
+    public static Map<String, String> decode(byte[] extension) {
+        if (extension == null || extension.length < 1) {
+            return new HashMap<>();
+        }
+        Map<String, String> result = new HashMap<>();
+        int index = 0;
+        while (index < extension.length) {
+            long keyId = VarIntUtils.read(extension, index);
+            index += VarIntUtils.length(keyId);
+            String key;
+            if (VarIntUtils.value(keyId) == CUSTOM_KEY_ID) {
+                long keyLength = VarIntUtils.read(extension, index);
+                index += VarIntUtils.length(keyLength);
+                key = new String(extension, index, VarIntUtils.value(keyLength), StandardCharsets.UTF_8);
+                index += VarIntUtils.value(keyLength);
+            } else {
+                ExtensionHeader wellKnown = ExtensionHeader.ofId(VarIntUtils.value(keyId));
+                key = wellKnown == null ? null : wellKnown.getKeyName();
+            }
+            long valueLength = VarIntUtils.read(extension, index);
+            index += VarIntUtils.length(valueLength);
+            // 不认识的内置key直接跳过, 便于后续新增
+            if (key != null) {
+                result.put(key, new String(extension, index, VarIntUtils.value(valueLength), StandardCharsets.UTF_8));
+            }
+            index += VarIntUtils.value(valueLength);
+        }
+        return result;
+    }
+
+    private static String find(byte[] extension, int targetId, String customKey) {
+        if (extension == null) {
+            return null;
+        }
+        int valueOffset = -1;
+        int valueLength = 0;
+        int index = 0;
+        while (index < extension.length) {
+            long keyId = VarIntUtils.read(extension, index);
+            index += VarIntUtils.length(keyId);
+            boolean match = VarIntUtils.value(keyId) == targetId;
+            if (VarIntUtils.value(keyId) == CUSTOM_KEY_ID) {
+                long keyLength = VarIntUtils.read(extension, index);
+                index += VarIntUtils.length(keyLength);
+                match = match && customKey != null
+                        && utf8Equals(extension, index, VarIntUtils.value(keyLength), customKey);
+                index += VarIntUtils.value(keyLength);
+            }
+            long length = VarIntUtils.read(extension, index);
+            index += VarIntUtils.length(length);
+            if (match) {
+                valueOffset = index;
+                valueLength = VarIntUtils.value(length);
+            }
+            index += VarIntUtils.value(length);
+        }
+        return valueOffset < 0 ? null : new String(extension, valueOffset, valueLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * ASCII字符逐个比较, 避免为key分配字节数组
+     */
+    private static boolean utf8Equals(byte[] data, int offset, int length, String key) {
+        for (int i = 0; i < key.length(); i++) {
+            // 非ASCII字符的UTF-8长度和字符数不相等, 退化为构造字符串比较
+            if (key.charAt(i) > 0x7F) {
+                return key.equals(new String(data, offset, length, StandardCharsets.UTF_8));
+            }
+        }
+        if (length != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (data[offset + i] != (byte) key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, byte[] bytes) {
+        VarIntUtils.write(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+}
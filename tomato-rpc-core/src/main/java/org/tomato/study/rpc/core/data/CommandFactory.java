@@ -102,16 +102,31 @@ public final class CommandFactory {
         header.setLength(header.getLength() - originBodyLength + newBodyLength);
     }
 
-    private static Header createHeader(CommandType type,
-                                       Serializer serializer,
-                                       int bodyLength) {
+    /**
+     * 创建请求头部, 消息id由全局生成器生成
+     * @param type command type
+     * @param serializer body的序列化方式
+     * @param bodyLength body长度
+     * @return 头部
+     */
+    public static Header createHeader(CommandType type,
+                                      Serializer serializer,
+                                      int bodyLength) {
         return createHeader(null, type, serializer, bodyLength);
     }
 
-    private static Header createHeader(Long id,
-                                       CommandType type,
-                                       Serializer serializer,
-                                       int bodyLength) {
+    /**
+     * 创建头部
+     * @param id 消息id, 为空时由全局生成器生成
+     * @param type command type
+     * @param serializer body的序列化方式
+     * @param bodyLength body长度
+     * @return 头部
+     */
+    public static Header createHeader(Long id,
+                                      CommandType type,
+                                      Serializer serializer,
+                                      int bodyLength) {
         return Header.builder()
                 .magicNumber(ProtoConstants.MAGIC_NUMBER)
                 .version(ProtoConstants.CURRENT_VERSION)
@@ -47,6 +47,41 @@ public enum CommandType {
      * keep alive response
      */
     KEEP_ALIVE_RESPONSE((short) 4),
+
+    /**
+     * body chunk of a streamed command, the first frame carries the origin type with {@link HeaderFlag#STREAMED}
+     */
+    STREAM_CHUNK((short) 5),
+
+    /**
+     * last body chunk of a streamed command
+     */
+    STREAM_END((short) 6),
+
+    /**
+     * several RPC client requests packed into one frame
+     */
+    RPC_BATCH_REQUEST((short) 7),
+
+    /**
+     * RPC server responses of a batch request
+     */
+    RPC_BATCH_RESPONSE((short) 8),
+
+    /**
+     * client asks the server for the ids of its exported methods
+     */
+    METHOD_TABLE_REQUEST((short) 9),
+
+    /**
+     * server exported methods with their ids
+     */
+    METHOD_TABLE_RESPONSE((short) 10),
+
+    /**
+     * client abandoned the request with the same message id, the server does not respond
+     */
+    CANCEL((short) 11),
     ;
 
     private final short id;
@@ -25,15 +25,54 @@ import lombok.Getter;
 @Getter
 @AllArgsConstructor
 public enum ExtensionHeader {
-    TIMEOUT("1", Long.class),
-    COMPRESS("2", Boolean.class),
-    TRACE_ID("3", String.class),
+    TIMEOUT("1", 1, Long.class),
+    COMPRESS("2", 2, Boolean.class),
+    TRACE_ID("3", 3, String.class),
+    /**
+     * 请求体中的方法id, 服务端不用解析请求体就能选择执行线程
+     */
+    METHOD_ID("4", 4, Integer.class),
     ;
 
+    private static final ExtensionHeader[] VALUES = values();
+
     private final String keyName;
+
+    /**
+     * 二进制拓展头部中的key id {@link BinaryExtensionHeader}
+     */
+    private final int id;
     private final Class<?> type;
 
     public String getValueFromContext() {
         return InvocationContext.get(keyName);
     }
+
+    /**
+     * 根据key查找内置的拓展头部
+     * @param keyName key
+     * @return 不是内置key时返回null
+     */
+    public static ExtensionHeader ofKeyName(String keyName) {
+        for (ExtensionHeader header : VALUES) {
+            if (header.keyName.equals(keyName)) {
+                return header;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 根据key id查找内置的拓展头部
+     * @param id key id
+     * @return 不是内置key时返回null
+     */
+    public static ExtensionHeader ofId(int id) {
+        for (ExtensionHeader header : VALUES) {
+            if (header.id == id) {
+                return header;
+            }
+        }
+        return null;
+    }
 }
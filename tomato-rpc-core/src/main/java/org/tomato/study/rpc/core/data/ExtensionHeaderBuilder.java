@@ -18,6 +18,7 @@ import lombok.NonNull;
 import org.apache.commons.lang3.StringUtils;
 import org.tomato.study.rpc.core.RpcJvmConfigKey;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
@@ -30,12 +31,30 @@ import java.util.Map;
 public class ExtensionHeaderBuilder {
 
     private final Command command;
+
+    /**
+     * 旧版本的"k:v&k:v"格式
+     */
     private final StringBuilder builder;
 
+    /**
+     * 二进制格式, 根据command的版本选择
+     */
+    private final ByteArrayOutputStream binaryBuilder;
+
     public ExtensionHeaderBuilder(Command command) {
         this.command = command;
-        this.builder = new StringBuilder();
         byte[] extension = command.getExtension();
+        if (ProtoConstants.isBinaryExtension(command.getHeader().getVersion())) {
+            this.builder = null;
+            this.binaryBuilder = new ByteArrayOutputStream();
+            if (extension != null) {
+                this.binaryBuilder.write(extension, 0, extension.length);
+            }
+            return;
+        }
+        this.binaryBuilder = null;
+        this.builder = new StringBuilder();
         if (extension != null) {
             this.builder.append(new String(extension, StandardCharsets.UTF_8));
         }
@@ -45,6 +64,10 @@ public class ExtensionHeaderBuilder {
         if (key == null || StringUtils.isBlank(key) || StringUtils.isBlank(value)) {
             return this;
         }
+        if (binaryBuilder != null) {
+            BinaryExtensionHeader.writeEntry(binaryBuilder, key, value);
+            return this;
+        }
         if (builder.length() > 0) {
             builder.append(RpcJvmConfigKey.ENTRY_DELIMITER);
         }
@@ -55,10 +78,12 @@ public class ExtensionHeaderBuilder {
     }
 
     public Command build() {
-        if (builder.length() < 1) {
+        if (binaryBuilder != null ? binaryBuilder.size() < 1 : builder.length() < 1) {
             return command;
         }
-        byte[] newExtHeaders = builder.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] newExtHeaders = binaryBuilder != null
+                ? binaryBuilder.toByteArray()
+                : builder.toString().getBytes(StandardCharsets.UTF_8);
         command.setExtension(newExtHeaders);
 
         Header header = command.getHeader();
@@ -68,7 +93,8 @@ public class ExtensionHeaderBuilder {
     }
 
     /**
-     * 获取拓展头部参数
+     * 获取拓展头部参数, 解析{@link Command#getExtension()}的拷贝而不是入站内存的切片:
+     * 返回的Map会放进InvocationContext, 异步方法可能在请求内存释放后仍在读取
      * @param command 帧
      * @return Map形式的头部参数
      */
@@ -77,6 +103,9 @@ public class ExtensionHeaderBuilder {
         if (extension == null || extension.length < 1) {
             return new HashMap<>();
         }
+        if (ProtoConstants.isBinaryExtension(command.getHeader().getVersion())) {
+            return BinaryExtensionHeader.decode(extension);
+        }
         return RpcJvmConfigKey.parseMultiKeyValue(new String(extension, StandardCharsets.UTF_8));
     }
 }
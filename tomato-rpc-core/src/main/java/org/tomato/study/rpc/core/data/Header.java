@@ -71,6 +71,11 @@ public class Header {
      */
     private long id;
 
+    /**
+     * capability flags {@link HeaderFlag}, only transferred by version 2 frames
+     */
+    private byte flags;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -82,7 +87,8 @@ public class Header {
                 && this.extensionLength == header.extensionLength
                 && this.messageType == header.messageType
                 && this.serializeType == header.serializeType
-                && this.id == header.id;
+                && this.id == header.id
+                && this.flags == header.flags;
     }
 
     @Override
@@ -94,7 +100,8 @@ public class Header {
                 this.extensionLength,
                 this.messageType,
                 this.serializeType,
-                this.id);
+                this.id,
+                this.flags);
     }
 
     @Override
@@ -105,6 +112,7 @@ public class Header {
                 "extensionLength: " + extensionLength +"\n" +
                 "messageType: " + messageType +"\n" +
                 "serializeType: " + serializeType +"\n" +
-                "id: " + id;
+                "id: " + id +"\n" +
+                "flags: " + flags;
     }
 }
@@ -0,0 +1,63 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.core.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * version 2 frame header flags {@link Header#getFlags()}
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+@Getter
+@AllArgsConstructor
+public enum HeaderFlag {
+
+    /**
+     * body is gzip compressed
+     */
+    COMPRESSED((byte) 0x01),
+
+    /**
+     * the caller does not wait for a response
+     */
+    ONEWAY((byte) 0x02),
+
+    /**
+     * body is transferred in several frames
+     */
+    STREAMED((byte) 0x04),
+
+    /**
+     * the request carries a deadline
+     */
+    HAS_DEADLINE((byte) 0x08),
+    ;
+
+    private final byte mask;
+
+    public boolean isSet(Header header) {
+        return (header.getFlags() & mask) != 0;
+    }
+
+    public void set(Header header) {
+        header.setFlags((byte) (header.getFlags() | mask));
+    }
+
+    public void clear(Header header) {
+        header.setFlags((byte) (header.getFlags() & ~mask));
+    }
+}
@@ -17,6 +17,7 @@ package org.tomato.study.rpc.core.data;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * RPC上下文
@@ -27,6 +28,11 @@ public class InvocationContext {
 
     public static final ThreadLocal<Map<String, String>> CONTEXT = new ThreadLocal<>();
 
+    /**
+     * 当前请求的截止时间({@link System#nanoTime()}), 只在本进程内有效, 不作为拓展头部传递
+     */
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
     public static Map<String, String> initContext() {
         Map<String, String> context = new HashMap<>();
         context.put(ExtensionHeader.TRACE_ID.getKeyName(), UUID.randomUUID().toString().replaceAll("-", ""));
@@ -56,5 +62,35 @@ public class InvocationContext {
 
     public static void remove() {
         CONTEXT.remove();
+        DEADLINE.remove();
+    }
+
+    /**
+     * 设置当前请求的截止时间
+     * @param deadlineNanos {@link System#nanoTime()}时间, 为null时清除
+     */
+    public static void setDeadline(Long deadlineNanos) {
+        if (deadlineNanos == null) {
+            DEADLINE.remove();
+        } else {
+            DEADLINE.set(deadlineNanos);
+        }
+    }
+
+    public static Long getDeadline() {
+        return DEADLINE.get();
+    }
+
+    /**
+     * 发起下游调用时可用的超时时间, 不超过当前请求剩余的时间
+     * @param timeoutMs 调用自身的超时时间
+     * @return 超时时间, 小于等于0表示当前请求已经超时
+     */
+    public static long remainingMillis(long timeoutMs) {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return timeoutMs;
+        }
+        return Math.min(timeoutMs, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
     }
 }
@@ -136,7 +136,7 @@ public class MetaData {
                 ID_PARAM_NAME, metaData.getMicroServiceId(),
                 STAGE_PARAM_NAME, metaData.getStage(),
                 GROUP_PARAM_NAME, metaData.getGroup(),
-                PROPERTY_KEY, metaData.getNodeProperty().toUrl());
+                PROPERTY_KEY, escape(metaData.getNodeProperty().toUrl()));
         return Optional.of(URI.create(url));
     }
 
@@ -220,14 +220,42 @@ public class MetaData {
         public static final String DELIMITER = ":";
         public static final String PROPERTY_DELIMITER = "#";
         public static final String WEIGHT_KEY = "weight";
+        public static final String VERSION_KEY = "version";
+        public static final String DOMAIN_SOCKET_KEY = "uds";
+        public static final String SHARED_MEMORY_KEY = "shm";
 
         /**
          * 均衡负载权重
          */
         public int weight;
 
+        /**
+         * 节点能解析的最高协议版本{@link ProtoConstants#LATEST_VERSION}, 旧节点不会上报, 为0
+         */
+        public int version;
+
+        /**
+         * 服务端监听的unix domain socket路径, 同一主机上的客户端可以绕过TCP协议栈, 未开启时为空
+         */
+        public String domainSocket;
+
+        /**
+         * 服务端接收共享内存连接的目录, 未开启时为空
+         */
+        public String sharedMemory;
+
         public String toUrl() {
-            return String.format("%s%s%s", WEIGHT_KEY, DELIMITER, weight);
+            StringBuilder url = new StringBuilder(WEIGHT_KEY).append(DELIMITER).append(weight);
+            if (version > 0) {
+                url.append(PROPERTY_DELIMITER).append(VERSION_KEY).append(DELIMITER).append(version);
+            }
+            if (domainSocket != null && !domainSocket.isBlank()) {
+                url.append(PROPERTY_DELIMITER).append(DOMAIN_SOCKET_KEY).append(DELIMITER).append(domainSocket);
+            }
+            if (sharedMemory != null && !sharedMemory.isBlank()) {
+                url.append(PROPERTY_DELIMITER).append(SHARED_MEMORY_KEY).append(DELIMITER).append(sharedMemory);
+            }
+            return url.toString();
         }
 
         @Override
@@ -236,6 +264,15 @@ public class MetaData {
         }
     }
 
+    /**
+     * 属性分隔符"#"在URL中表示fragment, 需要转义, 否则第一个分隔符之后的属性都会丢失
+     * @param propertyStr "weight:123#key2:abc"
+     * @return "weight:123%23key2:abc"
+     */
+    private static String escape(String propertyStr) {
+        return propertyStr.replace(NodeProperty.PROPERTY_DELIMITER, "%23");
+    }
+
     /**
      * 解析属性键值对
      * @param propertyStr "weight:123#key2:abc"
@@ -245,9 +282,16 @@ public class MetaData {
         String[] split = propertyStr.split(NodeProperty.PROPERTY_DELIMITER);
         NodeProperty nodeProperty = new NodeProperty();
         for (String part : split) {
-            String[] kv = part.split(NodeProperty.DELIMITER);
+            // 属性值(如socket路径)中可能包含分隔符
+            String[] kv = part.split(NodeProperty.DELIMITER, 2);
             if (NodeProperty.WEIGHT_KEY.equals(kv[0])) {
                 nodeProperty.weight = Integer.parseInt(kv[1]);
+            } else if (NodeProperty.VERSION_KEY.equals(kv[0])) {
+                nodeProperty.version = Integer.parseInt(kv[1]);
+            } else if (NodeProperty.DOMAIN_SOCKET_KEY.equals(kv[0])) {
+                nodeProperty.domainSocket = kv[1];
+            } else if (NodeProperty.SHARED_MEMORY_KEY.equals(kv[0])) {
+                nodeProperty.sharedMemory = kv[1];
             } else {
 
             }
@@ -0,0 +1,71 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.core.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * {@link CommandType#METHOD_TABLE_RESPONSE}的body, 服务端暴露的方法及其id
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class MethodTableDTO {
+
+    private List<Entry> methods;
+
+    @Getter
+    @Setter
+    @ToString
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+
+        /**
+         * {@link ProviderMethod#getMethodId()}
+         */
+        private int methodId;
+
+        /**
+         * {@link RpcRequestDTO#getMicroServiceId()}
+         */
+        private String microServiceId;
+
+        /**
+         * {@link RpcRequestDTO#getInterfaceName()}
+         */
+        private String interfaceName;
+
+        /**
+         * {@link RpcRequestDTO#getMethodName()}
+         */
+        private String methodName;
+
+        /**
+         * {@link RpcRequestDTO#getArgsTypes()}
+         */
+        private String[] argsTypes;
+    }
+}
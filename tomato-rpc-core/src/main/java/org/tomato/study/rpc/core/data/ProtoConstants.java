@@ -31,14 +31,99 @@ public final class ProtoConstants {
      */
     public static final int VERSION1 = 20210403;
 
+    /**
+     * command version 1 with binary(TLV) extension header {@link BinaryExtensionHeader},
+     * frame layout is the same as version 1
+     */
+    public static final int VERSION1_TLV = 20261018;
+
+    /**
+     * command version 2, compact header with 1 byte version, varint lengths and capability flags,
+     * extension header is always encoded as TLV
+     * +-------+---------+-------+--------+------------+----------+-----------+------------+-----------+------+
+     * | magic | version | flags | length | ext length |   type   | serialize | message id | extension | body |
+     * |  1 B  |   1 B   |  1 B  | varint |   varint   |  varint  |    1 B    |   varlong  |           |      |
+     * +-------+---------+-------+--------+------------+----------+-----------+------------+-----------+------+
+     * the version byte on the wire is {@link #COMPACT_VERSION_MASK} | version,
+     * v1 frames carry a non-negative int length at the same position so the high bit is never set
+     */
+    public static final int VERSION2 = 2;
+
+    /**
+     * high bit of the second byte, marks a compact(version 2+) frame
+     */
+    public static final int COMPACT_VERSION_MASK = 0x80;
+
     /**
      * command current header
      */
     public static final int CURRENT_VERSION = VERSION1;
 
+    /**
+     * the highest version this node can decode, advertised to clients through {@link MetaData.NodeProperty}
+     */
+    public static final int LATEST_VERSION = VERSION2;
+
     /**
      * command header fixed length
      */
     public static final int HEAD_FIX_LENGTH = 19;
 
+    /**
+     * 默认的数据帧最大长度
+     */
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * 默认的分块大小, body超过该大小时分块发送
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * 默认的分块消息最大长度, 接收方还原的消息超过该大小时关闭连接
+     */
+    public static final int DEFAULT_MAX_MESSAGE_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * 默认的单个连接上正在接收的分块消息总大小上限
+     */
+    public static final int DEFAULT_MAX_STREAMING_BYTES = 256 * 1024 * 1024;
+
+    /**
+     * 默认的单个连接上同时接收的分块消息数上限
+     */
+    public static final int DEFAULT_MAX_STREAMING_MESSAGES = 1024;
+
+    /**
+     * whether the extension header of the version is encoded as TLV
+     * @param version command version
+     * @return true binary extension header
+     */
+    public static boolean isBinaryExtension(int version) {
+        return version == VERSION1_TLV || isCompactVersion(version);
+    }
+
+    /**
+     * whether the version uses the compact header layout
+     * @param version command version
+     * @return true version 2+
+     */
+    public static boolean isCompactVersion(int version) {
+        return version >= VERSION2 && version < COMPACT_VERSION_MASK;
+    }
+
+    /**
+     * choose the highest version both sides support
+     * @param advertisedVersion the version advertised by the server, 0 for the legacy servers
+     * @return negotiated version
+     */
+    public static int negotiate(int advertisedVersion) {
+        if (isCompactVersion(advertisedVersion)) {
+            return VERSION2;
+        }
+        if (advertisedVersion == VERSION1_TLV) {
+            return VERSION1_TLV;
+        }
+        return VERSION1;
+    }
 }
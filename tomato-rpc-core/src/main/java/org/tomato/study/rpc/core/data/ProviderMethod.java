@@ -0,0 +1,147 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.core.data;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.tomato.study.rpc.core.annotation.RpcNonBlocking;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * 服务端暴露的一个方法, 注册时分配id并绑定好服务实现类对象的MethodHandle
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+@Getter
+@ToString
+public class ProviderMethod {
+
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    /**
+     * 调用的统一签名: (Object[])Object
+     */
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * 方法id, 从1开始, 服务端进程内不变, 重启后可能变化
+     */
+    private final int methodId;
+
+    /**
+     * 服务所属的micro-service-id
+     */
+    private final String microServiceId;
+
+    /**
+     * 服务接口
+     */
+    private final Class<?> providerInterface;
+
+    /**
+     * 接口方法
+     */
+    private final Method method;
+
+    /**
+     * 参数类型的类名, 与{@link RpcRequestDTO#getArgsTypes()}对应
+     */
+    private final String[] argsTypes;
+
+    /**
+     * 服务实现类对象
+     */
+    @ToString.Exclude
+    private final Object provider;
+
+    /**
+     * 是否可以直接在IO线程中执行, 见{@link RpcNonBlocking}
+     */
+    private final boolean nonBlocking;
+
+    /**
+     * 已绑定provider并展开参数数组的MethodHandle
+     */
+    @ToString.Exclude
+    private final MethodHandle invoker;
+
+    public ProviderMethod(int methodId,
+                          String microServiceId,
+                          Class<?> providerInterface,
+                          Method method,
+                          Object provider) {
+        this(methodId, microServiceId, providerInterface, method, provider, false);
+    }
+
+    /**
+     * @param nonBlocking 整个服务实现都不会阻塞, 为false时以{@link RpcNonBlocking}注解为准
+     */
+    public ProviderMethod(int methodId,
+                          String microServiceId,
+                          Class<?> providerInterface,
+                          Method method,
+                          Object provider,
+                          boolean nonBlocking) {
+        this.methodId = methodId;
+        this.microServiceId = microServiceId;
+        this.providerInterface = providerInterface;
+        this.method = method;
+        this.provider = provider;
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        this.argsTypes = new String[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            argsTypes[i] = parameterTypes[i].getName();
+        }
+        this.nonBlocking = nonBlocking
+                || method.isAnnotationPresent(RpcNonBlocking.class)
+                || providerInterface.isAnnotationPresent(RpcNonBlocking.class);
+        this.invoker = createInvoker(method, provider);
+    }
+
+    /**
+     * 调用服务实现类的方法
+     * @param args 参数, 个数和类型不匹配时抛出异常
+     * @return 方法返回值, 无返回值时为null
+     * @throws Throwable 方法本身抛出的异常
+     */
+    public Object invoke(Object[] args) throws Throwable {
+        return (Object) invoker.invokeExact(args == null ? EMPTY_ARGS : args);
+    }
+
+    private static MethodHandle createInvoker(Method method, Object provider) {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            // 非public的接口
+            try {
+                method.setAccessible(true);
+                handle = MethodHandles.lookup().unreflect(method);
+            } catch (RuntimeException | IllegalAccessException exception) {
+                throw new TomatoRpcRuntimeException(exception, TomatoRpcErrorEnum.CORE_SERVICE_REGISTER_PROVIDER_ERROR,
+                        "method not accessible: " + method);
+            }
+        }
+        return handle.bindTo(provider)
+                .asSpreader(Object[].class, method.getParameterCount())
+                .asType(INVOKER_TYPE);
+    }
+}
@@ -12,38 +12,28 @@
  *  limitations under the License.
  */
 
-package org.tomato.study.rpc.netty.transport.client;
+package org.tomato.study.rpc.core.data;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.tomato.study.rpc.core.data.Command;
 
-import java.util.concurrent.CompletableFuture;
+import java.util.List;
 
 /**
- * 包装Future
+ * {@link CommandType#RPC_BATCH_RESPONSE}的body
  * @author Tomato
- * Created on 2021.04.08
+ * Created on 2026.10.18
  */
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-public class NettyResponseFuture {
+public class RpcBatchResponse {
 
-    private long messageId;
-
-    private CompletableFuture<Command> future;
-
-    private long timeStamp;
-
-    public boolean complete(Command command) {
-        return future.complete(command);
-    }
-
-    public boolean completeExceptionally(Throwable exception) {
-        return future.completeExceptionally(exception);
-    }
+    /**
+     * 与{@link RpcBatchRequestDTO#getEntries()}一一对应
+     */
+    private List<RpcResponse> responses;
 }
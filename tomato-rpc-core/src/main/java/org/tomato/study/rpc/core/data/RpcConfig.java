@@ -35,6 +35,36 @@ import java.util.List;
  * @param circuitOpenRate                 错误率超过多少时开启熔断
  * @param circuitOpenSeconds              断路器开启多久后进入半开模式
  * @param circuitWindow                   采样窗口
+ * @param maxFrameLength                  单个数据帧的最大长度
+ * @param chunkSize                       body超过该大小时分块发送, 仅对v2协议生效
+ * @param maxMessageSize                  接收分块消息时还原出的单个消息的最大长度, 超过时关闭连接
+ * @param maxStreamingBytes               单个连接上所有正在接收的分块消息的总大小上限, 超过时关闭连接
+ * @param maxStreamingMessages            单个连接上同时接收的分块消息数上限, 超过时关闭连接
+ * @param flushConsolidationLimit         大于0时合并flush, 每个EventLoop周期或累计该数量的消息后才真正flush
+ * @param clientBatchWindowMicroseconds   大于0时客户端在该时间窗口内把发往同一节点的调用合并为一个批量请求
+ * @param clientBatchMaxSize              一个批量请求最多包含的调用数
+ * @param clientIoThreads                 所有客户端共用的IO线程数, 小于等于0时使用netty的默认值
+ * @param clientConnectionsPerNode        每个服务节点建立的连接数
+ * @param clientReconnectBaseMilliseconds 断线重连的初始退避时间, 每次失败后翻倍
+ * @param clientReconnectMaxMilliseconds  断线重连的最大退避时间
+ * @param clientWriteBufferLowWaterMark   连接写缓冲区的低水位, 不可写的连接待写数据低于该值后恢复可写
+ * @param clientWriteBufferHighWaterMark  连接写缓冲区的高水位, 待写数据超过该值后连接不可写
+ * @param clientMaxInFlightPerConnection  单个连接的最大在途请求数, 小于等于0时不限制
+ * @param clientSaturatedWaitMilliseconds 连接饱和(不可写或在途请求数达到上限)时发送方的最长等待时间, 0表示立即失败
+ * @param transport                       网络传输实现, 对应Transport的SPI key(epoll/nio), 不可用时退回nio
+ * @param serverReusePortBinds            大于1时以SO_REUSEPORT绑定多个监听channel, 由内核分发新连接, 仅epoll支持
+ * @param tcpQuickAck                     是否开启TCP_QUICKACK, 仅epoll支持
+ * @param busyPollMicroseconds            大于0时开启SO_BUSY_POLL, 读socket时忙轮询网卡队列的时间, 仅epoll支持
+ * @param receiveBufferSize               socket接收缓冲区大小(SO_RCVBUF), 小于等于0时使用系统默认值
+ * @param serverDomainSocketPath          不为空时服务端同时监听该unix domain socket并通过注册中心告知客户端, 仅epoll支持
+ * @param clientUseDomainSocket           服务端与客户端在同一主机并且开启了unix domain socket时, 客户端通过它连接服务端
+ * @param serverSharedMemoryPath          不为空时服务端在该目录下通过共享内存环形缓冲区接收同一主机上客户端的连接, 如/dev/shm/tomato-rpc
+ * @param clientUseSharedMemory           服务端与客户端在同一主机并且开启了共享内存传输时, 客户端优先通过共享内存连接
+ * @param clientSharedMemoryRingCapacity  共享内存连接每个方向的环形缓冲区大小, 向上取整到2的幂
+ * @param clientInJvm                     订阅的服务节点就是本进程时直接调用本进程注册的服务实现, 不经过序列化和网络
+ * @param clientInJvmCopy                 进程内调用时通过序列化复制参数和返回值, 避免调用双方共享可变对象
+ * @param businessExecutorMode            业务线程执行方式, pool为固定大小的线程池, virtual为每个请求一个虚拟线程
+ * @param businessMaxConcurrency          virtual模式下同时处理的请求数上限
  * @author Tomato
  * Created on 2021.07.11
  */
@@ -52,7 +82,37 @@ public record RpcConfig(String protocol,
                         boolean enableCircuit,
                         double circuitOpenRate,
                         long circuitOpenSeconds,
-                        int circuitWindow) {
+                        int circuitWindow,
+                        int maxFrameLength,
+                        int chunkSize,
+                        int maxMessageSize,
+                        int maxStreamingBytes,
+                        int maxStreamingMessages,
+                        int flushConsolidationLimit,
+                        long clientBatchWindowMicroseconds,
+                        int clientBatchMaxSize,
+                        int clientIoThreads,
+                        int clientConnectionsPerNode,
+                        long clientReconnectBaseMilliseconds,
+                        long clientReconnectMaxMilliseconds,
+                        int clientWriteBufferLowWaterMark,
+                        int clientWriteBufferHighWaterMark,
+                        int clientMaxInFlightPerConnection,
+                        long clientSaturatedWaitMilliseconds,
+                        String transport,
+                        int serverReusePortBinds,
+                        boolean tcpQuickAck,
+                        int busyPollMicroseconds,
+                        int receiveBufferSize,
+                        String serverDomainSocketPath,
+                        boolean clientUseDomainSocket,
+                        String serverSharedMemoryPath,
+                        boolean clientUseSharedMemory,
+                        int clientSharedMemoryRingCapacity,
+                        boolean clientInJvm,
+                        boolean clientInJvmCopy,
+                        String businessExecutorMode,
+                        int businessMaxConcurrency) {
 
     public static Builder builder() {
         return new Builder();
@@ -74,6 +134,36 @@ public record RpcConfig(String protocol,
         private double circuitOpenRate = 0.75;
         private long circuitOpenSeconds = 60;
         private int circuitWindow = 10000;
+        private int maxFrameLength = ProtoConstants.DEFAULT_MAX_FRAME_LENGTH;
+        private int chunkSize = ProtoConstants.DEFAULT_CHUNK_SIZE;
+        private int maxMessageSize = ProtoConstants.DEFAULT_MAX_MESSAGE_SIZE;
+        private int maxStreamingBytes = ProtoConstants.DEFAULT_MAX_STREAMING_BYTES;
+        private int maxStreamingMessages = ProtoConstants.DEFAULT_MAX_STREAMING_MESSAGES;
+        private int flushConsolidationLimit = 0;
+        private long clientBatchWindowMicroseconds = 0;
+        private int clientBatchMaxSize = 64;
+        private int clientIoThreads = 0;
+        private int clientConnectionsPerNode = 1;
+        private long clientReconnectBaseMilliseconds = 100;
+        private long clientReconnectMaxMilliseconds = 10000;
+        private int clientWriteBufferLowWaterMark = 32 * 1024;
+        private int clientWriteBufferHighWaterMark = 64 * 1024;
+        private int clientMaxInFlightPerConnection = 0;
+        private long clientSaturatedWaitMilliseconds = 10;
+        private String transport = "epoll";
+        private int serverReusePortBinds = 1;
+        private boolean tcpQuickAck = false;
+        private int busyPollMicroseconds = 0;
+        private int receiveBufferSize = 0;
+        private String serverDomainSocketPath = null;
+        private boolean clientUseDomainSocket = true;
+        private String serverSharedMemoryPath = null;
+        private boolean clientUseSharedMemory = true;
+        private int clientSharedMemoryRingCapacity = 1024 * 1024;
+        private boolean clientInJvm = true;
+        private boolean clientInJvmCopy = false;
+        private String businessExecutorMode = "pool";
+        private int businessMaxConcurrency = 10000;
 
         public Builder protocol(String protocol) {
             this.protocol = protocol;
@@ -150,6 +240,156 @@ public record RpcConfig(String protocol,
             return this;
         }
 
+        public Builder maxFrameLength(int maxFrameLength) {
+            this.maxFrameLength = maxFrameLength;
+            return this;
+        }
+
+        public Builder chunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public Builder maxMessageSize(int maxMessageSize) {
+            this.maxMessageSize = maxMessageSize;
+            return this;
+        }
+
+        public Builder maxStreamingBytes(int maxStreamingBytes) {
+            this.maxStreamingBytes = maxStreamingBytes;
+            return this;
+        }
+
+        public Builder maxStreamingMessages(int maxStreamingMessages) {
+            this.maxStreamingMessages = maxStreamingMessages;
+            return this;
+        }
+
+        public Builder flushConsolidationLimit(int flushConsolidationLimit) {
+            this.flushConsolidationLimit = flushConsolidationLimit;
+            return this;
+        }
+
+        public Builder clientBatchWindowMicroseconds(long clientBatchWindowMicroseconds) {
+            this.clientBatchWindowMicroseconds = clientBatchWindowMicroseconds;
+            return this;
+        }
+
+        public Builder clientBatchMaxSize(int clientBatchMaxSize) {
+            this.clientBatchMaxSize = clientBatchMaxSize;
+            return this;
+        }
+
+        public Builder clientIoThreads(int clientIoThreads) {
+            this.clientIoThreads = clientIoThreads;
+            return this;
+        }
+
+        public Builder clientConnectionsPerNode(int clientConnectionsPerNode) {
+            this.clientConnectionsPerNode = clientConnectionsPerNode;
+            return this;
+        }
+
+        public Builder clientReconnectBaseMilliseconds(long clientReconnectBaseMilliseconds) {
+            this.clientReconnectBaseMilliseconds = clientReconnectBaseMilliseconds;
+            return this;
+        }
+
+        public Builder clientReconnectMaxMilliseconds(long clientReconnectMaxMilliseconds) {
+            this.clientReconnectMaxMilliseconds = clientReconnectMaxMilliseconds;
+            return this;
+        }
+
+        public Builder clientWriteBufferLowWaterMark(int clientWriteBufferLowWaterMark) {
+            this.clientWriteBufferLowWaterMark = clientWriteBufferLowWaterMark;
+            return this;
+        }
+
+        public Builder clientWriteBufferHighWaterMark(int clientWriteBufferHighWaterMark) {
+            this.clientWriteBufferHighWaterMark = clientWriteBufferHighWaterMark;
+            return this;
+        }
+
+        public Builder clientMaxInFlightPerConnection(int clientMaxInFlightPerConnection) {
+            this.clientMaxInFlightPerConnection = clientMaxInFlightPerConnection;
+            return this;
+        }
+
+        public Builder clientSaturatedWaitMilliseconds(long clientSaturatedWaitMilliseconds) {
+            this.clientSaturatedWaitMilliseconds = clientSaturatedWaitMilliseconds;
+            return this;
+        }
+
+        public Builder transport(String transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        public Builder serverReusePortBinds(int serverReusePortBinds) {
+            this.serverReusePortBinds = serverReusePortBinds;
+            return this;
+        }
+
+        public Builder tcpQuickAck(boolean tcpQuickAck) {
+            this.tcpQuickAck = tcpQuickAck;
+            return this;
+        }
+
+        public Builder busyPollMicroseconds(int busyPollMicroseconds) {
+            this.busyPollMicroseconds = busyPollMicroseconds;
+            return this;
+        }
+
+        public Builder receiveBufferSize(int receiveBufferSize) {
+            this.receiveBufferSize = receiveBufferSize;
+            return this;
+        }
+
+        public Builder serverDomainSocketPath(String serverDomainSocketPath) {
+            this.serverDomainSocketPath = serverDomainSocketPath;
+            return this;
+        }
+
+        public Builder clientUseDomainSocket(boolean clientUseDomainSocket) {
+            this.clientUseDomainSocket = clientUseDomainSocket;
+            return this;
+        }
+
+        public Builder serverSharedMemoryPath(String serverSharedMemoryPath) {
+            this.serverSharedMemoryPath = serverSharedMemoryPath;
+            return this;
+        }
+
+        public Builder clientUseSharedMemory(boolean clientUseSharedMemory) {
+            this.clientUseSharedMemory = clientUseSharedMemory;
+            return this;
+        }
+
+        public Builder clientSharedMemoryRingCapacity(int clientSharedMemoryRingCapacity) {
+            this.clientSharedMemoryRingCapacity = clientSharedMemoryRingCapacity;
+            return this;
+        }
+
+        public Builder clientInJvm(boolean clientInJvm) {
+            this.clientInJvm = clientInJvm;
+            return this;
+        }
+
+        public Builder clientInJvmCopy(boolean clientInJvmCopy) {
+            this.clientInJvmCopy = clientInJvmCopy;
+            return this;
+        }
+
+        public Builder businessExecutorMode(String businessExecutorMode) {
+            this.businessExecutorMode = businessExecutorMode;
+            return this;
+        }
+
+        public Builder businessMaxConcurrency(int businessMaxConcurrency) {
+            this.businessMaxConcurrency = businessMaxConcurrency;
+            return this;
+        }
+
         public RpcConfig build() {
             return new RpcConfig(
                 this.protocol,
@@ -166,7 +406,37 @@ public record RpcConfig(String protocol,
                 this.enableCircuit,
                 this.circuitOpenRate,
                 this.circuitOpenSeconds,
-                this.circuitWindow
+                this.circuitWindow,
+                this.maxFrameLength,
+                this.chunkSize,
+                this.maxMessageSize,
+                this.maxStreamingBytes,
+                this.maxStreamingMessages,
+                this.flushConsolidationLimit,
+                this.clientBatchWindowMicroseconds,
+                this.clientBatchMaxSize,
+                this.clientIoThreads,
+                this.clientConnectionsPerNode,
+                this.clientReconnectBaseMilliseconds,
+                this.clientReconnectMaxMilliseconds,
+                this.clientWriteBufferLowWaterMark,
+                this.clientWriteBufferHighWaterMark,
+                this.clientMaxInFlightPerConnection,
+                this.clientSaturatedWaitMilliseconds,
+                this.transport,
+                this.serverReusePortBinds,
+                this.tcpQuickAck,
+                this.busyPollMicroseconds,
+                this.receiveBufferSize,
+                this.serverDomainSocketPath,
+                this.clientUseDomainSocket,
+                this.serverSharedMemoryPath,
+                this.clientUseSharedMemory,
+                this.clientSharedMemoryRingCapacity,
+                this.clientInJvm,
+                this.clientInJvmCopy,
+                this.businessExecutorMode,
+                this.businessMaxConcurrency
             );
         }
     }
@@ -67,6 +67,12 @@ public class RpcRequestDTO implements Invocation {
      */
     private Object[] args;
 
+    /**
+     * 服务端分配的方法id, 不为空时其他方法描述字段不传输
+     * {@link ProviderMethod#getMethodId()}
+     */
+    private Integer methodId;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -81,12 +87,13 @@ public class RpcRequestDTO implements Invocation {
                 && Objects.equals(methodName, that.methodName)
                 && Arrays.equals(argsTypes, that.argsTypes)
                 && Objects.equals(returnType, that.returnType)
-                && Arrays.equals(args, that.args);
+                && Arrays.equals(args, that.args)
+                && Objects.equals(methodId, that.methodId);
     }
 
     @Override
     public int hashCode() {
-        int result = Objects.hash(microServiceId, interfaceName, methodName, returnType);
+        int result = Objects.hash(microServiceId, interfaceName, methodName, returnType, methodId);
         result = 31 * result + Arrays.hashCode(argsTypes);
         result = 31 * result + Arrays.hashCode(args);
         return result;
@@ -26,6 +26,16 @@ import lombok.Getter;
 @AllArgsConstructor
 public class RpcServerConfig {
 
+    /**
+     * 固定大小的业务线程池
+     */
+    public static final String BUSINESS_EXECUTOR_POOL = "pool";
+
+    /**
+     * 每个请求一个虚拟线程
+     */
+    public static final String BUSINESS_EXECUTOR_VIRTUAL = "virtual";
+
     /**
      * 服务ip
      */
@@ -46,6 +56,16 @@ public class RpcServerConfig {
      */
     private final int businessThreadPoolSize;
 
+    /**
+     * 业务线程执行方式
+     */
+    private final String businessExecutorMode;
+
+    /**
+     * virtual模式下同时处理的请求数上限
+     */
+    private final int businessMaxConcurrency;
+
     /**
      * 读空闲检测
      */
@@ -56,6 +76,71 @@ public class RpcServerConfig {
      */
     private final long clientKeepAliveMilliseconds;
 
+    /**
+     * 单个数据帧的最大长度
+     */
+    private final int maxFrameLength;
+
+    /**
+     * 响应body超过该大小时分块发送
+     */
+    private final int chunkSize;
+
+    /**
+     * 接收分块请求时还原出的单个消息的最大长度
+     */
+    private final int maxMessageSize;
+
+    /**
+     * 单个连接上所有正在接收的分块消息的总大小上限
+     */
+    private final int maxStreamingBytes;
+
+    /**
+     * 单个连接上同时接收的分块消息数上限
+     */
+    private final int maxStreamingMessages;
+
+    /**
+     * 大于0时合并响应的flush
+     */
+    private final int flushConsolidationLimit;
+
+    /**
+     * 网络传输实现, 对应Transport的SPI key
+     */
+    private final String transport;
+
+    /**
+     * 以SO_REUSEPORT绑定的监听channel数量
+     */
+    private final int reusePortBinds;
+
+    /**
+     * 是否开启TCP_QUICKACK
+     */
+    private final boolean tcpQuickAck;
+
+    /**
+     * SO_BUSY_POLL忙轮询时间
+     */
+    private final int busyPollMicroseconds;
+
+    /**
+     * socket接收缓冲区大小, 小于等于0时使用系统默认值
+     */
+    private final int receiveBufferSize;
+
+    /**
+     * 不为空时同时监听该unix domain socket
+     */
+    private final String domainSocketPath;
+
+    /**
+     * 不为空时同时在该目录下接收共享内存连接
+     */
+    private final String sharedMemoryPath;
+
     public static Builder builder() {
         return new Builder();
     }
@@ -65,8 +150,23 @@ public class RpcServerConfig {
         private int port = 9090;
         private boolean useBusinessThreadPool = false;
         private int businessThreadPoolSize = 0;
+        private String businessExecutorMode = BUSINESS_EXECUTOR_POOL;
+        private int businessMaxConcurrency = 10000;
         private long serverReadIdleCheckMilliseconds = 600000;
         private long clientKeepAliveMilliseconds = serverReadIdleCheckMilliseconds / 3;
+        private int maxFrameLength = ProtoConstants.DEFAULT_MAX_FRAME_LENGTH;
+        private int chunkSize = ProtoConstants.DEFAULT_CHUNK_SIZE;
+        private int maxMessageSize = ProtoConstants.DEFAULT_MAX_MESSAGE_SIZE;
+        private int maxStreamingBytes = ProtoConstants.DEFAULT_MAX_STREAMING_BYTES;
+        private int maxStreamingMessages = ProtoConstants.DEFAULT_MAX_STREAMING_MESSAGES;
+        private int flushConsolidationLimit = 0;
+        private String transport = "epoll";
+        private int reusePortBinds = 1;
+        private boolean tcpQuickAck = false;
+        private int busyPollMicroseconds = 0;
+        private int receiveBufferSize = 0;
+        private String domainSocketPath = null;
+        private String sharedMemoryPath = null;
 
         public Builder host(String host) {
             this.host = host;
@@ -88,6 +188,16 @@ public class RpcServerConfig {
             return this;
         }
 
+        public Builder businessExecutorMode(String businessExecutorMode) {
+            this.businessExecutorMode = businessExecutorMode;
+            return this;
+        }
+
+        public Builder businessMaxConcurrency(int businessMaxConcurrency) {
+            this.businessMaxConcurrency = businessMaxConcurrency;
+            return this;
+        }
+
         public Builder serverReadIdleCheckMilliseconds(long serverReadIdleCheckMilliseconds) {
             this.serverReadIdleCheckMilliseconds = serverReadIdleCheckMilliseconds;
             return this;
@@ -98,14 +208,94 @@ public class RpcServerConfig {
             return this;
         }
 
+        public Builder maxFrameLength(int maxFrameLength) {
+            this.maxFrameLength = maxFrameLength;
+            return this;
+        }
+
+        public Builder chunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public Builder maxMessageSize(int maxMessageSize) {
+            this.maxMessageSize = maxMessageSize;
+            return this;
+        }
+
+        public Builder maxStreamingBytes(int maxStreamingBytes) {
+            this.maxStreamingBytes = maxStreamingBytes;
+            return this;
+        }
+
+        public Builder maxStreamingMessages(int maxStreamingMessages) {
+            this.maxStreamingMessages = maxStreamingMessages;
+            return this;
+        }
+
+        public Builder flushConsolidationLimit(int flushConsolidationLimit) {
+            this.flushConsolidationLimit = flushConsolidationLimit;
+            return this;
+        }
+
+        public Builder transport(String transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        public Builder reusePortBinds(int reusePortBinds) {
+            this.reusePortBinds = reusePortBinds;
+            return this;
+        }
+
+        public Builder tcpQuickAck(boolean tcpQuickAck) {
+            this.tcpQuickAck = tcpQuickAck;
+            return this;
+        }
+
+        public Builder busyPollMicroseconds(int busyPollMicroseconds) {
+            this.busyPollMicroseconds = busyPollMicroseconds;
+            return this;
+        }
+
+        public Builder receiveBufferSize(int receiveBufferSize) {
+            this.receiveBufferSize = receiveBufferSize;
+            return this;
+        }
+
+        public Builder domainSocketPath(String domainSocketPath) {
+            this.domainSocketPath = domainSocketPath;
+            return this;
+        }
+
+        public Builder sharedMemoryPath(String sharedMemoryPath) {
+            this.sharedMemoryPath = sharedMemoryPath;
+            return this;
+        }
+
         public RpcServerConfig build() {
             return new RpcServerConfig(
                     host,
                     port,
                     useBusinessThreadPool,
                     businessThreadPoolSize,
+                    businessExecutorMode,
+                    businessMaxConcurrency,
                     serverReadIdleCheckMilliseconds,
-                    clientKeepAliveMilliseconds
+                    clientKeepAliveMilliseconds,
+                    maxFrameLength,
+                    chunkSize,
+                    maxMessageSize,
+                    maxStreamingBytes,
+                    maxStreamingMessages,
+                    flushConsolidationLimit,
+                    transport,
+                    reusePortBinds,
+                    tcpQuickAck,
+                    busyPollMicroseconds,
+                    receiveBufferSize,
+                    domainSocketPath,
+                    sharedMemoryPath
             );
         }
     }
@@ -41,6 +41,11 @@ public enum TomatoRpcErrorEnum {
     RPC_COMPONENT_LIFE_CYCLE_INVALID_STATE(10005, "invalid rpc component state"),
     RPC_CONNECTION_TIMEOUT(10006, "connect timeout"),
     RPC_REGISTRY_CLOSE_ERROR(10007, "rpc registry close failed"),
+    RPC_CONNECTION_UNAVAILABLE(10008, "no available connection, reconnecting"),
+    RPC_CONNECTION_CLOSED(10009, "connection closed before response received"),
+    RPC_CONNECTION_SATURATED(10010, "connection write buffer or in-flight requests exceed the limit"),
+    RPC_DEADLINE_EXCEEDED(10011, "request deadline exceeded"),
+    RPC_MESSAGE_TOO_LARGE(10012, "chunked message exceeds the max message size"),
 
     RPC_ROUND_ROBIN_LOAD_BALANCE_ERROR(20001, "round robin error"),
     RPC_SERIALIZE_ERROR(20002, "json serialize failed"),
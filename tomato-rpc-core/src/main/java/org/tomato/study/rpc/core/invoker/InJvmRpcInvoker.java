@@ -0,0 +1,227 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.tomato.study.rpc.core.invoker;
+
+import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.core.ProviderRegistry;
+import org.tomato.study.rpc.core.data.ExtensionHeader;
+import org.tomato.study.rpc.core.data.Invocation;
+import org.tomato.study.rpc.core.data.InvocationContext;
+import org.tomato.study.rpc.core.data.MetaData;
+import org.tomato.study.rpc.core.data.ProviderMethod;
+import org.tomato.study.rpc.core.data.Response;
+import org.tomato.study.rpc.core.data.Result;
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.data.RpcRequestDTO;
+import org.tomato.study.rpc.core.data.RpcResponse;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.error.TomatoRpcException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务节点就是当前进程时, 直接调用本进程注册的服务实现, 不经过序列化和网络
+ * 错误码与服务端处理请求时一致, 熔断和路由照常生效
+ * 服务实现在本地调用线程池中执行, 调用方线程不执行服务实现, 异步方法的调用方不会阻塞;
+ * 超时后以超时结束并中断线程池中仍在执行的服务实现, 不会中断调用方线程
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class InJvmRpcInvoker extends BaseRpcInvoker {
+
+    private static final String TIMEOUT_THREAD_NAME = "rpc-injvm-timeout-thread";
+
+    private static final String EXECUTOR_THREAD_NAME = "rpc-injvm-executor-thread";
+
+    /**
+     * 本地调用线程池的最大线程数, 超过后快速失败
+     */
+    private static final int MAX_EXECUTOR_THREADS = 256;
+
+    /**
+     * 所有本地调用共用的超时线程
+     */
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, TIMEOUT_THREAD_NAME);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 所有本地调用共用的线程池, 空闲线程60s后回收
+     */
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            0, MAX_EXECUTOR_THREADS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, EXECUTOR_THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * 本进程的服务实现
+     */
+    private final ProviderRegistry providerRegistry;
+
+    /**
+     * 是否通过序列化复制参数和返回值
+     */
+    private final boolean copy;
+
+    public InJvmRpcInvoker(MetaData nodeInfo, RpcConfig rpcConfig, ProviderRegistry providerRegistry) {
+        super(nodeInfo, rpcConfig);
+        this.providerRegistry = providerRegistry;
+        this.copy = rpcConfig.clientInJvmCopy();
+    }
+
+    @Override
+    protected Result doInvoke(Invocation invocation) throws TomatoRpcException {
+        long timeoutMs = getTimeoutMs();
+        // 服务实现对上下文的修改不影响调用方
+        Map<String, String> originContext = InvocationContext.get();
+        Map<String, String> context = originContext == null ? new HashMap<>(0) : new HashMap<>(originContext);
+        // 与服务端一致, 服务实现中的嵌套调用继承剩余的超时时间
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Invocation target = copy ? copyOf(invocation, RpcRequestDTO.class) : invocation;
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = EXECUTOR.submit(() -> execute(target, context, deadline, future));
+        } catch (RejectedExecutionException exception) {
+            Logger.DEFAULT.warn("in jvm rpc rejected, invocation: {}", invocation);
+            return new InJvmResult(CompletableFuture.completedFuture(
+                    RpcResponse.fail(TomatoRpcErrorEnum.NETTY_REQUEST_HANDLE_ERROR, "in jvm rpc executor is busy")));
+        }
+        ScheduledFuture<?> timeoutTask = TIMER.schedule(() -> {
+            if (future.complete(timeoutResponse(invocation))) {
+                // 中断的是本地调用线程池中的线程, 服务实现响应中断后尽早释放线程
+                task.cancel(true);
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+        future.whenComplete((response, cause) -> {
+            timeoutTask.cancel(false);
+            // 调用方取消时停止执行
+            if (future.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return new InJvmResult(future);
+    }
+
+    private long getTimeoutMs() {
+        return Optional.ofNullable(ExtensionHeader.TIMEOUT.getValueFromContext())
+                .map(Long::valueOf)
+                .orElse(getRpcConfig().globalClientTimeoutMilliseconds());
+    }
+
+    /**
+     * 在本地调用线程池中执行服务实现, 返回CompletionStage的服务实现在其完成时结束, 不等待
+     */
+    private void execute(Invocation invocation,
+                         Map<String, String> context,
+                         long deadline,
+                         CompletableFuture<Response> future) {
+        Map<String, String> originContext = InvocationContext.get();
+        Long originDeadline = InvocationContext.getDeadline();
+        InvocationContext.set(context);
+        InvocationContext.setDeadline(deadline);
+        try {
+            ProviderMethod providerMethod = providerRegistry.getMethod(invocation.getMicroServiceId(),
+                    invocation.getInterfaceName(), invocation.getMethodName(), invocation.getArgsTypes());
+            if (providerMethod == null) {
+                complete(future, RpcResponse.fail(TomatoRpcErrorEnum.NETTY_HANDLER_PROVIDER_NOT_FOUND,
+                        String.format("%s provider method not found: %s#%s", invocation.getMicroServiceId(),
+                                invocation.getInterfaceName(), invocation.getMethodName())));
+                return;
+            }
+            Object[] args = invocation.getArgs();
+            if ((args == null ? 0 : args.length) != providerMethod.getArgsTypes().length) {
+                complete(future, RpcResponse.fail(TomatoRpcErrorEnum.MODEL_DTO_CONVERT_ERROR, "parameter error"));
+                return;
+            }
+            Object result;
+            try {
+                result = providerMethod.invoke(args);
+            } catch (Throwable exception) {
+                complete(future, failResponse(providerMethod, exception));
+                return;
+            }
+            if (!(result instanceof CompletionStage<?> stage)) {
+                complete(future, RpcResponse.success(result));
+                return;
+            }
+            // 异步方法的结果由完成它的线程写入
+            stage.whenComplete((value, cause) -> complete(future,
+                    cause == null ? RpcResponse.success(value) : failResponse(providerMethod, cause)));
+        } finally {
+            InvocationContext.set(originContext);
+            InvocationContext.setDeadline(originDeadline);
+        }
+    }
+
+    private void complete(CompletableFuture<Response> future, RpcResponse response) {
+        future.complete(copy ? copyOf(response, RpcResponse.class) : response);
+    }
+
+    private static RpcResponse failResponse(ProviderMethod providerMethod, Throwable exception) {
+        Logger.DEFAULT.error("rpc handle failed", exception);
+        return RpcResponse.fail(TomatoRpcErrorEnum.NETTY_HANDLER_RPC_INVOKER_ERROR,
+                "rpc method call failed: " + providerMethod.getMethod().getName());
+    }
+
+    private static RpcResponse timeoutResponse(Invocation invocation) {
+        Logger.DEFAULT.warn("in jvm rpc timeout, invocation: {}", invocation);
+        return RpcResponse.fail(TomatoRpcErrorEnum.RPC_INVOCATION_TIMEOUT,
+                String.format("rpc timeout, invocation: %s", invocation));
+    }
+
+    /**
+     * 与经过网络时一样序列化再反序列化, 得到互不共享的对象
+     */
+    private <T> T copyOf(Object object, Class<T> type) {
+        return getSerializer().deserialize(getSerializer().serialize(object), type);
+    }
+
+    @Override
+    protected void doDestroy() throws TomatoRpcException {
+        // 不持有连接
+    }
+
+    private record InJvmResult(CompletableFuture<Response> future) implements Result {
+
+        @Override
+        public Response getResultSync() throws ExecutionException, InterruptedException {
+            return future.get();
+        }
+
+        @Override
+        public CompletableFuture<Response> getResultAsync() {
+            return future;
+        }
+    }
+}
@@ -67,6 +67,14 @@ public interface RpcInvoker {
      */
     boolean isUsable();
 
+    /**
+     * 判断invoker是否已饱和(如连接写缓冲区积压), 饱和时负载均衡优先选择其他节点
+     * @return true:已饱和
+     */
+    default boolean isSaturated() {
+        return false;
+    }
+
     /**
      * destroy invoker
      * @throws TomatoRpcException rpc close exception
@@ -27,7 +27,7 @@ import java.util.Optional;
  * @author Tomato
  * Created on 2021.07.11
  */
-@SpiInterface("netty")
+@SpiInterface("shm")
 public interface RpcInvokerFactory {
 
     /**
@@ -19,6 +19,7 @@ import org.tomato.study.rpc.core.data.Invocation;
 import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
 import org.tomato.study.rpc.core.invoker.RpcInvoker;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -37,7 +38,30 @@ public abstract class BaseLoadBalance implements LoadBalance {
         if (invokers.size() == 1) {
             return invokers.get(0);
         }
-        return doSelect(invocation, invokers);
+        return doSelect(invocation, excludeSaturated(invokers));
+    }
+
+    /**
+     * 部分节点饱和时只在未饱和的节点中选择, 全部饱和时不过滤
+     */
+    private static List<RpcInvoker> excludeSaturated(List<RpcInvoker> invokers) {
+        List<RpcInvoker> available = null;
+        for (int i = 0; i < invokers.size(); i++) {
+            RpcInvoker invoker = invokers.get(i);
+            if (!invoker.isSaturated()) {
+                if (available != null) {
+                    available.add(invoker);
+                }
+                continue;
+            }
+            if (available == null) {
+                available = new ArrayList<>(invokers.subList(0, i));
+            }
+        }
+        if (available == null || available.isEmpty()) {
+            return invokers;
+        }
+        return available;
     }
 
     protected abstract RpcInvoker doSelect(Invocation invocation, List<RpcInvoker> invokers)
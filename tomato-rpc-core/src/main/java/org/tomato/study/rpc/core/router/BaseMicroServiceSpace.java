@@ -17,6 +17,7 @@ package org.tomato.study.rpc.core.router;
 import lombok.Getter;
 import org.apache.commons.collections4.CollectionUtils;
 import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.core.ProviderRegistry;
 import org.tomato.study.rpc.core.RpcJvmConfigKey;
 import org.tomato.study.rpc.core.circuit.CircuitRpcInvoker;
 import org.tomato.study.rpc.core.data.Invocation;
@@ -26,6 +27,7 @@ import org.tomato.study.rpc.core.data.RpcConfig;
 import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
 import org.tomato.study.rpc.core.error.TomatoRpcException;
 import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
+import org.tomato.study.rpc.core.invoker.InJvmRpcInvoker;
 import org.tomato.study.rpc.core.invoker.RpcInvoker;
 import org.tomato.study.rpc.core.loadbalance.LoadBalance;
 import org.tomato.study.rpc.expression.ast.ASTNode;
@@ -113,10 +115,30 @@ public abstract class BaseMicroServiceSpace implements MicroServiceSpace {
      */
     private volatile List<RpcInvoker> invokers = Collections.emptyList();
 
+    /**
+     * 当前进程的服务节点数据, 订阅到该节点时进程内直接调用, 不提供服务时为空
+     */
+    private final MetaData localMetaData;
+
+    /**
+     * 当前进程注册的服务实现
+     */
+    private final ProviderRegistry providerRegistry;
+
     public BaseMicroServiceSpace(String microServiceId, RpcConfig rpcConfig, LoadBalance loadBalance) {
+        this(microServiceId, rpcConfig, loadBalance, null, null);
+    }
+
+    public BaseMicroServiceSpace(String microServiceId,
+                                 RpcConfig rpcConfig,
+                                 LoadBalance loadBalance,
+                                 MetaData localMetaData,
+                                 ProviderRegistry providerRegistry) {
         this.microServiceId = microServiceId;
         this.rpcConfig = rpcConfig;
         this.loadBalance = loadBalance;
+        this.localMetaData = localMetaData;
+        this.providerRegistry = providerRegistry;
         initDefaultRouters(rpcConfig);
     }
 
@@ -303,13 +325,25 @@ public abstract class BaseMicroServiceSpace implements MicroServiceSpace {
 
     private RpcInvoker createInvoker(MetaData metaData) {
         Logger.DEFAULT.info("create invoker {}", metaData);
-        RpcInvoker rpcInvoker = doCreateInvoker(metaData);
+        RpcInvoker rpcInvoker = isLocal(metaData)
+                ? new InJvmRpcInvoker(metaData, rpcConfig, providerRegistry)
+                : doCreateInvoker(metaData);
         if (!rpcConfig.enableCircuit()) {
             return rpcInvoker;
         }
         return doCreateCircuitBreaker(rpcInvoker);
     }
 
+    /**
+     * 订阅的服务节点就是当前进程
+     */
+    protected boolean isLocal(MetaData metaData) {
+        return rpcConfig.clientInJvm()
+                && localMetaData != null
+                && providerRegistry != null
+                && localMetaData.equals(metaData);
+    }
+
     protected void doCloseInvoker(RpcInvoker offlineInvoker) {
         long start = System.currentTimeMillis();
         MetaData metadata = offlineInvoker.getMetadata();
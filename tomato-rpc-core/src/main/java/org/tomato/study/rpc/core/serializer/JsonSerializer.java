@@ -24,10 +24,15 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
 import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
 import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.List;
 
@@ -83,6 +88,27 @@ public class JsonSerializer implements Serializer {
         }
     }
 
+    @Override
+    public <T> void serialize(T object, ByteBuf out) {
+        try {
+            // ByteBufOutputStream同时实现了DataOutput, 需要显式指定重载
+            objectMapper.writeValue((OutputStream) new ByteBufOutputStream(out), object);
+        } catch (IOException e) {
+            throw new TomatoRpcRuntimeException(TomatoRpcErrorEnum.RPC_SERIALIZE_ERROR,
+                String.format("json serialize failed: %s", object.getClass().getSimpleName()));
+        }
+    }
+
+    @Override
+    public <T> T deserialize(ByteBuf in, Class<T> clazz) {
+        try {
+            return objectMapper.readValue((InputStream) new ByteBufInputStream(in), clazz);
+        } catch (IOException e) {
+            throw new TomatoRpcRuntimeException(TomatoRpcErrorEnum.RPC_SERIALIZE_ERROR,
+                String.format("json deserialize failed: %s", clazz.getSimpleName()));
+        }
+    }
+
     @Override
     public byte serializerIndex() {
         return 1;
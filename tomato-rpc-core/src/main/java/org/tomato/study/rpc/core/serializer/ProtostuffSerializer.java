@@ -14,11 +14,17 @@
 
 package org.tomato.study.rpc.core.serializer;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
 import io.protostuff.LinkedBuffer;
 import io.protostuff.ProtostuffIOUtil;
 import io.protostuff.Schema;
 import io.protostuff.runtime.RuntimeSchema;
 import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.common.utils.VirtualThreadUtil;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -26,6 +32,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Protostuff
@@ -36,6 +44,12 @@ public class ProtostuffSerializer implements Serializer {
 
     private static final ThreadLocal<LinkedBuffer> linkedBufferThreadLocal = new ThreadLocal<>();
 
+    /**
+     * 虚拟线程用完即弃, 不放在ThreadLocal里, 从共享的池中借用
+     */
+    private static final BlockingQueue<LinkedBuffer> virtualThreadLinkedBuffers = new ArrayBlockingQueue<>(
+            Math.max(16, Runtime.getRuntime().availableProcessors() * 4));
+
     @Override
     @SuppressWarnings("unchecked")
     public <T> byte[] serialize(T object) {
@@ -45,7 +59,7 @@ public class ProtostuffSerializer implements Serializer {
         try {
             return ProtostuffIOUtil.toByteArray(object, schema, linkedBuffer);
         } finally {
-            linkedBuffer.clear();
+            releaseLinkedBuffer(linkedBuffer);
         }
     }
 
@@ -57,6 +71,48 @@ public class ProtostuffSerializer implements Serializer {
         return obj;
     }
 
+    /**
+     * LinkedBuffer作为暂存区, 写满一段就刷入ByteBuf, 不再生成中间byte[]
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> void serialize(T object, ByteBuf out) {
+        Class<T> clazz = (Class<T>) object.getClass();
+        Schema<T> schema = RuntimeSchema.getSchema(clazz);
+        LinkedBuffer linkedBuffer = getLinkedBuffer();
+        try {
+            ProtostuffIOUtil.writeTo(new ByteBufOutputStream(out), object, schema, linkedBuffer);
+        } catch (IOException e) {
+            throw new TomatoRpcRuntimeException(e, TomatoRpcErrorEnum.RPC_SERIALIZE_ERROR,
+                String.format("protostuff serialize failed: %s", clazz.getSimpleName()));
+        } finally {
+            releaseLinkedBuffer(linkedBuffer);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(ByteBuf in, Class<T> clazz) {
+        Schema<T> schema = RuntimeSchema.getSchema(clazz);
+        T obj = schema.newMessage();
+        int length = in.readableBytes();
+        // 堆内存直接基于底层数组解析, 堆外内存以流的方式解析
+        if (in.hasArray()) {
+            ProtostuffIOUtil.mergeFrom(in.array(), in.arrayOffset() + in.readerIndex(), length, obj, schema);
+            in.skipBytes(length);
+            return obj;
+        }
+        LinkedBuffer linkedBuffer = getLinkedBuffer();
+        try {
+            ProtostuffIOUtil.mergeFrom(new ByteBufInputStream(in, length), obj, schema, linkedBuffer);
+            return obj;
+        } catch (IOException e) {
+            throw new TomatoRpcRuntimeException(e, TomatoRpcErrorEnum.RPC_SERIALIZE_ERROR,
+                String.format("protostuff deserialize failed: %s", clazz.getSimpleName()));
+        } finally {
+            releaseLinkedBuffer(linkedBuffer);
+        }
+    }
+
     @Override
     public byte serializerIndex() {
         return 0;
@@ -74,7 +130,7 @@ public class ProtostuffSerializer implements Serializer {
             Logger.DEFAULT.error(e.getMessage(), e);
             return new byte[0];
         } finally {
-            linkedBuffer.clear();
+            releaseLinkedBuffer(linkedBuffer);
         }
     }
 
@@ -89,11 +145,15 @@ public class ProtostuffSerializer implements Serializer {
             Logger.DEFAULT.error(e.getMessage(), e);
             return new ArrayList<>(0);
         } finally {
-            linkedBuffer.clear();
+            releaseLinkedBuffer(linkedBuffer);
         }
     }
 
     private LinkedBuffer getLinkedBuffer() {
+        if (VirtualThreadUtil.isVirtual(Thread.currentThread())) {
+            LinkedBuffer buffer = virtualThreadLinkedBuffers.poll();
+            return buffer == null ? LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE) : buffer;
+        }
         return Optional.ofNullable(linkedBufferThreadLocal.get())
                 .orElseGet(() -> {
                     LinkedBuffer buffer = LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE);
@@ -101,4 +161,12 @@ public class ProtostuffSerializer implements Serializer {
                     return buffer;
                 });
     }
+
+    private void releaseLinkedBuffer(LinkedBuffer linkedBuffer) {
+        linkedBuffer.clear();
+        if (VirtualThreadUtil.isVirtual(Thread.currentThread())) {
+            // 池满时丢弃
+            virtualThreadLinkedBuffers.offer(linkedBuffer);
+        }
+    }
 }
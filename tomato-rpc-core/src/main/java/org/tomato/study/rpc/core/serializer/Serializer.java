@@ -14,6 +14,8 @@
 
 package org.tomato.study.rpc.core.serializer;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import org.tomato.study.rpc.core.spi.SpiInterface;
 
 import java.util.List;
@@ -43,6 +45,29 @@ public interface Serializer {
      */
     <T> T deserialize(byte[] data, Class<T> clazz);
 
+    /**
+     * serialize into the writable bytes of the buffer, so the body is written exactly once
+     * @param object to be serialized
+     * @param out target buffer, writer index will be advanced
+     * @param <T> origin type
+     */
+    default <T> void serialize(T object, ByteBuf out) {
+        out.writeBytes(serialize(object));
+    }
+
+    /**
+     * deserialize from the readable bytes of the buffer
+     * @param in serialized data, reader index will be advanced to the end
+     * @param clazz target type class instance
+     * @param <T> target type
+     * @return deserialized object
+     */
+    default <T> T deserialize(ByteBuf in, Class<T> clazz) {
+        byte[] data = ByteBufUtil.getBytes(in);
+        in.skipBytes(data.length);
+        return deserialize(data, clazz);
+    }
+
     /**
      * describe the serializer index of serializer in command
      * @return serializer class
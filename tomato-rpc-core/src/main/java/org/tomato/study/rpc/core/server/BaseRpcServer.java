@@ -47,12 +47,60 @@ public abstract class BaseRpcServer extends BaseLifeCycleComponent implements Rp
     @Getter
     private final int businessPoolSize;
 
+    /**
+     * 业务线程执行方式, 见{@link RpcServerConfig#BUSINESS_EXECUTOR_POOL}和{@link RpcServerConfig#BUSINESS_EXECUTOR_VIRTUAL}
+     */
+    @Getter
+    private final String businessExecutorMode;
+
+    /**
+     * virtual模式下同时处理的请求数上限
+     */
+    @Getter
+    private final int businessMaxConcurrency;
+
     /**
      * 空闲连接检测时间
      */
     @Getter
     private final long readIdleCheckMilliseconds;
 
+    /**
+     * 单个数据帧的最大长度
+     */
+    @Getter
+    private final int maxFrameLength;
+
+    /**
+     * 响应body超过该大小时分块发送
+     */
+    @Getter
+    private final int chunkSize;
+
+    /**
+     * 接收分块请求时还原出的单个消息的最大长度
+     */
+    @Getter
+    private final int maxMessageSize;
+
+    /**
+     * 单个连接上所有正在接收的分块消息的总大小上限
+     */
+    @Getter
+    private final int maxStreamingBytes;
+
+    /**
+     * 单个连接上同时接收的分块消息数上限
+     */
+    @Getter
+    private final int maxStreamingMessages;
+
+    /**
+     * 大于0时合并响应的flush
+     */
+    @Getter
+    private final int flushConsolidationLimit;
+
     /**
      * 服务接口实现
      */
@@ -64,7 +112,15 @@ public abstract class BaseRpcServer extends BaseLifeCycleComponent implements Rp
         this.port = rpcServerConfig.getPort();
         this.useBusinessPool = rpcServerConfig.isUseBusinessThreadPool();
         this.businessPoolSize = rpcServerConfig.getBusinessThreadPoolSize();
+        this.businessExecutorMode = rpcServerConfig.getBusinessExecutorMode();
+        this.businessMaxConcurrency = rpcServerConfig.getBusinessMaxConcurrency();
         this.readIdleCheckMilliseconds = rpcServerConfig.getServerReadIdleCheckMilliseconds();
+        this.maxFrameLength = rpcServerConfig.getMaxFrameLength();
+        this.chunkSize = rpcServerConfig.getChunkSize();
+        this.maxMessageSize = rpcServerConfig.getMaxMessageSize();
+        this.maxStreamingBytes = rpcServerConfig.getMaxStreamingBytes();
+        this.maxStreamingMessages = rpcServerConfig.getMaxStreamingMessages();
+        this.flushConsolidationLimit = rpcServerConfig.getFlushConsolidationLimit();
         this.providerRegistry = providerRegistry;
     }
 
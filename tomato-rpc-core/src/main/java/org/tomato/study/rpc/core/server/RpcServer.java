@@ -39,4 +39,20 @@ public interface RpcServer extends LifeCycle {
      * @return true: closed
      */
     boolean isClosed();
+
+    /**
+     * 服务端实际监听的unix domain socket路径
+     * @return 未开启或不支持时返回null
+     */
+    default String getDomainSocketPath() {
+        return null;
+    }
+
+    /**
+     * 服务端实际接收共享内存连接的目录
+     * @return 未开启时返回null
+     */
+    default String getSharedMemoryPath() {
+        return null;
+    }
 }
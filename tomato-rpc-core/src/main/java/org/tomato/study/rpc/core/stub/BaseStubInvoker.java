@@ -22,10 +22,14 @@ import org.tomato.study.rpc.core.data.InvocationContext;
 import org.tomato.study.rpc.core.data.Response;
 import org.tomato.study.rpc.core.data.RpcRequestDTO;
 import org.tomato.study.rpc.core.data.StubConfig;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
 
 import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * @author Tomato
@@ -86,14 +90,35 @@ public abstract class BaseStubInvoker implements StubInvoker {
         InvocationContext.set(currentContext);
         MDC.put(ExtensionHeader.TRACE_ID.name(), ExtensionHeader.TRACE_ID.getValueFromContext());
         try {
+            // 作为上游的被调用方, 下游调用不超过上游请求剩余的时间
+            Long timeoutMs = stubConfig.getTimeoutMs();
+            if (timeoutMs != null) {
+                timeoutMs = InvocationContext.remainingMillis(timeoutMs);
+                if (timeoutMs <= 0) {
+                    TomatoRpcRuntimeException exception = new TomatoRpcRuntimeException(
+                            TomatoRpcErrorEnum.RPC_DEADLINE_EXCEEDED,
+                            String.format("deadline exceeded before calling %s#%s", getMicroServiceId(), methodName));
+                    if (isAsync(method)) {
+                        return CompletableFuture.failedFuture(exception);
+                    }
+                    throw exception;
+                }
+            }
+
             // 塞参数
-            putParameter(currentContext);
+            putParameter(currentContext, timeoutMs);
 
             // 将方法参数转化为可序列化的DTO对象
             Invocation invocation = createInvocation(method, args);
 
+            // 返回CompletableFuture/CompletionStage的方法异步调用, 不阻塞调用线程
+            if (isAsync(method)) {
+                CompletableFuture<Response> future = doInvokeAsync(method, invocation);
+                return propagateCancel(future, future.thenApply(Response::getData));
+            }
+
             // 调用
-            Response response = doInvoke(invocation);
+            Response response = doInvoke(method, invocation);
 
             // 转化为接口返回对象
             return response.getData();
@@ -103,14 +128,36 @@ public abstract class BaseStubInvoker implements StubInvoker {
         }
     }
 
+    private static boolean isAsync(Method method) {
+        Class<?> returnType = method.getReturnType();
+        return returnType == CompletableFuture.class || returnType == CompletionStage.class;
+    }
+
     /**
      * 塞一些通用的参数
      */
-    private void putParameter(Map<String, String> threadLocalParameter) {
-        threadLocalParameter.put(ExtensionHeader.TIMEOUT.getKeyName(), String.valueOf(stubConfig.getTimeoutMs()));
+    private void putParameter(Map<String, String> threadLocalParameter, Long timeoutMs) {
+        threadLocalParameter.put(ExtensionHeader.TIMEOUT.getKeyName(), String.valueOf(timeoutMs));
         threadLocalParameter.put(ExtensionHeader.COMPRESS.getKeyName(), String.valueOf(stubConfig.isCompressBody()));
     }
 
+    /**
+     * 调用方取消返回的future时, 一并取消其依赖的future, 最终通知服务端停止处理
+     * @param source 依赖的future
+     * @param derived 返回给调用方的future
+     * @param <T> 结果类型
+     * @return derived
+     */
+    protected static <T> CompletableFuture<T> propagateCancel(CompletableFuture<?> source,
+                                                              CompletableFuture<T> derived) {
+        derived.whenComplete((result, cause) -> {
+            if (derived.isCancelled()) {
+                source.cancel(false);
+            }
+        });
+        return derived;
+    }
+
     protected Invocation createInvocation(Method method, Object[] args) {
         RpcRequestDTO.RpcRequestDTOBuilder builder = RpcRequestDTO.builder()
                 .microServiceId(getMicroServiceId())
@@ -131,10 +178,37 @@ public abstract class BaseStubInvoker implements StubInvoker {
         return builder.build();
     }
 
+    /**
+     * do rpc invoke, 需要根据方法上的注解调整调用方式时重写
+     * @param method 接口方法
+     * @param invocation rpc invocation
+     * @return rpc response
+     */
+    protected Response doInvoke(Method method, Invocation invocation) {
+        return doInvoke(invocation);
+    }
+
     /**
      * do rpc invoke
      * @param invocation rpc invocation
      * @return rpc response
      */
     protected abstract Response doInvoke(Invocation invocation);
+
+    /**
+     * do async rpc invoke, 需要根据方法上的注解调整调用方式时重写
+     * @param method 接口方法
+     * @param invocation rpc invocation
+     * @return 以rpc response完成的future, 调用失败时以{@link org.tomato.study.rpc.core.error.TomatoRpcRuntimeException}结束
+     */
+    protected CompletableFuture<Response> doInvokeAsync(Method method, Invocation invocation) {
+        return doInvokeAsync(invocation);
+    }
+
+    /**
+     * do async rpc invoke
+     * @param invocation rpc invocation
+     * @return 以rpc response完成的future
+     */
+    protected abstract CompletableFuture<Response> doInvokeAsync(Invocation invocation);
 }
@@ -22,6 +22,7 @@ import org.tomato.study.rpc.core.error.TomatoRpcException;
 import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
 import org.tomato.study.rpc.core.invoker.RpcInvoker;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -52,4 +53,23 @@ public class DirectStubInvoker extends BaseStubInvoker {
                 String.format("rpc invocation failed, micro-service-id=%s, invoker meta=%s", getMicroServiceId(), rpcInvoker.getMetadata()));
         }
     }
+
+    @Override
+    protected CompletableFuture<Response> doInvokeAsync(Invocation invocation) {
+        try {
+            CompletableFuture<Response> future = rpcInvoker.invoke(invocation).getResultAsync();
+            return propagateCancel(future, future.thenApply(response -> {
+                if (TomatoRpcErrorEnum.SUCCESS.getCode() != response.getCode()) {
+                    throw new TomatoRpcRuntimeException(TomatoRpcErrorEnum.valueOfCode(response.getCode()),
+                        String.format("rpc invocation failed, errCode:%d, errMsg:%s", response.getCode(), response.getMessage()));
+                }
+                return response;
+            }));
+        } catch (TomatoRpcRuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        } catch (TomatoRpcException e) {
+            return CompletableFuture.failedFuture(new TomatoRpcRuntimeException(e, TomatoRpcErrorEnum.STUB_INVOKER_SEARCH_ERROR,
+                String.format("rpc invocation failed, micro-service-id=%s, invoker meta=%s", getMicroServiceId(), rpcInvoker.getMetadata())));
+        }
+    }
 }
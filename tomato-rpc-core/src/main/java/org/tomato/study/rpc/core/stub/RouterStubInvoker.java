@@ -14,7 +14,10 @@
 
 package org.tomato.study.rpc.core.stub;
 
+import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.core.annotation.RpcIdempotent;
 import org.tomato.study.rpc.core.data.Invocation;
+import org.tomato.study.rpc.core.data.InvocationContext;
 import org.tomato.study.rpc.core.data.Response;
 import org.tomato.study.rpc.core.data.StubConfig;
 import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
@@ -23,8 +26,15 @@ import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
 import org.tomato.study.rpc.core.invoker.RpcInvoker;
 import org.tomato.study.rpc.core.registry.NameServer;
 
+import java.lang.reflect.Method;
+import java.util.EnumSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 基于配置中心动态发现
@@ -33,6 +43,16 @@ import java.util.concurrent.ExecutionException;
  */
 public class RouterStubInvoker extends BaseStubInvoker {
 
+    /**
+     * 请求可能没有被服务端处理的错误, 幂等方法可以换节点重试
+     */
+    private static final Set<TomatoRpcErrorEnum> RETRIABLE_ERRORS = EnumSet.of(
+            TomatoRpcErrorEnum.RPC_CONNECTION_CLOSED,
+            TomatoRpcErrorEnum.RPC_CONNECTION_UNAVAILABLE,
+            TomatoRpcErrorEnum.RPC_CONNECTION_SATURATED,
+            TomatoRpcErrorEnum.RPC_INVOKER_CLOSED,
+            TomatoRpcErrorEnum.NETTY_CLIENT_RPC_ERROR);
+
     private final NameServer nameServer;
 
     public RouterStubInvoker(StubConfig<?> stubConfig) {
@@ -40,6 +60,27 @@ public class RouterStubInvoker extends BaseStubInvoker {
         this.nameServer = stubConfig.getNameServer();
     }
 
+    /**
+     * 标记了{@link RpcIdempotent}的方法遇到可重试的错误时重新选择节点调用,
+     * 断开的节点在重连成功前不可用, 负载均衡不会再选到它
+     */
+    @Override
+    protected Response doInvoke(Method method, Invocation invocation) {
+        RpcIdempotent idempotent = method.getAnnotation(RpcIdempotent.class);
+        int retries = idempotent == null ? 0 : Math.max(0, idempotent.retries());
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return doInvoke(invocation);
+            } catch (TomatoRpcRuntimeException exception) {
+                if (attempt >= retries || !isRetriable(exception)) {
+                    throw exception;
+                }
+                Logger.DEFAULT.warn("retry idempotent rpc invocation, method: {}, attempt: {}, cause: {}",
+                        method.getName(), attempt + 1, exception.getMessage());
+            }
+        }
+    }
+
     @Override
     protected Response doInvoke(Invocation invocation) {
         try {
@@ -59,4 +100,104 @@ public class RouterStubInvoker extends BaseStubInvoker {
                 String.format("rpc invocation failed, micro-service-id=%s, interface=%s", invocation.getMicroServiceId(), invocation.getInterfaceName()));
         }
     }
+
+    /**
+     * 与同步调用一样重试幂等方法, 重试发生在完成上一次调用的线程中;
+     * 调用方取消时取消正在进行的那一次调用, 重试中的请求同样会通知服务端停止处理
+     */
+    @Override
+    protected CompletableFuture<Response> doInvokeAsync(Method method, Invocation invocation) {
+        RpcIdempotent idempotent = method.getAnnotation(RpcIdempotent.class);
+        int retries = idempotent == null ? 0 : Math.max(0, idempotent.retries());
+        if (retries == 0) {
+            return doInvokeAsync(invocation);
+        }
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<Response>> current = new AtomicReference<>();
+        result.whenComplete((response, throwable) -> {
+            CompletableFuture<Response> attempt = current.get();
+            if (result.isCancelled() && attempt != null) {
+                attempt.cancel(false);
+            }
+        });
+        doInvokeAsync(method, invocation, InvocationContext.get(), 0, retries, result, current);
+        return result;
+    }
+
+    private void doInvokeAsync(Method method,
+                               Invocation invocation,
+                               Map<String, String> context,
+                               int attempt,
+                               int retries,
+                               CompletableFuture<Response> result,
+                               AtomicReference<CompletableFuture<Response>> current) {
+        CompletableFuture<Response> future = doInvokeAsync(invocation);
+        current.set(future);
+        // 发起本次调用前调用方已经取消
+        if (result.isCancelled()) {
+            future.cancel(false);
+            return;
+        }
+        future.whenComplete((response, throwable) -> {
+            Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+            if (cause == null) {
+                result.complete(response);
+                return;
+            }
+            if (attempt >= retries || result.isDone()
+                    || !(cause instanceof TomatoRpcRuntimeException exception) || !isRetriable(exception)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            Logger.DEFAULT.warn("retry idempotent rpc invocation, method: {}, attempt: {}, cause: {}",
+                    method.getName(), attempt + 1, exception.getMessage());
+            // 在其他线程重试时带上发起调用时的上下文
+            Map<String, String> originContext = InvocationContext.get();
+            InvocationContext.set(context);
+            try {
+                doInvokeAsync(method, invocation, context, attempt + 1, retries, result, current);
+            } finally {
+                InvocationContext.set(originContext);
+            }
+        });
+    }
+
+    @Override
+    protected CompletableFuture<Response> doInvokeAsync(Invocation invocation) {
+        try {
+            Optional<RpcInvoker> invokerOpt = nameServer.lookupInvoker(invocation);
+            if (invokerOpt.isEmpty()) {
+                throw new TomatoRpcRuntimeException(TomatoRpcErrorEnum.STUB_INVOKER_SEARCH_ERROR,
+                    String.format("invoker not found, micro-service-id=%s, interface=%s", invocation.getMicroServiceId(), invocation.getInterfaceName()));
+            }
+            CompletableFuture<Response> future = invokerOpt.get().invoke(invocation).getResultAsync();
+            return propagateCancel(future, future.thenApply(response -> {
+                if (TomatoRpcErrorEnum.SUCCESS.getCode() != response.getCode()) {
+                    throw new TomatoRpcRuntimeException(TomatoRpcErrorEnum.valueOfCode(response.getCode()),
+                        String.format("rpc invocation failed, errCode=%d, errMsg=%s", response.getCode(), response.getMessage()));
+                }
+                return response;
+            }));
+        } catch (TomatoRpcRuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        } catch (TomatoRpcException e) {
+            return CompletableFuture.failedFuture(new TomatoRpcRuntimeException(e, TomatoRpcErrorEnum.STUB_INVOKER_SEARCH_ERROR,
+                String.format("rpc invocation failed, micro-service-id=%s, interface=%s", invocation.getMicroServiceId(), invocation.getInterfaceName())));
+        }
+    }
+
+    private static boolean isRetriable(TomatoRpcRuntimeException exception) {
+        if (RETRIABLE_ERRORS.contains(exception.getErrCode())) {
+            return true;
+        }
+        // 调用节点时抛出的异常被包装过
+        Throwable cause = exception.getCause();
+        if (cause instanceof TomatoRpcException rpcException) {
+            return RETRIABLE_ERRORS.contains(rpcException.getErrCode());
+        }
+        if (cause instanceof TomatoRpcRuntimeException rpcRuntimeException) {
+            return RETRIABLE_ERRORS.contains(rpcRuntimeException.getErrCode());
+        }
+        return false;
+    }
 }
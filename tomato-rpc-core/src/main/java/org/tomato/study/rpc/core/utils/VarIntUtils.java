@@ -0,0 +1,162 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.core.utils;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * 无符号varint编解码, 每个字节低7位存数据, 最高位表示后面是否还有字节
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public final class VarIntUtils {
+
+    /**
+     * int最多占用5个字节
+     */
+    public static final int MAX_VAR_INT_BYTES = 5;
+
+    /**
+     * long最多占用10个字节
+     */
+    public static final int MAX_VAR_LONG_BYTES = 10;
+
+    private VarIntUtils() throws IllegalAccessException {
+        throw new IllegalAccessException("illegal access");
+    }
+
+    /**
+     * 计算varint编码后的长度
+     * @param value 非负整数
+     * @return 字节数
+     */
+    public static int size(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    public static void write(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    public static void write(ByteBuf out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int sizeOfLong(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    public static void writeLong(ByteBuf out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * 从ByteBuf中读取varlong, 调用方需保证数据完整
+     * @param in 数据
+     * @return 值
+     */
+    public static long readLong(ByteBuf in) {
+        long value = 0;
+        for (int i = 0; i < MAX_VAR_LONG_BYTES; i++) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varlong");
+    }
+
+    /**
+     * 从字节数组中读取varint
+     * @param data 数据
+     * @param offset 起始位置
+     * @return 高32位为读取的字节数, 低32位为值
+     */
+    public static long read(byte[] data, int offset) {
+        int value = 0;
+        for (int i = 0; i < MAX_VAR_INT_BYTES; i++) {
+            if (offset + i >= data.length) {
+                throw new IllegalArgumentException("truncated varint");
+            }
+            byte b = data[offset + i];
+            value |= (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0) {
+                return ((long) (i + 1) << 32) | (value & 0xFFFFFFFFL);
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    /**
+     * 从ByteBuf中读取varint, 数据不足时不移动读指针并返回-1
+     * @param in 数据
+     * @return 非负的值, 数据不足时返回-1
+     */
+    public static int read(ByteBuf in) {
+        int readerIndex = in.readerIndex();
+        int value = 0;
+        for (int i = 0; i < MAX_VAR_INT_BYTES; i++) {
+            if (!in.isReadable()) {
+                in.readerIndex(readerIndex);
+                return -1;
+            }
+            byte b = in.readByte();
+            value |= (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    /**
+     * {@link #read(byte[], int)}结果中的值
+     */
+    public static int value(long readResult) {
+        return (int) readResult;
+    }
+
+    /**
+     * {@link #read(byte[], int)}结果中读取的字节数
+     */
+    public static int length(long readResult) {
+        return (int) (readResult >>> 32);
+    }
+}
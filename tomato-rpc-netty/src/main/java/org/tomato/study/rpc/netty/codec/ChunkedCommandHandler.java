@@ -0,0 +1,390 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.core.data.Command;
+import org.tomato.study.rpc.core.data.CommandType;
+import org.tomato.study.rpc.core.data.Header;
+import org.tomato.study.rpc.core.data.HeaderFlag;
+import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.core.data.RpcResponse;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.serializer.SerializerHolder;
+import org.tomato.study.rpc.netty.data.ByteBufCommand;
+import org.tomato.study.rpc.netty.data.NettyCommandFactory;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * 大body分块传输, 仅对v2协议生效
+ * 发送: body超过chunkSize时拆成 首帧(原类型 + {@link HeaderFlag#STREAMED}) + N个{@link CommandType#STREAM_CHUNK}
+ *      + {@link CommandType#STREAM_END}, 每个分块单独提交到EventLoop, 期间其他小请求可以插队发送;
+ *      连接不可写时暂停发送剩余分块, 可写后继续
+ * 接收: 按消息id把分块的切片追加到CompositeByteBuf中, 收到最后一块后还原成完整的Command交给下游, 不做内存拷贝;
+ *      单个消息超过maxMessageSize、连接上正在接收的分块总大小超过maxStreamingBytes
+ *      或者同时接收的消息数超过maxStreamingMessages时, 请求方收到失败响应, 连接关闭
+ * 每个连接独立维护状态, 不能共享
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class ChunkedCommandHandler extends ChannelDuplexHandler {
+
+    /**
+     * 分块大小, 小于等于0时不分块
+     */
+    private final int chunkSize;
+
+    /**
+     * 还原出的单个消息的最大长度
+     */
+    private final int maxMessageSize;
+
+    /**
+     * 所有正在接收的分块消息的总大小上限
+     */
+    private final int maxStreamingBytes;
+
+    /**
+     * 同时接收的分块消息数上限
+     */
+    private final int maxStreamingMessages;
+
+    /**
+     * 正在接收的分块消息, 只在EventLoop线程中访问
+     */
+    private final Map<Long, ChunkAggregation> aggregations = new HashMap<>();
+
+    /**
+     * 因连接不可写而暂停的发送, 只在EventLoop线程中访问
+     */
+    private final Queue<ChunkWriter> pausedWriters = new ArrayDeque<>();
+
+    /**
+     * 所有正在接收的分块消息已经收到的body大小
+     */
+    private long streamingBytes;
+
+    public ChunkedCommandHandler(int chunkSize) {
+        this(chunkSize, ProtoConstants.DEFAULT_MAX_MESSAGE_SIZE, ProtoConstants.DEFAULT_MAX_STREAMING_BYTES,
+                ProtoConstants.DEFAULT_MAX_STREAMING_MESSAGES);
+    }
+
+    public ChunkedCommandHandler(int chunkSize, int maxMessageSize, int maxStreamingBytes, int maxStreamingMessages) {
+        this.chunkSize = chunkSize;
+        this.maxMessageSize = maxMessageSize;
+        this.maxStreamingBytes = maxStreamingBytes;
+        this.maxStreamingMessages = maxStreamingMessages;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (!(msg instanceof Command command) || !needChunk(command.getHeader())) {
+            ctx.write(msg, promise);
+            return;
+        }
+        // 原始消息在promise完成后才会被释放, 分块直接使用不增加引用计数的切片
+        ByteBuf body = bodyOf(command);
+        ByteBuf extension = extensionOf(command);
+        Header header = command.getHeader();
+        Header headHeader = copyHeader(header, header.getMessageType(),
+                extension == null ? 0 : extension.readableBytes(), chunkSize);
+        HeaderFlag.STREAMED.set(headHeader);
+        ChunkWriter chunkWriter = new ChunkWriter(ctx, header, body, promise);
+        ctx.writeAndFlush(new ByteBufCommand(headHeader, extension, body.slice(body.readerIndex(), chunkSize)))
+                .addListener(chunkWriter);
+        chunkWriter.offset = chunkSize;
+        ctx.executor().execute(chunkWriter);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof ByteBufCommand command)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        Header header = command.getHeader();
+        CommandType type = CommandType.value(header.getMessageType());
+        if (type != CommandType.STREAM_CHUNK && type != CommandType.STREAM_END) {
+            if (HeaderFlag.STREAMED.isSet(header)) {
+                startAggregation(ctx, command);
+            } else {
+                ctx.fireChannelRead(msg);
+            }
+            return;
+        }
+        ChunkAggregation aggregation = type == CommandType.STREAM_END
+                ? aggregations.remove(header.getId())
+                : aggregations.get(header.getId());
+        if (aggregation == null) {
+            Logger.DEFAULT.warn("received orphan chunk, id={}", header.getId());
+            command.release();
+            return;
+        }
+        if (!append(ctx, aggregation, command)) {
+            return;
+        }
+        if (type == CommandType.STREAM_END) {
+            streamingBytes -= aggregation.size();
+            ctx.fireChannelRead(aggregation.toCommand());
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        // 先让出EventLoop, 恢复的分块与其他消息一样排队
+        while (ctx.channel().isWritable() && !pausedWriters.isEmpty()) {
+            ctx.executor().execute(pausedWriters.poll());
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        releaseAggregations();
+        failPausedWriters();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        releaseAggregations();
+        failPausedWriters();
+    }
+
+    private void startAggregation(ChannelHandlerContext ctx, ByteBufCommand head) {
+        Header header = head.getHeader();
+        if (aggregations.size() >= maxStreamingMessages && !aggregations.containsKey(header.getId())) {
+            head.release();
+            Logger.DEFAULT.error("too many streamed commands, close connection {}, id={}, streaming messages: {}",
+                    ctx.channel(), header.getId(), aggregations.size());
+            reject(ctx, header, "too many chunked messages on the connection");
+            return;
+        }
+        ByteBuf extension = head.extensionBuf() == null ? null : head.extensionBuf().retain();
+        ChunkAggregation aggregation = new ChunkAggregation(
+                header, extension, ctx.alloc().compositeBuffer(Integer.MAX_VALUE));
+        ChunkAggregation previous = aggregations.put(header.getId(), aggregation);
+        if (previous != null) {
+            Logger.DEFAULT.warn("duplicated streamed command, id={}", header.getId());
+            streamingBytes -= previous.size();
+            previous.release();
+        }
+        append(ctx, aggregation, head);
+    }
+
+    /**
+     * 追加一个分块, 超过大小限制时放弃所有正在接收的消息, 通知请求方失败并关闭连接
+     * @return false 超过大小限制, 分块已释放
+     */
+    private boolean append(ChannelHandlerContext ctx, ChunkAggregation aggregation, ByteBufCommand chunk) {
+        int length = chunk.bodyBuf() == null ? 0 : chunk.bodyBuf().readableBytes();
+        if ((long) aggregation.size() + length <= maxMessageSize && streamingBytes + length <= maxStreamingBytes) {
+            aggregation.append(chunk);
+            streamingBytes += length;
+            return true;
+        }
+        chunk.release();
+        Header header = aggregation.header;
+        Logger.DEFAULT.error("streamed command too large, close connection {}, id={}, message size: {}, "
+                        + "streaming bytes: {}", ctx.channel(), header.getId(), aggregation.size() + length,
+                streamingBytes + length);
+        aggregations.remove(header.getId());
+        aggregation.release();
+        reject(ctx, header, TomatoRpcErrorEnum.RPC_MESSAGE_TOO_LARGE.getMessage());
+        return false;
+    }
+
+    /**
+     * 放弃所有正在接收的消息, 是请求时通知请求方失败, 然后关闭连接
+     */
+    private void reject(ChannelHandlerContext ctx, Header header, String reason) {
+        releaseAggregations();
+        CommandType type = CommandType.value(header.getMessageType());
+        if (type != CommandType.RPC_REQUEST && type != CommandType.RPC_BATCH_REQUEST) {
+            // 接收响应超限时关闭连接, 等待中的请求随连接关闭一起失败
+            ctx.close();
+            return;
+        }
+        Command failure = NettyCommandFactory.response(header.getId(),
+                RpcResponse.fail(TomatoRpcErrorEnum.RPC_MESSAGE_TOO_LARGE, reason),
+                SerializerHolder.getSerializer(header.getSerializeType()),
+                CommandType.RPC_RESPONSE);
+        ctx.writeAndFlush(failure).addListener((ChannelFutureListener) future -> {
+            ByteBufCommand.release(failure);
+            future.channel().close();
+        });
+    }
+
+    private void releaseAggregations() {
+        aggregations.values().forEach(ChunkAggregation::release);
+        aggregations.clear();
+        streamingBytes = 0;
+    }
+
+    private void failPausedWriters() {
+        ChunkWriter writer;
+        while ((writer = pausedWriters.poll()) != null) {
+            writer.promise.tryFailure(new ClosedChannelException());
+        }
+    }
+
+    private boolean needChunk(Header header) {
+        if (chunkSize <= 0 || header == null || !ProtoConstants.isCompactVersion(header.getVersion())) {
+            return false;
+        }
+        return header.getLength() - ProtoConstants.HEAD_FIX_LENGTH - header.getExtensionLength() > chunkSize;
+    }
+
+    private static ByteBuf bodyOf(Command command) {
+        if (command instanceof ByteBufCommand bufCommand && bufCommand.bodyBuf() != null) {
+            return bufCommand.bodyBuf();
+        }
+        return Unpooled.wrappedBuffer(command.getBody());
+    }
+
+    private static ByteBuf extensionOf(Command command) {
+        if (command instanceof ByteBufCommand bufCommand && bufCommand.extensionBuf() != null) {
+            return bufCommand.extensionBuf().slice();
+        }
+        byte[] extension = command.getExtension();
+        return extension == null || extension.length < 1 ? null : Unpooled.wrappedBuffer(extension);
+    }
+
+    private static Header copyHeader(Header origin, short messageType, int extensionLength, int bodyLength) {
+        return Header.builder()
+                .magicNumber(origin.getMagicNumber())
+                .length(ProtoConstants.HEAD_FIX_LENGTH + extensionLength + bodyLength)
+                .version(origin.getVersion())
+                .extensionLength(extensionLength)
+                .messageType(messageType)
+                .serializeType(origin.getSerializeType())
+                .id(origin.getId())
+                .flags(origin.getFlags())
+                .build();
+    }
+
+    /**
+     * 逐块发送剩余的body, 每次只写一块, 写完后重新提交自身到EventLoop;
+     * 连接不可写时放入pausedWriters, 等待{@link #channelWritabilityChanged}恢复
+     */
+    private class ChunkWriter implements Runnable, ChannelFutureListener {
+
+        private final ChannelHandlerContext ctx;
+        private final Header header;
+        private final ByteBuf body;
+        private final ChannelPromise promise;
+        private int offset;
+
+        private ChunkWriter(ChannelHandlerContext ctx, Header header, ByteBuf body, ChannelPromise promise) {
+            this.ctx = ctx;
+            this.header = header;
+            this.body = body;
+            this.promise = promise;
+        }
+
+        @Override
+        public void run() {
+            // 前面的分块已经写失败
+            if (promise.isDone()) {
+                return;
+            }
+            if (!ctx.channel().isWritable()) {
+                // 连接已关闭时不会再收到可写事件, 直接失败
+                if (!ctx.channel().isActive()) {
+                    promise.tryFailure(new ClosedChannelException());
+                    return;
+                }
+                pausedWriters.add(this);
+                return;
+            }
+            int length = Math.min(chunkSize, body.readableBytes() - offset);
+            boolean last = offset + length == body.readableBytes();
+            Header chunkHeader = copyHeader(header,
+                    (last ? CommandType.STREAM_END : CommandType.STREAM_CHUNK).getId(), 0, length);
+            chunkHeader.setFlags((byte) 0);
+            Command chunk = new ByteBufCommand(chunkHeader, null, body.slice(body.readerIndex() + offset, length));
+            offset += length;
+            if (last) {
+                ctx.writeAndFlush(chunk, promise);
+                return;
+            }
+            ctx.writeAndFlush(chunk).addListener(this);
+            ctx.executor().execute(this);
+        }
+
+        @Override
+        public void operationComplete(ChannelFuture future) {
+            if (!future.isSuccess()) {
+                promise.tryFailure(future.cause());
+            }
+        }
+    }
+
+    /**
+     * 正在接收的分块消息
+     */
+    private static class ChunkAggregation {
+
+        private final Header header;
+        private final ByteBuf extension;
+        private final CompositeByteBuf body;
+
+        private ChunkAggregation(Header header, ByteBuf extension, CompositeByteBuf body) {
+            this.header = header;
+            this.extension = extension;
+            this.body = body;
+        }
+
+        private int size() {
+            return body.readableBytes();
+        }
+
+        /**
+         * 接管分块body切片的引用
+         */
+        private void append(ByteBufCommand chunk) {
+            if (chunk.bodyBuf() != null) {
+                body.addComponent(true, chunk.bodyBuf().retain());
+            }
+            chunk.release();
+        }
+
+        private ByteBufCommand toCommand() {
+            header.setLength(ProtoConstants.HEAD_FIX_LENGTH + header.getExtensionLength() + body.readableBytes());
+            HeaderFlag.STREAMED.clear(header);
+            return new ByteBufCommand(header, extension, body);
+        }
+
+        private void release() {
+            if (extension != null) {
+                extension.release();
+            }
+            body.release();
+        }
+    }
+}
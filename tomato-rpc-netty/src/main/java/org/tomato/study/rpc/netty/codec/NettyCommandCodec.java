@@ -15,20 +15,30 @@
 package org.tomato.study.rpc.netty.codec;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import lombok.NonNull;
 import org.tomato.study.rpc.core.data.Command;
 import org.tomato.study.rpc.core.data.Header;
 import org.tomato.study.rpc.core.data.ProtoConstants;
 import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
 import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
+import org.tomato.study.rpc.core.utils.VarIntUtils;
+import org.tomato.study.rpc.netty.data.ByteBufCommand;
 
 /**
- * 对基于Netty实现的RPC数据帧进行编解码
+ * 对基于Netty实现的RPC数据帧进行编解码, 同时支持v1定长头部和v2紧凑头部 {@link ProtoConstants#VERSION2}
  * @author Tomato
  * Created on 2021.05.30
  */
 public final class NettyCommandCodec {
 
+    /**
+     * magic number(1 byte) + length(4 bytes), 不计入header中的length
+     */
+    private static final int FRAME_PREFIX_LENGTH = 5;
+
     private NettyCommandCodec() throws IllegalAccessException {
         throw new IllegalAccessException("illegal access");
     }
@@ -38,13 +48,7 @@ public final class NettyCommandCodec {
         int extensionLength = header.getExtensionLength();
         int length = header.getLength();
 
-        byteBuf.writeByte(header.getMagicNumber());
-        byteBuf.writeInt(length);
-        byteBuf.writeInt(header.getVersion());
-        byteBuf.writeInt(extensionLength);
-        byteBuf.writeShort(header.getMessageType());
-        byteBuf.writeByte(header.getSerializeType());
-        byteBuf.writeLong(header.getId());
+        encodeHeader(header, byteBuf);
 
         // 不为空时才写入拓展字段
         byte[] extension = command.getExtension();
@@ -66,21 +70,57 @@ public final class NettyCommandCodec {
         }
     }
 
+    /**
+     * 零拷贝编码: 仅为固定头部分配内存, 拓展字段和body以组件的形式挂到CompositeByteBuf上
+     * @param allocator 内存分配器
+     * @param command 协议数据
+     * @return 完整的数据帧
+     */
+    public static ByteBuf encode(ByteBufAllocator allocator, Command command) {
+        Header header = command.getHeader();
+        int extensionLength = header.getExtensionLength();
+        int bodyLength = header.getLength() - extensionLength - ProtoConstants.HEAD_FIX_LENGTH;
+
+        ByteBuf headerBuf = allocator.ioBuffer(FRAME_PREFIX_LENGTH + ProtoConstants.HEAD_FIX_LENGTH);
+        encodeHeader(header, headerBuf);
+        ByteBuf extensionBuf = null;
+        ByteBuf bodyBuf = null;
+        try {
+            extensionBuf = command instanceof ByteBufCommand bufCommand && bufCommand.extensionBuf() != null
+                    ? payload(bufCommand.extensionBuf(), extensionLength, "frame extension length error")
+                    : payload(command.getExtension(), extensionLength, "frame extension length error");
+            bodyBuf = command instanceof ByteBufCommand bufCommand && bufCommand.bodyBuf() != null
+                    ? payload(bufCommand.bodyBuf(), bodyLength, "frame body length error")
+                    : payload(command.getBody(), bodyLength, "frame body length error");
+        } catch (Throwable e) {
+            headerBuf.release();
+            if (extensionBuf != null) {
+                extensionBuf.release();
+            }
+            throw e;
+        }
+        if (extensionBuf == null && bodyBuf == null) {
+            return headerBuf;
+        }
+
+        CompositeByteBuf frame = allocator.compositeBuffer(3);
+        frame.addComponent(true, headerBuf);
+        if (extensionBuf != null) {
+            frame.addComponent(true, extensionBuf);
+        }
+        if (bodyBuf != null) {
+            frame.addComponent(true, bodyBuf);
+        }
+        return frame;
+    }
+
     @NonNull
     @SuppressWarnings("uncheck")
     public static Command decode(ByteBuf byteBuf) {
         Command.CommandBuilder commandBuilder = Command.builder();
 
         // reader header
-        Header header = Header.builder()
-                .magicNumber(byteBuf.readByte())
-                .length(byteBuf.readInt())
-                .version(byteBuf.readInt())
-                .extensionLength(byteBuf.readInt())
-                .messageType(byteBuf.readShort())
-                .serializeType(byteBuf.readByte())
-                .id(byteBuf.readLong())
-                .build();
+        Header header = decodeHeader(byteBuf);
         commandBuilder.header(header);
 
         // read extension
@@ -101,4 +141,127 @@ public final class NettyCommandCodec {
 
         return commandBuilder.build();
     }
+
+    /**
+     * 零拷贝解码: 拓展字段和body为入站ByteBuf的retained切片, 使用完后需调用{@link ByteBufCommand#release()}
+     * @param byteBuf 完整的数据帧
+     * @return 协议数据
+     */
+    @NonNull
+    public static ByteBufCommand decodeRetained(ByteBuf byteBuf) {
+        Header header = decodeHeader(byteBuf);
+        int extensionLength = header.getExtensionLength();
+        int bodyLength = header.getLength() - extensionLength - ProtoConstants.HEAD_FIX_LENGTH;
+        ByteBuf extension = extensionLength > 0 ? byteBuf.readRetainedSlice(extensionLength) : null;
+        ByteBuf body = bodyLength > 0 ? byteBuf.readRetainedSlice(bodyLength) : null;
+        return new ByteBufCommand(header, extension, body);
+    }
+
+    private static void encodeHeader(Header header, ByteBuf byteBuf) {
+        if (ProtoConstants.isCompactVersion(header.getVersion())) {
+            encodeCompactHeader(header, byteBuf);
+            return;
+        }
+        byteBuf.writeByte(header.getMagicNumber());
+        byteBuf.writeInt(header.getLength());
+        byteBuf.writeInt(header.getVersion());
+        byteBuf.writeInt(header.getExtensionLength());
+        byteBuf.writeShort(header.getMessageType());
+        byteBuf.writeByte(header.getSerializeType());
+        byteBuf.writeLong(header.getId());
+    }
+
+    /**
+     * 写入v2头部, 内存中的length依然按v1的含义记录, 写入时换算为实际长度
+     */
+    private static void encodeCompactHeader(Header header, ByteBuf byteBuf) {
+        int payloadLength = header.getLength() - ProtoConstants.HEAD_FIX_LENGTH;
+        int frameLength = VarIntUtils.size(header.getExtensionLength())
+                + VarIntUtils.size(header.getMessageType())
+                + 1
+                + VarIntUtils.sizeOfLong(header.getId())
+                + payloadLength;
+        byteBuf.writeByte(header.getMagicNumber());
+        byteBuf.writeByte(ProtoConstants.COMPACT_VERSION_MASK | header.getVersion());
+        byteBuf.writeByte(header.getFlags());
+        VarIntUtils.write(byteBuf, frameLength);
+        VarIntUtils.write(byteBuf, header.getExtensionLength());
+        VarIntUtils.write(byteBuf, header.getMessageType());
+        byteBuf.writeByte(header.getSerializeType());
+        VarIntUtils.writeLong(byteBuf, header.getId());
+    }
+
+    private static Header decodeHeader(ByteBuf byteBuf) {
+        if (isCompactFrame(byteBuf)) {
+            return decodeCompactHeader(byteBuf);
+        }
+        return Header.builder()
+                .magicNumber(byteBuf.readByte())
+                .length(byteBuf.readInt())
+                .version(byteBuf.readInt())
+                .extensionLength(byteBuf.readInt())
+                .messageType(byteBuf.readShort())
+                .serializeType(byteBuf.readByte())
+                .id(byteBuf.readLong())
+                .build();
+    }
+
+    private static Header decodeCompactHeader(ByteBuf byteBuf) {
+        byte magicNumber = byteBuf.readByte();
+        int version = byteBuf.readUnsignedByte() & ~ProtoConstants.COMPACT_VERSION_MASK;
+        byte flags = byteBuf.readByte();
+        int frameLength = VarIntUtils.read(byteBuf);
+        int headerStart = byteBuf.readerIndex();
+        int extensionLength = VarIntUtils.read(byteBuf);
+        short messageType = (short) VarIntUtils.read(byteBuf);
+        byte serializeType = byteBuf.readByte();
+        long id = VarIntUtils.readLong(byteBuf);
+        int payloadLength = frameLength - (byteBuf.readerIndex() - headerStart);
+        return Header.builder()
+                .magicNumber(magicNumber)
+                .length(payloadLength + ProtoConstants.HEAD_FIX_LENGTH)
+                .version(version)
+                .flags(flags)
+                .extensionLength(extensionLength)
+                .messageType(messageType)
+                .serializeType(serializeType)
+                .id(id)
+                .build();
+    }
+
+    /**
+     * v1帧在magic number之后是非负的int长度, 最高位一定为0; v2帧在该位置是最高位为1的版本号
+     * @param byteBuf 数据帧, 读指针指向magic number
+     * @return true v2帧
+     */
+    public static boolean isCompactFrame(ByteBuf byteBuf) {
+        return byteBuf.readableBytes() > 1
+                && (byteBuf.getByte(byteBuf.readerIndex() + 1) & ProtoConstants.COMPACT_VERSION_MASK) != 0;
+    }
+
+    /**
+     * 复用已有的ByteBuf, 只增加引用计数不拷贝数据
+     */
+    private static ByteBuf payload(ByteBuf byteBuf, int expectLength, String errorMessage) {
+        if (expectLength <= 0) {
+            return null;
+        }
+        if (byteBuf.readableBytes() != expectLength) {
+            throw new TomatoRpcRuntimeException(TomatoRpcErrorEnum.CODEC_ENCODE_ERROR, errorMessage);
+        }
+        return byteBuf.retainedDuplicate();
+    }
+
+    /**
+     * 包装字节数组, 不拷贝数据
+     */
+    private static ByteBuf payload(byte[] bytes, int expectLength, String errorMessage) {
+        if (expectLength <= 0 || bytes == null) {
+            return null;
+        }
+        if (bytes.length != expectLength) {
+            throw new TomatoRpcRuntimeException(TomatoRpcErrorEnum.CODEC_ENCODE_ERROR, errorMessage);
+        }
+        return Unpooled.wrappedBuffer(bytes);
+    }
 }
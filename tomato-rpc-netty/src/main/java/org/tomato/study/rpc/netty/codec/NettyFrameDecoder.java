@@ -14,18 +14,33 @@
 
 package org.tomato.study.rpc.netty.codec;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.TooLongFrameException;
+import org.tomato.study.rpc.core.utils.VarIntUtils;
 
 /**
- * 解析二进制数据帧
+ * 解析二进制数据帧, v1帧按定长的length字段切分, v2帧按varint的length字段切分
  * @author Tomato
  * Created on 2021.04.16
  */
 public class NettyFrameDecoder extends LengthFieldBasedFrameDecoder {
 
+    /**
+     * v2帧length字段之前的字节: magic number + version + flags
+     */
+    private static final int COMPACT_PREFIX_LENGTH = 3;
+
+    private final int maxFrameLength;
+
     public NettyFrameDecoder() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public NettyFrameDecoder(int maxFrameLength) {
         super(  // 数据帧最大长度
-                Integer.MAX_VALUE,
+                maxFrameLength,
                 // 记录数据长度的字段 相对数据帧启始位置 的偏移
                 1,
                 // 记录数据长度的字段的字段大小
@@ -34,5 +49,36 @@ public class NettyFrameDecoder extends LengthFieldBasedFrameDecoder {
                 0,
                 // 收到数据帧后跳过多少字节
                 0);
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+        if (!NettyCommandCodec.isCompactFrame(in)) {
+            return super.decode(ctx, in);
+        }
+        int readerIndex = in.readerIndex();
+        if (in.readableBytes() <= COMPACT_PREFIX_LENGTH) {
+            return null;
+        }
+        in.skipBytes(COMPACT_PREFIX_LENGTH);
+        int length = VarIntUtils.read(in);
+        int lengthFieldEndOffset = in.readerIndex() - readerIndex;
+        in.readerIndex(readerIndex);
+        // length字段还没有收全
+        if (length < 0) {
+            return null;
+        }
+        long frameLength = (long) lengthFieldEndOffset + length;
+        if (frameLength > maxFrameLength) {
+            in.skipBytes(in.readableBytes());
+            throw new TooLongFrameException("Adjusted frame length exceeds " + maxFrameLength + ": " + frameLength);
+        }
+        if (in.readableBytes() < frameLength) {
+            return null;
+        }
+        ByteBuf frame = in.retainedSlice(readerIndex, (int) frameLength);
+        in.readerIndex(readerIndex + (int) frameLength);
+        return frame;
     }
 }
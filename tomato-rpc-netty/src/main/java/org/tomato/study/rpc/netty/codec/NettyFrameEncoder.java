@@ -14,21 +14,23 @@
 
 package org.tomato.study.rpc.netty.codec;
 
-import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
 import org.tomato.study.rpc.core.data.Command;
 
+import java.util.List;
+
 /**
+ * {@link Command} ---编码---> CompositeByteBuf, 拓展字段和body不做内存拷贝
  * @author Tomato
  * Created on 2021.04.16
  */
-public class NettyFrameEncoder extends MessageToByteEncoder<Command> {
+public class NettyFrameEncoder extends MessageToMessageEncoder<Command> {
 
     @Override
     protected void encode(ChannelHandlerContext ctx,
                           Command command,
-                          ByteBuf out) throws Exception {
-        NettyCommandCodec.encode(command, out);
+                          List<Object> out) throws Exception {
+        out.add(NettyCommandCodec.encode(ctx.alloc(), command));
     }
 }
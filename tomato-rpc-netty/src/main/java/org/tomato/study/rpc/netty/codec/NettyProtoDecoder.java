@@ -18,14 +18,15 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageDecoder;
 import org.tomato.study.rpc.common.utils.Logger;
-import org.tomato.study.rpc.core.data.Command;
 import org.tomato.study.rpc.core.data.Header;
 import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.netty.data.ByteBufCommand;
 
 import java.util.List;
 
 /**
- * 二进制字节 ---解码---> {@link org.tomato.study.rpc.core.data.Command}
+ * 二进制字节 ---解码---> {@link org.tomato.study.rpc.core.data.Command},
+ * 解码结果引用入站ByteBuf的切片, 由下游handler负责释放
  * @author Tomato
  * Created on 2021.04.16
  */
@@ -35,16 +36,21 @@ public class NettyProtoDecoder extends MessageToMessageDecoder<ByteBuf> {
     protected void decode(ChannelHandlerContext ctx,
                           ByteBuf byteBuf,
                           List<Object> list) throws Exception {
-        Command command = NettyCommandCodec.decode(byteBuf);
-        Header header = command.getHeader();
-        if (header == null) {
-            throw new IllegalStateException("command header is null");
-        }
-        if (ProtoConstants.MAGIC_NUMBER != header.getMagicNumber()) {
-            throw new IllegalStateException("magic number is not valid");
-        }
-        if (header.getLength() < 0 || header.getExtensionLength() < 0) {
-            throw new IllegalStateException("illegal length");
+        ByteBufCommand command = NettyCommandCodec.decodeRetained(byteBuf);
+        try {
+            Header header = command.getHeader();
+            if (header == null) {
+                throw new IllegalStateException("command header is null");
+            }
+            if (ProtoConstants.MAGIC_NUMBER != header.getMagicNumber()) {
+                throw new IllegalStateException("magic number is not valid");
+            }
+            if (header.getLength() < 0 || header.getExtensionLength() < 0) {
+                throw new IllegalStateException("illegal length");
+            }
+        } catch (Throwable e) {
+            command.release();
+            throw e;
         }
         list.add(command);
     }
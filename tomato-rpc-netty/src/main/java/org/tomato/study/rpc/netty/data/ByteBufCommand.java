@@ -0,0 +1,133 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.data;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import org.tomato.study.rpc.core.data.Command;
+import org.tomato.study.rpc.core.data.Header;
+
+/**
+ * 拓展字段和body直接引用入站ByteBuf切片的Command, 解码时不再拷贝字节数组
+ * 持有者需要在处理结束后调用{@link #release()}归还内存;
+ * 这里刻意不实现ReferenceCounted, 避免Netty的编解码器自动释放
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class ByteBufCommand extends Command {
+
+    /**
+     * 拓展字段切片, 可能为空
+     */
+    private ByteBuf extensionBuf;
+
+    /**
+     * body切片, 可能为空
+     */
+    private ByteBuf bodyBuf;
+
+    public ByteBufCommand(Header header, ByteBuf extensionBuf, ByteBuf bodyBuf) {
+        super(header, null, null);
+        this.extensionBuf = extensionBuf;
+        this.bodyBuf = bodyBuf;
+    }
+
+    public ByteBuf extensionBuf() {
+        return extensionBuf;
+    }
+
+    public ByteBuf bodyBuf() {
+        return bodyBuf;
+    }
+
+    /**
+     * 兼容仍使用byte[]的调用方, 首次访问时才拷贝;
+     * 拓展头部解析出的Map会放进InvocationContext, 生命周期可能长于切片, 因此解析时也走这份拷贝
+     */
+    @Override
+    public byte[] getExtension() {
+        byte[] extension = super.getExtension();
+        if (extension == null && extensionBuf != null) {
+            extension = ByteBufUtil.getBytes(extensionBuf);
+            super.setExtension(extension);
+        }
+        return extension;
+    }
+
+    @Override
+    public void setExtension(byte[] extension) {
+        extensionBuf = releaseBuf(extensionBuf);
+        super.setExtension(extension);
+    }
+
+    @Override
+    public byte[] getBody() {
+        byte[] body = super.getBody();
+        if (body == null && bodyBuf != null) {
+            body = ByteBufUtil.getBytes(bodyBuf);
+            super.setBody(body);
+        }
+        return body;
+    }
+
+    @Override
+    public void setBody(byte[] body) {
+        bodyBuf = releaseBuf(bodyBuf);
+        super.setBody(body);
+    }
+
+    /**
+     * 增加切片的引用计数, 跨线程传递前调用
+     * @return this
+     */
+    public ByteBufCommand retain() {
+        if (extensionBuf != null) {
+            extensionBuf.retain();
+        }
+        if (bodyBuf != null) {
+            bodyBuf.retain();
+        }
+        return this;
+    }
+
+    /**
+     * 释放切片
+     */
+    public void release() {
+        if (extensionBuf != null) {
+            extensionBuf.release();
+        }
+        if (bodyBuf != null) {
+            bodyBuf.release();
+        }
+    }
+
+    /**
+     * 若为ByteBufCommand则释放其持有的切片
+     * @param command 协议数据
+     */
+    public static void release(Command command) {
+        if (command instanceof ByteBufCommand byteBufCommand) {
+            byteBufCommand.release();
+        }
+    }
+
+    private static ByteBuf releaseBuf(ByteBuf byteBuf) {
+        if (byteBuf != null) {
+            byteBuf.release();
+        }
+        return null;
+    }
+}
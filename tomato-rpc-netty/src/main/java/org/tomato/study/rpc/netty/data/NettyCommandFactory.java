@@ -0,0 +1,159 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.data;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.apache.commons.collections4.MapUtils;
+import org.tomato.study.rpc.core.data.Command;
+import org.tomato.study.rpc.core.data.CommandFactory;
+import org.tomato.study.rpc.core.data.CommandType;
+import org.tomato.study.rpc.core.data.ExtensionHeaderBuilder;
+import org.tomato.study.rpc.core.data.Header;
+import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.core.serializer.Serializer;
+
+import java.util.Map;
+
+/**
+ * 与{@link CommandFactory}对应, body直接序列化到池化的ByteBuf中, 生成{@link ByteBufCommand}
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public final class NettyCommandFactory {
+
+    private static final ByteBufAllocator ALLOCATOR = PooledByteBufAllocator.DEFAULT;
+
+    /**
+     * 请求的消息id在发送时由连接分配, 创建时先置为0, 不再争用全局的id生成器
+     */
+    private static final Long UNASSIGNED_ID = 0L;
+
+    private NettyCommandFactory() throws IllegalAccessException {
+        throw new IllegalAccessException("illegal access");
+    }
+
+    /**
+     * create request command
+     * @param requestData body
+     * @param serializer serialize the body
+     * @param contextParameters extension header parameters
+     * @param type command type
+     * @param <T> request type
+     * @return request command
+     */
+    public static <T> Command request(T requestData,
+                                      Serializer serializer,
+                                      Map<String, String> contextParameters,
+                                      CommandType type) {
+        return request(requestData, serializer, contextParameters, type, ProtoConstants.CURRENT_VERSION);
+    }
+
+    /**
+     * create request command with the protocol version negotiated with the server
+     * @param requestData body
+     * @param serializer serialize the body
+     * @param contextParameters extension header parameters
+     * @param type command type
+     * @param version protocol version, decides the extension header format
+     * @param <T> request type
+     * @return request command
+     */
+    public static <T> Command request(T requestData,
+                                      Serializer serializer,
+                                      Map<String, String> contextParameters,
+                                      CommandType type,
+                                      int version) {
+        ByteBuf body = serializeBody(requestData, serializer);
+        // 消息id在发送时由连接分配
+        Header header = CommandFactory.createHeader(
+                UNASSIGNED_ID, type, serializer, body == null ? 0 : body.readableBytes());
+        header.setVersion(version);
+        Command command = new ByteBufCommand(header, null, body);
+        if (MapUtils.isNotEmpty(contextParameters)) {
+            ExtensionHeaderBuilder extensionHeaderBuilder = new ExtensionHeaderBuilder(command);
+            contextParameters.forEach(extensionHeaderBuilder::putParam);
+            return extensionHeaderBuilder.build();
+        }
+        return command;
+    }
+
+    /**
+     * create response command
+     * @param requestId request id generated by client
+     * @param responseData response data
+     * @param serializer serialize the response data
+     * @param type response command type
+     * @param <T> response data type
+     * @return response command
+     */
+    public static <T> Command response(long requestId,
+                                       T responseData,
+                                       Serializer serializer,
+                                       CommandType type) {
+        ByteBuf body = serializeBody(responseData, serializer);
+        Header header = CommandFactory.createHeader(
+                requestId, type, serializer, body == null ? 0 : body.readableBytes());
+        return new ByteBufCommand(header, null, body);
+    }
+
+    /**
+     * create cancel command, the server stops handling the request and does not respond
+     * @param requestId id of the request to cancel
+     * @param serializer serializer of the request
+     * @param version protocol version negotiated with the server
+     * @return cancel command
+     */
+    public static Command cancel(long requestId, Serializer serializer, int version) {
+        Header header = CommandFactory.createHeader(requestId, CommandType.CANCEL, serializer, 0);
+        header.setVersion(version);
+        return new ByteBufCommand(header, null, null);
+    }
+
+    /**
+     * 反序列化body, ByteBufCommand直接从切片中读取
+     * @param command 协议数据
+     * @param serializer 序列化方式
+     * @param clazz body类型
+     * @param <T> body类型
+     * @return body对象
+     */
+    public static <T> T deserializeBody(Command command, Serializer serializer, Class<T> clazz) {
+        if (command instanceof ByteBufCommand bufCommand && bufCommand.bodyBuf() != null) {
+            // duplicate一份读指针, 不影响切片本身
+            return serializer.deserialize(bufCommand.bodyBuf().duplicate(), clazz);
+        }
+        return serializer.deserialize(command.getBody(), clazz);
+    }
+
+    private static <T> ByteBuf serializeBody(T data, Serializer serializer) {
+        if (data == null) {
+            return null;
+        }
+        ByteBuf body = ALLOCATOR.ioBuffer();
+        try {
+            serializer.serialize(data, body);
+        } catch (Throwable e) {
+            body.release();
+            throw e;
+        }
+        if (!body.isReadable()) {
+            body.release();
+            return null;
+        }
+        return body;
+    }
+}
@@ -14,7 +14,6 @@
 
 package org.tomato.study.rpc.netty.data;
 
-import lombok.RequiredArgsConstructor;
 import org.tomato.study.rpc.common.utils.Logger;
 import org.tomato.study.rpc.core.ResponseFuture;
 import org.tomato.study.rpc.core.data.Command;
@@ -27,6 +26,7 @@ import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
 import org.tomato.study.rpc.core.serializer.SerializerHolder;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -35,10 +35,27 @@ import java.util.concurrent.TimeoutException;
  * @author Tomato
  * Created on 2021.07.17
  */
-@RequiredArgsConstructor
 public class NettyInvocationResult implements Result {
 
-    private final ResponseFuture<Command> future;
+    /**
+     * 响应只反序列化一次, 反序列化完成后即可释放响应引用的入站内存
+     */
+    private final CompletableFuture<Response> resultFuture;
+
+    /**
+     * 调用方取消结果时一并取消的请求future
+     */
+    private final CompletableFuture<?> requestFuture;
+
+    public NettyInvocationResult(ResponseFuture<Command> future) {
+        this.requestFuture = future.getFuture();
+        this.resultFuture = future.getFuture().thenApply(NettyInvocationResult::deserialize);
+    }
+
+    public NettyInvocationResult(CompletableFuture<Response> resultFuture) {
+        this.requestFuture = resultFuture;
+        this.resultFuture = resultFuture;
+    }
 
     @Override
     public Response getResultSync() throws ExecutionException, InterruptedException {
@@ -67,21 +84,35 @@ public class NettyInvocationResult implements Result {
 
     @Override
     public CompletableFuture<Response> getResultAsync() {
-        return future.getFuture().thenApply(response ->
-                (Response) SerializerHolder.getSerializer(response.getHeader().getSerializeType())
-                        .deserialize(response.getBody(), RpcResponse.class)
-        ).exceptionally(e -> {
+        CompletableFuture<Response> result = resultFuture.exceptionally(e -> {
             Logger.DEFAULT.error("rpc invocation error, {}", e.getMessage(), e);
 
-            if (e.getCause() instanceof TomatoRpcException tomatoRpcException) {
+            // 直接以异常结束的future不会被包装成CompletionException
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (cause instanceof TomatoRpcException tomatoRpcException) {
                 return RpcResponse.fail(tomatoRpcException.getErrCode(), tomatoRpcException.getMessage());
             }
-            if (e.getCause() instanceof TomatoRpcRuntimeException tomatoRpcRuntimeException) {
+            if (cause instanceof TomatoRpcRuntimeException tomatoRpcRuntimeException) {
                 return RpcResponse.fail(tomatoRpcRuntimeException.getErrCode(), tomatoRpcRuntimeException.getMessage());
             }
 
             return RpcResponse.fail(TomatoRpcErrorEnum.UNKNOWN);
         });
+        result.whenComplete((response, cause) -> {
+            if (result.isCancelled()) {
+                requestFuture.cancel(false);
+            }
+        });
+        return result;
     }
 
+    private static Response deserialize(Command response) {
+        try {
+            return NettyCommandFactory.deserializeBody(response,
+                    SerializerHolder.getSerializer(response.getHeader().getSerializeType()),
+                    RpcResponse.class);
+        } finally {
+            ByteBufCommand.release(response);
+        }
+    }
 }
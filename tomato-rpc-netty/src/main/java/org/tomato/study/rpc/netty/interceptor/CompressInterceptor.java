@@ -20,6 +20,7 @@ import org.tomato.study.rpc.core.data.Command;
 import org.tomato.study.rpc.core.data.CommandFactory;
 import org.tomato.study.rpc.core.data.ExtensionHeader;
 import org.tomato.study.rpc.core.data.ExtensionHeaderBuilder;
+import org.tomato.study.rpc.core.data.HeaderFlag;
 import org.tomato.study.rpc.core.utils.GzipUtils;
 
 import java.util.Map;
@@ -34,7 +35,7 @@ public class CompressInterceptor implements CommandInterceptor {
     @Override
     public Command interceptRequest(
             Command command, Map<String, String> extensionHeaders) throws Exception {
-        if (!hasCompressHeader(extensionHeaders)) {
+        if (!HeaderFlag.COMPRESSED.isSet(command.getHeader()) && !hasCompressHeader(extensionHeaders)) {
             return command;
         }
         byte[] compressedBody = command.getBody();
@@ -50,7 +51,7 @@ public class CompressInterceptor implements CommandInterceptor {
     public Command postProcessResponse(Command request,
                                        Command response,
                                        Map<String, String> extensionHeaders) throws Exception {
-        if (!hasCompressHeader(extensionHeaders)) {
+        if (!HeaderFlag.COMPRESSED.isSet(request.getHeader()) && !hasCompressHeader(extensionHeaders)) {
             return response;
         }
         byte[] body = response.getBody();
@@ -59,6 +60,7 @@ public class CompressInterceptor implements CommandInterceptor {
         }
         byte[] compressedBody = GzipUtils.gzip(body);
         CommandFactory.changeBody(response, compressedBody);
+        HeaderFlag.COMPRESSED.set(response.getHeader());
         return new ExtensionHeaderBuilder(response)
                 .putParam(ExtensionHeader.COMPRESS.getKeyName(), Boolean.TRUE.toString())
                 .build();
@@ -0,0 +1,216 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.invoker;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.core.ResponseFuture;
+import org.tomato.study.rpc.core.data.Command;
+import org.tomato.study.rpc.core.data.CommandType;
+import org.tomato.study.rpc.core.data.Response;
+import org.tomato.study.rpc.core.data.RpcBatchRequestDTO;
+import org.tomato.study.rpc.core.data.RpcBatchResponse;
+import org.tomato.study.rpc.core.data.RpcRequestDTO;
+import org.tomato.study.rpc.core.data.RpcResponse;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
+import org.tomato.study.rpc.core.serializer.Serializer;
+import org.tomato.study.rpc.core.serializer.SerializerHolder;
+import org.tomato.study.rpc.netty.data.ByteBufCommand;
+import org.tomato.study.rpc.netty.data.NettyCommandFactory;
+import org.tomato.study.rpc.netty.transport.client.ChannelWrapper;
+import org.tomato.study.rpc.netty.transport.client.NettyRpcClient;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端批量调用, 在时间窗口内把发往同一节点的调用合并为一个{@link CommandType#RPC_BATCH_REQUEST},
+ * 窗口到期或者攒够maxBatchSize个调用后交给目标连接的EventLoop发送, 不会阻塞定时线程和调用方线程
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class NettyRequestBatcher {
+
+    private static final String BATCH_THREAD_NAME = "rpc-client-batch-thread";
+
+    /**
+     * 所有客户端共用的窗口定时器, HashedWheelTimer的精度不够;
+     * 只负责计时, 一个节点建连慢或者连接饱和不能拖慢其他节点的批次
+     */
+    private static final ScheduledExecutorService WINDOW_SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory(BATCH_THREAD_NAME, true));
+
+    private final NettyRpcClient rpcClient;
+
+    private final Serializer serializer;
+
+    private final int protocolVersion;
+
+    private final long windowMicroseconds;
+
+    private final int maxBatchSize;
+
+    /**
+     * 超时定时器
+     */
+    private final RpcTimeoutScheduler timer;
+
+    /**
+     * 当前正在攒的批次, 用this加锁
+     */
+    private List<PendingCall> current;
+
+    public NettyRequestBatcher(NettyRpcClient rpcClient,
+                               Serializer serializer,
+                               int protocolVersion,
+                               long windowMicroseconds,
+                               int maxBatchSize,
+                               RpcTimeoutScheduler timer) {
+        this.rpcClient = rpcClient;
+        this.serializer = serializer;
+        this.protocolVersion = protocolVersion;
+        this.windowMicroseconds = windowMicroseconds;
+        this.maxBatchSize = maxBatchSize;
+        this.timer = timer;
+    }
+
+    /**
+     * 提交一次调用
+     * @param request 调用
+     * @param context 调用的上下文参数
+     * @param timeoutMs 超时时间
+     * @return 调用结果
+     */
+    public CompletableFuture<Response> submit(RpcRequestDTO request, Map<String, String> context, long timeoutMs) {
+        PendingCall call = new PendingCall(
+                request, context == null ? null : new HashMap<>(context), timeoutMs, new CompletableFuture<>());
+        List<PendingCall> fullBatch = null;
+        synchronized (this) {
+            if (current == null) {
+                List<PendingCall> batch = new ArrayList<>(maxBatchSize);
+                current = batch;
+                WINDOW_SCHEDULER.schedule(() -> flush(batch), windowMicroseconds, TimeUnit.MICROSECONDS);
+            }
+            current.add(call);
+            if (current.size() >= maxBatchSize) {
+                fullBatch = current;
+                current = null;
+            }
+        }
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+        timer.newTimeout(call.future(), timeout -> call.future().completeExceptionally(
+                new TomatoRpcRuntimeException(TomatoRpcErrorEnum.RPC_INVOCATION_TIMEOUT,
+                        String.format("rpc timeout, invocation: %s", request))),
+                timeoutMs, TimeUnit.MILLISECONDS);
+        return call.future();
+    }
+
+    private void flush(List<PendingCall> batch) {
+        synchronized (this) {
+            // 已经因为攒满而发送过了
+            if (current != batch) {
+                return;
+            }
+            current = null;
+        }
+        dispatch(batch);
+    }
+
+    /**
+     * 不等待建连, 拿到连接后在连接的EventLoop上发送; 在EventLoop上发送时连接饱和会直接失败, 不会等待
+     */
+    private void dispatch(List<PendingCall> calls) {
+        rpcClient.getConnectionAsync().whenComplete((connection, cause) -> {
+            if (cause != null) {
+                calls.forEach(call -> call.future().completeExceptionally(cause));
+                return;
+            }
+            try {
+                connection.getChannel().eventLoop().execute(() -> send(calls, connection));
+            } catch (Throwable exception) {
+                calls.forEach(call -> call.future().completeExceptionally(exception));
+            }
+        });
+    }
+
+    private void send(List<PendingCall> calls, ChannelWrapper connection) {
+        List<RpcBatchRequestDTO.Entry> entries = new ArrayList<>(calls.size());
+        long timeoutMs = 0;
+        for (PendingCall call : calls) {
+            entries.add(new RpcBatchRequestDTO.Entry(call.request(), call.context()));
+            timeoutMs = Math.max(timeoutMs, call.timeoutMs());
+        }
+        ResponseFuture<Command> responseFuture;
+        try {
+            Command batchRequest = NettyCommandFactory.request(new RpcBatchRequestDTO(entries),
+                    serializer, null, CommandType.RPC_BATCH_REQUEST, protocolVersion);
+            responseFuture = rpcClient.send(connection, batchRequest);
+        } catch (Throwable exception) {
+            calls.forEach(call -> call.future().completeExceptionally(exception));
+            return;
+        }
+        // 批次中最长的超时时间过后仍未响应, 清理响应管理器中的future
+        timer.newTimeout(responseFuture.getFuture(), timeout -> responseFuture.destroy().ifPresent(future -> {
+            future.completeExceptionally(new TomatoRpcRuntimeException(TomatoRpcErrorEnum.RPC_INVOCATION_TIMEOUT,
+                    "rpc batch timeout, size: " + calls.size()));
+            Logger.DEFAULT.warn("rpc batch timeout, message id: {}", responseFuture.getMessageId());
+        }), timeoutMs, TimeUnit.MILLISECONDS);
+        responseFuture.getFuture().whenComplete((response, cause) -> {
+            if (cause != null) {
+                calls.forEach(call -> call.future().completeExceptionally(cause));
+            } else {
+                complete(calls, response);
+            }
+        });
+    }
+
+    private static void complete(List<PendingCall> calls, Command response) {
+        try {
+            Serializer responseSerializer = SerializerHolder.getSerializer(response.getHeader().getSerializeType());
+            if (CommandType.value(response.getHeader().getMessageType()) != CommandType.RPC_BATCH_RESPONSE) {
+                // 服务端整体处理失败时只返回一个普通响应
+                RpcResponse failure = NettyCommandFactory.deserializeBody(
+                        response, responseSerializer, RpcResponse.class);
+                calls.forEach(call -> call.future().complete(failure));
+                return;
+            }
+            List<RpcResponse> responses = NettyCommandFactory.deserializeBody(
+                    response, responseSerializer, RpcBatchResponse.class).getResponses();
+            for (int i = 0; i < calls.size(); i++) {
+                calls.get(i).future().complete(responses != null && i < responses.size()
+                        ? responses.get(i) : RpcResponse.fail(TomatoRpcErrorEnum.UNKNOWN));
+            }
+        } catch (Throwable exception) {
+            calls.forEach(call -> call.future().completeExceptionally(exception));
+        } finally {
+            ByteBufCommand.release(response);
+        }
+    }
+
+    private record PendingCall(RpcRequestDTO request,
+                               Map<String, String> context,
+                               long timeoutMs,
+                               CompletableFuture<Response> future) {
+    }
+}
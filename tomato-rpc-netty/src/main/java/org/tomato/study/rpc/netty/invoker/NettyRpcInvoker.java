@@ -14,33 +14,45 @@
 
 package org.tomato.study.rpc.netty.invoker;
 
-import io.netty.util.HashedWheelTimer;
 import io.netty.util.Timeout;
 import io.netty.util.TimerTask;
 import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.common.utils.NetworkUtil;
 import org.tomato.study.rpc.core.ResponseFuture;
 import org.tomato.study.rpc.core.data.Command;
 import org.tomato.study.rpc.core.data.CommandFactory;
 import org.tomato.study.rpc.core.data.CommandType;
 import org.tomato.study.rpc.core.data.ExtensionHeader;
+import org.tomato.study.rpc.core.data.HeaderFlag;
 import org.tomato.study.rpc.core.data.Invocation;
 import org.tomato.study.rpc.core.data.InvocationContext;
 import org.tomato.study.rpc.core.data.MetaData;
+import org.tomato.study.rpc.core.data.MethodTableDTO;
+import org.tomato.study.rpc.core.data.ProtoConstants;
 import org.tomato.study.rpc.core.data.Result;
 import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.data.RpcRequestDTO;
 import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
 import org.tomato.study.rpc.core.error.TomatoRpcException;
 import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
 import org.tomato.study.rpc.core.invoker.BaseRpcInvoker;
-import org.tomato.study.rpc.core.transport.RpcClient;
+import org.tomato.study.rpc.core.serializer.SerializerHolder;
 import org.tomato.study.rpc.core.utils.GzipUtils;
+import org.tomato.study.rpc.netty.data.ByteBufCommand;
+import org.tomato.study.rpc.netty.data.NettyCommandFactory;
 import org.tomato.study.rpc.netty.data.NettyInvocationResult;
+import org.tomato.study.rpc.netty.transport.client.ChannelWrapper;
+import org.tomato.study.rpc.netty.transport.client.MethodIdTable;
 import org.tomato.study.rpc.netty.transport.client.NettyRpcClient;
 
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -50,55 +62,218 @@ import java.util.concurrent.TimeUnit;
  */
 public class NettyRpcInvoker extends BaseRpcInvoker {
 
-    private final RpcClient<Command> rpcClient;
+    private final NettyRpcClient rpcClient;
 
     /**
-     * 定时任务，将超时的Future删除
+     * 根据服务端上报的版本选择协议版本, 旧服务端仍使用字符串格式的拓展头部
      */
-    private final HashedWheelTimer timer = new HashedWheelTimer(100, TimeUnit.MILLISECONDS);
+    private final int protocolVersion;
+
+    /**
+     * 定时任务，将超时的Future删除, 所有invoker共用
+     */
+    private final RpcTimeoutScheduler timer = RpcTimeoutScheduler.getInstance();
+
+    /**
+     * 批量调用, 未开启或服务端不支持时为空
+     */
+    private final NettyRequestBatcher batcher;
 
     public NettyRpcInvoker(MetaData nodeInfo, RpcConfig rpcConfig) {
+        this(nodeInfo, rpcConfig, null);
+    }
+
+    /**
+     * @param sharedMemoryPath 服务端在同一主机上接收共享内存连接的目录, 为空时使用socket连接
+     */
+    public NettyRpcInvoker(MetaData nodeInfo, RpcConfig rpcConfig, String sharedMemoryPath) {
         super(nodeInfo, rpcConfig);
         URI uri = URI.create("tomato://" + nodeInfo.getHost() + ":" + nodeInfo.getPort());
-        this.rpcClient = new NettyRpcClient(uri, rpcConfig.clientKeepAliveMilliseconds());
+        this.rpcClient = new NettyRpcClient(uri, domainSocketPath(nodeInfo, rpcConfig), sharedMemoryPath, rpcConfig);
+        this.protocolVersion = negotiateVersion(nodeInfo);
+        // 批量请求和v2协议一起发布, 旧服务端不认识
+        this.batcher = rpcConfig.clientBatchWindowMicroseconds() > 0 && ProtoConstants.isCompactVersion(protocolVersion)
+                ? new NettyRequestBatcher(rpcClient, getSerializer(), protocolVersion,
+                        rpcConfig.clientBatchWindowMicroseconds(), rpcConfig.clientBatchMaxSize(), timer)
+                : null;
     }
 
     @Override
     protected Result doInvoke(Invocation invocation) throws TomatoRpcException {
-        // 将方法调用的数据转化为协议对象
         Map<String, String> contextMap = InvocationContext.get();
-        Command rpcRequest = CommandFactory.request(
-                invocation,
+        if (canBatch(invocation)) {
+            return new NettyInvocationResult(batcher.submit((RpcRequestDTO) invocation, contextMap, getTimeoutMs()));
+        }
+        ChannelWrapper connection = rpcClient.getConnection();
+
+        // 将方法调用的数据转化为协议对象
+        Invocation compacted = compact(invocation, connection);
+        Map<String, String> headers = withMethodId(contextMap, compacted);
+        Command rpcRequest = NettyCommandFactory.request(
+                compacted,
                 getSerializer(),
-                contextMap,
-                CommandType.RPC_REQUEST);
+                headers,
+                CommandType.RPC_REQUEST,
+                protocolVersion);
+        // 超时时间即调用方剩余的等待时间, 服务端可以丢弃已经超时的请求
+        if (ProtoConstants.isCompactVersion(protocolVersion)
+                && headers != null && headers.containsKey(ExtensionHeader.TIMEOUT.getKeyName())) {
+            HeaderFlag.HAS_DEADLINE.set(rpcRequest.getHeader());
+        }
 
         // 进行一些前置处理
         rpcRequest = beforeSendRequest(rpcRequest);
 
         // 发送数据
-        ResponseFuture<Command> responseFuture = rpcClient.send(rpcRequest);
+        ResponseFuture<Command> responseFuture = rpcClient.send(connection, rpcRequest);
 
         // 设置客户端超时
-        addTimeoutTask(invocation, rpcRequest, responseFuture);
+        Runnable cancel = () -> cancel(connection, responseFuture.getMessageId());
+        addTimeoutTask(invocation, rpcRequest, responseFuture, cancel);
+        // 调用方取消时通知服务端
+        responseFuture.getFuture().whenComplete((response, cause) -> {
+            if (cause instanceof CancellationException && responseFuture.destroy().isPresent()) {
+                cancel.run();
+            }
+        });
         return new NettyInvocationResult(responseFuture);
     }
 
+    /**
+     * 调用方不再等待响应, 通知服务端停止处理请求
+     */
+    private void cancel(ChannelWrapper connection, long messageId) {
+        // 旧版本的服务端不认识取消消息
+        if (!ProtoConstants.isCompactVersion(protocolVersion)) {
+            return;
+        }
+        rpcClient.sendOneWay(connection, NettyCommandFactory.cancel(messageId, getSerializer(), protocolVersion));
+    }
+
     protected Command beforeSendRequest(Command request) {
         if (Objects.equals(Boolean.TRUE.toString(), ExtensionHeader.COMPRESS.getValueFromContext())) {
             CommandFactory.changeBody(request, GzipUtils.gzip(request.getBody()));
+            HeaderFlag.COMPRESSED.set(request.getHeader());
         }
         return request;
     }
 
+    /**
+     * 服务端已分配方法id时只发送方法id和参数, 第一次使用连接时异步获取方法id表
+     */
+    private Invocation compact(Invocation invocation, ChannelWrapper connection) {
+        if (!(invocation instanceof RpcRequestDTO request) || !ProtoConstants.isCompactVersion(protocolVersion)) {
+            return invocation;
+        }
+        MethodIdTable methodIdTable = connection.getMethodIdTable();
+        if (methodIdTable == null) {
+            if (connection.markMethodTableRequested()) {
+                requestMethodTable(connection);
+            }
+            return invocation;
+        }
+        Integer methodId = methodIdTable.lookup(request);
+        if (methodId == null) {
+            return invocation;
+        }
+        return RpcRequestDTO.builder()
+                .methodId(methodId)
+                .args(request.getArgs())
+                .build();
+    }
+
+    /**
+     * 方法id同时放入拓展头部, 服务端据此选择执行线程; 作为服务端收到的方法id不会传给下游
+     */
+    private static Map<String, String> withMethodId(Map<String, String> contextMap, Invocation invocation) {
+        String key = ExtensionHeader.METHOD_ID.getKeyName();
+        Integer methodId = invocation instanceof RpcRequestDTO request ? request.getMethodId() : null;
+        if (methodId == null) {
+            if (contextMap == null || !contextMap.containsKey(key)) {
+                return contextMap;
+            }
+            Map<String, String> headers = new HashMap<>(contextMap);
+            headers.remove(key);
+            return headers;
+        }
+        Map<String, String> headers = contextMap == null ? new HashMap<>(1) : new HashMap<>(contextMap);
+        headers.put(key, String.valueOf(methodId));
+        return headers;
+    }
+
+    private void requestMethodTable(ChannelWrapper connection) {
+        ResponseFuture<Command> responseFuture;
+        try {
+            responseFuture = rpcClient.send(connection, NettyCommandFactory.request(
+                    null, getSerializer(), null, CommandType.METHOD_TABLE_REQUEST, protocolVersion));
+        } catch (TomatoRpcException exception) {
+            Logger.DEFAULT.warn("request method table failed, node: " + getMetadata(), exception);
+            return;
+        }
+        timer.newTimeout(responseFuture.getFuture(),
+                timeout -> responseFuture.destroy().ifPresent(future -> future.completeExceptionally(
+                        new TomatoRpcRuntimeException(TomatoRpcErrorEnum.RPC_INVOCATION_TIMEOUT, "method table timeout"))),
+                getRpcConfig().globalClientTimeoutMilliseconds(), TimeUnit.MILLISECONDS);
+        responseFuture.getFuture().whenComplete((response, cause) -> {
+            // 获取失败时该连接一直使用完整的方法描述
+            if (cause != null) {
+                Logger.DEFAULT.warn("request method table failed, node: " + getMetadata(), cause);
+                return;
+            }
+            try {
+                MethodTableDTO methodTable = NettyCommandFactory.deserializeBody(response,
+                        SerializerHolder.getSerializer(response.getHeader().getSerializeType()), MethodTableDTO.class);
+                connection.setMethodIdTable(new MethodIdTable(methodTable));
+            } catch (Throwable exception) {
+                Logger.DEFAULT.warn("parse method table failed, node: " + getMetadata(), exception);
+            } finally {
+                ByteBufCommand.release(response);
+            }
+        });
+    }
+
     private void addTimeoutTask(Invocation invocation,
                                 Command request,
-                                ResponseFuture<Command> responseFuture) {
-        Long timeoutMs = Optional.ofNullable(ExtensionHeader.TIMEOUT.getValueFromContext())
+                                ResponseFuture<Command> responseFuture,
+                                Runnable cancel) {
+        timer.newTimeout(responseFuture.getFuture(), new RpcTimeoutTask(request, responseFuture, invocation, cancel),
+                getTimeoutMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private long getTimeoutMs() {
+        return Optional.ofNullable(ExtensionHeader.TIMEOUT.getValueFromContext())
                 .map(Long::valueOf)
                 .orElse(getRpcConfig().globalClientTimeoutMilliseconds());
-        timer.newTimeout(new RpcTimeoutTask(request, responseFuture, invocation),
-                timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 压缩的请求单独发送
+     */
+    private boolean canBatch(Invocation invocation) {
+        return batcher != null
+                && invocation instanceof RpcRequestDTO
+                && !Objects.equals(Boolean.TRUE.toString(), ExtensionHeader.COMPRESS.getValueFromContext());
+    }
+
+    /**
+     * 服务端在同一主机上并且开启了unix domain socket时使用它连接
+     * @return socket路径, 不满足条件时返回null
+     */
+    static String domainSocketPath(MetaData nodeInfo, RpcConfig rpcConfig) {
+        MetaData.NodeProperty nodeProperty = nodeInfo.getNodeProperty();
+        if (!rpcConfig.clientUseDomainSocket() || nodeProperty == null || nodeProperty.domainSocket == null) {
+            return null;
+        }
+        // 主机相同但不共享文件系统时(如不同容器)找不到socket文件
+        if (!NetworkUtil.isLocalHost(nodeInfo.getHost()) || !Files.exists(Path.of(nodeProperty.domainSocket))) {
+            return null;
+        }
+        return nodeProperty.domainSocket;
+    }
+
+    private static int negotiateVersion(MetaData nodeInfo) {
+        MetaData.NodeProperty nodeProperty = nodeInfo.getNodeProperty();
+        return ProtoConstants.negotiate(nodeProperty == null ? 0 : nodeProperty.version);
     }
 
     @Override
@@ -106,15 +281,20 @@ public class NettyRpcInvoker extends BaseRpcInvoker {
         return super.isUsable() && rpcClient.isUsable();
     }
 
+    @Override
+    public boolean isSaturated() {
+        return rpcClient.isSaturated();
+    }
+
     @Override
     protected void doDestroy() throws TomatoRpcException {
         rpcClient.stop();
-        timer.stop();
     }
 
     private record RpcTimeoutTask(Command request,
                                   ResponseFuture<Command> responseFuture,
-                                  Invocation invocation) implements TimerTask {
+                                  Invocation invocation,
+                                  Runnable cancel) implements TimerTask {
 
         @Override
         public void run(Timeout timeout) throws Exception {
@@ -125,6 +305,7 @@ public class NettyRpcInvoker extends BaseRpcInvoker {
                 Logger.DEFAULT.warn("rpc timeout, message id: {}, invocation: {}",
                     responseFuture.getMessageId(),
                     invocation);
+                cancel.run();
             });
         }
     }
@@ -0,0 +1,93 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.invoker;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.tomato.study.rpc.netty.metrics.TimeoutMetrics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 所有invoker共用的超时调度器, 请求完成后立即取消对应的超时任务, 避免时间轮一直持有请求对象
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public final class RpcTimeoutScheduler {
+
+    private static final String TIMEOUT_THREAD_NAME = "rpc-timeout-thread";
+
+    /**
+     * 时间轮刻度, 单位ms
+     */
+    private static final long TICK_MILLISECONDS = 10;
+
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private static final RpcTimeoutScheduler INSTANCE = new RpcTimeoutScheduler();
+
+    private final HashedWheelTimer timer = new HashedWheelTimer(new DefaultThreadFactory(TIMEOUT_THREAD_NAME, true),
+            TICK_MILLISECONDS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
+
+    private final TimeoutMetrics metrics = new TimeoutMetrics();
+
+    private RpcTimeoutScheduler() {
+    }
+
+    public static RpcTimeoutScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 提交超时任务, future完成后取消
+     * @param future 等待的结果
+     * @param task 超时后执行的任务
+     * @param delay 超时时间
+     * @param unit 时间单位
+     */
+    public void newTimeout(CompletableFuture<?> future, TimerTask task, long delay, TimeUnit unit) {
+        if (future.isDone()) {
+            return;
+        }
+        Timeout timeout = newTimeout(task, delay, unit);
+        future.whenComplete((result, cause) -> {
+            if (timeout.cancel()) {
+                metrics.recordCancelled();
+            }
+        });
+    }
+
+    /**
+     * 提交超时任务, 由调用方负责取消
+     * @param task 超时后执行的任务
+     * @param delay 超时时间
+     * @param unit 时间单位
+     * @return 超时任务
+     */
+    public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+        metrics.recordScheduled();
+        return timer.newTimeout(timeout -> {
+            metrics.recordExpired();
+            task.run(timeout);
+        }, delay, unit);
+    }
+
+    public TimeoutMetrics.Snapshot getMetrics() {
+        return metrics.snapshot(timer.pendingTimeouts());
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.invoker;
+
+import org.tomato.study.rpc.common.utils.NetworkUtil;
+import org.tomato.study.rpc.core.data.MetaData;
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.invoker.RpcInvoker;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * 服务端在同一主机上并且开启了共享内存传输时, 创建通过共享内存环形缓冲区通信的Invoker, 否则与netty实现相同
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class ShmRpcInvokerFactory extends NettyRpcInvokerFactory {
+
+    @Override
+    public Optional<RpcInvoker> create(MetaData nodeInfo, RpcConfig rpcConfig) {
+        if (nodeInfo == null) {
+            return Optional.empty();
+        }
+        String sharedMemoryPath = sharedMemoryPath(nodeInfo, rpcConfig);
+        if (sharedMemoryPath == null) {
+            return super.create(nodeInfo, rpcConfig);
+        }
+        return Optional.of(new NettyRpcInvoker(nodeInfo, rpcConfig, sharedMemoryPath));
+    }
+
+    /**
+     * @return 服务端接收共享内存连接的目录, 不满足条件时返回null
+     */
+    static String sharedMemoryPath(MetaData nodeInfo, RpcConfig rpcConfig) {
+        MetaData.NodeProperty nodeProperty = nodeInfo.getNodeProperty();
+        if (!rpcConfig.clientUseSharedMemory() || nodeProperty == null || nodeProperty.sharedMemory == null) {
+            return null;
+        }
+        // 主机相同但不共享文件系统时(如不同容器)找不到目录
+        if (!NetworkUtil.isLocalHost(nodeInfo.getHost()) || !Files.isDirectory(Path.of(nodeProperty.sharedMemory))) {
+            return null;
+        }
+        return nodeProperty.sharedMemory;
+    }
+}
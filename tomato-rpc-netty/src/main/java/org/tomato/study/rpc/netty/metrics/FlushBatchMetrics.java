@@ -0,0 +1,90 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统计每次真正flush到socket时携带的数据帧数量
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class FlushBatchMetrics {
+
+    /**
+     * 批大小分桶的上界: [1], [2,4], [5,16], [17,64], [65,+∞)
+     */
+    private static final int[] BUCKET_BOUNDS = {1, 4, 16, 64, Integer.MAX_VALUE};
+
+    private final LongAdder flushes = new LongAdder();
+
+    private final LongAdder messages = new LongAdder();
+
+    private final AtomicLong maxBatchSize = new AtomicLong();
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS.length];
+
+    public FlushBatchMetrics() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一次flush
+     * @param batchSize 本次flush写出的数据帧数量
+     */
+    public void record(int batchSize) {
+        flushes.increment();
+        messages.add(batchSize);
+        maxBatchSize.accumulateAndGet(batchSize, Math::max);
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            if (batchSize <= BUCKET_BOUNDS[i]) {
+                buckets[i].increment();
+                return;
+            }
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] bucketCounts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            bucketCounts[i] = buckets[i].sum();
+        }
+        return new Snapshot(flushes.sum(), messages.sum(), maxBatchSize.get(), bucketCounts);
+    }
+
+    /**
+     * @param flushes      flush次数
+     * @param messages     写出的数据帧总数
+     * @param maxBatchSize 单次flush的最大批大小
+     * @param buckets      批大小分布, 分桶见{@link #BUCKET_BOUNDS}
+     */
+    public record Snapshot(long flushes, long messages, long maxBatchSize, long[] buckets) {
+
+        public double averageBatchSize() {
+            return flushes == 0 ? 0 : (double) messages / flushes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("flushes=%d, messages=%d, avgBatch=%.2f, maxBatch=%d, "
+                            + "batch[1]=%d, batch[2-4]=%d, batch[5-16]=%d, batch[17-64]=%d, batch[65+]=%d",
+                    flushes, messages, averageBatchSize(), maxBatchSize,
+                    buckets[0], buckets[1], buckets[2], buckets[3], buckets[4]);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.metrics;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * 放在pipeline最靠近socket的位置, 统计两次flush之间写出的数据帧数量
+ * 每个连接一个实例
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class FlushBatchMetricsHandler extends ChannelOutboundHandlerAdapter {
+
+    private final FlushBatchMetrics metrics;
+
+    /**
+     * 上次flush之后写入的数据帧, 只在EventLoop线程中访问
+     */
+    private int pendingWrites;
+
+    public FlushBatchMetricsHandler(FlushBatchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof ByteBuf) {
+            pendingWrites++;
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (pendingWrites > 0) {
+            metrics.record(pendingWrites);
+            pendingWrites = 0;
+        }
+        ctx.flush();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统计连接饱和(写缓冲区超过高水位或在途请求数达到上限)时的发送情况
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class SaturationMetrics {
+
+    private final LongAdder waited = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    public void recordWaited() {
+        waited.increment();
+    }
+
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * @param inFlight              当前所有连接的在途请求数
+     * @param unwritableConnections 当前写缓冲区超过高水位的连接数
+     * @param saturated             是否所有可用连接都已饱和
+     */
+    public Snapshot snapshot(int inFlight, int unwritableConnections, boolean saturated) {
+        return new Snapshot(waited.sum(), rejected.sum(), inFlight, unwritableConnections, saturated);
+    }
+
+    /**
+     * @param waited                等待后发送成功的请求数
+     * @param rejected              因连接饱和而失败的请求数
+     * @param inFlight              在途请求数
+     * @param unwritableConnections 不可写的连接数
+     * @param saturated             是否所有可用连接都已饱和
+     */
+    public record Snapshot(long waited, long rejected, int inFlight, int unwritableConnections, boolean saturated) {
+
+        @Override
+        public String toString() {
+            return String.format("waited=%d, rejected=%d, inFlight=%d, unwritableConnections=%d, saturated=%b",
+                    waited, rejected, inFlight, unwritableConnections, saturated);
+        }
+    }
+}
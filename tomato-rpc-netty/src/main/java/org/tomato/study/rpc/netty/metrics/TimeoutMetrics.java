@@ -0,0 +1,65 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统计超时任务的调度情况
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class TimeoutMetrics {
+
+    private final LongAdder scheduled = new LongAdder();
+
+    private final LongAdder expired = new LongAdder();
+
+    private final LongAdder cancelled = new LongAdder();
+
+    public void recordScheduled() {
+        scheduled.increment();
+    }
+
+    public void recordExpired() {
+        expired.increment();
+    }
+
+    public void recordCancelled() {
+        cancelled.increment();
+    }
+
+    /**
+     * @param pending 当前仍在时间轮中等待的任务数
+     */
+    public Snapshot snapshot(long pending) {
+        return new Snapshot(scheduled.sum(), expired.sum(), cancelled.sum(), pending);
+    }
+
+    /**
+     * @param scheduled 提交的超时任务数
+     * @param expired   到期执行的任务数
+     * @param cancelled 请求完成后取消的任务数
+     * @param pending   仍在等待的任务数
+     */
+    public record Snapshot(long scheduled, long expired, long cancelled, long pending) {
+
+        @Override
+        public String toString() {
+            return String.format("scheduled=%d, expired=%d, cancelled=%d, pending=%d",
+                    scheduled, expired, cancelled, pending);
+        }
+    }
+}
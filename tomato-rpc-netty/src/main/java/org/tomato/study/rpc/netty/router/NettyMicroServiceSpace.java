@@ -14,6 +14,7 @@
 
 package org.tomato.study.rpc.netty.router;
 
+import org.tomato.study.rpc.core.ProviderRegistry;
 import org.tomato.study.rpc.core.circuit.CircuitBreaker;
 import org.tomato.study.rpc.core.circuit.CircuitRpcInvoker;
 import org.tomato.study.rpc.core.data.MetaData;
@@ -43,7 +44,20 @@ public class NettyMicroServiceSpace extends BaseMicroServiceSpace {
                                   RpcInvokerFactory invokerFactory,
                                   RpcConfig rpcConfig,
                                   LoadBalance loadBalance) {
-        super(microServiceId, rpcConfig, loadBalance);
+        this(microServiceId, invokerFactory, rpcConfig, loadBalance, null, null);
+    }
+
+    /**
+     * @param localMetaData 当前进程的服务节点数据, 订阅到该节点时进程内直接调用
+     * @param providerRegistry 当前进程注册的服务实现
+     */
+    public NettyMicroServiceSpace(String microServiceId,
+                                  RpcInvokerFactory invokerFactory,
+                                  RpcConfig rpcConfig,
+                                  LoadBalance loadBalance,
+                                  MetaData localMetaData,
+                                  ProviderRegistry providerRegistry) {
+        super(microServiceId, rpcConfig, loadBalance, localMetaData, providerRegistry);
         this.invokerFactory = invokerFactory;
     }
 
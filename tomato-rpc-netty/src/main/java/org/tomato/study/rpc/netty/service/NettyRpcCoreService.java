@@ -23,13 +23,16 @@ import org.tomato.study.rpc.core.data.RpcConfig;
 import org.tomato.study.rpc.core.data.RpcServerConfig;
 import org.tomato.study.rpc.core.data.StubConfig;
 import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.error.TomatoRpcException;
 import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
 import org.tomato.study.rpc.core.invoker.RpcInvokerFactory;
 import org.tomato.study.rpc.core.loadbalance.LoadBalance;
 import org.tomato.study.rpc.core.router.MicroServiceSpace;
 import org.tomato.study.rpc.core.server.RpcServer;
 import org.tomato.study.rpc.netty.router.NettyMicroServiceSpace;
+import org.tomato.study.rpc.netty.transport.client.ClientEventLoopGroupHolder;
 import org.tomato.study.rpc.netty.transport.server.NettyRpcServer;
+import org.tomato.study.rpc.netty.transport.socket.TransportLoader;
 
 import java.net.URI;
 import java.util.List;
@@ -47,12 +50,17 @@ public class NettyRpcCoreService extends BaseRpcCoreService {
 
     @Override
     public <T> URI registerProvider(T serviceInstance, Class<T> serviceInterface) {
+        return registerProvider(serviceInstance, serviceInterface, false);
+    }
+
+    @Override
+    public <T> URI registerProvider(T serviceInstance, Class<T> serviceInterface, boolean nonBlocking) {
         if (serviceInstance == null || serviceInterface == null || !serviceInterface.isInterface()) {
             throw new TomatoRpcRuntimeException(TomatoRpcErrorEnum.CORE_SERVICE_REGISTER_PROVIDER_ERROR);
         }
         ProviderRegistry providerRegistry = getProviderRegistry();
         String microServiceId = getMicroServiceId();
-        providerRegistry.register(microServiceId, serviceInstance, serviceInterface);
+        providerRegistry.register(microServiceId, serviceInstance, serviceInterface, nonBlocking);
 
         RpcServer rpcServer = getRpcServer();
         URI providerURI = NetworkUtil.createURI(getProtocol(), rpcServer.getHost(), rpcServer.getPort());
@@ -78,7 +86,8 @@ public class NettyRpcCoreService extends BaseRpcCoreService {
             RpcInvokerFactory rpcInvokerFactory = getRpcInvokerFactory();
             LoadBalance loadBalance = getLoadBalance();
             for (int i = 0; i < subscribedServiceIds.size(); i++) {
-                microServices[i] = new NettyMicroServiceSpace(subscribedServiceIds.get(i), rpcInvokerFactory, rpcConfig, loadBalance);
+                microServices[i] = new NettyMicroServiceSpace(subscribedServiceIds.get(i), rpcInvokerFactory,
+                        rpcConfig, loadBalance, getRpcServerMetaData(), getProviderRegistry());
             }
         } else {
             microServices = new MicroServiceSpace[0];
@@ -86,6 +95,20 @@ public class NettyRpcCoreService extends BaseRpcCoreService {
         return microServices;
     }
 
+    @Override
+    protected void doStart() throws TomatoRpcException {
+        // 持有共用的客户端IO线程池, 下游节点全部下线后重新上线时不需要重建线程
+        ClientEventLoopGroupHolder.acquire(getRpcConfig().clientIoThreads(),
+                TransportLoader.load(getRpcConfig().transport()));
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws TomatoRpcException {
+        super.doStop();
+        ClientEventLoopGroupHolder.release();
+    }
+
     @Override
     protected RpcServer createRpcServer(RpcServerConfig rpcServerConfig, ProviderRegistry providerRegistry) {
         return new NettyRpcServer(rpcServerConfig, providerRegistry);
@@ -15,7 +15,12 @@
 package org.tomato.study.rpc.netty.transport.client;
 
 import io.netty.channel.Channel;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Tomato
@@ -26,15 +31,92 @@ public class ChannelWrapper {
 
     private final Channel channel;
 
+    /**
+     * 连接的响应管理器, 同时负责分配消息id
+     */
+    private final NettyResponseHolder responseHolder;
+
+    /**
+     * 服务端的方法id表, 握手完成前为空
+     */
+    @Setter
+    private volatile MethodIdTable methodIdTable;
+
+    /**
+     * 是否已经发起过方法id表的握手
+     */
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean methodTableRequested = new AtomicBoolean();
+
+    /**
+     * 已发送但还未完成的请求数量
+     */
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger inFlight = new AtomicInteger();
+
     public ChannelWrapper(Channel channel) {
         this.channel = channel;
+        this.responseHolder = channel.attr(NettyResponseHolder.KEY).get();
     }
 
     public boolean isActiveChannel() {
         return channel.isActive();
     }
 
+    public boolean isWritable() {
+        return channel.isWritable();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public void incrementInFlight() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * 在途请求数未达到上限时加一
+     * @param maxInFlight 最大在途请求数, 小于等于0时不限制
+     * @return true 占用成功
+     */
+    public boolean tryIncrementInFlight(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            inFlight.incrementAndGet();
+            return true;
+        }
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxInFlight) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    public void decrementInFlight() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 写缓冲区超过高水位或在途请求数达到上限
+     * @param maxInFlight 最大在途请求数, 小于等于0时不限制
+     * @return true 连接已饱和
+     */
+    public boolean isSaturated(int maxInFlight) {
+        return !channel.isWritable() || (maxInFlight > 0 && inFlight.get() >= maxInFlight);
+    }
+
     public void closeChannel() {
         this.channel.close();
     }
+
+    /**
+     * 标记开始握手, 每个连接只握手一次
+     * @return true 当前线程负责发起握手
+     */
+    public boolean markMethodTableRequested() {
+        return methodTableRequested.compareAndSet(false, true);
+    }
 }
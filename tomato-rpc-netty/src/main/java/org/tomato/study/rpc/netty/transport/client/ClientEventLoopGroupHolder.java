@@ -0,0 +1,96 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.client;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.netty.transport.socket.Transport;
+
+/**
+ * 进程内所有客户端共用的IO线程池, 按引用计数管理生命周期
+ * 第一次获取时按传入的线程数和传输实现创建, 之后的参数被忽略; 最后一个使用者释放后关闭
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public final class ClientEventLoopGroupHolder {
+
+    private static final String RPC_CLIENT_THREAD_NAME = "rpc-client-worker-thread";
+
+    private static EventLoopGroup eventLoopGroup;
+
+    /**
+     * 创建IO线程池的传输实现
+     */
+    private static Transport transport;
+
+    private static int referenceCount;
+
+    private ClientEventLoopGroupHolder() {
+        throw new IllegalStateException("illegal access");
+    }
+
+    /**
+     * 获取共用的IO线程池, 不再使用时必须调用{@link #release()}
+     * @param threads 线程数, 小于等于0时使用netty的默认值
+     * @param transport 传输实现
+     * @return IO线程池
+     */
+    public static synchronized EventLoopGroup acquire(int threads, Transport transport) {
+        if (eventLoopGroup == null) {
+            int nThreads = Math.max(threads, 0);
+            eventLoopGroup = transport.newEventLoopGroup(nThreads, new DefaultThreadFactory(RPC_CLIENT_THREAD_NAME));
+            ClientEventLoopGroupHolder.transport = transport;
+            Logger.DEFAULT.info("rpc client event loop group created, threads={}, transport={}",
+                    threads, transport.getClass().getSimpleName());
+        }
+        referenceCount++;
+        return eventLoopGroup;
+    }
+
+    /**
+     * 释放一次引用
+     */
+    public static synchronized void release() {
+        if (referenceCount <= 0) {
+            return;
+        }
+        if (--referenceCount == 0) {
+            eventLoopGroup.shutdownGracefully();
+            eventLoopGroup = null;
+            transport = null;
+            Logger.DEFAULT.info("rpc client event loop group shutdown");
+        }
+    }
+
+    /**
+     * 创建当前IO线程池的传输实现, 客户端的socket参数也由它设置
+     */
+    public static synchronized Transport transport() {
+        return transport;
+    }
+
+    /**
+     * 与IO线程池匹配的Channel类型
+     */
+    public static synchronized Class<? extends SocketChannel> channelClass() {
+        return transport.socketChannelClass();
+    }
+
+    public static synchronized int getReferenceCount() {
+        return referenceCount;
+    }
+}
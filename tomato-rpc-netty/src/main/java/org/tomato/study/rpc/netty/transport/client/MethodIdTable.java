@@ -0,0 +1,80 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.client;
+
+import org.tomato.study.rpc.core.data.MethodTableDTO;
+import org.tomato.study.rpc.core.data.RpcRequestDTO;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 客户端保存的服务端方法id表, 与连接绑定, 重连后需要重新获取
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class MethodIdTable {
+
+    /**
+     * 方法签名 -> 方法id, 创建后只读
+     */
+    private final Map<String, Integer> methodIdMap;
+
+    public MethodIdTable(MethodTableDTO methodTable) {
+        List<MethodTableDTO.Entry> methods = methodTable == null ? null : methodTable.getMethods();
+        this.methodIdMap = new HashMap<>(methods == null ? 0 : methods.size() * 2);
+        if (methods == null) {
+            return;
+        }
+        for (MethodTableDTO.Entry method : methods) {
+            methodIdMap.put(signature(method.getMicroServiceId(), method.getInterfaceName(),
+                    method.getMethodName(), method.getArgsTypes()), method.getMethodId());
+        }
+    }
+
+    /**
+     * 查找请求对应的方法id
+     * @param request 请求
+     * @return 方法id, 服务端未暴露该方法时为空
+     */
+    public Integer lookup(RpcRequestDTO request) {
+        return methodIdMap.get(signature(request.getMicroServiceId(), request.getInterfaceName(),
+                request.getMethodName(), request.getArgsTypes()));
+    }
+
+    public int size() {
+        return methodIdMap.size();
+    }
+
+    private static String signature(String microServiceId,
+                                    String interfaceName,
+                                    String methodName,
+                                    String[] argsTypes) {
+        StringBuilder builder = new StringBuilder()
+                .append(microServiceId).append('$')
+                .append(interfaceName).append('#')
+                .append(methodName).append('(');
+        if (argsTypes != null) {
+            for (int i = 0; i < argsTypes.length; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(argsTypes[i]);
+            }
+        }
+        return builder.append(')').toString();
+    }
+}
@@ -14,38 +14,145 @@
 
 package org.tomato.study.rpc.netty.transport.client;
 
-import lombok.NoArgsConstructor;
+import io.netty.util.AttributeKey;
 import org.tomato.study.rpc.core.data.Command;
 
-import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * rpc client stores the mapping "client request message id -> client future",
  * when rpc client received the response from the rpc server,
  * it will search the future mapping using the message id in the server response
+ * 每个连接一个实例, 消息id由连接自己递增生成, 按 id & mask 直接定位槽位, 不装箱也不额外包装future;
+ * 槽位被长时间未响应的请求占用时, 新请求放入溢出表
  * @author Tomato
  * Created on 2021.04.08
  */
-@NoArgsConstructor
 public class NettyResponseHolder {
 
     /**
-     * message id -> response future
+     * 连接上绑定的响应管理器
      */
-    private final ConcurrentMap<Long, NettyResponseFuture> responseMap = new ConcurrentHashMap<>(0);
+    public static final AttributeKey<NettyResponseHolder> KEY = AttributeKey.valueOf("tomato-rpc-response-holder");
 
-    public void putFeatureResponse(long id, CompletableFuture<Command> future) {
-        responseMap.computeIfAbsent(id, messageId -> createFuture(messageId, future));
+    /**
+     * 默认槽位数
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * 空闲槽位的id
+     */
+    private static final long FREE = 0;
+
+    private final int mask;
+
+    /**
+     * 消息id生成器, 从1开始
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * 槽位当前占用者的消息id, 0表示空闲
+     */
+    private final AtomicLongArray ids;
+
+    /**
+     * 槽位当前占用者的future
+     */
+    private final AtomicReferenceArray<CompletableFuture<Command>> futures;
+
+    /**
+     * 槽位被占用时使用的溢出表
+     */
+    private final ConcurrentMap<Long, CompletableFuture<Command>> overflow = new ConcurrentHashMap<>(0);
+
+    public NettyResponseHolder() {
+        this(DEFAULT_CAPACITY);
     }
 
-    public Optional<NettyResponseFuture> getAndRemove(long id) {
-        return Optional.ofNullable(responseMap.remove(id));
+    /**
+     * @param capacity 槽位数, 向上取整为2的幂
+     */
+    public NettyResponseHolder(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.ids = new AtomicLongArray(size);
+        this.futures = new AtomicReferenceArray<>(size);
     }
 
-    private NettyResponseFuture createFuture(long messageId, CompletableFuture<Command> future) {
-        return new NettyResponseFuture(messageId, future, System.nanoTime());
+    /**
+     * 生成消息id并登记future
+     * @param future 响应future
+     * @return 消息id
+     */
+    public long put(CompletableFuture<Command> future) {
+        long id = sequence.incrementAndGet();
+        int index = (int) (id & mask);
+        // 先占id再放future, 删除方先读future再校验id, 保证不会拿到其他请求的future
+        if (ids.compareAndSet(index, FREE, id)) {
+            futures.set(index, future);
+        } else {
+            overflow.put(id, future);
+        }
+        return id;
+    }
+
+    /**
+     * 删除并返回消息id对应的future
+     * @param id 消息id
+     * @return future, 不存在时返回null
+     */
+    public CompletableFuture<Command> remove(long id) {
+        int index = (int) (id & mask);
+        CompletableFuture<Command> future = futures.get(index);
+        if (future != null && ids.get(index) == id && futures.compareAndSet(index, future, null)) {
+            ids.set(index, FREE);
+            return future;
+        }
+        return overflow.isEmpty() ? null : overflow.remove(id);
+    }
+
+    /**
+     * 连接断开时以异常结束所有未完成的请求, 不再等待超时
+     * @param cause 异常
+     * @return 结束的请求数量
+     */
+    public int failAll(Throwable cause) {
+        int count = 0;
+        for (int i = 0; i <= mask; i++) {
+            CompletableFuture<Command> future = futures.get(i);
+            if (future != null && futures.compareAndSet(i, future, null)) {
+                ids.set(i, FREE);
+                future.completeExceptionally(cause);
+                count++;
+            }
+        }
+        for (Long id : overflow.keySet()) {
+            CompletableFuture<Command> future = overflow.remove(id);
+            if (future != null) {
+                future.completeExceptionally(cause);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return 未完成的请求数量
+     */
+    public int size() {
+        int size = overflow.size();
+        for (int i = 0; i <= mask; i++) {
+            if (futures.get(i) != null) {
+                size++;
+            }
+        }
+        return size;
     }
 }
@@ -20,35 +20,50 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelFactory;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.epoll.Epoll;
-import io.netty.channel.epoll.EpollEventLoopGroup;
-import io.netty.channel.epoll.EpollSocketChannel;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 import org.tomato.study.rpc.common.utils.Logger;
 import org.tomato.study.rpc.core.ResponseFuture;
 import org.tomato.study.rpc.core.data.Command;
+import org.tomato.study.rpc.core.data.RpcConfig;
 import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
 import org.tomato.study.rpc.core.error.TomatoRpcException;
 import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
 import org.tomato.study.rpc.core.transport.BaseRpcClient;
+import org.tomato.study.rpc.netty.codec.ChunkedCommandHandler;
 import org.tomato.study.rpc.netty.codec.NettyFrameDecoder;
 import org.tomato.study.rpc.netty.codec.NettyFrameEncoder;
 import org.tomato.study.rpc.netty.codec.NettyProtoDecoder;
+import org.tomato.study.rpc.netty.metrics.FlushBatchMetrics;
+import org.tomato.study.rpc.netty.metrics.FlushBatchMetricsHandler;
+import org.tomato.study.rpc.netty.metrics.SaturationMetrics;
+import org.tomato.study.rpc.netty.data.ByteBufCommand;
 import org.tomato.study.rpc.netty.transport.handler.ClientIdleCheckHandler;
 import org.tomato.study.rpc.netty.transport.handler.KeepAliveHandler;
 import org.tomato.study.rpc.netty.transport.handler.ResponseHandler;
+import org.tomato.study.rpc.netty.transport.shm.ShmAddress;
+import org.tomato.study.rpc.netty.transport.shm.ShmChannel;
+import org.tomato.study.rpc.netty.transport.socket.Transport;
+import org.tomato.study.rpc.netty.transport.socket.TransportLoader;
+import org.tomato.study.rpc.netty.transport.socket.TransportOptions;
 
 import java.net.URI;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * @author Tomato
@@ -56,19 +71,65 @@ import java.util.concurrent.TimeoutException;
  */
 public class NettyRpcClient extends BaseRpcClient<Command> {
 
-    private static final String RPC_CLIENT_THREAD_NAME = "rpc-client-worker-thread";
     private static final long CONNECTION_TIMEOUT_MS = 10000;
 
     /**
-     * 客户端的响应管理器
+     * 退避时间翻倍的最大次数, 防止溢出
      */
-    private final NettyResponseHolder responseHolder;
+    private static final int MAX_BACKOFF_SHIFT = 20;
 
     /**
-     * 客户端循环
+     * 连接饱和时检查连接状态的间隔
+     */
+    private static final long SATURATED_CHECK_INTERVAL_NS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * 客户端循环, 所有客户端共用
      */
     private EventLoopGroup eventLoopGroup;
 
+    /**
+     * 共用IO线程池的线程数, 只在第一个客户端创建线程池时生效
+     */
+    private final int ioThreads;
+
+    /**
+     * 配置的传输实现, 共用IO线程池已创建时使用线程池的传输实现
+     */
+    private final String transportName;
+
+    /**
+     * socket参数
+     */
+    private final TransportOptions transportOptions;
+
+    /**
+     * 服务端在同一主机上监听的unix domain socket路径, 为空时使用tcp连接
+     */
+    private final String domainSocketPath;
+
+    /**
+     * 是否通过unix domain socket连接, 共用IO线程池的传输实现不支持时退回tcp
+     */
+    @Getter
+    private boolean domainSocket;
+
+    /**
+     * 服务端在同一主机上接收共享内存连接的目录, 为空时不使用共享内存
+     */
+    private final String sharedMemoryPath;
+
+    /**
+     * 共享内存连接每个方向的环形缓冲区大小
+     */
+    private final int sharedMemoryRingCapacity;
+
+    /**
+     * 是否通过共享内存连接
+     */
+    @Getter
+    private boolean sharedMemory;
+
     /**
      * 客户端启动类
      */
@@ -80,14 +141,146 @@ public class NettyRpcClient extends BaseRpcClient<Command> {
     private final long keepAliveMs;
 
     /**
-     * 与服务端的连接
+     * 单个数据帧的最大长度
+     */
+    private final int maxFrameLength;
+
+    /**
+     * 请求body超过该大小时分块发送
+     */
+    private final int chunkSize;
+
+    /**
+     * 接收分块响应时还原出的单个消息的最大长度
+     */
+    private final int maxMessageSize;
+
+    /**
+     * 单个连接上所有正在接收的分块响应的总大小上限
+     */
+    private final int maxStreamingBytes;
+
+    /**
+     * 单个连接上同时接收的分块响应数上限
+     */
+    private final int maxStreamingMessages;
+
+    /**
+     * 大于0时合并请求的flush
+     */
+    private final int flushConsolidationLimit;
+
+    /**
+     * 每次flush写出的数据帧数量
+     */
+    @Getter
+    private final FlushBatchMetrics flushBatchMetrics = new FlushBatchMetrics();
+
+    /**
+     * 断线重连的初始退避时间
+     */
+    private final long reconnectBaseMs;
+
+    /**
+     * 断线重连的最大退避时间
+     */
+    private final long reconnectMaxMs;
+
+    /**
+     * 与服务端的连接池, 每个槽位的连接断开后由EventLoop在后台重连
+     */
+    private final ConnectionSlot[] slots;
+
+    /**
+     * 所有槽位都完成第一次建连后结束, 全部失败时异常完成
+     */
+    private final CompletableFuture<Void> firstConnect = new CompletableFuture<>();
+
+    /**
+     * 还未完成第一次建连的槽位数
+     */
+    private final AtomicInteger firstConnectPending;
+
+    /**
+     * 是否有槽位第一次建连成功
+     */
+    private volatile boolean firstConnected;
+
+    /**
+     * 每次选择连接的起始槽位, 在途请求数相同时轮流使用各连接
+     */
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    /**
+     * 写缓冲区的高低水位, 待写数据超过高水位后连接不可写
+     */
+    private final WriteBufferWaterMark writeBufferWaterMark;
+
+    /**
+     * 单个连接的最大在途请求数, 小于等于0时不限制
+     */
+    private final int maxInFlightPerConnection;
+
+    /**
+     * 连接饱和时发送方的最长等待时间
      */
-    private ChannelWrapper channelWrapper;
+    private final long saturatedWaitNs;
+
+    /**
+     * 连接饱和时的等待和拒绝次数
+     */
+    private final SaturationMetrics saturationMetrics = new SaturationMetrics();
 
     public NettyRpcClient(URI uri, long keepAliveMs) {
+        this(uri, RpcConfig.builder().clientKeepAliveMilliseconds(keepAliveMs).build());
+    }
+
+    public NettyRpcClient(URI uri, RpcConfig rpcConfig) {
+        this(uri, null, rpcConfig);
+    }
+
+    /**
+     * @param uri 服务端地址
+     * @param domainSocketPath 服务端在同一主机上监听的unix domain socket路径, 为空时使用tcp连接
+     * @param rpcConfig 配置
+     */
+    public NettyRpcClient(URI uri, String domainSocketPath, RpcConfig rpcConfig) {
+        this(uri, domainSocketPath, null, rpcConfig);
+    }
+
+    /**
+     * @param uri 服务端地址
+     * @param domainSocketPath 服务端在同一主机上监听的unix domain socket路径, 为空时使用tcp连接
+     * @param sharedMemoryPath 服务端在同一主机上接收共享内存连接的目录, 不为空时优先使用
+     * @param rpcConfig 配置
+     */
+    public NettyRpcClient(URI uri, String domainSocketPath, String sharedMemoryPath, RpcConfig rpcConfig) {
         super(uri);
-        this.keepAliveMs = keepAliveMs;
-        this.responseHolder = new NettyResponseHolder();
+        this.domainSocketPath = domainSocketPath;
+        this.sharedMemoryPath = sharedMemoryPath;
+        this.sharedMemoryRingCapacity = rpcConfig.clientSharedMemoryRingCapacity();
+        this.keepAliveMs = rpcConfig.clientKeepAliveMilliseconds();
+        this.maxFrameLength = rpcConfig.maxFrameLength();
+        this.chunkSize = rpcConfig.chunkSize();
+        this.maxMessageSize = rpcConfig.maxMessageSize();
+        this.maxStreamingBytes = rpcConfig.maxStreamingBytes();
+        this.maxStreamingMessages = rpcConfig.maxStreamingMessages();
+        this.flushConsolidationLimit = rpcConfig.flushConsolidationLimit();
+        this.ioThreads = rpcConfig.clientIoThreads();
+        this.transportName = rpcConfig.transport();
+        this.transportOptions = TransportOptions.of(rpcConfig);
+        this.reconnectBaseMs = Math.max(1, rpcConfig.clientReconnectBaseMilliseconds());
+        this.reconnectMaxMs = Math.max(reconnectBaseMs, rpcConfig.clientReconnectMaxMilliseconds());
+        this.slots = new ConnectionSlot[Math.max(1, rpcConfig.clientConnectionsPerNode())];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new ConnectionSlot();
+        }
+        this.firstConnectPending = new AtomicInteger(slots.length);
+        int highWaterMark = Math.max(1, rpcConfig.clientWriteBufferHighWaterMark());
+        int lowWaterMark = Math.min(highWaterMark, Math.max(0, rpcConfig.clientWriteBufferLowWaterMark()));
+        this.writeBufferWaterMark = new WriteBufferWaterMark(lowWaterMark, highWaterMark);
+        this.maxInFlightPerConnection = rpcConfig.clientMaxInFlightPerConnection();
+        this.saturatedWaitNs = TimeUnit.MILLISECONDS.toNanos(Math.max(0, rpcConfig.clientSaturatedWaitMilliseconds()));
         try {
             init();
             start();
@@ -98,103 +291,432 @@ public class NettyRpcClient extends BaseRpcClient<Command> {
 
     @Override
     public ResponseFuture<Command> send(Command msg) throws TomatoRpcException {
+        return send(getConnection(msg), msg);
+    }
+
+    /**
+     * 通过指定的连接发送请求, 请求内容依赖连接状态时使用(如方法id表)
+     * @param channelWrapper 连接
+     * @param msg 请求
+     * @return 响应
+     * @throws TomatoRpcException 发送失败
+     */
+    public ResponseFuture<Command> send(ChannelWrapper channelWrapper, Command msg) throws TomatoRpcException {
+        // 连接饱和时不再写入, 避免写缓冲区无限增长
+        acquire(channelWrapper, msg);
+        CompletableFuture<Command> future = new CompletableFuture<>();
+        // 请求完成(包括超时和发送失败)后才从在途请求中扣除
+        future.whenComplete((response, cause) -> channelWrapper.decrementInFlight());
+        // 写之前登记future并由连接分配消息id, 响应可能先于写完成的回调到达
+        NettyResponseHolder responseHolder = channelWrapper.getResponseHolder();
+        long id = responseHolder.put(future);
         try {
-            long id = msg.getHeader().getId();
-            CompletableFuture<Command> future = new CompletableFuture<>();
-            // get connection
-            Channel connection = createOrReconnect().getChannel();
+            msg.getHeader().setId(id);
+            Channel connection = channelWrapper.getChannel();
 
             // write message
             connection.writeAndFlush(msg)
                     .addListener((ChannelFutureListener) futureChannel -> {
-                        if (futureChannel.isSuccess()) {
-                            responseHolder.putFeatureResponse(id, future);
-                        } else {
+                        // 编码器已持有body的引用, 写完即可释放
+                        ByteBufCommand.release(msg);
+                        if (!futureChannel.isSuccess()) {
+                            responseHolder.remove(id);
                             future.completeExceptionally(
                                     new TomatoRpcRuntimeException(futureChannel.cause(), TomatoRpcErrorEnum.NETTY_CLIENT_RPC_ERROR));
                         }
                     });
             return new ClientResponseFuture(id, future, responseHolder);
         } catch (Exception e) {
+            responseHolder.remove(id);
+            future.completeExceptionally(e);
+            ByteBufCommand.release(msg);
+            throw new TomatoRpcException(e, TomatoRpcErrorEnum.NETTY_CLIENT_RPC_ERROR,
+                String.format("channel[%s,%d] fetch error", getHost(), getPort()));
+        }
+    }
+
+    /**
+     * 通过指定的连接发送不需要响应的消息(如取消请求), 不占用在途请求名额
+     * @param channelWrapper 连接
+     * @param msg 消息
+     */
+    public void sendOneWay(ChannelWrapper channelWrapper, Command msg) {
+        Channel connection = channelWrapper.getChannel();
+        if (!connection.isActive()) {
+            ByteBufCommand.release(msg);
+            return;
+        }
+        connection.writeAndFlush(msg).addListener((ChannelFutureListener) futureChannel -> {
+            ByteBufCommand.release(msg);
+            if (!futureChannel.isSuccess()) {
+                Logger.DEFAULT.warn("channel[{},{}] send one way message failed", getHost(), getPort());
+            }
+        });
+    }
+
+    /**
+     * 占用连接的一个在途请求名额, 连接饱和时短暂等待, 仍然饱和则快速失败
+     * @param channelWrapper 连接
+     * @param msg 请求, 失败时释放
+     * @throws TomatoRpcException 连接饱和
+     */
+    private void acquire(ChannelWrapper channelWrapper, Command msg) throws TomatoRpcException {
+        if (tryAcquire(channelWrapper)) {
+            return;
+        }
+        // IO线程等待会导致写缓冲区无法排空
+        Channel channel = channelWrapper.getChannel();
+        if (saturatedWaitNs > 0 && !channel.eventLoop().inEventLoop()) {
+            long deadline = System.nanoTime() + saturatedWaitNs;
+            while (channel.isActive() && !Thread.currentThread().isInterrupted()
+                    && deadline - System.nanoTime() > 0) {
+                LockSupport.parkNanos(SATURATED_CHECK_INTERVAL_NS);
+                if (tryAcquire(channelWrapper)) {
+                    saturationMetrics.recordWaited();
+                    return;
+                }
+            }
+        }
+        saturationMetrics.recordRejected();
+        ByteBufCommand.release(msg);
+        throw new TomatoRpcException(TomatoRpcErrorEnum.RPC_CONNECTION_SATURATED,
+            String.format("channel[%s,%d] saturated, writable: %b, in-flight: %d",
+                getHost(), getPort(), channel.isWritable(), channelWrapper.getInFlight()));
+    }
+
+    private boolean tryAcquire(ChannelWrapper channelWrapper) {
+        return channelWrapper.isWritable() && channelWrapper.tryIncrementInFlight(maxInFlightPerConnection);
+    }
+
+    /**
+     * 获取连接池中在途请求最少的连接, 优先选择可写的连接, 未连接时先建立连接
+     * @return 连接包装类
+     * @throws TomatoRpcException 建立连接失败
+     */
+    public ChannelWrapper getConnection() throws TomatoRpcException {
+        return getConnection(null);
+    }
+
+    private ChannelWrapper getConnection(Command msg) throws TomatoRpcException {
+        try {
+            return createOrReconnect();
+        } catch (Exception e) {
+            ByteBufCommand.release(msg);
             throw new TomatoRpcException(e, TomatoRpcErrorEnum.NETTY_CLIENT_RPC_ERROR,
                 String.format("channel[%s,%d] fetch error", getHost(), getPort()));
         }
     }
 
+    /**
+     * 所有连接都断开并且正在后台重连时不可用, 负载均衡会选择其他节点
+     */
     @Override
     public boolean isUsable() {
-        return START_FINISHED == getState();
+        if (START_FINISHED != getState()) {
+            return false;
+        }
+        if (!firstConnect.isDone()) {
+            return true;
+        }
+        for (ConnectionSlot slot : slots) {
+            ChannelWrapper connection = slot.connection;
+            if (connection != null && connection.isActiveChannel()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 所有可用连接都已饱和, 负载均衡优先选择其他节点
+     * @return true 已饱和
+     */
+    public boolean isSaturated() {
+        boolean active = false;
+        for (ConnectionSlot slot : slots) {
+            ChannelWrapper connection = slot.connection;
+            if (connection == null || !connection.isActiveChannel()) {
+                continue;
+            }
+            if (!connection.isSaturated(maxInFlightPerConnection)) {
+                return false;
+            }
+            active = true;
+        }
+        return active;
+    }
+
+    /**
+     * @return 当前的饱和统计
+     */
+    public SaturationMetrics.Snapshot saturationSnapshot() {
+        int inFlight = 0;
+        int unwritable = 0;
+        for (ConnectionSlot slot : slots) {
+            ChannelWrapper connection = slot.connection;
+            if (connection == null || !connection.isActiveChannel()) {
+                continue;
+            }
+            inFlight += connection.getInFlight();
+            if (!connection.isWritable()) {
+                unwritable++;
+            }
+        }
+        return saturationMetrics.snapshot(inFlight, unwritable, isSaturated());
     }
 
     @Override
     protected void doInit() {
-        this.eventLoopGroup = Epoll.isAvailable()
-                ? new EpollEventLoopGroup(new DefaultThreadFactory(RPC_CLIENT_THREAD_NAME))
-                : new NioEventLoopGroup(new DefaultThreadFactory(RPC_CLIENT_THREAD_NAME));
+        this.eventLoopGroup = ClientEventLoopGroupHolder.acquire(ioThreads, TransportLoader.load(transportName));
+        Transport transport = ClientEventLoopGroupHolder.transport();
         KeepAliveHandler keepAliveHandler = new KeepAliveHandler();
-        ResponseHandler responseHandler = new ResponseHandler(responseHolder);
+        ResponseHandler responseHandler = new ResponseHandler();
         this.bootstrap = new Bootstrap()
                 .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
-                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) CONNECTION_TIMEOUT_MS)
+                .option(ChannelOption.WRITE_BUFFER_WATER_MARK, writeBufferWaterMark)
                 .group(this.eventLoopGroup)
-                .channel(Epoll.isAvailable() ? EpollSocketChannel.class : NioSocketChannel.class)
                 .handler(new ChannelInitializer<>() {
                     @Override
                     protected void initChannel(Channel channel) throws Exception {
+                        channel.attr(NettyResponseHolder.KEY).set(new NettyResponseHolder());
                         ChannelPipeline channelPipeline = channel.pipeline();
+                        channelPipeline.addLast("flush-metrics", new FlushBatchMetricsHandler(flushBatchMetrics));
                         channelPipeline.addLast("client-idle-checker", new ClientIdleCheckHandler(keepAliveMs));
-                        channelPipeline.addLast("frame-decoder", new NettyFrameDecoder());
+                        channelPipeline.addLast("frame-decoder", new NettyFrameDecoder(maxFrameLength));
                         channelPipeline.addLast("proto-decoder", new NettyProtoDecoder());
                         channelPipeline.addLast("frame-encoder", new NettyFrameEncoder());
+                        channelPipeline.addLast("chunk-handler",
+                                new ChunkedCommandHandler(
+                                        chunkSize, maxMessageSize, maxStreamingBytes, maxStreamingMessages));
+                        if (flushConsolidationLimit > 0) {
+                            // 多个业务线程并发发送的请求在当前EventLoop周期结束时统一flush
+                            channelPipeline.addLast("flush-consolidation",
+                                    new FlushConsolidationHandler(flushConsolidationLimit, true));
+                        }
                         channelPipeline.addLast("keep-alive-handler", keepAliveHandler);
                         channelPipeline.addLast("response-handler", responseHandler);
                     }
                 });
+        this.sharedMemory = sharedMemoryPath != null;
+        if (sharedMemory) {
+            // 同一主机上的服务端, 通过共享内存交换数据帧
+            bootstrap.channelFactory((ChannelFactory<ShmChannel>) () -> new ShmChannel(sharedMemoryRingCapacity))
+                    .remoteAddress(new ShmAddress(sharedMemoryPath));
+            return;
+        }
+        this.domainSocket = domainSocketPath != null && transport.domainSocketChannelClass() != null;
+        if (domainSocket) {
+            // 同一主机上的服务端, 绕过TCP协议栈
+            bootstrap.channel(transport.domainSocketChannelClass())
+                    .remoteAddress(new DomainSocketAddress(domainSocketPath));
+            return;
+        }
+        if (domainSocketPath != null) {
+            Logger.DEFAULT.warn("transport {} does not support unix domain socket, connect to server[{},{}] by tcp",
+                    transport.getClass().getSimpleName(), getHost(), getPort());
+        }
+        bootstrap.channel(transport.socketChannelClass())
+                .option(ChannelOption.TCP_NODELAY, true)
+                .remoteAddress(getHost(), getPort());
+        transport.configure(bootstrap, transportOptions);
     }
 
     @Override
     protected void doStart() {
+        for (ConnectionSlot slot : slots) {
+            connect(slot);
+        }
     }
 
     @Override
     protected void doStop() throws TomatoRpcException {
-        if (channelWrapper != null && channelWrapper.isActiveChannel()) {
-            channelWrapper.closeChannel();
+        for (ConnectionSlot slot : slots) {
+            ChannelWrapper connection = slot.connection;
+            if (connection != null && connection.isActiveChannel()) {
+                connection.closeChannel();
+            }
         }
-        this.eventLoopGroup.shutdownGracefully();
+        ClientEventLoopGroupHolder.release();
     }
 
     /**
-     * 根据服务节点URI得到连接, 若连接未建立, 先建立连接
+     * 得到连接池中负载最低的连接, 不会阻塞等待重连;
+     * 只有客户端刚启动、第一次建连还未完成时才等待建连结果
      * @return 连接包装类
-     * @throws InterruptedException 创建连接等待过程中线程被中断
-     * @throws TimeoutException 创建连接等待超时
+     * @throws InterruptedException 等待第一次建连过程中线程被中断
+     * @throws TimeoutException 第一次建连等待超时
      */
     public ChannelWrapper createOrReconnect() throws InterruptedException, TimeoutException {
-        if (channelWrapper == null || !channelWrapper.isActiveChannel()) {
-            synchronized (this) {
-                // 当未连接或者连接已经被关闭了，重新建立连接
-                if (channelWrapper == null || !channelWrapper.isActiveChannel()) {
-                    channelWrapper = createChannel(getHost(), getPort());
-                }
+        if (!firstConnect.isDone()) {
+            try {
+                firstConnect.get(CONNECTION_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException ignored) {
+                // 第一次建连失败, 下面直接快速失败
             }
         }
-        return channelWrapper;
+        return selectConnection();
     }
 
-    private ChannelWrapper createChannel(String host, int port)
-            throws InterruptedException {
-        ChannelFuture connectFuture = bootstrap.connect(host, port);
-        if (!connectFuture.await(CONNECTION_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
-            throw new TomatoRpcRuntimeException(TomatoRpcErrorEnum.RPC_CONNECTION_TIMEOUT,
-                String.format("client connect to server[%s,%d] timeout", host, port));
+    /**
+     * 不阻塞调用线程地获取连接池中负载最低的连接, 第一次建连还未完成时在建连结束后完成,
+     * 用于不能等待的线程(如共用的定时线程)
+     * @return 连接包装类, 没有可用连接时异常完成
+     */
+    public CompletableFuture<ChannelWrapper> getConnectionAsync() {
+        if (!firstConnect.isDone()) {
+            return firstConnect.handle((ignored, cause) -> selectConnection());
+        }
+        try {
+            return CompletableFuture.completedFuture(selectConnection());
+        } catch (TomatoRpcRuntimeException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    private ChannelWrapper selectConnection() {
+        int size = slots.length;
+        int start = size == 1 ? 0 : Math.floorMod(nextIndex.getAndIncrement(), size);
+        ChannelWrapper selected = null;
+        for (int i = 0; i < size; i++) {
+            ChannelWrapper connection = slots[(start + i) % size].connection;
+            if (connection == null || !connection.isActiveChannel()) {
+                continue;
+            }
+            if (selected == null || isLessLoaded(connection, selected)) {
+                selected = connection;
+            }
+        }
+        if (selected == null) {
+            throw new TomatoRpcRuntimeException(TomatoRpcErrorEnum.RPC_CONNECTION_UNAVAILABLE,
+                String.format("no available connection to server[%s,%d]", getHost(), getPort()));
+        }
+        return selected;
+    }
+
+    /**
+     * 写缓冲区未超过高水位的连接优先, 其次比较在途请求数
+     */
+    private static boolean isLessLoaded(ChannelWrapper connection, ChannelWrapper selected) {
+        if (connection.isWritable() != selected.isWritable()) {
+            return connection.isWritable();
+        }
+        return connection.getInFlight() < selected.getInFlight();
+    }
+
+    /**
+     * 异步建立连接, 成功后监听连接关闭事件, 失败或连接关闭后按退避时间重连, 直到客户端关闭
+     */
+    private void connect(ConnectionSlot slot) {
+        if (isClosing()) {
+            return;
+        }
+        ChannelFuture connectFuture;
+        try {
+            connectFuture = bootstrap.connect();
+        } catch (Throwable exception) {
+            onConnectFailure(slot, exception);
+            return;
+        }
+        connectFuture.addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess()) {
+                onConnectFailure(slot, future.cause());
+                return;
+            }
+            Channel channel = future.channel();
+            slot.connection = new ChannelWrapper(channel);
+            if (isClosing()) {
+                channel.close();
+                return;
+            }
+            firstConnectFinished(slot, null);
+            long connectedNanos = System.nanoTime();
+            channel.closeFuture().addListener(closeFuture -> {
+                // 建连后立即被断开的连接不算成功, 继续累加退避时间, 避免以初始退避时间反复重连
+                if (System.nanoTime() - connectedNanos >= TimeUnit.MILLISECONDS.toNanos(reconnectMaxMs)) {
+                    slot.attempts = 0;
+                }
+                scheduleReconnect(slot);
+            });
+        });
+    }
+
+    private void onConnectFailure(ConnectionSlot slot, Throwable cause) {
+        Logger.DEFAULT.warn("connect to server[{},{}] failed, attempts: {}, cause: {}",
+                getHost(), getPort(), slot.attempts + 1, cause.getMessage());
+        firstConnectFinished(slot, cause);
+        scheduleReconnect(slot);
+    }
+
+    private void firstConnectFinished(ConnectionSlot slot, Throwable cause) {
+        if (!slot.firstAttempt) {
+            return;
+        }
+        slot.firstAttempt = false;
+        if (cause == null) {
+            firstConnected = true;
+        }
+        if (firstConnectPending.decrementAndGet() > 0) {
+            return;
         }
-        Channel channel = connectFuture.channel();
-        if (channel == null || !channel.isActive()) {
-            throw new TomatoRpcRuntimeException(TomatoRpcErrorEnum.RPC_INVOKER_CLOSED,
-                String.format("connection to server[%s,%d] has been closed", host, port));
+        if (firstConnected) {
+            firstConnect.complete(null);
+        } else {
+            firstConnect.completeExceptionally(cause);
         }
-        return new ChannelWrapper(channel);
+    }
+
+    private void scheduleReconnect(ConnectionSlot slot) {
+        if (isClosing()) {
+            return;
+        }
+        long delayMs = backoffMilliseconds(slot.attempts++, reconnectBaseMs, reconnectMaxMs);
+        Logger.DEFAULT.info("reconnect to server[{},{}] after {}ms", getHost(), getPort(), delayMs);
+        try {
+            eventLoopGroup.next().schedule(() -> connect(slot), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException exception) {
+            // 共用的IO线程池已关闭
+            Logger.DEFAULT.warn("schedule reconnect to server[{},{}] rejected", getHost(), getPort());
+        }
+    }
+
+    private boolean isClosing() {
+        int state = getState();
+        return state == STOP || state == STOP_FINISHED;
+    }
+
+    /**
+     * 指数退避加随机抖动, 一半为固定等待, 另一半随机, 避免大量客户端同时重连
+     * @param attempts 已经失败的次数
+     * @param baseMs 初始退避时间
+     * @param maxMs 最大退避时间
+     * @return 下次重连前的等待时间
+     */
+    static long backoffMilliseconds(int attempts, long baseMs, long maxMs) {
+        long cap = Math.min(maxMs, baseMs << Math.min(attempts, MAX_BACKOFF_SHIFT));
+        long half = cap / 2;
+        return half + ThreadLocalRandom.current().nextLong(cap - half + 1);
+    }
+
+    /**
+     * 连接池中的一个槽位, 同一槽位的建连和重连依次进行, 不会并发
+     */
+    private static class ConnectionSlot {
+
+        /**
+         * 最近一次建立的连接, 可能已经断开
+         */
+        private volatile ChannelWrapper connection;
+
+        /**
+         * 连续建连失败的次数, 连接保持超过最大退避时间后才清零
+         */
+        private volatile int attempts;
+
+        /**
+         * 是否是第一次建连
+         */
+        private volatile boolean firstAttempt = true;
     }
 
     @AllArgsConstructor
@@ -215,8 +737,7 @@ public class NettyRpcClient extends BaseRpcClient<Command> {
 
         @Override
         public Optional<CompletableFuture<Command>> destroy() {
-            return responseHolder.getAndRemove(id)
-                    .map(responseFuture -> responseFuture.getFuture());
+            return Optional.ofNullable(responseHolder.remove(id));
         }
     }
 }
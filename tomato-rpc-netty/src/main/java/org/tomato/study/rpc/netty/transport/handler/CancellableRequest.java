@@ -0,0 +1,155 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.handler;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 交给业务线程池处理的请求, 客户端发送{@link org.tomato.study.rpc.core.data.CommandType#CANCEL}后:
+ * 还在排队的请求不再执行, 正在执行的请求中断执行线程并且不再响应
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+final class CancellableRequest implements Runnable {
+
+    /**
+     * 连接上正在处理的请求, key为消息id
+     */
+    private static final AttributeKey<ConcurrentMap<Long, CancellableRequest>> KEY =
+            AttributeKey.valueOf("tomato-rpc-cancellable-requests");
+
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+    private static final int CANCELLED = 3;
+
+    private final Channel channel;
+    private final long messageId;
+    private Runnable task;
+    private Runnable discard;
+    private int state = QUEUED;
+    private Thread runner;
+
+    private CancellableRequest(Channel channel, long messageId) {
+        this.channel = channel;
+        this.messageId = messageId;
+    }
+
+    /**
+     * 登记连接上的请求, 消息id重复时不登记
+     * @param channel 连接
+     * @param messageId 消息id
+     * @return 请求, 消息id重复时返回null
+     */
+    static CancellableRequest register(Channel channel, long messageId) {
+        ConcurrentMap<Long, CancellableRequest> requests = channel.attr(KEY).get();
+        if (requests == null) {
+            ConcurrentMap<Long, CancellableRequest> newRequests = new ConcurrentHashMap<>();
+            requests = channel.attr(KEY).setIfAbsent(newRequests);
+            if (requests == null) {
+                requests = newRequests;
+            }
+        }
+        CancellableRequest request = new CancellableRequest(channel, messageId);
+        return requests.putIfAbsent(messageId, request) == null ? request : null;
+    }
+
+    /**
+     * 删除连接上的请求
+     * @param channel 连接
+     * @param messageId 消息id
+     * @return 请求, 不存在时返回null
+     */
+    static CancellableRequest remove(Channel channel, long messageId) {
+        Map<Long, CancellableRequest> requests = channel.attr(KEY).get();
+        return requests == null ? null : requests.remove(messageId);
+    }
+
+    /**
+     * 删除连接上所有的请求
+     * @param channel 连接
+     * @return 请求
+     */
+    static Iterable<CancellableRequest> removeAll(Channel channel) {
+        ConcurrentMap<Long, CancellableRequest> requests = channel.attr(KEY).getAndSet(null);
+        return requests == null ? Map.<Long, CancellableRequest>of().values() : requests.values();
+    }
+
+    /**
+     * @param task 处理请求
+     * @param discard 请求被取消没有执行时释放资源
+     */
+    void setTask(Runnable task, Runnable discard) {
+        this.task = task;
+        this.discard = discard;
+    }
+
+    @Override
+    public void run() {
+        synchronized (this) {
+            if (state != QUEUED) {
+                discard.run();
+                return;
+            }
+            state = RUNNING;
+            runner = Thread.currentThread();
+        }
+        try {
+            task.run();
+        } finally {
+            boolean cancelled;
+            synchronized (this) {
+                cancelled = state == CANCELLED;
+                state = DONE;
+                runner = null;
+            }
+            if (cancelled) {
+                // 取消时设置的中断标记不能影响线程池中的下一个任务
+                Thread.interrupted();
+            }
+            remove(channel, messageId);
+        }
+    }
+
+    /**
+     * 取消请求
+     * @return 请求是否还没开始执行, 此时由调用方从线程池中移除, 移除失败时执行到该请求会直接释放资源
+     */
+    boolean cancel() {
+        synchronized (this) {
+            if (state == QUEUED) {
+                state = CANCELLED;
+                return true;
+            }
+            if (state == RUNNING) {
+                state = CANCELLED;
+                runner.interrupt();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @return 是否已被取消, 取消后不再响应
+     */
+    synchronized boolean isCancelled() {
+        return state == CANCELLED;
+    }
+}
@@ -24,16 +24,21 @@ import org.tomato.study.rpc.common.utils.Logger;
 import org.tomato.study.rpc.core.CommandInterceptor;
 import org.tomato.study.rpc.core.ProviderRegistry;
 import org.tomato.study.rpc.core.ServerHandler;
+import org.tomato.study.rpc.core.data.BinaryExtensionHeader;
 import org.tomato.study.rpc.core.data.Command;
 import org.tomato.study.rpc.core.data.CommandFactory;
 import org.tomato.study.rpc.core.data.CommandType;
 import org.tomato.study.rpc.core.data.ExtensionHeader;
 import org.tomato.study.rpc.core.data.ExtensionHeaderBuilder;
 import org.tomato.study.rpc.core.data.Header;
+import org.tomato.study.rpc.core.data.HeaderFlag;
 import org.tomato.study.rpc.core.data.InvocationContext;
+import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.core.data.ProviderMethod;
 import org.tomato.study.rpc.core.data.RpcResponse;
 import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
 import org.tomato.study.rpc.core.serializer.SerializerHolder;
+import org.tomato.study.rpc.netty.data.ByteBufCommand;
 import org.tomato.study.rpc.netty.interceptor.CompressInterceptor;
 
 import java.util.Collections;
@@ -41,6 +46,10 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 请求分发器，根据请求中的CommandType将请求转发到对应的ServerHandler中
@@ -59,12 +68,28 @@ public class DispatcherHandler extends SimpleChannelInboundHandler<Command> {
      */
     private final ExecutorService businessExecutor;
 
+    /**
+     * 服务实现, 用于判断请求能否直接在IO线程中处理
+     */
+    private final ProviderRegistry providerRegistry;
+
+    /**
+     * 因超过截止时间而丢弃的请求数
+     */
+    private final LongAdder expiredRequests = new LongAdder();
+
+    /**
+     * 被客户端取消的请求数
+     */
+    private final LongAdder cancelledRequests = new LongAdder();
+
     public DispatcherHandler(ProviderRegistry providerRegistry, ExecutorService businessExecutor) {
         // 通过jdk spi加载依赖的ServerHandler
         ServiceLoader<ServerHandler> serverHandlers = ServiceLoader.load(ServerHandler.class);
         Map<CommandType, ServerHandler> serverHandlerMap = new HashMap<>(0);
         for (ServerHandler serverHandler : serverHandlers) {
             serverHandler.setProviderRegistry(providerRegistry);
+            serverHandler.setBusinessExecutor(businessExecutor);
             serverHandlerMap.put(serverHandler.getType(), serverHandler);
         }
         this.handlerMap = Collections.unmodifiableMap(serverHandlerMap);
@@ -72,35 +97,202 @@ public class DispatcherHandler extends SimpleChannelInboundHandler<Command> {
                 new CompressInterceptor(),
         };
         this.businessExecutor = businessExecutor;
+        this.providerRegistry = providerRegistry;
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, Command msg) throws Exception {
         // 查找匹配的ServerHandler
         CommandType type = CommandType.value(msg.getHeader().getMessageType());
+        if (type == CommandType.CANCEL) {
+            cancel(ctx, msg);
+            return;
+        }
         ServerHandler matchHandler = handlerMap.get(type);
         if (matchHandler == null) {
             Logger.DEFAULT.warn("rpc server handler not found, type: {}", type);
+            ByteBufCommand.release(msg);
+            return;
+        }
+        // 调用方已经放弃等待的请求不再排队
+        Long deadline = type == CommandType.RPC_REQUEST ? deadlineOf(msg) : null;
+        if (isExpired(deadline)) {
+            rejectExpired(ctx, msg);
             return;
         }
         // 如果是请求信息并且有业务线程池，交由业务线程池处理
-        if (type == CommandType.RPC_REQUEST && businessExecutor != null) {
-            businessExecutor.execute(() -> processRequest(ctx, msg, matchHandler));
+        if ((type == CommandType.RPC_REQUEST || type == CommandType.RPC_BATCH_REQUEST) && businessExecutor != null
+                && !isNonBlocking(type, msg)) {
+            // 登记后可以被客户端取消
+            CancellableRequest cancellable = type == CommandType.RPC_REQUEST
+                    ? CancellableRequest.register(ctx.channel(), msg.getHeader().getId()) : null;
+            try {
+                if (cancellable == null) {
+                    businessExecutor.execute(() -> processRequest(ctx, msg, matchHandler, deadline, null));
+                    return;
+                }
+                cancellable.setTask(() -> processRequest(ctx, msg, matchHandler, deadline, cancellable),
+                        () -> ByteBufCommand.release(msg));
+                businessExecutor.execute(cancellable);
+            } catch (RejectedExecutionException exception) {
+                if (cancellable != null) {
+                    CancellableRequest.remove(ctx.channel(), msg.getHeader().getId());
+                }
+                rejectOverload(ctx, msg);
+            }
             return;
         }
         // 处理具体逻辑
-        processRequest(ctx, msg, matchHandler);
+        processRequest(ctx, msg, matchHandler, deadline, null);
+    }
+
+    /**
+     * 客户端超时或主动取消后不再需要响应, 排队中的请求从业务线程池中移除, 执行中的请求中断执行线程
+     */
+    private void cancel(ChannelHandlerContext ctx, Command cancel) {
+        try {
+            CancellableRequest request = CancellableRequest.remove(ctx.channel(), cancel.getHeader().getId());
+            // 请求已经处理完成或者没有交给业务线程池
+            if (request == null) {
+                return;
+            }
+            Logger.DEFAULT.debug("cancel rpc request, message id: {}", cancel.getHeader().getId());
+            cancel(request);
+        } finally {
+            ByteBufCommand.release(cancel);
+        }
+    }
+
+    private void cancel(CancellableRequest request) {
+        cancelledRequests.increment();
+        if (request.cancel() && businessExecutor instanceof ThreadPoolExecutor threadPool
+                && threadPool.remove(request)) {
+            // 已从队列中移除, 已取消的请求执行时只释放资源
+            request.run();
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // 连接断开后响应无法送达, 取消该连接上所有未完成的请求
+        for (CancellableRequest request : CancellableRequest.removeAll(ctx.channel())) {
+            cancel(request);
+        }
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * 被客户端取消的请求数
+     * @return cancelled request count
+     */
+    public long getCancelledRequests() {
+        return cancelledRequests.sum();
+    }
+
+    /**
+     * 带有{@link HeaderFlag#HAS_DEADLINE}的请求, 拓展头部中的超时时间是调用方剩余的等待时间, 从收到请求时开始计算
+     * @return 截止时间({@link System#nanoTime()}), 没有截止时间时为null
+     */
+    private static Long deadlineOf(Command request) {
+        Header header = request.getHeader();
+        if (!ProtoConstants.isCompactVersion(header.getVersion()) || !HeaderFlag.HAS_DEADLINE.isSet(header)) {
+            return null;
+        }
+        String timeout = BinaryExtensionHeader.get(request.getExtension(), ExtensionHeader.TIMEOUT);
+        if (timeout == null) {
+            return null;
+        }
+        try {
+            return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Long.parseLong(timeout));
+        } catch (NumberFormatException exception) {
+            return null;
+        }
+    }
+
+    private static boolean isExpired(Long deadline) {
+        return deadline != null && System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * 不执行已超时的请求, 直接响应超时
+     */
+    private void rejectExpired(ChannelHandlerContext ctx, Command request) {
+        expiredRequests.increment();
+        Logger.DEFAULT.debug("drop expired rpc request, message id: {}", request.getHeader().getId());
+        reject(ctx, request, RpcResponse.fail(TomatoRpcErrorEnum.RPC_DEADLINE_EXCEEDED));
+    }
+
+    /**
+     * 业务线程池拒绝的请求直接响应失败, 并释放请求持有的内存
+     */
+    private void rejectOverload(ChannelHandlerContext ctx, Command request) {
+        Logger.DEFAULT.warn("reject rpc request, business executor is overload, message id: {}",
+                request.getHeader().getId());
+        reject(ctx, request,
+                RpcResponse.fail(TomatoRpcErrorEnum.NETTY_REQUEST_HANDLE_ERROR, "business executor is overload"));
+    }
+
+    private static void reject(ChannelHandlerContext ctx, Command request, RpcResponse failure) {
+        Header header = request.getHeader();
+        try {
+            Command response = CommandFactory.response(
+                    header.getId(),
+                    failure,
+                    SerializerHolder.getSerializer(header.getSerializeType()),
+                    CommandType.RPC_RESPONSE);
+            response.getHeader().setVersion(header.getVersion());
+            ctx.writeAndFlush(response);
+        } finally {
+            ByteBufCommand.release(request);
+        }
+    }
+
+    /**
+     * 因超过截止时间而丢弃的请求数
+     * @return expired request count
+     */
+    public long getExpiredRequests() {
+        return expiredRequests.sum();
+    }
+
+    /**
+     * 请求的方法标记了{@link org.tomato.study.rpc.core.annotation.RpcNonBlocking}时直接在IO线程中处理,
+     * 方法id从拓展头部中读取, 不用解析请求体; 没有方法id的请求仍交给业务线程池
+     */
+    private boolean isNonBlocking(CommandType type, Command request) {
+        if (type != CommandType.RPC_REQUEST || providerRegistry == null
+                || !ProtoConstants.isBinaryExtension(request.getHeader().getVersion())) {
+            return false;
+        }
+        String methodId = BinaryExtensionHeader.get(request.getExtension(), ExtensionHeader.METHOD_ID);
+        if (methodId == null) {
+            return false;
+        }
+        try {
+            ProviderMethod providerMethod = providerRegistry.getMethod(Integer.parseInt(methodId));
+            return providerMethod != null && providerMethod.isNonBlocking();
+        } catch (NumberFormatException exception) {
+            return false;
+        }
     }
 
     private void processRequest(ChannelHandlerContext ctx,
                                 Command request,
-                                ServerHandler matchHandler) {
+                                ServerHandler matchHandler,
+                                Long deadline,
+                                CancellableRequest cancellable) {
+        // 在业务线程池中排队期间超时
+        if (isExpired(deadline)) {
+            rejectExpired(ctx, request);
+            return;
+        }
         Map<String, String> extensionHeaders = ExtensionHeaderBuilder.getExtensionHeader(request);
         request = beforeProcess(request, extensionHeaders);
         Header header = request.getHeader();
 
         // 收到请求后, 将拓展参数塞入thread-local
         InvocationContext.set(extensionHeaders);
+        InvocationContext.setDeadline(deadline);
         Map<String, String> copyOfContextMap = MDC.getCopyOfContextMap();
         MDC.put(ExtensionHeader.TRACE_ID.name(), ExtensionHeader.TRACE_ID.getValueFromContext());
         try {
@@ -108,11 +300,21 @@ public class DispatcherHandler extends SimpleChannelInboundHandler<Command> {
             if (response == null) {
                 return;
             }
+            // 客户端已经取消, 不再响应
+            if (cancellable != null && cancellable.isCancelled()) {
+                ByteBufCommand.release(response);
+                return;
+            }
+            // 按请求的协议版本响应, 兼容旧客户端
+            response.getHeader().setVersion(header.getVersion());
             response = afterProcess(request, extensionHeaders, response);
             // 将结果写入缓存
+            Command finalResponse = response;
             ctx.writeAndFlush(response).addListener(
                     // 若出现异常，log错误信息，给客户端返回RPC异常
                     (ChannelFutureListener) listener -> {
+                        // 编码器已持有body的引用, 写完即可释放
+                        ByteBufCommand.release(finalResponse);
                         if (!listener.isSuccess()) {
                             Throwable cause = listener.cause();
                             Logger.DEFAULT.error(cause.getMessage(), cause);
@@ -126,6 +328,11 @@ public class DispatcherHandler extends SimpleChannelInboundHandler<Command> {
                         }
                     });
         } catch (Throwable exception) {
+            // 被取消的请求因中断而失败
+            if (cancellable != null && cancellable.isCancelled()) {
+                Logger.DEFAULT.debug("cancelled rpc request failed, message id: {}", header.getId());
+                return;
+            }
             Logger.DEFAULT.error(exception.getMessage(), exception);
             ctx.writeAndFlush(
                     CommandFactory.response(
@@ -137,9 +344,10 @@ public class DispatcherHandler extends SimpleChannelInboundHandler<Command> {
             );
             ctx.close();
         } finally {
-            // 请求处理完成, 清空ThreadLocal
+            // 请求处理完成, 清空ThreadLocal并释放请求引用的入站内存
             InvocationContext.remove();
             MDC.setContextMap(copyOfContextMap);
+            ByteBufCommand.release(request);
         }
     }
 
@@ -0,0 +1,64 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.handler;
+
+import org.tomato.study.rpc.core.ProviderRegistry;
+import org.tomato.study.rpc.core.ServerHandler;
+import org.tomato.study.rpc.core.data.Command;
+import org.tomato.study.rpc.core.data.CommandType;
+import org.tomato.study.rpc.core.data.Header;
+import org.tomato.study.rpc.core.data.MethodTableDTO;
+import org.tomato.study.rpc.core.data.ProviderMethod;
+import org.tomato.study.rpc.core.serializer.SerializerHolder;
+import org.tomato.study.rpc.netty.data.NettyCommandFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 服务端回应方法id表, 客户端建立连接后请求一次
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class MethodTableRequestHandler implements ServerHandler {
+
+    private ProviderRegistry providerRegistry;
+
+    @Override
+    public Command handle(Command command) throws Exception {
+        Header header = command.getHeader();
+        if (header == null) {
+            return null;
+        }
+        List<ProviderMethod> methods = providerRegistry.getMethods();
+        List<MethodTableDTO.Entry> entries = new ArrayList<>(methods.size());
+        for (ProviderMethod method : methods) {
+            entries.add(new MethodTableDTO.Entry(method.getMethodId(), method.getMicroServiceId(),
+                    method.getProviderInterface().getName(), method.getMethod().getName(), method.getArgsTypes()));
+        }
+        return NettyCommandFactory.response(header.getId(), new MethodTableDTO(entries),
+                SerializerHolder.getSerializer(header.getSerializeType()), CommandType.METHOD_TABLE_RESPONSE);
+    }
+
+    @Override
+    public CommandType getType() {
+        return CommandType.METHOD_TABLE_REQUEST;
+    }
+
+    @Override
+    public void setProviderRegistry(ProviderRegistry providerRegistry) {
+        this.providerRegistry = providerRegistry;
+    }
+}
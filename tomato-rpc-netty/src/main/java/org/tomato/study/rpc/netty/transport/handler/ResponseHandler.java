@@ -17,28 +17,29 @@ package org.tomato.study.rpc.netty.transport.handler;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
-import lombok.RequiredArgsConstructor;
 import org.tomato.study.rpc.common.utils.Logger;
 import org.tomato.study.rpc.core.CommandInterceptor;
 import org.tomato.study.rpc.core.data.Command;
 import org.tomato.study.rpc.core.data.CommandType;
 import org.tomato.study.rpc.core.data.ExtensionHeaderBuilder;
 import org.tomato.study.rpc.core.data.Header;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
+import org.tomato.study.rpc.netty.data.ByteBufCommand;
 import org.tomato.study.rpc.netty.interceptor.CompressInterceptor;
 import org.tomato.study.rpc.netty.transport.client.NettyResponseHolder;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * 处理RPC服务端的响应数据
+ * 处理RPC服务端的响应数据, 从连接上绑定的{@link NettyResponseHolder}中查找响应对应的future
  * @author Tomato
  * Created on 2021.04.17
  */
-@RequiredArgsConstructor
 @ChannelHandler.Sharable
 public class ResponseHandler extends SimpleChannelInboundHandler<Command> {
 
-    private final NettyResponseHolder responseHolder;
     private final CommandInterceptor[] interceptors = new CommandInterceptor[] {
             new CompressInterceptor(),
     };
@@ -51,13 +52,17 @@ public class ResponseHandler extends SimpleChannelInboundHandler<Command> {
         CommandType type = CommandType.value(header.getMessageType());
         switch (type) {
             case RPC_RESPONSE:
-                handleRpcResponse(request, header);
+            case RPC_BATCH_RESPONSE:
+            case METHOD_TABLE_RESPONSE:
+                handleRpcResponse(ctx.channel().attr(NettyResponseHolder.KEY).get(), request, header);
                 break;
             case KEEP_ALIVE_RESPONSE:
                 handleKeepAliveResponse(request, header);
+                ByteBufCommand.release(request);
                 break;
             default:
                 Logger.DEFAULT.warn("received unknown command type: {}", type);
+                ByteBufCommand.release(request);
         }
     }
 
@@ -72,17 +77,21 @@ public class ResponseHandler extends SimpleChannelInboundHandler<Command> {
         return request;
     }
 
-    private void handleRpcResponse(Command msg, Header header) {
+    private void handleRpcResponse(NettyResponseHolder responseHolder, Command msg, Header header) {
         // 根据消息id拿到对应的future
         long id = header.getId();
         try {
-            // 将结果注入future使客户端停止等待
-            responseHolder.getAndRemove(id)
-                    .ifPresent(nettyResponse -> nettyResponse.complete(msg));
+            // 将结果注入future使客户端停止等待, 入站内存交由future的消费方释放
+            CompletableFuture<Command> responseFuture = responseHolder.remove(id);
+            if (responseFuture == null || !responseFuture.complete(msg)) {
+                ByteBufCommand.release(msg);
+            }
         } catch (Throwable exception) {
             // 出现异常注入异常使客户端停止等待
-            responseHolder.getAndRemove(id)
-                    .ifPresent(nettyResponse -> nettyResponse.completeExceptionally(exception));
+            CompletableFuture<Command> responseFuture = responseHolder.remove(id);
+            if (responseFuture != null) {
+                responseFuture.completeExceptionally(exception);
+            }
             throw exception;
         }
     }
@@ -92,6 +101,22 @@ public class ResponseHandler extends SimpleChannelInboundHandler<Command> {
         Logger.DEFAULT.info("keep alive response received");
     }
 
+    /**
+     * 连接断开后服务端不会再响应, 立即通知所有未完成的请求, 幂等请求可以换节点重试
+     */
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        NettyResponseHolder responseHolder = ctx.channel().attr(NettyResponseHolder.KEY).get();
+        if (responseHolder != null) {
+            int count = responseHolder.failAll(new TomatoRpcRuntimeException(TomatoRpcErrorEnum.RPC_CONNECTION_CLOSED,
+                    String.format("connection %s closed", ctx.channel())));
+            if (count > 0) {
+                Logger.DEFAULT.warn("connection {} closed, {} pending requests failed", ctx.channel(), count);
+            }
+        }
+        super.channelInactive(ctx);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
         super.exceptionCaught(ctx, cause);
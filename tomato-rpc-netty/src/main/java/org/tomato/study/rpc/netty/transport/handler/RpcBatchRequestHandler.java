@@ -0,0 +1,149 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.handler;
+
+import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.core.data.Command;
+import org.tomato.study.rpc.core.data.CommandType;
+import org.tomato.study.rpc.core.data.Header;
+import org.tomato.study.rpc.core.data.InvocationContext;
+import org.tomato.study.rpc.core.data.RpcBatchRequestDTO;
+import org.tomato.study.rpc.core.data.RpcBatchResponse;
+import org.tomato.study.rpc.core.data.RpcResponse;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.error.TomatoRpcException;
+import org.tomato.study.rpc.core.serializer.Serializer;
+import org.tomato.study.rpc.core.serializer.SerializerHolder;
+import org.tomato.study.rpc.netty.data.NettyCommandFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 服务端处理批量RPC请求的Handler, 配置了业务线程池时并行执行;
+ * 与单个请求不同, 批量请求不检查截止时间, 不会登记为可取消的请求, body也不压缩:
+ * 批次内的调用超时后仍会执行, 调用方取消也不会通知服务端, 因此批量调用只适合小而快的请求
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class RpcBatchRequestHandler extends RpcRequestHandler {
+
+    /**
+     * 业务线程池, 可能为空
+     */
+    private ExecutorService businessExecutor;
+
+    @Override
+    public Command handle(Command command) {
+        Header header = command.getHeader();
+        Serializer serializer = SerializerHolder.getSerializer(header.getSerializeType());
+        List<RpcBatchRequestDTO.Entry> entries;
+        try {
+            entries = deserializeBody(command, serializer, RpcBatchRequestDTO.class).getEntries();
+        } catch (TomatoRpcException exception) {
+            // 无法得知批量请求的数量, 返回单个失败响应, 由客户端通知该批次的所有调用方
+            Logger.DEFAULT.error("rpc batch handle failed", exception);
+            return NettyCommandFactory.response(header.getId(),
+                    RpcResponse.fail(exception.getErrCode(), exception.getMessage()),
+                    serializer, CommandType.RPC_RESPONSE);
+        }
+        RpcResponse[] responses = new RpcResponse[entries == null ? 0 : entries.size()];
+        if (responses.length > 0) {
+            executeAll(entries, responses);
+        }
+        return NettyCommandFactory.response(header.getId(),
+                new RpcBatchResponse(Arrays.asList(responses)), serializer, CommandType.RPC_BATCH_RESPONSE);
+    }
+
+    @Override
+    public CommandType getType() {
+        return CommandType.RPC_BATCH_REQUEST;
+    }
+
+    @Override
+    public void setBusinessExecutor(ExecutorService businessExecutor) {
+        this.businessExecutor = businessExecutor;
+    }
+
+    /**
+     * 除第一个调用外都提交到业务线程池, 当前线程执行第一个调用后依次等待其余调用;
+     * 还没被线程池执行的任务由当前线程直接执行, 避免业务线程全部阻塞在等待上;
+     * 结果只由当前线程写入responses, 当前线程被中断时取消剩余的调用, 不会与仍在执行的调用竞争
+     */
+    private void executeAll(List<RpcBatchRequestDTO.Entry> entries, RpcResponse[] responses) {
+        if (businessExecutor == null) {
+            for (int i = 0; i < responses.length; i++) {
+                responses[i] = execute(entries.get(i));
+            }
+            return;
+        }
+        List<FutureTask<RpcResponse>> tasks = new ArrayList<>(entries.size() - 1);
+        for (int i = 1; i < entries.size(); i++) {
+            RpcBatchRequestDTO.Entry entry = entries.get(i);
+            FutureTask<RpcResponse> task = new FutureTask<>(() -> execute(entry));
+            tasks.add(task);
+            try {
+                businessExecutor.execute(task);
+            } catch (RejectedExecutionException ignored) {
+                // 线程池满了, 稍后由当前线程执行
+            }
+        }
+        responses[0] = execute(entries.get(0));
+        for (int i = 0; i < tasks.size(); i++) {
+            FutureTask<RpcResponse> task = tasks.get(i);
+            // 已开始或已结束的任务调用run没有任何效果
+            task.run();
+            try {
+                responses[i + 1] = task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel(tasks, i, responses);
+                return;
+            } catch (ExecutionException e) {
+                Logger.DEFAULT.error("rpc batch entry failed", e);
+                responses[i + 1] = RpcResponse.fail(TomatoRpcErrorEnum.UNKNOWN);
+            }
+        }
+    }
+
+    /**
+     * 取消从from开始的调用, 这些调用不再等待结果
+     */
+    private static void cancel(List<FutureTask<RpcResponse>> tasks, int from, RpcResponse[] responses) {
+        for (int i = from; i < tasks.size(); i++) {
+            tasks.get(i).cancel(true);
+            responses[i + 1] = RpcResponse.fail(TomatoRpcErrorEnum.NETTY_REQUEST_HANDLE_ERROR, "rpc batch interrupted");
+        }
+    }
+
+    /**
+     * 每个调用使用各自的上下文参数
+     */
+    private RpcResponse execute(RpcBatchRequestDTO.Entry entry) {
+        Map<String, String> originContext = InvocationContext.get();
+        InvocationContext.set(entry.getContext());
+        try {
+            return execute(entry.getRequest());
+        } finally {
+            InvocationContext.set(originContext);
+        }
+    }
+}
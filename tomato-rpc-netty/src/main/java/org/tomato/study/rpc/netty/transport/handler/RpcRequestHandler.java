@@ -19,21 +19,20 @@ import org.tomato.study.rpc.common.utils.Logger;
 import org.tomato.study.rpc.core.ProviderRegistry;
 import org.tomato.study.rpc.core.ServerHandler;
 import org.tomato.study.rpc.core.data.Command;
-import org.tomato.study.rpc.core.data.CommandFactory;
 import org.tomato.study.rpc.core.data.CommandType;
 import org.tomato.study.rpc.core.data.Header;
+import org.tomato.study.rpc.core.data.ProviderMethod;
 import org.tomato.study.rpc.core.data.RpcRequestDTO;
-import org.tomato.study.rpc.core.data.RpcRequestModel;
 import org.tomato.study.rpc.core.data.RpcResponse;
 import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
 import org.tomato.study.rpc.core.error.TomatoRpcException;
 import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
 import org.tomato.study.rpc.core.serializer.Serializer;
 import org.tomato.study.rpc.core.serializer.SerializerHolder;
-import org.tomato.study.rpc.netty.utils.ConvertUtils;
+import org.tomato.study.rpc.netty.data.NettyCommandFactory;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
 
 /**
  * 服务端处理RPC请求的Handler
@@ -52,35 +51,48 @@ public class RpcRequestHandler implements ServerHandler {
     public Command handle(Command command) {
         Header header = command.getHeader();
         Serializer serializer = SerializerHolder.getSerializer(command.getHeader().getSerializeType());
+        RpcResponse response;
         try {
             // 根据请求中的序列化算法类型，进行反序列化
-            RpcRequestModel request = getRpcRequestModel(command, serializer);
-
-            // 得到接口
-            Class<?> providerInterface = request.getRpcInterFace();
-
-            // 根据客户端提供的目标micro-service-id值和目标接口查找服务端的实现类
-            Object provider = providerRegistry.getProvider(request.getMicroServiceId(), providerInterface);
+            response = execute(deserializeBody(command, serializer, RpcRequestDTO.class));
+        } catch (TomatoRpcException exception) {
+            Logger.DEFAULT.error("rpc handle failed", exception);
+            response = RpcResponse.fail(exception.getErrCode(), exception.getMessage());
+        }
+        return NettyCommandFactory.response(header.getId(), response, serializer, CommandType.RPC_RESPONSE);
+    }
 
-            // 查找目标方法
-            Method method = searchMethod(request, providerInterface, provider);
+    /**
+     * 执行一次调用, 异常转化为失败的响应
+     * @param requestDTO 请求
+     * @return 响应
+     */
+    protected RpcResponse execute(RpcRequestDTO requestDTO) {
+        try {
+            // 在注册时建好的索引中查找目标方法, 携带方法id的请求直接按下标查找
+            ProviderMethod providerMethod = searchMethod(requestDTO);
 
-            // 反射调用
-            return invoke(header, serializer, request, provider, method);
+            // 通过绑定好的MethodHandle调用
+            return invoke(providerMethod, requestDTO.getArgs());
 
         } catch (Throwable exception) {
             Logger.DEFAULT.error("rpc handle failed", exception);
 
-            RpcResponse response;
             if (exception instanceof TomatoRpcException tomatoRpcException) {
-                response = RpcResponse.fail(tomatoRpcException.getErrCode(), tomatoRpcException.getMessage());
+                return RpcResponse.fail(tomatoRpcException.getErrCode(), tomatoRpcException.getMessage());
             } else if (exception instanceof TomatoRpcRuntimeException tomatoRpcRuntimeException) {
-                response = RpcResponse.fail(tomatoRpcRuntimeException.getErrCode(), tomatoRpcRuntimeException.getMessage());
+                return RpcResponse.fail(tomatoRpcRuntimeException.getErrCode(), tomatoRpcRuntimeException.getMessage());
             } else {
-                response = RpcResponse.fail(TomatoRpcErrorEnum.UNKNOWN);
+                return RpcResponse.fail(TomatoRpcErrorEnum.UNKNOWN);
             }
+        }
+    }
 
-            return CommandFactory.response(header.getId(), response, serializer, CommandType.RPC_RESPONSE);
+    protected <T> T deserializeBody(Command command, Serializer serializer, Class<T> clazz) throws TomatoRpcException {
+        try {
+            return NettyCommandFactory.deserializeBody(command, serializer, clazz);
+        } catch (Throwable e) {
+            throw new TomatoRpcException(e, TomatoRpcErrorEnum.MODEL_DTO_CONVERT_ERROR);
         }
     }
 
@@ -94,45 +106,50 @@ public class RpcRequestHandler implements ServerHandler {
         this.providerRegistry = providerRegistry;
     }
 
-    private Method searchMethod(RpcRequestModel request,
-                                Class<?> providerInterface,
-                                Object provider) throws TomatoRpcException {
-        if (provider == null) {
-            throw new TomatoRpcException(TomatoRpcErrorEnum.NETTY_HANDLER_PROVIDER_NOT_FOUND,
-                String.format("%s provider not found: %s", request.getMicroServiceId(), providerInterface.getName()));
+    private ProviderMethod searchMethod(RpcRequestDTO request) throws TomatoRpcException {
+        Integer methodId = request.getMethodId();
+        if (methodId != null) {
+            ProviderMethod providerMethod = providerRegistry.getMethod(methodId);
+            if (providerMethod == null) {
+                throw new TomatoRpcException(TomatoRpcErrorEnum.NETTY_HANDLER_PROVIDER_NOT_FOUND,
+                    "provider method not found, method id: " + methodId);
+            }
+            return providerMethod;
         }
-
-        try {
-            return providerInterface.getMethod(request.getMethodName(), request.getArgsType());
-        } catch (Throwable e) {
-            throw new TomatoRpcException(e, TomatoRpcErrorEnum.NETTY_HANDLER_PROVIDER_NOT_FOUND,
-                String.format("%s provider method not found: %s", request.getMicroServiceId(), request.getMethodName()));
+        ProviderMethod providerMethod = providerRegistry.getMethod(request.getMicroServiceId(),
+                request.getInterfaceName(), request.getMethodName(), request.getArgsTypes());
+        if (providerMethod == null) {
+            throw new TomatoRpcException(TomatoRpcErrorEnum.NETTY_HANDLER_PROVIDER_NOT_FOUND,
+                String.format("%s provider method not found: %s#%s",
+                    request.getMicroServiceId(), request.getInterfaceName(), request.getMethodName()));
         }
+        return providerMethod;
     }
 
-    private RpcRequestModel getRpcRequestModel(Command command, Serializer serializer) throws TomatoRpcException {
+    private RpcResponse invoke(ProviderMethod providerMethod, Object[] args) throws TomatoRpcException {
+        int argsLength = args == null ? 0 : args.length;
+        if (argsLength != providerMethod.getArgsTypes().length) {
+            throw new TomatoRpcException(TomatoRpcErrorEnum.MODEL_DTO_CONVERT_ERROR, "parameter error");
+        }
         try {
-            return ConvertUtils.convert(serializer.deserialize(command.getBody(), RpcRequestDTO.class));
-        } catch (Throwable e) {
-            throw new TomatoRpcException(e, TomatoRpcErrorEnum.MODEL_DTO_CONVERT_ERROR);
+            return RpcResponse.success(unwrap(providerMethod.invoke(args)));
+        } catch (Throwable exception) {
+            throw new TomatoRpcException(exception, TomatoRpcErrorEnum.NETTY_HANDLER_RPC_INVOKER_ERROR,
+                "rpc method call failed: " + providerMethod.getMethod().getName());
         }
     }
 
-    private Command invoke(Header header,
-                           Serializer serializer,
-                           RpcRequestModel request,
-                           Object provider,
-                           Method method) throws TomatoRpcException {
+    /**
+     * 返回CompletionStage的异步方法, 等待其完成后把结果写回客户端
+     */
+    private static Object unwrap(Object result) throws Throwable {
+        if (!(result instanceof CompletionStage<?> stage)) {
+            return result;
+        }
         try {
-            Object result = method.invoke(provider, request.getParameters());
-            return CommandFactory.response(
-                    header.getId(),
-                    RpcResponse.success(result),
-                    serializer,
-                    CommandType.RPC_RESPONSE);
-        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException exception) {
-            throw new TomatoRpcException(exception, TomatoRpcErrorEnum.NETTY_HANDLER_RPC_INVOKER_ERROR,
-                "rpc method call failed: " + method.getName());
+            return stage.toCompletableFuture().get();
+        } catch (ExecutionException exception) {
+            throw exception.getCause();
         }
     }
 }
@@ -21,26 +21,35 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.epoll.Epoll;
-import io.netty.channel.epoll.EpollEventLoopGroup;
-import io.netty.channel.epoll.EpollServerSocketChannel;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import lombok.Getter;
 import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.common.utils.VirtualThreadUtil;
 import org.tomato.study.rpc.core.ProviderRegistry;
 import org.tomato.study.rpc.core.data.RpcServerConfig;
 import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
 import org.tomato.study.rpc.core.error.TomatoRpcException;
 import org.tomato.study.rpc.core.observer.LifeCycle;
 import org.tomato.study.rpc.core.server.BaseRpcServer;
+import org.tomato.study.rpc.netty.codec.ChunkedCommandHandler;
 import org.tomato.study.rpc.netty.codec.NettyFrameDecoder;
 import org.tomato.study.rpc.netty.codec.NettyFrameEncoder;
 import org.tomato.study.rpc.netty.codec.NettyProtoDecoder;
+import org.tomato.study.rpc.netty.metrics.FlushBatchMetrics;
+import org.tomato.study.rpc.netty.metrics.FlushBatchMetricsHandler;
 import org.tomato.study.rpc.netty.transport.handler.DispatcherHandler;
 import org.tomato.study.rpc.netty.transport.handler.ServerIdleCheckHandler;
+import org.tomato.study.rpc.netty.transport.shm.ShmAddress;
+import org.tomato.study.rpc.netty.transport.shm.ShmServerChannel;
+import org.tomato.study.rpc.netty.transport.socket.Transport;
+import org.tomato.study.rpc.netty.transport.socket.TransportLoader;
+import org.tomato.study.rpc.netty.transport.socket.TransportOptions;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -68,11 +77,26 @@ public class NettyRpcServer extends BaseRpcServer {
      */
     private ServerBootstrap serverBootstrap;
 
+    /**
+     * 监听unix domain socket的启动引导类, 未开启时为空
+     */
+    private ServerBootstrap domainSocketBootstrap;
+
+    /**
+     * 接收共享内存连接的启动引导类, 未开启时为空
+     */
+    private ServerBootstrap sharedMemoryBootstrap;
+
     /**
      * 业务线程池
      */
     private ExecutorService businessThreadPool;
 
+    /**
+     * 每次flush写出的数据帧数量
+     */
+    private final FlushBatchMetrics flushBatchMetrics = new FlushBatchMetrics();
+
     /**
      * Selector线程池
      */
@@ -83,61 +107,164 @@ public class NettyRpcServer extends BaseRpcServer {
      */
     private EventLoopGroup workerGroup;
 
+    /**
+     * 传输实现
+     */
+    private final Transport transport;
+
+    /**
+     * socket参数
+     */
+    private final TransportOptions transportOptions;
+
+    /**
+     * 监听channel数量, 大于1时以SO_REUSEPORT绑定同一端口, 每个监听channel使用一个boss线程
+     */
+    private final int bindCount;
+
+    /**
+     * 同时监听的unix domain socket路径, 未开启或传输实现不支持时为空
+     */
+    private final String domainSocketPath;
+
+    /**
+     * 同时接收共享内存连接的目录, 未开启时为空
+     */
+    private final String sharedMemoryPath;
+
     public NettyRpcServer(RpcServerConfig rpcServerConfig, ProviderRegistry providerRegistry) {
         super(rpcServerConfig, providerRegistry);
+        this.transport = TransportLoader.load(rpcServerConfig.getTransport());
+        this.transportOptions = TransportOptions.of(rpcServerConfig);
+        int reusePortBinds = Math.max(1, rpcServerConfig.getReusePortBinds());
+        if (reusePortBinds > 1 && !transport.isReusePortSupported()) {
+            Logger.DEFAULT.warn("transport {} does not support SO_REUSEPORT, bind once",
+                    transport.getClass().getSimpleName());
+            reusePortBinds = 1;
+        }
+        this.bindCount = reusePortBinds;
+        String socketPath = rpcServerConfig.getDomainSocketPath();
+        if (socketPath != null && !socketPath.isBlank() && transport.serverDomainSocketChannelClass() == null) {
+            Logger.DEFAULT.warn("transport {} does not support unix domain socket, listen on tcp only",
+                    transport.getClass().getSimpleName());
+            socketPath = null;
+        }
+        this.domainSocketPath = socketPath == null || socketPath.isBlank() ? null : socketPath;
+        String sharedMemoryPath = rpcServerConfig.getSharedMemoryPath();
+        this.sharedMemoryPath = sharedMemoryPath == null || sharedMemoryPath.isBlank() ? null : sharedMemoryPath;
     }
 
     @Override
     protected void doInit() throws TomatoRpcException {
 
-        if (Epoll.isAvailable()) {
-            this.bossGroup = new EpollEventLoopGroup(1, new DefaultThreadFactory(BOSS_GROUP_THREAD_NAME));
-            this.workerGroup = new EpollEventLoopGroup(new DefaultThreadFactory(WORKER_GROUP_THREAD_NAME));
-        } else {
-            this.bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory(BOSS_GROUP_THREAD_NAME));
-            this.workerGroup = new NioEventLoopGroup(new DefaultThreadFactory(WORKER_GROUP_THREAD_NAME));
+        int acceptors = bindCount;
+        if (domainSocketPath != null) {
+            acceptors++;
         }
+        if (sharedMemoryPath != null) {
+            acceptors++;
+        }
+        this.bossGroup = transport.newEventLoopGroup(acceptors, new DefaultThreadFactory(BOSS_GROUP_THREAD_NAME));
+        this.workerGroup = transport.newEventLoopGroup(0, new DefaultThreadFactory(WORKER_GROUP_THREAD_NAME));
         if (isUseBusinessPool()) {
-            int businessPoolSize = getBusinessPoolSize();
-            ThreadPoolExecutor.AbortPolicy abortPolicy = new ThreadPoolExecutor.AbortPolicy();
-            this.businessThreadPool = new ThreadPoolExecutor(
-                    businessPoolSize,
-                    businessPoolSize,
-                    0, TimeUnit.SECONDS,
-                    new ArrayBlockingQueue<>(5000),
-                    new DefaultThreadFactory(BUSINESS_GROUP_THREAD_NAME),
-                    (r, executor) -> {
-                        Logger.DEFAULT.error("business thread pool is overload");
-                        abortPolicy.rejectedExecution(r, executor);
-                    }
-            );
+            this.businessThreadPool = newBusinessExecutor();
             this.dispatcherHandler = new DispatcherHandler(getProviderRegistry(), businessThreadPool);
         } else {
             this.dispatcherHandler = new DispatcherHandler(getProviderRegistry(), null);
         }
+        ChannelInitializer<Channel> channelInitializer = newChannelInitializer();
         this.serverBootstrap = new ServerBootstrap()
                 .group(this.bossGroup, this.workerGroup)
-                .channel(Epoll.isAvailable() ? EpollServerSocketChannel.class : NioServerSocketChannel.class)
+                .channel(transport.serverSocketChannelClass())
                 .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
                 .childOption(ChannelOption.TCP_NODELAY, true)
                 .option(ChannelOption.SO_BACKLOG, 10000)
-                .childHandler(new ChannelInitializer<>() {
-                    @Override
-                    protected void initChannel(Channel ch) throws Exception {
-                        ChannelPipeline pipeline = ch.pipeline();
-                        pipeline.addLast("idle-checker", new ServerIdleCheckHandler(getReadIdleCheckMilliseconds()));
-                        pipeline.addLast("frame-decoder", new NettyFrameDecoder());
-                        pipeline.addLast("proto-decoder", new NettyProtoDecoder());
-                        pipeline.addLast("frame-encoder", new NettyFrameEncoder());
-                        pipeline.addLast("dispatcher-handler", NettyRpcServer.this.dispatcherHandler);
-                    }
-                });
+                .childHandler(channelInitializer);
+        transport.configure(serverBootstrap, transportOptions);
+        if (domainSocketPath != null) {
+            // 本机客户端通过unix domain socket连接, 与tcp连接共用IO线程和处理链
+            this.domainSocketBootstrap = new ServerBootstrap()
+                    .group(this.bossGroup, this.workerGroup)
+                    .channel(transport.serverDomainSocketChannelClass())
+                    .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                    .childHandler(channelInitializer);
+        }
+        if (sharedMemoryPath != null) {
+            // 共享内存连接不依赖selector, 同样注册到IO线程上
+            this.sharedMemoryBootstrap = new ServerBootstrap()
+                    .group(this.bossGroup, this.workerGroup)
+                    .channel(ShmServerChannel.class)
+                    .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                    .childHandler(channelInitializer);
+        }
+    }
+
+    private ExecutorService newBusinessExecutor() {
+        int businessPoolSize = getBusinessPoolSize();
+        if (RpcServerConfig.BUSINESS_EXECUTOR_VIRTUAL.equals(getBusinessExecutorMode())) {
+            if (VirtualThreadUtil.isSupported()) {
+                // 业务逻辑大多阻塞在下游调用上, 每个请求一个虚拟线程, 只限制同时处理的请求数
+                return new VirtualThreadExecutor(BUSINESS_GROUP_THREAD_NAME, getBusinessMaxConcurrency());
+            }
+            // 并发上限按虚拟线程设置, 换成平台线程会创建过多线程, 退化为固定大小的业务线程池
+            businessPoolSize = Math.max(businessPoolSize, Runtime.getRuntime().availableProcessors());
+            Logger.DEFAULT.warn("virtual thread is not supported by current jvm, "
+                    + "business executor is downgraded to thread pool, pool size: {}", businessPoolSize);
+        }
+        ThreadPoolExecutor.AbortPolicy abortPolicy = new ThreadPoolExecutor.AbortPolicy();
+        return new ThreadPoolExecutor(
+                businessPoolSize,
+                businessPoolSize,
+                0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(5000),
+                new DefaultThreadFactory(BUSINESS_GROUP_THREAD_NAME),
+                (r, executor) -> {
+                    Logger.DEFAULT.error("business thread pool is overload");
+                    abortPolicy.rejectedExecution(r, executor);
+                }
+        );
+    }
+
+    private ChannelInitializer<Channel> newChannelInitializer() {
+        return new ChannelInitializer<>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                ChannelPipeline pipeline = ch.pipeline();
+                pipeline.addLast("flush-metrics", new FlushBatchMetricsHandler(flushBatchMetrics));
+                pipeline.addLast("idle-checker", new ServerIdleCheckHandler(getReadIdleCheckMilliseconds()));
+                pipeline.addLast("frame-decoder", new NettyFrameDecoder(getMaxFrameLength()));
+                pipeline.addLast("proto-decoder", new NettyProtoDecoder());
+                pipeline.addLast("frame-encoder", new NettyFrameEncoder());
+                pipeline.addLast("chunk-handler", new ChunkedCommandHandler(
+                        getChunkSize(), getMaxMessageSize(), getMaxStreamingBytes(), getMaxStreamingMessages()));
+                if (getFlushConsolidationLimit() > 0) {
+                    // 业务线程写入的响应在当前EventLoop周期结束时统一flush
+                    pipeline.addLast("flush-consolidation",
+                            new FlushConsolidationHandler(getFlushConsolidationLimit(), true));
+                }
+                pipeline.addLast("dispatcher-handler", NettyRpcServer.this.dispatcherHandler);
+            }
+        };
     }
 
     @Override
     protected void doStart() throws TomatoRpcException {
         try {
-            serverBootstrap.bind(getPort()).sync();
+            // SO_REUSEPORT时由内核把新连接分发到各个监听channel
+            for (int i = 0; i < bindCount; i++) {
+                serverBootstrap.bind(getPort()).sync();
+            }
+            if (domainSocketBootstrap != null) {
+                // 上次进程退出时残留的socket文件会导致绑定失败
+                Files.deleteIfExists(Path.of(domainSocketPath));
+                domainSocketBootstrap.bind(new DomainSocketAddress(domainSocketPath)).sync();
+            }
+            if (sharedMemoryBootstrap != null) {
+                sharedMemoryBootstrap.bind(new ShmAddress(sharedMemoryPath)).sync();
+            }
+        } catch (IOException exception) {
+            throw new TomatoRpcException(exception, TomatoRpcErrorEnum.LIFE_CYCLE_START_ERROR,
+                    "delete stale unix domain socket file failed: " + domainSocketPath);
         } catch (InterruptedException exception) {
             throw new TomatoRpcException(exception, TomatoRpcErrorEnum.LIFE_CYCLE_START_ERROR, "thread was interrupted when bind");
         }
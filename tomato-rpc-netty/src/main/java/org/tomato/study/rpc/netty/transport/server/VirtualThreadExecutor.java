@@ -0,0 +1,157 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.tomato.study.rpc.netty.transport.server;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
+import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.common.utils.VirtualThreadUtil;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个任务一个虚拟线程, 同时执行的任务数不超过上限, 达到上限后与业务线程池一样拒绝任务;
+ * jvm不支持虚拟线程时退化为复用平台线程的缓存线程池, 线程数同样不超过上限;
+ * 服务端在jvm不支持虚拟线程时直接使用业务线程池, 见NettyRpcServer#newBusinessExecutor
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class VirtualThreadExecutor extends AbstractExecutorService {
+
+    /**
+     * 同时执行的任务数上限
+     */
+    @Getter
+    private final int maxConcurrency;
+
+    private final Semaphore permits;
+
+    /**
+     * 虚拟线程工厂, 不支持虚拟线程时为空
+     */
+    private final ThreadFactory threadFactory;
+
+    /**
+     * 不支持虚拟线程时复用的平台线程, 空闲线程60秒后回收
+     */
+    private final ThreadPoolExecutor platformPool;
+
+    /**
+     * 是否使用虚拟线程
+     */
+    @Getter
+    private final boolean virtual;
+
+    private volatile boolean shutdown = false;
+
+    public VirtualThreadExecutor(String threadName, int maxConcurrency) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.permits = new Semaphore(this.maxConcurrency);
+        ThreadFactory virtualThreadFactory = VirtualThreadUtil.newThreadFactory(threadName + "-");
+        if (virtualThreadFactory == null) {
+            Logger.DEFAULT.warn("virtual thread is not supported by current jvm, use cached platform thread pool instead");
+            this.threadFactory = null;
+            this.platformPool = new ThreadPoolExecutor(0, this.maxConcurrency,
+                    60, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(),
+                    new DefaultThreadFactory(threadName, true));
+            this.virtual = false;
+        } else {
+            this.threadFactory = virtualThreadFactory;
+            this.platformPool = null;
+            this.virtual = true;
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (shutdown) {
+            throw new RejectedExecutionException("virtual thread executor is shutdown");
+        }
+        if (!permits.tryAcquire()) {
+            Logger.DEFAULT.error("business thread pool is overload");
+            throw new RejectedExecutionException("business concurrency exceeds " + maxConcurrency);
+        }
+        Runnable task = () -> {
+            try {
+                command.run();
+            } finally {
+                permits.release();
+            }
+        };
+        try {
+            if (virtual) {
+                threadFactory.newThread(task).start();
+            } else {
+                platformPool.execute(task);
+            }
+        } catch (Throwable exception) {
+            permits.release();
+            throw new RejectedExecutionException(exception);
+        }
+    }
+
+    /**
+     * 正在执行的任务数
+     * @return active task count
+     */
+    public int getActiveCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        if (platformPool != null) {
+            platformPool.shutdown();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        // 任务不排队, 没有未开始的任务
+        shutdown();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && getActiveCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        // 拿到全部许可说明所有任务都已结束
+        if (!permits.tryAcquire(maxConcurrency, timeout, unit)) {
+            return false;
+        }
+        permits.release(maxConcurrency);
+        return true;
+    }
+}
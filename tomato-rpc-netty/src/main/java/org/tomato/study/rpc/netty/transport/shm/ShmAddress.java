@@ -0,0 +1,63 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.tomato.study.rpc.netty.transport.shm;
+
+import java.net.SocketAddress;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * 共享内存连接的地址: 服务端为接收连接的目录, 客户端为本连接的环形缓冲区文件
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class ShmAddress extends SocketAddress {
+
+    private final Path path;
+
+    public ShmAddress(String path) {
+        this(Path.of(path));
+    }
+
+    public ShmAddress(Path path) {
+        this.path = Objects.requireNonNull(path, "path");
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ShmAddress that)) {
+            return false;
+        }
+        return path.equals(that.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "shm:" + path;
+    }
+}
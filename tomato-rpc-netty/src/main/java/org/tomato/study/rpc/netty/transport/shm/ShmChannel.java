@@ -0,0 +1,414 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.tomato.study.rpc.netty.transport.shm;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.DefaultChannelConfig;
+import io.netty.channel.EventLoop;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.internal.PlatformDependent;
+import org.tomato.study.rpc.common.utils.Logger;
+
+import java.net.SocketAddress;
+import java.nio.channels.AlreadyConnectedException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ConnectionPendingException;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 通过共享内存环形缓冲区通信的channel, 客户端主动连接或由{@link ShmServerChannel}接收
+ * 写: 在EventLoop中把数据帧复制到发送缓冲区, 缓冲区满时稍后重试
+ * 读: 每个连接一个轮询线程, 先自旋再park, 读到的数据帧交给EventLoop触发channelRead
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class ShmChannel extends AbstractChannel {
+
+    public static final int DEFAULT_RING_CAPACITY = 1024 * 1024;
+
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false);
+
+    private static final ThreadFactory POLLER_THREAD_FACTORY = new DefaultThreadFactory("rpc-shm-poller", true);
+
+    /**
+     * 没有数据时先自旋, 再让出CPU, 最后park; 单核上自旋会抢占对端的CPU, 不自旋
+     */
+    private static final int SPIN_TIMES = Runtime.getRuntime().availableProcessors() > 1 ? 20000 : 0;
+    private static final int YIELD_TIMES = SPIN_TIMES + 200;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * 空闲时检查对端进程是否存活的间隔
+     */
+    private static final long LIVENESS_CHECK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 发送缓冲区满时重试写出的间隔
+     */
+    private static final long WRITE_RETRY_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+    /**
+     * 等待服务端接收连接时的检查间隔
+     */
+    private static final long CONNECT_CHECK_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    /**
+     * EventLoop来不及处理时轮询线程最多缓存的数据帧数量, 超过后不再读取, 由发送端感知背压
+     */
+    private static final int MAX_PENDING_FRAMES = 1024;
+
+    private final ChannelConfig config = new DefaultChannelConfig(this);
+
+    private final int ringCapacity;
+
+    /**
+     * 轮询线程读出、等待EventLoop处理的数据帧
+     */
+    private final Queue<ByteBuf> received = PlatformDependent.newSpscQueue();
+
+    private final AtomicBoolean readScheduled = new AtomicBoolean();
+
+    private final Runnable readTask = this::readReceived;
+
+    private volatile ShmRingFile ringFile;
+    private ShmRingBuffer inbound;
+    private ShmRingBuffer outbound;
+    private ShmAddress localAddress;
+    private ShmAddress remoteAddress;
+
+    private volatile boolean open = true;
+    private volatile boolean active;
+
+    private ChannelPromise connectPromise;
+    private boolean writeRetryScheduled;
+
+    public ShmChannel() {
+        this(DEFAULT_RING_CAPACITY);
+    }
+
+    /**
+     * @param ringCapacity 客户端创建连接时每个方向的缓冲区大小
+     */
+    public ShmChannel(int ringCapacity) {
+        super(null);
+        this.ringCapacity = ringCapacity;
+    }
+
+    ShmChannel(ShmServerChannel parent, ShmRingFile ringFile) {
+        super(parent);
+        this.ringCapacity = ringFile.clientToServer().capacity();
+        this.ringFile = ringFile;
+        this.inbound = ringFile.clientToServer();
+        this.outbound = ringFile.serverToClient();
+        this.localAddress = parent.localAddress();
+        this.remoteAddress = new ShmAddress(ringFile.path());
+    }
+
+    @Override
+    public ShmServerChannel parent() {
+        return (ShmServerChannel) super.parent();
+    }
+
+    @Override
+    public ChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public boolean isActive() {
+        return open && active;
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    public ShmAddress localAddress() {
+        return (ShmAddress) super.localAddress();
+    }
+
+    @Override
+    public ShmAddress remoteAddress() {
+        return (ShmAddress) super.remoteAddress();
+    }
+
+    @Override
+    protected AbstractUnsafe newUnsafe() {
+        return new ShmUnsafe();
+    }
+
+    /**
+     * 不依赖selector, 可以注册到任意单线程EventLoop上
+     */
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof SingleThreadEventLoop;
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return localAddress;
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return remoteAddress;
+    }
+
+    @Override
+    protected void doRegister() throws Exception {
+        // 服务端接收的连接注册到worker线程后才通知客户端, 保证channelActive先于channelRead
+        if (parent() != null && !active) {
+            ringFile.accept();
+            active = true;
+            startPoller();
+        }
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        throw new UnsupportedOperationException("shared memory channel can not bind");
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        doClose();
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        open = false;
+        active = false;
+        ChannelPromise promise = connectPromise;
+        if (promise != null) {
+            connectPromise = null;
+            promise.tryFailure(new ClosedChannelException());
+        }
+        ShmRingFile file = ringFile;
+        if (file != null) {
+            file.close();
+        }
+        releaseReceived();
+    }
+
+    @Override
+    protected void doBeginRead() throws Exception {
+        // 由轮询线程推送数据
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        if (ringFile.state() == ShmRingFile.CLOSED) {
+            throw new ClosedChannelException();
+        }
+        for (;;) {
+            Object msg = in.current();
+            if (msg == null) {
+                return;
+            }
+            if (!(msg instanceof ByteBuf frame)) {
+                in.remove(new UnsupportedOperationException("unsupported message type: " + msg.getClass()));
+                continue;
+            }
+            boolean written;
+            try {
+                written = outbound.offer(frame);
+            } catch (IllegalArgumentException exception) {
+                in.remove(exception);
+                continue;
+            }
+            if (!written) {
+                scheduleWriteRetry();
+                return;
+            }
+            in.remove();
+        }
+    }
+
+    private void scheduleWriteRetry() {
+        if (writeRetryScheduled) {
+            return;
+        }
+        writeRetryScheduled = true;
+        eventLoop().schedule(() -> {
+            writeRetryScheduled = false;
+            if (isActive()) {
+                unsafe().flush();
+            }
+        }, WRITE_RETRY_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    private void startPoller() {
+        POLLER_THREAD_FACTORY.newThread(this::poll).start();
+    }
+
+    private void poll() {
+        ShmRingFile file = ringFile;
+        boolean peerServer = parent() == null;
+        int idle = 0;
+        long livenessCheckTime = System.nanoTime() + LIVENESS_CHECK_NANOS;
+        try {
+            while (open) {
+                if (received.size() < MAX_PENDING_FRAMES) {
+                    ByteBuf frame = inbound.poll(config.getAllocator());
+                    if (frame != null) {
+                        received.offer(frame);
+                        if (readScheduled.compareAndSet(false, true)) {
+                            eventLoop().execute(readTask);
+                        }
+                        idle = 0;
+                        continue;
+                    }
+                }
+                if (++idle <= SPIN_TIMES) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                if (idle <= YIELD_TIMES) {
+                    Thread.yield();
+                    continue;
+                }
+                if (file.state() == ShmRingFile.CLOSED) {
+                    break;
+                }
+                long now = System.nanoTime();
+                if (now - livenessCheckTime > 0) {
+                    if (!file.isPeerAlive(peerServer)) {
+                        Logger.DEFAULT.warn("shared memory peer process exited, close channel {}", this);
+                        break;
+                    }
+                    livenessCheckTime = now + LIVENESS_CHECK_NANOS;
+                }
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        } catch (RejectedExecutionException exception) {
+            // EventLoop已关闭
+            return;
+        } catch (Throwable exception) {
+            Logger.DEFAULT.error("poll shared memory failed, close channel " + this, exception);
+        }
+        try {
+            eventLoop().execute(() -> unsafe().close(unsafe().voidPromise()));
+        } catch (RejectedExecutionException ignored) {
+            // EventLoop已关闭
+        }
+    }
+
+    private void readReceived() {
+        readScheduled.set(false);
+        if (!isActive()) {
+            releaseReceived();
+            return;
+        }
+        int count = 0;
+        ByteBuf frame;
+        while ((frame = received.poll()) != null) {
+            pipeline().fireChannelRead(frame);
+            count++;
+        }
+        if (count > 0) {
+            pipeline().fireChannelReadComplete();
+        }
+    }
+
+    private void releaseReceived() {
+        ByteBuf frame;
+        while ((frame = received.poll()) != null) {
+            ReferenceCountUtil.release(frame);
+        }
+    }
+
+    private void checkAccepted(long deadline) {
+        ChannelPromise promise = connectPromise;
+        if (promise == null) {
+            return;
+        }
+        int state = ringFile.state();
+        if (state == ShmRingFile.ACCEPTED) {
+            connectPromise = null;
+            active = true;
+            startPoller();
+            promise.trySuccess();
+            pipeline().fireChannelActive();
+            return;
+        }
+        if (state == ShmRingFile.CLOSED || System.nanoTime() - deadline > 0) {
+            connectPromise = null;
+            promise.tryFailure(new ConnectTimeoutException("shared memory connection timed out: " + remoteAddress));
+            unsafe().close(unsafe().voidPromise());
+            return;
+        }
+        eventLoop().schedule(() -> checkAccepted(deadline), CONNECT_CHECK_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    private final class ShmUnsafe extends AbstractUnsafe {
+
+        @Override
+        public void connect(SocketAddress remoteAddress, SocketAddress localAddress, ChannelPromise promise) {
+            if (!promise.setUncancellable() || !ensureOpen(promise)) {
+                return;
+            }
+            if (active) {
+                promise.setFailure(new AlreadyConnectedException());
+                return;
+            }
+            if (connectPromise != null) {
+                promise.setFailure(new ConnectionPendingException());
+                return;
+            }
+            if (!(remoteAddress instanceof ShmAddress address)) {
+                promise.setFailure(new IllegalArgumentException("unsupported address type: " + remoteAddress));
+                return;
+            }
+            try {
+                // 服务端定时扫描目录, 发现新文件后接收连接
+                ShmRingFile file = ShmRingFile.create(address.path(), ringCapacity);
+                ShmChannel.this.ringFile = file;
+                ShmChannel.this.inbound = file.serverToClient();
+                ShmChannel.this.outbound = file.clientToServer();
+                ShmChannel.this.localAddress = new ShmAddress(file.path());
+                ShmChannel.this.remoteAddress = address;
+            } catch (Throwable exception) {
+                promise.tryFailure(annotateConnectException(exception, remoteAddress));
+                closeIfClosed();
+                return;
+            }
+            connectPromise = promise;
+            long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.getConnectTimeoutMillis()));
+            checkAccepted(System.nanoTime() + timeoutNanos);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.tomato.study.rpc.netty.transport.shm;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 映射在共享内存上的单生产者单消费者环形缓冲区, 以数据帧为单位读写
+ * 布局: [写位置(独占缓存行)][读位置(独占缓存行)][数据区]
+ * 每条记录为4字节长度 + 数据帧, 按8字节对齐; 数据区尾部放不下时先提交填充标记, 再从头开始写
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class ShmRingBuffer {
+
+    /**
+     * 读写位置各占一个缓存行, 避免两个进程之间的伪共享
+     */
+    static final int CACHE_LINE = 64;
+    static final int HEADER_SIZE = 2 * CACHE_LINE;
+
+    private static final int RECORD_HEADER = 4;
+    private static final int ALIGNMENT = 8;
+
+    /**
+     * 数据区尾部剩余空间不足时的填充标记
+     */
+    private static final int PADDING = -1;
+
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer buffer;
+    private final int writeIndexOffset;
+    private final int readIndexOffset;
+
+    /**
+     * 数据区, 下标从0开始
+     */
+    private final ByteBuffer data;
+    private final int capacity;
+    private final int mask;
+
+    /**
+     * @param buffer 映射的共享内存
+     * @param offset 环形缓冲区在共享内存中的起始位置, 需要按缓存行对齐
+     * @param capacity 数据区大小, 必须是2的幂
+     */
+    ShmRingBuffer(ByteBuffer buffer, int offset, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of 2: " + capacity);
+        }
+        this.buffer = buffer;
+        this.writeIndexOffset = offset;
+        this.readIndexOffset = offset + CACHE_LINE;
+        this.data = buffer.slice(offset + HEADER_SIZE, capacity).order(ByteOrder.nativeOrder());
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @return 缓冲区占用的共享内存大小
+     */
+    static int sizeOf(int capacity) {
+        return HEADER_SIZE + capacity;
+    }
+
+    /**
+     * 写入一个数据帧, 只能由一个线程调用
+     * @param frame 数据帧, 不修改读下标
+     * @return 剩余空间不足时返回false
+     * @throws IllegalArgumentException 数据帧超过缓冲区大小
+     */
+    public boolean offer(ByteBuf frame) {
+        int length = frame.readableBytes();
+        int recordLength = recordLength(length);
+        if (recordLength > capacity) {
+            throw new IllegalArgumentException(
+                    "frame length " + length + " exceeds shared memory ring capacity " + capacity);
+        }
+        long writeIndex = (long) LONG.getOpaque(buffer, writeIndexOffset);
+        long readIndex = (long) LONG.getAcquire(buffer, readIndexOffset);
+        int offset = (int) (writeIndex & mask);
+        int tail = capacity - offset;
+        if (tail < recordLength) {
+            // 填充单独提交: 尾部空间被读完即可写入, 否则大于半个数据区的记录永远等不到tail + recordLength的空闲空间
+            if (capacity - (writeIndex - readIndex) < tail) {
+                return false;
+            }
+            // 对齐后尾部至少还有8字节, 放得下填充标记
+            data.putInt(offset, PADDING);
+            writeIndex += tail;
+            LONG.setRelease(buffer, writeIndexOffset, writeIndex);
+            offset = 0;
+        }
+        if (capacity - (writeIndex - readIndex) < recordLength) {
+            return false;
+        }
+        data.putInt(offset, length);
+        frame.getBytes(frame.readerIndex(), data.slice(offset + RECORD_HEADER, length));
+        LONG.setRelease(buffer, writeIndexOffset, writeIndex + recordLength);
+        return true;
+    }
+
+    /**
+     * 读出一个数据帧, 只能由一个线程调用
+     * @param allocator 数据帧从共享内存复制到该分配器分配的ByteBuf中
+     * @return 没有数据时返回null
+     */
+    public ByteBuf poll(ByteBufAllocator allocator) {
+        long readIndex = (long) LONG.getOpaque(buffer, readIndexOffset);
+        long writeIndex = (long) LONG.getAcquire(buffer, writeIndexOffset);
+        if (readIndex == writeIndex) {
+            return null;
+        }
+        int offset = (int) (readIndex & mask);
+        int length = data.getInt(offset);
+        if (length == PADDING) {
+            // 先释放尾部空间, 写端可能正在等待这部分空间写入下一条记录
+            readIndex += capacity - offset;
+            LONG.setRelease(buffer, readIndexOffset, readIndex);
+            if (readIndex == writeIndex) {
+                return null;
+            }
+            offset = 0;
+            length = data.getInt(0);
+        }
+        if (length < 0 || recordLength(length) > capacity) {
+            throw new IllegalStateException("corrupted shared memory ring, frame length: " + length);
+        }
+        ByteBuf frame = allocator.directBuffer(length);
+        frame.writeBytes(data.slice(offset + RECORD_HEADER, length));
+        LONG.setRelease(buffer, readIndexOffset, readIndex + recordLength(length));
+        return frame;
+    }
+
+    /**
+     * @return 是否有未读的数据
+     */
+    public boolean isReadable() {
+        return (long) LONG.getAcquire(buffer, writeIndexOffset) != (long) LONG.getOpaque(buffer, readIndexOffset);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private static int recordLength(int length) {
+        return (RECORD_HEADER + length + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.tomato.study.rpc.netty.transport.shm;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一个共享内存连接对应的文件, 由客户端创建, 服务端扫描目录发现后接收
+ * 布局: [连接头部][客户端到服务端的环形缓冲区][服务端到客户端的环形缓冲区]
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class ShmRingFile {
+
+    /**
+     * 服务端只接收该后缀的文件, 客户端写完头部后再重命名, 避免服务端读到未初始化的文件
+     */
+    public static final String SUFFIX = ".ring";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    public static final int CONNECTING = 0;
+    public static final int ACCEPTED = 1;
+    public static final int CLOSED = 2;
+
+    private static final int MAGIC = 0x746f6d73;
+    private static final int HEADER_SIZE = 2 * ShmRingBuffer.CACHE_LINE;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int STATE_OFFSET = 8;
+    private static final int CLIENT_PID_OFFSET = 16;
+    private static final int SERVER_PID_OFFSET = 24;
+
+    /**
+     * 数据区最小大小
+     */
+    private static final int MIN_CAPACITY = 4096;
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final ShmRingBuffer clientToServer;
+    private final ShmRingBuffer serverToClient;
+
+    private ShmRingFile(Path path, MappedByteBuffer buffer, int capacity) {
+        this.path = path;
+        this.buffer = buffer;
+        this.clientToServer = new ShmRingBuffer(buffer, HEADER_SIZE, capacity);
+        this.serverToClient = new ShmRingBuffer(buffer, HEADER_SIZE + ShmRingBuffer.sizeOf(capacity), capacity);
+    }
+
+    /**
+     * 客户端在服务端目录下创建连接文件
+     * @param directory 服务端接收连接的目录
+     * @param capacity 每个方向的数据区大小, 向上取整到2的幂
+     */
+    public static ShmRingFile create(Path directory, int capacity) throws IOException {
+        int ringCapacity = ringCapacity(capacity);
+        String name = ProcessHandle.current().pid() + "-" + SEQUENCE.incrementAndGet() + "-" + System.nanoTime();
+        Path temp = directory.resolve(name + TEMP_SUFFIX);
+        Path path = directory.resolve(name + SUFFIX);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(ringCapacity));
+        }
+        buffer.order(ByteOrder.nativeOrder());
+        INT.set(buffer, MAGIC_OFFSET, MAGIC);
+        INT.set(buffer, CAPACITY_OFFSET, ringCapacity);
+        LONG.set(buffer, CLIENT_PID_OFFSET, ProcessHandle.current().pid());
+        INT.setRelease(buffer, STATE_OFFSET, CONNECTING);
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            Files.deleteIfExists(temp);
+            throw exception;
+        }
+        return new ShmRingFile(path, buffer, ringCapacity);
+    }
+
+    /**
+     * 服务端打开客户端创建的连接文件
+     */
+    public static ShmRingFile open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("shared memory file is too small: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buffer.order(ByteOrder.nativeOrder());
+        int capacity = (int) INT.getAcquire(buffer, CAPACITY_OFFSET);
+        if ((int) INT.get(buffer, MAGIC_OFFSET) != MAGIC
+                || Integer.bitCount(capacity) != 1
+                || buffer.capacity() < fileSize(capacity)) {
+            throw new IOException("illegal shared memory file: " + path);
+        }
+        return new ShmRingFile(path, buffer, capacity);
+    }
+
+    /**
+     * 删除目录下上次进程退出时残留的连接文件
+     */
+    public static void deleteStale(Path directory) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*{" + SUFFIX + "," + TEMP_SUFFIX + "}")) {
+            for (Path path : stream) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public ShmRingBuffer clientToServer() {
+        return clientToServer;
+    }
+
+    public ShmRingBuffer serverToClient() {
+        return serverToClient;
+    }
+
+    public int state() {
+        return (int) INT.getAcquire(buffer, STATE_OFFSET);
+    }
+
+    /**
+     * 服务端接收连接, 记录服务端进程号
+     */
+    public void accept() {
+        LONG.set(buffer, SERVER_PID_OFFSET, ProcessHandle.current().pid());
+        INT.setRelease(buffer, STATE_OFFSET, ACCEPTED);
+    }
+
+    /**
+     * 任意一端关闭连接时标记, 另一端的轮询线程发现后关闭自己
+     */
+    public void close() {
+        INT.setRelease(buffer, STATE_OFFSET, CLOSED);
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // 对端关闭时也会删除
+        }
+    }
+
+    /**
+     * 对端进程异常退出时来不及标记关闭, 通过进程号检查
+     * @param server 对端是否为服务端
+     */
+    public boolean isPeerAlive(boolean server) {
+        long pid = (long) LONG.getOpaque(buffer, server ? SERVER_PID_OFFSET : CLIENT_PID_OFFSET);
+        return pid <= 0 || ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+    }
+
+    static int ringCapacity(int capacity) {
+        int size = Math.max(MIN_CAPACITY, capacity);
+        return Integer.bitCount(size) == 1 ? size : Integer.highestOneBit(size) << 1;
+    }
+
+    private static long fileSize(int capacity) {
+        return HEADER_SIZE + 2L * ShmRingBuffer.sizeOf(capacity);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.tomato.study.rpc.netty.transport.shm;
+
+import io.netty.channel.AbstractServerChannel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.DefaultChannelConfig;
+import io.netty.channel.EventLoop;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.tomato.study.rpc.common.utils.Logger;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在目录下接收共享内存连接, 定时扫描客户端新建的连接文件
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class ShmServerChannel extends AbstractServerChannel {
+
+    /**
+     * 扫描目录的间隔, 只影响建连耗时
+     */
+    private static final long ACCEPT_INTERVAL_MS = 5;
+
+    private final ChannelConfig config = new DefaultChannelConfig(this);
+
+    /**
+     * 已接收的连接文件, 只在EventLoop中访问
+     */
+    private final Set<Path> accepted = new HashSet<>(0);
+
+    private volatile boolean open = true;
+    private volatile ShmAddress localAddress;
+    private ScheduledFuture<?> acceptTask;
+
+    @Override
+    public ChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public boolean isActive() {
+        return open && localAddress != null;
+    }
+
+    @Override
+    public ShmAddress localAddress() {
+        return (ShmAddress) super.localAddress();
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof SingleThreadEventLoop;
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return localAddress;
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        if (!(localAddress instanceof ShmAddress address)) {
+            throw new IllegalArgumentException("unsupported address type: " + localAddress);
+        }
+        Files.createDirectories(address.path());
+        // 上次进程退出时残留的连接文件
+        ShmRingFile.deleteStale(address.path());
+        this.localAddress = address;
+        this.acceptTask = eventLoop().scheduleWithFixedDelay(
+                this::accept, ACCEPT_INTERVAL_MS, ACCEPT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        open = false;
+        if (acceptTask != null) {
+            acceptTask.cancel(false);
+        }
+    }
+
+    @Override
+    protected void doBeginRead() throws Exception {
+        // 由定时任务接收连接
+    }
+
+    private void accept() {
+        if (!isActive()) {
+            return;
+        }
+        Set<Path> present = new HashSet<>(accepted.size() + 1);
+        boolean acceptedAny = false;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(localAddress.path(), "*" + ShmRingFile.SUFFIX)) {
+            for (Path path : stream) {
+                present.add(path);
+                if (!accepted.add(path)) {
+                    continue;
+                }
+                ShmRingFile ringFile;
+                try {
+                    ringFile = ShmRingFile.open(path);
+                } catch (IOException exception) {
+                    Logger.DEFAULT.warn("open shared memory connection failed: " + path, exception);
+                    continue;
+                }
+                if (ringFile.state() != ShmRingFile.CONNECTING) {
+                    continue;
+                }
+                pipeline().fireChannelRead(new ShmChannel(this, ringFile));
+                acceptedAny = true;
+            }
+        } catch (IOException exception) {
+            pipeline().fireExceptionCaught(exception);
+            return;
+        }
+        // 连接关闭后文件被删除
+        accepted.retainAll(present);
+        if (acceptedAny) {
+            pipeline().fireChannelReadComplete();
+        }
+    }
+}
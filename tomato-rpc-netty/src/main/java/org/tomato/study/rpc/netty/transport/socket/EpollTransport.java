@@ -0,0 +1,105 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.socket;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * linux原生epoll传输, 支持SO_REUSEPORT、TCP_QUICKACK、SO_BUSY_POLL和unix domain socket
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class EpollTransport implements Transport {
+
+    @Override
+    public boolean isAvailable() {
+        return Epoll.isAvailable();
+    }
+
+    @Override
+    public EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory) {
+        return new EpollEventLoopGroup(threads, threadFactory);
+    }
+
+    @Override
+    public Class<? extends SocketChannel> socketChannelClass() {
+        return EpollSocketChannel.class;
+    }
+
+    @Override
+    public Class<? extends ServerSocketChannel> serverSocketChannelClass() {
+        return EpollServerSocketChannel.class;
+    }
+
+    @Override
+    public boolean isReusePortSupported() {
+        return true;
+    }
+
+    @Override
+    public Class<? extends Channel> domainSocketChannelClass() {
+        return EpollDomainSocketChannel.class;
+    }
+
+    @Override
+    public Class<? extends ServerChannel> serverDomainSocketChannelClass() {
+        return EpollServerDomainSocketChannel.class;
+    }
+
+    @Override
+    public void configure(ServerBootstrap bootstrap, TransportOptions options) {
+        if (options.reusePortBinds() > 1) {
+            bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+        if (options.receiveBufferSize() > 0) {
+            bootstrap.option(ChannelOption.SO_RCVBUF, options.receiveBufferSize());
+        }
+        if (options.tcpQuickAck()) {
+            bootstrap.childOption(EpollChannelOption.TCP_QUICKACK, true);
+        }
+        if (options.busyPollMicroseconds() > 0) {
+            bootstrap.childOption(EpollChannelOption.SO_BUSY_POLL, options.busyPollMicroseconds());
+        }
+    }
+
+    @Override
+    public void configure(Bootstrap bootstrap, TransportOptions options) {
+        if (options.receiveBufferSize() > 0) {
+            bootstrap.option(ChannelOption.SO_RCVBUF, options.receiveBufferSize());
+        }
+        if (options.tcpQuickAck()) {
+            bootstrap.option(EpollChannelOption.TCP_QUICKACK, true);
+        }
+        if (options.busyPollMicroseconds() > 0) {
+            bootstrap.option(EpollChannelOption.SO_BUSY_POLL, options.busyPollMicroseconds());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.socket;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.tomato.study.rpc.common.utils.Logger;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * JDK NIO传输, 所有平台可用, 不支持SO_REUSEPORT、TCP_QUICKACK和SO_BUSY_POLL
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class NioTransport implements Transport {
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory) {
+        return new NioEventLoopGroup(threads, threadFactory);
+    }
+
+    @Override
+    public Class<? extends SocketChannel> socketChannelClass() {
+        return NioSocketChannel.class;
+    }
+
+    @Override
+    public Class<? extends ServerSocketChannel> serverSocketChannelClass() {
+        return NioServerSocketChannel.class;
+    }
+
+    @Override
+    public boolean isReusePortSupported() {
+        return false;
+    }
+
+    @Override
+    public void configure(ServerBootstrap bootstrap, TransportOptions options) {
+        // 在监听socket上设置, 新连接继承该值, 超过64KB的窗口才能在握手时生效
+        if (options.receiveBufferSize() > 0) {
+            bootstrap.option(ChannelOption.SO_RCVBUF, options.receiveBufferSize());
+        }
+        warnUnsupported(options);
+    }
+
+    @Override
+    public void configure(Bootstrap bootstrap, TransportOptions options) {
+        if (options.receiveBufferSize() > 0) {
+            bootstrap.option(ChannelOption.SO_RCVBUF, options.receiveBufferSize());
+        }
+        warnUnsupported(options);
+    }
+
+    private static void warnUnsupported(TransportOptions options) {
+        if (options.tcpQuickAck() || options.busyPollMicroseconds() > 0) {
+            Logger.DEFAULT.warn("nio transport does not support TCP_QUICKACK and SO_BUSY_POLL, ignored");
+        }
+    }
+}
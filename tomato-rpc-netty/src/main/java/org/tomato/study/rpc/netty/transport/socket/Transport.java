@@ -0,0 +1,93 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.socket;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import org.tomato.study.rpc.core.spi.SpiInterface;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 网络传输实现, 决定IO线程池、Channel类型和socket参数, 客户端和服务端通过{@link TransportLoader}加载
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+@SpiInterface("epoll")
+public interface Transport {
+
+    /**
+     * 当前环境是否支持该传输实现, 如epoll只能在linux上使用
+     * @return true 可用
+     */
+    boolean isAvailable();
+
+    /**
+     * 创建IO线程池
+     * @param threads 线程数, 0表示使用netty的默认值
+     * @param threadFactory 线程工厂
+     * @return IO线程池
+     */
+    EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory);
+
+    /**
+     * @return 客户端Channel类型
+     */
+    Class<? extends SocketChannel> socketChannelClass();
+
+    /**
+     * @return 服务端监听Channel类型
+     */
+    Class<? extends ServerSocketChannel> serverSocketChannelClass();
+
+    /**
+     * 是否支持SO_REUSEPORT, 支持时服务端可以在同一端口绑定多个监听channel
+     * @return true 支持
+     */
+    boolean isReusePortSupported();
+
+    /**
+     * @return 客户端unix domain socket的Channel类型, 不支持时返回null
+     */
+    default Class<? extends Channel> domainSocketChannelClass() {
+        return null;
+    }
+
+    /**
+     * @return 服务端监听unix domain socket的Channel类型, 不支持时返回null
+     */
+    default Class<? extends ServerChannel> serverDomainSocketChannelClass() {
+        return null;
+    }
+
+    /**
+     * 设置服务端socket参数
+     * @param bootstrap 服务端启动类
+     * @param options socket参数
+     */
+    void configure(ServerBootstrap bootstrap, TransportOptions options);
+
+    /**
+     * 设置客户端socket参数
+     * @param bootstrap 客户端启动类
+     * @param options socket参数
+     */
+    void configure(Bootstrap bootstrap, TransportOptions options);
+}
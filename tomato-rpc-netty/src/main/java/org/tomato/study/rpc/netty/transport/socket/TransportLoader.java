@@ -0,0 +1,49 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.socket;
+
+import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.core.spi.SpiLoader;
+
+/**
+ * 按配置加载传输实现, 配置的实现不存在或当前环境不可用时退回nio
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public final class TransportLoader {
+
+    /**
+     * 所有平台都可用的传输实现
+     */
+    public static final String NIO = "nio";
+
+    private TransportLoader() {
+        throw new IllegalStateException("illegal access");
+    }
+
+    /**
+     * @param name 传输实现的SPI key, 为空时加载默认实现
+     * @return 可用的传输实现
+     */
+    public static Transport load(String name) {
+        SpiLoader<Transport> loader = SpiLoader.getLoader(Transport.class);
+        Transport transport = name == null || name.isBlank() ? loader.load() : loader.load(name);
+        if (transport != null && transport.isAvailable()) {
+            return transport;
+        }
+        Logger.DEFAULT.warn("transport [{}] is not available, fall back to {}", name, NIO);
+        return loader.load(NIO);
+    }
+}
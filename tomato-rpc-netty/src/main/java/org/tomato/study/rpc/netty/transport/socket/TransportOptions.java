@@ -0,0 +1,43 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.socket;
+
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.data.RpcServerConfig;
+
+/**
+ * 传输层的socket参数, 传输实现不支持的参数会被忽略
+ * @param reusePortBinds       以SO_REUSEPORT绑定的监听channel数量, 只对服务端生效
+ * @param tcpQuickAck          是否开启TCP_QUICKACK
+ * @param busyPollMicroseconds 大于0时开启SO_BUSY_POLL
+ * @param receiveBufferSize    socket接收缓冲区大小, 小于等于0时使用系统默认值
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public record TransportOptions(int reusePortBinds,
+                               boolean tcpQuickAck,
+                               int busyPollMicroseconds,
+                               int receiveBufferSize) {
+
+    public static TransportOptions of(RpcConfig rpcConfig) {
+        return new TransportOptions(rpcConfig.serverReusePortBinds(), rpcConfig.tcpQuickAck(),
+                rpcConfig.busyPollMicroseconds(), rpcConfig.receiveBufferSize());
+    }
+
+    public static TransportOptions of(RpcServerConfig rpcServerConfig) {
+        return new TransportOptions(rpcServerConfig.getReusePortBinds(), rpcServerConfig.isTcpQuickAck(),
+                rpcServerConfig.getBusyPollMicroseconds(), rpcServerConfig.getReceiveBufferSize());
+    }
+}
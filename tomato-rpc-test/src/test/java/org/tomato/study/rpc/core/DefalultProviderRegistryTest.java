@@ -0,0 +1,103 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.core;
+
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tomato.study.rpc.core.data.ProviderMethod;
+import org.tomato.study.rpc.test.TestService;
+import org.tomato.study.rpc.test.TestServiceImpl;
+
+import java.util.List;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class DefalultProviderRegistryTest {
+
+    private static final String MICRO_SERVICE_ID = "registry-test";
+
+    @Test
+    public void dispatchIndexTest() throws Throwable {
+        DefalultProviderRegistry registry = new DefalultProviderRegistry();
+        registry.register(MICRO_SERVICE_ID, new TestServiceImpl(), TestService.class);
+        Calculator calculator = new CalculatorImpl();
+        registry.register(MICRO_SERVICE_ID, calculator, Calculator.class);
+
+        ProviderMethod sum = registry.getMethod(MICRO_SERVICE_ID,
+                TestService.class.getName(), "sum", new String[]{List.class.getName()});
+        Assert.assertEquals(6, sum.invoke(new Object[]{Lists.newArrayList(1, 2, 3)}));
+
+        // 重载方法按参数类型区分, 基本类型自动装箱
+        ProviderMethod addInt = registry.getMethod(MICRO_SERVICE_ID,
+                Calculator.class.getName(), "add", new String[]{"int", "int"});
+        ProviderMethod addLong = registry.getMethod(MICRO_SERVICE_ID,
+                Calculator.class.getName(), "add", new String[]{"long", "long"});
+        Assert.assertEquals(3, addInt.invoke(new Object[]{1, 2}));
+        Assert.assertEquals(3L, addLong.invoke(new Object[]{1L, 2L}));
+
+        // 无参数的方法参数类型可以为空, 无返回值时返回null
+        ProviderMethod reset = registry.getMethod(MICRO_SERVICE_ID, Calculator.class.getName(), "reset", null);
+        Assert.assertNull(reset.invoke(null));
+        Assert.assertSame(reset, registry.getMethod(reset.getMethodId()));
+
+        // 业务异常原样抛出
+        ProviderMethod fail = registry.getMethod(MICRO_SERVICE_ID, Calculator.class.getName(), "fail", null);
+        try {
+            fail.invoke(null);
+            Assert.fail();
+        } catch (UnsupportedOperationException ignored) {
+        }
+
+        Assert.assertNull(registry.getMethod(MICRO_SERVICE_ID, Calculator.class.getName(), "add", new String[]{"int"}));
+        Assert.assertNull(registry.getMethod("other", Calculator.class.getName(), "reset", null));
+        Assert.assertNull(registry.getMethod(MICRO_SERVICE_ID, "not.Exist", "reset", null));
+    }
+
+    interface Calculator {
+
+        int add(int a, int b);
+
+        long add(long a, long b);
+
+        void reset();
+
+        void fail();
+    }
+
+    static class CalculatorImpl implements Calculator {
+
+        @Override
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        @Override
+        public long add(long a, long b) {
+            return a + b;
+        }
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public void fail() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.core.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tomato.study.rpc.core.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class BinaryExtensionHeaderTest {
+
+    @Test
+    public void encodeDecodeTest() {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put(ExtensionHeader.TIMEOUT.getKeyName(), "5000");
+        params.put(ExtensionHeader.TRACE_ID.getKeyName(), "8da9735a9cc84cd19a89bcb7db63e2f2");
+        params.put("USER_ID", "1");
+        params.put("用户", "番茄");
+
+        Command command = CommandFactory.request(null, new JsonSerializer(), null, CommandType.RPC_REQUEST);
+        command.getHeader().setVersion(ProtoConstants.VERSION1_TLV);
+        ExtensionHeaderBuilder builder = new ExtensionHeaderBuilder(command);
+        params.forEach(builder::putParam);
+        builder.build();
+
+        // 内置key只占1个字节
+        byte[] extension = command.getExtension();
+        Assert.assertEquals(extension.length, command.getHeader().getExtensionLength());
+        Assert.assertEquals(ExtensionHeader.TIMEOUT.getId(), extension[0]);
+
+        Assert.assertEquals("5000", BinaryExtensionHeader.get(extension, ExtensionHeader.TIMEOUT));
+        Assert.assertNull(BinaryExtensionHeader.get(extension, ExtensionHeader.COMPRESS));
+        Assert.assertEquals("1", BinaryExtensionHeader.get(extension, "USER_ID"));
+        Assert.assertEquals("番茄", BinaryExtensionHeader.get(extension, "用户"));
+        Assert.assertNull(BinaryExtensionHeader.get(extension, "USER"));
+
+        Map<String, String> headers = ExtensionHeaderBuilder.getExtensionHeader(command);
+        Assert.assertEquals("5000", headers.get(ExtensionHeader.TIMEOUT.getKeyName()));
+        Assert.assertEquals(params, new HashMap<>(headers));
+        // 服务端把解析结果作为InvocationContext, 业务代码可以继续写入
+        headers.put("USER_ID", "2");
+        Assert.assertEquals("2", headers.get("USER_ID"));
+
+        // 追加同名key, 以最后一次为准
+        new ExtensionHeaderBuilder(command).putParam(ExtensionHeader.COMPRESS.getKeyName(), "true")
+                .putParam("USER_ID", "2")
+                .build();
+        Assert.assertEquals("true", BinaryExtensionHeader.get(command.getExtension(), ExtensionHeader.COMPRESS));
+        Assert.assertEquals("2", ExtensionHeaderBuilder.getExtensionHeader(command).get("USER_ID"));
+    }
+
+    @Test
+    public void legacyVersionTest() {
+        Map<String, String> params = new HashMap<>();
+        params.put(ExtensionHeader.TIMEOUT.getKeyName(), "5000");
+        params.put("USER_ID", "1");
+        Command command = CommandFactory.request(null, new JsonSerializer(), params, CommandType.RPC_REQUEST);
+
+        // 旧版本依然使用字符串格式
+        Assert.assertEquals(ProtoConstants.VERSION1, command.getHeader().getVersion());
+        String extension = new String(command.getExtension(), StandardCharsets.UTF_8);
+        Assert.assertTrue(extension.contains("USER_ID:1"));
+        Assert.assertEquals(params, ExtensionHeaderBuilder.getExtensionHeader(command));
+    }
+}
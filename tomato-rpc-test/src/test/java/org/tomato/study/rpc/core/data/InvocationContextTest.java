@@ -0,0 +1,58 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.core.data;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class InvocationContextTest {
+
+    @After
+    public void destroy() {
+        InvocationContext.remove();
+    }
+
+    @Test
+    public void remainingMillisTest() {
+        // 没有截止时间时使用调用自身的超时时间
+        Assert.assertEquals(3000L, InvocationContext.remainingMillis(3000L));
+
+        InvocationContext.setDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1000));
+        long remaining = InvocationContext.remainingMillis(3000L);
+        Assert.assertTrue(remaining > 900 && remaining <= 1000);
+        Assert.assertEquals(500L, InvocationContext.remainingMillis(500L));
+
+        InvocationContext.setDeadline(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(10));
+        Assert.assertTrue(InvocationContext.remainingMillis(3000L) <= 0);
+
+        InvocationContext.setDeadline(null);
+        Assert.assertNull(InvocationContext.getDeadline());
+        Assert.assertEquals(3000L, InvocationContext.remainingMillis(3000L));
+    }
+
+    @Test
+    public void removeTest() {
+        InvocationContext.setDeadline(System.nanoTime());
+        InvocationContext.remove();
+        Assert.assertNull(InvocationContext.getDeadline());
+    }
+}
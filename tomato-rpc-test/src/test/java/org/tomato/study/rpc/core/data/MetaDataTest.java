@@ -43,6 +43,36 @@ public class MetaDataTest {
         Assert.assertEquals(metaData.getWeight(), actual.getWeight());
     }
 
+    @Test
+    public void versionConvertTest() {
+        MetaData metaData = mockMetaData();
+        metaData.getNodeProperty().version = ProtoConstants.LATEST_VERSION;
+        URI uri = MetaData.convert(metaData).get();
+        // "#version:N"不能变成URL的fragment, 否则客户端协商不到新版本协议
+        Assert.assertNull(uri.getFragment());
+
+        MetaData actual = MetaData.convert(uri).get();
+        Assert.assertEquals(100, actual.getWeight());
+        Assert.assertEquals(ProtoConstants.LATEST_VERSION, actual.getNodeProperty().version);
+    }
+
+    @Test
+    public void nodePropertyConvertTest() {
+        MetaData metaData = mockMetaData();
+        metaData.getNodeProperty().version = 2;
+        metaData.getNodeProperty().domainSocket = "/var/run/tomato:rpc/rpc.sock";
+        metaData.getNodeProperty().sharedMemory = "/dev/shm/tomato-rpc";
+        Optional<URI> uri = MetaData.convert(metaData);
+        Assert.assertTrue(uri.isPresent());
+
+        // 第一个属性之后的属性不会被当作URL的fragment丢掉
+        MetaData actual = MetaData.convert(uri.get()).get();
+        Assert.assertEquals(100, actual.getWeight());
+        Assert.assertEquals(2, actual.getNodeProperty().version);
+        Assert.assertEquals("/var/run/tomato:rpc/rpc.sock", actual.getNodeProperty().domainSocket);
+        Assert.assertEquals("/dev/shm/tomato-rpc", actual.getNodeProperty().sharedMemory);
+    }
+
     @Test
     public void hashCodeTest() {
         List<MetaData> metaDataList = new ArrayList<>(0);
@@ -0,0 +1,304 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.tomato.study.rpc.core.invoker;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tomato.study.rpc.core.DefalultProviderRegistry;
+import org.tomato.study.rpc.core.ProviderRegistry;
+import org.tomato.study.rpc.core.circuit.CircuitRpcInvoker;
+import org.tomato.study.rpc.core.data.InvocationContext;
+import org.tomato.study.rpc.core.data.MetaData;
+import org.tomato.study.rpc.core.data.Response;
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.data.RpcRequestDTO;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.loadbalance.RoundRobinLoadBalance;
+import org.tomato.study.rpc.netty.router.NettyMicroServiceSpace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Exchanger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class InJvmRpcInvokerTest {
+
+    private static final String SERVICE_ID = "injvm-test";
+
+    /**
+     * await方法返回的future, 由测试完成
+     */
+    private static final AtomicReference<CompletableFuture<String>> PENDING = new AtomicReference<>();
+
+    /**
+     * await方法执行所在的线程
+     */
+    private static final Exchanger<Thread> PENDING_CALLER = new Exchanger<>();
+
+    private final MetaData localMetaData = metaData(9090);
+
+    @Test
+    public void selectInJvmTest() throws Exception {
+        NettyMicroServiceSpace space = newSpace(RpcConfig.builder().group("default").build());
+        try {
+            space.refresh(Set.of(localMetaData));
+            space.refreshRouter(1L, Collections.emptyList());
+            Assert.assertTrue(space.getAllInvokers().get(0) instanceof InJvmRpcInvoker);
+            Response response = space.lookUp(request("echo", "ping")).orElseThrow().invoke(request("echo", "ping"))
+                    .getResultSync();
+            Assert.assertEquals(TomatoRpcErrorEnum.SUCCESS.getCode(), response.getCode());
+            Assert.assertEquals("ping", response.getData());
+        } finally {
+            space.close();
+        }
+
+        // 关闭后走网络
+        RpcInvoker remoteInvoker = mock(RpcInvoker.class);
+        RpcInvokerFactory invokerFactory = mock(RpcInvokerFactory.class);
+        when(invokerFactory.create(any(), any())).thenReturn(Optional.of(remoteInvoker));
+        space = new NettyMicroServiceSpace(SERVICE_ID, invokerFactory,
+                RpcConfig.builder().group("default").clientInJvm(false).build(),
+                new RoundRobinLoadBalance(), localMetaData, registry());
+        space.refresh(Set.of(localMetaData));
+        Assert.assertSame(remoteInvoker, space.getAllInvokers().get(0));
+    }
+
+    @Test
+    public void circuitTest() throws Exception {
+        NettyMicroServiceSpace space = newSpace(RpcConfig.builder().group("default").enableCircuit(true).build());
+        try {
+            space.refresh(Set.of(localMetaData));
+            RpcInvoker invoker = space.getAllInvokers().get(0);
+            Assert.assertTrue(invoker instanceof CircuitRpcInvoker);
+            Assert.assertEquals(TomatoRpcErrorEnum.NETTY_HANDLER_RPC_INVOKER_ERROR.getCode(),
+                    invoker.invoke(request("fail", "boom")).getResultSync().getCode());
+        } finally {
+            space.close();
+        }
+    }
+
+    @Test
+    public void copyTest() throws Exception {
+        List<String> messages = new ArrayList<>(List.of("a"));
+        RpcConfig rpcConfig = RpcConfig.builder().build();
+        InJvmRpcInvoker sharedInvoker = new InJvmRpcInvoker(localMetaData, rpcConfig, registry());
+        Assert.assertSame(messages, sharedInvoker.invoke(listRequest(messages)).getResultSync().getData());
+
+        // 服务实现拿到的是参数的副本
+        InJvmRpcInvoker copyInvoker = new InJvmRpcInvoker(localMetaData,
+                RpcConfig.builder().clientInJvmCopy(true).build(), registry());
+        Object result = copyInvoker.invoke(listRequest(messages)).getResultSync().getData();
+        Assert.assertEquals(List.of("a", "b"), result);
+        Assert.assertEquals(List.of("a", "b"), messages);
+        Assert.assertNotSame(messages, result);
+    }
+
+    @Test
+    public void contextTest() throws Exception {
+        InvocationContext.set(new HashMap<>(0));
+        try {
+            InJvmRpcInvoker invoker = new InJvmRpcInvoker(localMetaData, RpcConfig.builder().build(), registry());
+            invoker.invoke(request("echo", "ping"));
+            // 服务实现对上下文的修改不会带回调用方
+            Assert.assertNull(InvocationContext.get("echo"));
+        } finally {
+            InvocationContext.remove();
+        }
+    }
+
+    @Test
+    public void timeoutTest() throws Exception {
+        InJvmRpcInvoker invoker = new InJvmRpcInvoker(localMetaData,
+                RpcConfig.builder().globalClientTimeoutMilliseconds(100).build(), registry());
+        long begin = System.nanoTime();
+        Assert.assertEquals(TomatoRpcErrorEnum.RPC_INVOCATION_TIMEOUT.getCode(),
+                invoker.invoke(request("sleep", "ping")).getResultSync().getCode());
+        Assert.assertTrue(System.nanoTime() - begin < TimeUnit.SECONDS.toNanos(5));
+        // 中断标记不会留给调用方
+        Assert.assertFalse(Thread.currentThread().isInterrupted());
+        Assert.assertEquals(TomatoRpcErrorEnum.SUCCESS.getCode(),
+                invoker.invoke(request("echo", "ping")).getResultSync().getCode());
+    }
+
+    @Test
+    public void asyncProviderTest() throws Exception {
+        InJvmRpcInvoker invoker = new InJvmRpcInvoker(localMetaData, RpcConfig.builder().build(), registry());
+        // 返回future的服务实现, 响应中是future的结果
+        Assert.assertEquals("ping", invoker.invoke(request("echoAsync", "ping")).getResultSync().getData());
+    }
+
+    @Test
+    public void asyncNotBlockingTest() throws Exception {
+        InJvmRpcInvoker invoker = new InJvmRpcInvoker(localMetaData, RpcConfig.builder().build(), registry());
+        PENDING.set(new CompletableFuture<>());
+        // 服务实现不在调用方线程执行, 返回的future未完成时调用方也不等待
+        CompletableFuture<Response> future = invoker.invoke(request("await", "ping")).getResultAsync();
+        Assert.assertNotEquals(Thread.currentThread(), PENDING_CALLER.exchange(null, 5, TimeUnit.SECONDS));
+        Assert.assertFalse(future.isDone());
+
+        PENDING.get().complete("pong");
+        Response response = future.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(TomatoRpcErrorEnum.SUCCESS.getCode(), response.getCode());
+        Assert.assertEquals("pong", response.getData());
+    }
+
+    @Test
+    public void asyncTimeoutTest() throws Exception {
+        InJvmRpcInvoker invoker = new InJvmRpcInvoker(localMetaData,
+                RpcConfig.builder().globalClientTimeoutMilliseconds(100).build(), registry());
+        // 服务实现返回的future一直未完成, 不会一直等待
+        Assert.assertEquals(TomatoRpcErrorEnum.RPC_INVOCATION_TIMEOUT.getCode(),
+                invoker.invoke(request("never", "ping")).getResultAsync().get(5, TimeUnit.SECONDS).getCode());
+    }
+
+    @Test
+    public void notFoundTest() throws Exception {
+        InJvmRpcInvoker invoker = new InJvmRpcInvoker(localMetaData, RpcConfig.builder().build(),
+                new DefalultProviderRegistry());
+        Assert.assertEquals(TomatoRpcErrorEnum.NETTY_HANDLER_PROVIDER_NOT_FOUND.getCode(),
+                invoker.invoke(request("echo", "ping")).getResultSync().getCode());
+    }
+
+    private NettyMicroServiceSpace newSpace(RpcConfig rpcConfig) {
+        return new NettyMicroServiceSpace(SERVICE_ID, mock(RpcInvokerFactory.class), rpcConfig,
+                new RoundRobinLoadBalance(), localMetaData, registry());
+    }
+
+    private static ProviderRegistry registry() {
+        ProviderRegistry registry = new DefalultProviderRegistry();
+        registry.register(SERVICE_ID, new EchoServiceImpl(), EchoService.class);
+        return registry;
+    }
+
+    private static RpcRequestDTO request(String method, String message) {
+        return RpcRequestDTO.builder()
+                .microServiceId(SERVICE_ID)
+                .interfaceName(EchoService.class.getName())
+                .methodName(method)
+                .argsTypes(new String[] {String.class.getName()})
+                .returnType(String.class.getName())
+                .args(new Object[] {message})
+                .build();
+    }
+
+    private static RpcRequestDTO listRequest(List<String> messages) {
+        return RpcRequestDTO.builder()
+                .microServiceId(SERVICE_ID)
+                .interfaceName(EchoService.class.getName())
+                .methodName("append")
+                .argsTypes(new String[] {List.class.getName()})
+                .returnType(List.class.getName())
+                .args(new Object[] {messages})
+                .build();
+    }
+
+    private static MetaData metaData(int port) {
+        MetaData.NodeProperty nodeProperty = new MetaData.NodeProperty();
+        nodeProperty.weight = 1;
+        return MetaData.builder()
+                .protocol("tomato")
+                .host("127.0.0.1")
+                .port(port)
+                .microServiceId(SERVICE_ID)
+                .stage("default")
+                .group("default")
+                .nodeProperty(nodeProperty)
+                .build();
+    }
+
+    public interface EchoService {
+
+        String echo(String message);
+
+        String fail(String message);
+
+        String sleep(String message);
+
+        CompletableFuture<String> echoAsync(String message);
+
+        CompletableFuture<String> never(String message);
+
+        CompletableFuture<String> await(String message);
+
+        List<String> append(List<String> messages);
+    }
+
+    public static class EchoServiceImpl implements EchoService {
+
+        @Override
+        public String echo(String message) {
+            InvocationContext.put("echo", message);
+            return message;
+        }
+
+        @Override
+        public String fail(String message) {
+            throw new IllegalStateException(message);
+        }
+
+        @Override
+        public String sleep(String message) {
+            try {
+                TimeUnit.MINUTES.sleep(10);
+            } catch (InterruptedException exception) {
+                return message;
+            }
+            return message;
+        }
+
+        @Override
+        public CompletableFuture<String> echoAsync(String message) {
+            return CompletableFuture.completedFuture(message);
+        }
+
+        @Override
+        public CompletableFuture<String> never(String message) {
+            return new CompletableFuture<>();
+        }
+
+        @Override
+        public CompletableFuture<String> await(String message) {
+            try {
+                PENDING_CALLER.exchange(Thread.currentThread(), 5, TimeUnit.SECONDS);
+            } catch (Exception exception) {
+                throw new IllegalStateException(exception);
+            }
+            return PENDING.get();
+        }
+
+        @Override
+        public List<String> append(List<String> messages) {
+            if (messages.size() == 1) {
+                messages.add("b");
+            }
+            return messages;
+        }
+    }
+}
@@ -116,4 +116,29 @@ public class LoadBalanceTest {
         Assert.assertEquals(invokerGroupBSelectResult.get(15), nodeInfo5);
 
     }
+
+    @Test
+    public void skipSaturatedTest() {
+        LoadBalance loadBalance = SpiLoader.getLoader(LoadBalance.class).load();
+        Invocation invocation = mock(Invocation.class);
+        when(invocation.getApiId()).thenReturn("mockIdC");
+        List<RpcInvoker> invokers = new ArrayList<>(0);
+        for (int i = 1; i <= 3; i++) {
+            RpcInvoker invoker = mock(RpcInvoker.class);
+            URI nodeUrl = URI.create("tomato://127.0.0.1:" + i
+                    + "/?micro-service-id=mockIdC&stage=dev&group=test&property=weight:1");
+            when(invoker.getMetadata()).thenReturn(MetaData.convert(nodeUrl).get());
+            invokers.add(invoker);
+        }
+
+        // 饱和的节点不会被选中
+        when(invokers.get(0).isSaturated()).thenReturn(true);
+        for (int i = 0; i < 10; ++i) {
+            Assert.assertNotSame(invokers.get(0), loadBalance.select(invocation, invokers));
+        }
+
+        // 全部饱和时仍然正常选择
+        invokers.forEach(invoker -> when(invoker.isSaturated()).thenReturn(true));
+        Assert.assertNotNull(loadBalance.select(invocation, invokers));
+    }
 }
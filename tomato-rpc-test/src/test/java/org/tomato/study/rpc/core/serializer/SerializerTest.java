@@ -14,6 +14,9 @@
 
 package org.tomato.study.rpc.core.serializer;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -73,6 +76,44 @@ public class SerializerTest {
         Assert.assertTrue(rpcRequest.equals(deserialize));
     }
 
+    @Test
+    public void testProtostuffByteBuf() {
+        RpcRequestDTO rpcRequest = createRpcRequest();
+        Serializer serializer = SerializerHolder.getSerializer((byte) 0);
+
+        // 堆外内存
+        ByteBuf direct = PooledByteBufAllocator.DEFAULT.directBuffer();
+        serializer.serialize(rpcRequest, direct);
+        Assert.assertArrayEquals(serializer.serialize(rpcRequest), readAll(direct.duplicate()));
+        Assert.assertEquals(rpcRequest, serializer.deserialize(direct, RpcRequestDTO.class));
+        Assert.assertFalse(direct.isReadable());
+        direct.release();
+
+        // 堆内存
+        ByteBuf heap = Unpooled.wrappedBuffer(serializer.serialize(rpcRequest));
+        Assert.assertEquals(rpcRequest, serializer.deserialize(heap, RpcRequestDTO.class));
+        Assert.assertFalse(heap.isReadable());
+    }
+
+    @Test
+    public void testJsonByteBuf() {
+        RpcRequestDTO rpcRequest = createRpcRequest();
+        Serializer serializer = SerializerHolder.getSerializer((byte) 1);
+        ByteBuf direct = PooledByteBufAllocator.DEFAULT.directBuffer();
+        serializer.serialize(rpcRequest, direct);
+        Assert.assertArrayEquals(serializer.serialize(rpcRequest), readAll(direct.duplicate()));
+        RpcRequestDTO deserialize = serializer.deserialize(direct, RpcRequestDTO.class);
+        deserialize.getArgs()[4] = rpcRequest.getArgs()[4] = null;
+        Assert.assertEquals(rpcRequest, deserialize);
+        direct.release();
+    }
+
+    private byte[] readAll(ByteBuf byteBuf) {
+        byte[] bytes = new byte[byteBuf.readableBytes()];
+        byteBuf.readBytes(bytes);
+        return bytes;
+    }
+
     private RpcRequestDTO createRpcRequest() {
         Map<Integer, Parameter> map = new HashMap<>();
         map.put(1, new Parameter("key", "val"));
@@ -0,0 +1,223 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.core.stub;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tomato.study.rpc.core.annotation.RpcIdempotent;
+import org.tomato.study.rpc.core.data.ExtensionHeader;
+import org.tomato.study.rpc.core.data.InvocationContext;
+import org.tomato.study.rpc.core.data.Response;
+import org.tomato.study.rpc.core.data.Result;
+import org.tomato.study.rpc.core.data.RpcResponse;
+import org.tomato.study.rpc.core.data.StubConfig;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
+import org.tomato.study.rpc.core.invoker.RpcInvoker;
+import org.tomato.study.rpc.core.registry.NameServer;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class RouterStubInvokerTest {
+
+    private NameServer nameServer;
+    private RouterStubInvoker stubInvoker;
+
+    @Before
+    public void init() throws Exception {
+        // 第一次选到连接已断开的节点, 第二次选到正常节点
+        RpcInvoker closedInvoker = mockInvoker(RpcResponse.fail(TomatoRpcErrorEnum.RPC_CONNECTION_CLOSED));
+        RpcInvoker healthyInvoker = mockInvoker(RpcResponse.success("pong"));
+        nameServer = mock(NameServer.class);
+        when(nameServer.lookupInvoker(any()))
+                .thenReturn(Optional.of(closedInvoker))
+                .thenReturn(Optional.of(healthyInvoker));
+        stubInvoker = new RouterStubInvoker(
+                new StubConfig<>(EchoService.class, "echo", "default", false, 5000L, nameServer));
+    }
+
+    @Test
+    public void retryIdempotentTest() throws Throwable {
+        Object result = stubInvoker.invoke(null, EchoService.class.getMethod("idempotentEcho", String.class),
+                new Object[] {"ping"});
+        Assert.assertEquals("pong", result);
+        verify(nameServer, times(2)).lookupInvoker(any());
+    }
+
+    @Test
+    public void noRetryTest() throws Throwable {
+        try {
+            stubInvoker.invoke(null, EchoService.class.getMethod("echo", String.class), new Object[] {"ping"});
+            Assert.fail();
+        } catch (TomatoRpcRuntimeException exception) {
+            Assert.assertEquals(TomatoRpcErrorEnum.RPC_CONNECTION_CLOSED, exception.getErrCode());
+        }
+        verify(nameServer, times(1)).lookupInvoker(any());
+    }
+
+    @Test
+    public void asyncRetryIdempotentTest() throws Throwable {
+        CompletableFuture<?> future = (CompletableFuture<?>) stubInvoker.invoke(null,
+                EchoService.class.getMethod("idempotentEchoAsync", String.class), new Object[] {"ping"});
+        Assert.assertEquals("pong", future.get(1, TimeUnit.SECONDS));
+        verify(nameServer, times(2)).lookupInvoker(any());
+    }
+
+    @Test
+    public void asyncNoRetryTest() throws Throwable {
+        CompletableFuture<?> future = (CompletableFuture<?>) stubInvoker.invoke(null,
+                EchoService.class.getMethod("echoAsync", String.class), new Object[] {"ping"});
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException exception) {
+            Assert.assertTrue(exception.getCause() instanceof TomatoRpcRuntimeException);
+            Assert.assertEquals(TomatoRpcErrorEnum.RPC_CONNECTION_CLOSED,
+                    ((TomatoRpcRuntimeException) exception.getCause()).getErrCode());
+        }
+        verify(nameServer, times(1)).lookupInvoker(any());
+    }
+
+    @Test
+    public void asyncRetryCancelTest() throws Throwable {
+        // 第一次调用失败后重试, 调用方取消时取消的是重试中的调用
+        CompletableFuture<Response> pending = new CompletableFuture<>();
+        Result result = mock(Result.class);
+        when(result.getResultAsync()).thenReturn(pending);
+        RpcInvoker pendingInvoker = mock(RpcInvoker.class);
+        when(pendingInvoker.invoke(any())).thenReturn(result);
+        RpcInvoker closedInvoker = mockInvoker(RpcResponse.fail(TomatoRpcErrorEnum.RPC_CONNECTION_CLOSED));
+        NameServer retryNameServer = mock(NameServer.class);
+        when(retryNameServer.lookupInvoker(any()))
+                .thenReturn(Optional.of(closedInvoker))
+                .thenReturn(Optional.of(pendingInvoker));
+        RouterStubInvoker retryStubInvoker = new RouterStubInvoker(
+                new StubConfig<>(EchoService.class, "echo", "default", false, 5000L, retryNameServer));
+
+        CompletableFuture<?> future = (CompletableFuture<?>) retryStubInvoker.invoke(null,
+                EchoService.class.getMethod("idempotentEchoAsync", String.class), new Object[] {"ping"});
+        verify(retryNameServer, times(2)).lookupInvoker(any());
+        Assert.assertFalse(future.isDone());
+        Assert.assertTrue(future.cancel(false));
+        Assert.assertTrue(pending.isCancelled());
+    }
+
+    @Test
+    public void asyncNotBlockingTest() throws Throwable {
+        // 响应到达前调用已经返回
+        CompletableFuture<Response> pending = new CompletableFuture<>();
+        Result result = mock(Result.class);
+        when(result.getResultAsync()).thenReturn(pending);
+        RpcInvoker invoker = mock(RpcInvoker.class);
+        when(invoker.invoke(any())).thenReturn(result);
+        NameServer pendingNameServer = mock(NameServer.class);
+        when(pendingNameServer.lookupInvoker(any())).thenReturn(Optional.of(invoker));
+        RouterStubInvoker pendingStubInvoker = new RouterStubInvoker(
+                new StubConfig<>(EchoService.class, "echo", "default", false, 5000L, pendingNameServer));
+
+        CompletableFuture<?> future = (CompletableFuture<?>) pendingStubInvoker.invoke(null,
+                EchoService.class.getMethod("echoAsync", String.class), new Object[] {"ping"});
+        Assert.assertFalse(future.isDone());
+        pending.complete(RpcResponse.success("pong"));
+        Assert.assertEquals("pong", future.getNow(null));
+    }
+
+    @Test
+    public void deadlineInheritTest() throws Throwable {
+        // 下游调用的超时时间不超过上游请求剩余的时间
+        AtomicReference<String> timeout = new AtomicReference<>();
+        Result result = mock(Result.class);
+        when(result.getResultSync()).thenReturn(RpcResponse.success("pong"));
+        RpcInvoker invoker = mock(RpcInvoker.class);
+        when(invoker.invoke(any())).thenAnswer(invocation -> {
+            timeout.set(ExtensionHeader.TIMEOUT.getValueFromContext());
+            return result;
+        });
+        NameServer deadlineNameServer = mock(NameServer.class);
+        when(deadlineNameServer.lookupInvoker(any())).thenReturn(Optional.of(invoker));
+        RouterStubInvoker deadlineStubInvoker = new RouterStubInvoker(
+                new StubConfig<>(EchoService.class, "echo", "default", false, 5000L, deadlineNameServer));
+
+        InvocationContext.setDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1000));
+        try {
+            Assert.assertEquals("pong", deadlineStubInvoker.invoke(null,
+                    EchoService.class.getMethod("echo", String.class), new Object[] {"ping"}));
+            long timeoutMs = Long.parseLong(timeout.get());
+            Assert.assertTrue(timeoutMs > 0 && timeoutMs <= 1000);
+        } finally {
+            InvocationContext.remove();
+        }
+    }
+
+    @Test
+    public void deadlineExceededTest() throws Throwable {
+        // 上游请求已经超时, 不再发起下游调用
+        InvocationContext.setDeadline(System.nanoTime() - 1);
+        try {
+            try {
+                stubInvoker.invoke(null, EchoService.class.getMethod("idempotentEcho", String.class),
+                        new Object[] {"ping"});
+                Assert.fail();
+            } catch (TomatoRpcRuntimeException exception) {
+                Assert.assertEquals(TomatoRpcErrorEnum.RPC_DEADLINE_EXCEEDED, exception.getErrCode());
+            }
+            CompletableFuture<?> future = (CompletableFuture<?>) stubInvoker.invoke(null,
+                    EchoService.class.getMethod("echoAsync", String.class), new Object[] {"ping"});
+            Assert.assertTrue(future.isCompletedExceptionally());
+        } finally {
+            InvocationContext.remove();
+        }
+        verify(nameServer, never()).lookupInvoker(any());
+    }
+
+    private static RpcInvoker mockInvoker(RpcResponse response) throws Exception {
+        Result result = mock(Result.class);
+        when(result.getResultSync()).thenReturn(response);
+        when(result.getResultAsync()).thenReturn(CompletableFuture.completedFuture(response));
+        RpcInvoker invoker = mock(RpcInvoker.class);
+        when(invoker.invoke(any())).thenReturn(result);
+        return invoker;
+    }
+
+    public interface EchoService {
+
+        String echo(String message);
+
+        @RpcIdempotent
+        String idempotentEcho(String message);
+
+        CompletableFuture<String> echoAsync(String message);
+
+        @RpcIdempotent
+        CompletionStage<String> idempotentEchoAsync(String message);
+    }
+}
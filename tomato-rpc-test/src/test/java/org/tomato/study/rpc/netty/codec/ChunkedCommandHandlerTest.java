@@ -0,0 +1,275 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.TooLongFrameException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tomato.study.rpc.core.data.Command;
+import org.tomato.study.rpc.core.data.CommandType;
+import org.tomato.study.rpc.core.data.ExtensionHeader;
+import org.tomato.study.rpc.core.data.ExtensionHeaderBuilder;
+import org.tomato.study.rpc.core.data.HeaderFlag;
+import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.core.data.RpcResponse;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.serializer.JsonSerializer;
+import org.tomato.study.rpc.netty.data.ByteBufCommand;
+import org.tomato.study.rpc.netty.data.NettyCommandFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class ChunkedCommandHandlerTest {
+
+    private static final int CHUNK_SIZE = 1024;
+    private static final int MAX_FRAME_LENGTH = 2 * CHUNK_SIZE;
+
+    private final JsonSerializer serializer = new JsonSerializer();
+
+    private long messageId;
+
+    @Test
+    public void chunkAndAggregateTest() {
+        EmbeddedChannel sender = new EmbeddedChannel(new NettyFrameEncoder(), new ChunkedCommandHandler(CHUNK_SIZE));
+        Command large = request("x".repeat(10 * CHUNK_SIZE), ProtoConstants.VERSION2);
+        Command small = request("small", ProtoConstants.VERSION2);
+        long largeId = large.getHeader().getId();
+        byte[] largeBody = large.getBody();
+
+        // 大消息的首帧发出后, 小消息可以插在剩余分块之前
+        // 直接使用pipeline写, EmbeddedChannel的write会立即执行排队的任务
+        sender.pipeline().write(large);
+        sender.pipeline().writeAndFlush(small);
+        sender.runPendingTasks();
+        List<ByteBuf> frames = new ArrayList<>();
+        for (ByteBuf frame = sender.readOutbound(); frame != null; frame = sender.readOutbound()) {
+            Assert.assertTrue(frame.readableBytes() <= MAX_FRAME_LENGTH);
+            frames.add(frame);
+        }
+        Assert.assertTrue(frames.size() > 10);
+
+        EmbeddedChannel receiver = new EmbeddedChannel(new NettyFrameDecoder(MAX_FRAME_LENGTH),
+                new NettyProtoDecoder(), new ChunkedCommandHandler(CHUNK_SIZE));
+        frames.forEach(receiver::writeInbound);
+        ByteBufCommand first = receiver.readInbound();
+        ByteBufCommand second = receiver.readInbound();
+        Assert.assertNull(receiver.readInbound());
+
+        Assert.assertEquals(small.getHeader().getId(), first.getHeader().getId());
+        Assert.assertEquals(largeId, second.getHeader().getId());
+        Assert.assertEquals(CommandType.RPC_REQUEST.getId(), second.getHeader().getMessageType());
+        Assert.assertFalse(HeaderFlag.STREAMED.isSet(second.getHeader()));
+        Assert.assertEquals(ProtoConstants.HEAD_FIX_LENGTH + second.getHeader().getExtensionLength() + largeBody.length,
+                second.getHeader().getLength());
+        Assert.assertArrayEquals(largeBody, second.getBody());
+        Assert.assertEquals("trace", ExtensionHeaderBuilder.getExtensionHeader(second)
+                .get(ExtensionHeader.TRACE_ID.getKeyName()));
+
+        first.release();
+        second.release();
+        ByteBufCommand.release(large);
+        ByteBufCommand.release(small);
+        Assert.assertFalse(receiver.finish());
+        Assert.assertFalse(sender.finish());
+    }
+
+    @Test
+    public void legacyVersionNotChunkedTest() {
+        EmbeddedChannel sender = new EmbeddedChannel(new NettyFrameEncoder(), new ChunkedCommandHandler(CHUNK_SIZE));
+        Command large = request("x".repeat(10 * CHUNK_SIZE), ProtoConstants.VERSION1);
+        sender.writeAndFlush(large);
+        ByteBuf frame = sender.readOutbound();
+        Assert.assertNull(sender.readOutbound());
+
+        // 旧版本对端不认识分块, 只能整帧发送, 超出接收方的最大帧长度时直接拒绝
+        EmbeddedChannel receiver = new EmbeddedChannel(new NettyFrameDecoder(MAX_FRAME_LENGTH));
+        try {
+            receiver.writeInbound(frame);
+            Assert.fail();
+        } catch (TooLongFrameException ignored) {
+        }
+        ByteBufCommand.release(large);
+        Assert.assertFalse(sender.finish());
+    }
+
+    @Test
+    public void messageTooLargeTest() {
+        List<ByteBuf> frames = chunk(request("x".repeat(10 * CHUNK_SIZE), ProtoConstants.VERSION2));
+        EmbeddedChannel receiver = new EmbeddedChannel(new NettyFrameDecoder(MAX_FRAME_LENGTH),
+                new NettyProtoDecoder(), new NettyFrameEncoder(),
+                new ChunkedCommandHandler(CHUNK_SIZE, 4 * CHUNK_SIZE, 8 * CHUNK_SIZE,
+                        ProtoConstants.DEFAULT_MAX_STREAMING_MESSAGES));
+        frames.forEach(frame -> writeWhileActive(receiver, frame));
+        Assert.assertNull(receiver.readInbound());
+        Assert.assertFalse(receiver.isActive());
+
+        // 请求方收到失败响应
+        EmbeddedChannel client = new EmbeddedChannel(new NettyFrameDecoder(MAX_FRAME_LENGTH), new NettyProtoDecoder());
+        client.writeInbound((ByteBuf) receiver.readOutbound());
+        Assert.assertNull(receiver.readOutbound());
+        ByteBufCommand response = client.readInbound();
+        Assert.assertEquals(CommandType.RPC_RESPONSE.getId(), response.getHeader().getMessageType());
+        Assert.assertEquals(TomatoRpcErrorEnum.RPC_MESSAGE_TOO_LARGE.getCode(),
+                NettyCommandFactory.deserializeBody(response, serializer, RpcResponse.class).getCode());
+        response.release();
+        Assert.assertFalse(client.finish());
+    }
+
+    @Test
+    public void streamingBytesExceededTest() {
+        // 两个分块响应交替到达, 单个消息未超限, 但连接上正在接收的总大小超限
+        List<ByteBuf> first = chunk(response("x".repeat(4 * CHUNK_SIZE)));
+        List<ByteBuf> second = chunk(response("y".repeat(4 * CHUNK_SIZE)));
+        EmbeddedChannel receiver = new EmbeddedChannel(new NettyFrameDecoder(MAX_FRAME_LENGTH),
+                new NettyProtoDecoder(), new NettyFrameEncoder(),
+                new ChunkedCommandHandler(CHUNK_SIZE, 8 * CHUNK_SIZE, 6 * CHUNK_SIZE,
+                        ProtoConstants.DEFAULT_MAX_STREAMING_MESSAGES));
+        for (int i = 0; i < Math.max(first.size(), second.size()); i++) {
+            if (i < first.size()) {
+                writeWhileActive(receiver, first.get(i));
+            }
+            if (i < second.size()) {
+                writeWhileActive(receiver, second.get(i));
+            }
+        }
+        Assert.assertNull(receiver.readInbound());
+        // 响应过大只关闭连接, 不回写
+        Assert.assertNull(receiver.readOutbound());
+        Assert.assertFalse(receiver.isActive());
+    }
+
+    @Test
+    public void pauseWhileNotWritableTest() {
+        EmbeddedChannel sender = new EmbeddedChannel(new NettyFrameEncoder(), new ChunkedCommandHandler(CHUNK_SIZE));
+        Command large = request("x".repeat(10 * CHUNK_SIZE), ProtoConstants.VERSION2);
+        byte[] largeBody = large.getBody();
+
+        // 连接不可写时只发出首帧, 剩余分块等待连接可写
+        sender.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+        ChannelFuture writeFuture = sender.pipeline().writeAndFlush(large);
+        sender.runPendingTasks();
+        List<ByteBuf> frames = new ArrayList<>();
+        frames.add(sender.readOutbound());
+        Assert.assertNull(sender.readOutbound());
+        Assert.assertFalse(writeFuture.isDone());
+
+        sender.unsafe().outboundBuffer().setUserDefinedWritability(1, true);
+        sender.runPendingTasks();
+        for (ByteBuf frame = sender.readOutbound(); frame != null; frame = sender.readOutbound()) {
+            frames.add(frame);
+        }
+        Assert.assertTrue(frames.size() > 10);
+        Assert.assertTrue(writeFuture.isSuccess());
+
+        EmbeddedChannel receiver = new EmbeddedChannel(new NettyFrameDecoder(MAX_FRAME_LENGTH),
+                new NettyProtoDecoder(), new ChunkedCommandHandler(CHUNK_SIZE));
+        frames.forEach(receiver::writeInbound);
+        ByteBufCommand aggregated = receiver.readInbound();
+        Assert.assertArrayEquals(largeBody, aggregated.getBody());
+        aggregated.release();
+        ByteBufCommand.release(large);
+        Assert.assertFalse(receiver.finish());
+        Assert.assertFalse(sender.finish());
+    }
+
+    @Test
+    public void closeWhilePausedTest() {
+        EmbeddedChannel sender = new EmbeddedChannel(new NettyFrameEncoder(), new ChunkedCommandHandler(CHUNK_SIZE));
+        Command large = request("x".repeat(10 * CHUNK_SIZE), ProtoConstants.VERSION2);
+        sender.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+        ChannelFuture writeFuture = sender.pipeline().writeAndFlush(large);
+        sender.runPendingTasks();
+
+        // 暂停中的发送随连接关闭失败
+        sender.close();
+        Assert.assertTrue(writeFuture.isDone());
+        Assert.assertFalse(writeFuture.isSuccess());
+        ByteBufCommand.release(large);
+        sender.finishAndReleaseAll();
+    }
+
+    @Test
+    public void tooManyStreamingMessagesTest() {
+        List<ByteBuf> first = chunk(request("x".repeat(4 * CHUNK_SIZE), ProtoConstants.VERSION2));
+        Command second = request("y".repeat(4 * CHUNK_SIZE), ProtoConstants.VERSION2);
+        long secondId = second.getHeader().getId();
+        List<ByteBuf> secondFrames = chunk(second);
+        EmbeddedChannel receiver = new EmbeddedChannel(new NettyFrameDecoder(MAX_FRAME_LENGTH),
+                new NettyProtoDecoder(), new NettyFrameEncoder(),
+                new ChunkedCommandHandler(CHUNK_SIZE, 8 * CHUNK_SIZE, 16 * CHUNK_SIZE, 1));
+        // 第一个消息还没接收完时又开始接收第二个消息
+        writeWhileActive(receiver, first.get(0));
+        writeWhileActive(receiver, secondFrames.get(0));
+        first.subList(1, first.size()).forEach(frame -> writeWhileActive(receiver, frame));
+        secondFrames.subList(1, secondFrames.size()).forEach(frame -> writeWhileActive(receiver, frame));
+        Assert.assertNull(receiver.readInbound());
+        Assert.assertFalse(receiver.isActive());
+
+        EmbeddedChannel client = new EmbeddedChannel(new NettyFrameDecoder(MAX_FRAME_LENGTH), new NettyProtoDecoder());
+        client.writeInbound((ByteBuf) receiver.readOutbound());
+        Assert.assertNull(receiver.readOutbound());
+        ByteBufCommand response = client.readInbound();
+        Assert.assertEquals(secondId, response.getHeader().getId());
+        Assert.assertEquals(TomatoRpcErrorEnum.RPC_MESSAGE_TOO_LARGE.getCode(),
+                NettyCommandFactory.deserializeBody(response, serializer, RpcResponse.class).getCode());
+        response.release();
+        Assert.assertFalse(client.finish());
+    }
+
+    private static void writeWhileActive(EmbeddedChannel receiver, ByteBuf frame) {
+        if (receiver.isActive()) {
+            receiver.writeInbound(frame);
+        } else {
+            frame.release();
+        }
+    }
+
+    private static List<ByteBuf> chunk(Command command) {
+        EmbeddedChannel sender = new EmbeddedChannel(new NettyFrameEncoder(), new ChunkedCommandHandler(CHUNK_SIZE));
+        sender.writeAndFlush(command);
+        sender.runPendingTasks();
+        List<ByteBuf> frames = new ArrayList<>();
+        for (ByteBuf frame = sender.readOutbound(); frame != null; frame = sender.readOutbound()) {
+            frames.add(frame);
+        }
+        ByteBufCommand.release(command);
+        Assert.assertFalse(sender.finish());
+        return frames;
+    }
+
+    private Command response(String data) {
+        Command command = NettyCommandFactory.response(++messageId, data, serializer, CommandType.RPC_RESPONSE);
+        command.getHeader().setVersion(ProtoConstants.VERSION2);
+        return command;
+    }
+
+    private Command request(String data, int version) {
+        Command command = NettyCommandFactory.request(data, serializer,
+                Collections.singletonMap(ExtensionHeader.TRACE_ID.getKeyName(), "trace"),
+                CommandType.RPC_REQUEST, version);
+        // 消息id正常由连接分配
+        command.getHeader().setId(++messageId);
+        return command;
+    }
+}
@@ -16,12 +16,16 @@ package org.tomato.study.rpc.netty.codec;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.tomato.study.rpc.core.data.Command;
 import org.tomato.study.rpc.core.data.Header;
+import org.tomato.study.rpc.core.data.HeaderFlag;
+import org.tomato.study.rpc.core.data.ProtoConstants;
 import org.tomato.study.rpc.netty.TestCommonUtil;
+import org.tomato.study.rpc.netty.data.ByteBufCommand;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -69,4 +73,58 @@ public class CodecTest {
         rawFrameDecoder.decode(null, byteBuf, null);
         Assert.assertEquals(0, byteBuf.readerIndex());
     }
+
+    @Test
+    public void zeroCopyEncodeDecodeTest() {
+        ByteBuf frame = NettyCommandCodec.encode(ByteBufAllocator.DEFAULT, mockCommand);
+        // magic number + length字段不计入length
+        Assert.assertEquals(mockCommand.getHeader().getLength() + 5, frame.readableBytes());
+
+        ByteBufCommand decodeResult = NettyCommandCodec.decodeRetained(frame);
+        Assert.assertEquals(mockCommand.getHeader(), decodeResult.getHeader());
+
+        // 切片持有引用, 释放原始帧后依然可读
+        frame.release();
+        Assert.assertEquals(mockCommand.getExtension().length, decodeResult.extensionBuf().readableBytes());
+        Assert.assertArrayEquals(mockCommand.getBody(), decodeResult.getBody());
+        Assert.assertArrayEquals(mockCommand.getExtension(), decodeResult.getExtension());
+
+        // 重新编码时复用切片
+        ByteBuf reEncoded = NettyCommandCodec.encode(ByteBufAllocator.DEFAULT, decodeResult);
+        decodeResult.release();
+        Assert.assertEquals(mockCommand, NettyCommandCodec.decode(reEncoded));
+        reEncoded.release();
+        Assert.assertEquals(0, frame.refCnt());
+    }
+
+    @Test
+    public void compactHeaderTest() {
+        ByteBuf v1Frame = NettyCommandCodec.encode(ByteBufAllocator.DEFAULT, mockCommand);
+        mockCommand.getHeader().setVersion(ProtoConstants.VERSION2);
+        HeaderFlag.COMPRESSED.set(mockCommand.getHeader());
+        HeaderFlag.HAS_DEADLINE.set(mockCommand.getHeader());
+        ByteBuf v2Frame = NettyCommandCodec.encode(ByteBufAllocator.DEFAULT, mockCommand);
+
+        // 定长的int/long字段改为varint后帧更短
+        Assert.assertTrue(NettyCommandCodec.isCompactFrame(v2Frame));
+        Assert.assertFalse(NettyCommandCodec.isCompactFrame(v1Frame));
+        Assert.assertTrue(v2Frame.readableBytes() < v1Frame.readableBytes());
+
+        // 同一条连接上新旧版本的帧都能被正确切分
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyFrameDecoder());
+        Assert.assertTrue(channel.writeInbound(v1Frame, v2Frame));
+        ByteBuf v1 = channel.readInbound();
+        ByteBuf v2 = channel.readInbound();
+        Command v1Command = NettyCommandCodec.decode(v1);
+        Command v2Command = NettyCommandCodec.decode(v2);
+        v1.release();
+        v2.release();
+        Assert.assertFalse(channel.finish());
+
+        Assert.assertEquals(ProtoConstants.VERSION1, v1Command.getHeader().getVersion());
+        Assert.assertEquals(mockCommand, v2Command);
+        Assert.assertTrue(HeaderFlag.COMPRESSED.isSet(v2Command.getHeader()));
+        Assert.assertTrue(HeaderFlag.HAS_DEADLINE.isSet(v2Command.getHeader()));
+        Assert.assertFalse(HeaderFlag.ONEWAY.isSet(v2Command.getHeader()));
+    }
 }
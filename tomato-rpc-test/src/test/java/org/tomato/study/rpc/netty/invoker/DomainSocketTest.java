@@ -0,0 +1,154 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.invoker;
+
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.unix.DomainSocketAddress;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.core.DefalultProviderRegistry;
+import org.tomato.study.rpc.core.data.Command;
+import org.tomato.study.rpc.core.data.CommandType;
+import org.tomato.study.rpc.core.data.MetaData;
+import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.data.RpcServerConfig;
+import org.tomato.study.rpc.core.serializer.JsonSerializer;
+import org.tomato.study.rpc.netty.data.ByteBufCommand;
+import org.tomato.study.rpc.netty.data.NettyCommandFactory;
+import org.tomato.study.rpc.netty.transport.client.NettyRpcClient;
+import org.tomato.study.rpc.netty.transport.server.NettyRpcServer;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class DomainSocketTest {
+
+    private static final int PORT = 40081;
+    private static final int ROUNDS = 5000;
+
+    private Path socketPath;
+    private NettyRpcServer server;
+
+    @Before
+    public void init() throws Exception {
+        Assume.assumeTrue(Epoll.isAvailable());
+        socketPath = Files.createTempDirectory("tomato-rpc").resolve("rpc.sock");
+        server = new NettyRpcServer(RpcServerConfig.builder()
+                .port(PORT)
+                .transport("epoll")
+                .domainSocketPath(socketPath.toString())
+                .build(), new DefalultProviderRegistry());
+        server.init();
+        server.start();
+    }
+
+    @After
+    public void destroy() throws Exception {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void selectDomainSocketTest() {
+        RpcConfig rpcConfig = RpcConfig.builder().build();
+        Assert.assertEquals(socketPath.toString(), server.getDomainSocketPath());
+        Assert.assertEquals(socketPath.toString(),
+                NettyRpcInvoker.domainSocketPath(metaData("127.0.0.1", socketPath.toString()), rpcConfig));
+        // 服务端未开启、不在同一主机、socket文件不存在或客户端关闭时使用tcp
+        Assert.assertNull(NettyRpcInvoker.domainSocketPath(metaData("127.0.0.1", null), rpcConfig));
+        Assert.assertNull(NettyRpcInvoker.domainSocketPath(metaData("192.0.2.1", socketPath.toString()), rpcConfig));
+        Assert.assertNull(NettyRpcInvoker.domainSocketPath(
+                metaData("127.0.0.1", socketPath.resolveSibling("missing.sock").toString()), rpcConfig));
+        Assert.assertNull(NettyRpcInvoker.domainSocketPath(metaData("127.0.0.1", socketPath.toString()),
+                RpcConfig.builder().clientUseDomainSocket(false).build()));
+    }
+
+    @Test
+    public void roundTripTest() throws Exception {
+        URI uri = URI.create("tomato://" + server.getHost() + ":" + PORT);
+        NettyRpcClient domainSocketClient = new NettyRpcClient(uri, socketPath.toString(), RpcConfig.builder().build());
+        try {
+            Assert.assertTrue(domainSocketClient.isDomainSocket());
+            Assert.assertTrue(domainSocketClient.getConnection().getChannel().remoteAddress()
+                    instanceof DomainSocketAddress);
+            roundTripMicroseconds(domainSocketClient, 1);
+        } finally {
+            domainSocketClient.stop();
+        }
+    }
+
+    /**
+     * 同一主机上分别通过tcp和unix domain socket串行请求, 对比往返延迟;
+     * 耗时较长且结果依赖机器, 只在需要时手动运行
+     */
+    @Test
+    @Ignore("benchmark")
+    public void latencyComparisonTest() throws Exception {
+        URI uri = URI.create("tomato://" + server.getHost() + ":" + PORT);
+        NettyRpcClient domainSocketClient = new NettyRpcClient(uri, socketPath.toString(), RpcConfig.builder().build());
+        NettyRpcClient tcpClient = new NettyRpcClient(uri, RpcConfig.builder().build());
+        try {
+            Assert.assertFalse(tcpClient.isDomainSocket());
+            // 预热
+            roundTripMicroseconds(tcpClient, ROUNDS);
+            roundTripMicroseconds(domainSocketClient, ROUNDS);
+            Logger.DEFAULT.info("round trip, tcp loopback: {} us/op, unix domain socket: {} us/op",
+                    roundTripMicroseconds(tcpClient, ROUNDS), roundTripMicroseconds(domainSocketClient, ROUNDS));
+        } finally {
+            domainSocketClient.stop();
+            tcpClient.stop();
+        }
+    }
+
+    private static double roundTripMicroseconds(NettyRpcClient client, int rounds) throws Exception {
+        long begin = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            Command response = client.send(NettyCommandFactory.request(null, new JsonSerializer(), null,
+                    CommandType.METHOD_TABLE_REQUEST, ProtoConstants.VERSION2)).getFuture().get(5, TimeUnit.SECONDS);
+            Assert.assertEquals(CommandType.METHOD_TABLE_RESPONSE,
+                    CommandType.value(response.getHeader().getMessageType()));
+            ByteBufCommand.release(response);
+        }
+        return (System.nanoTime() - begin) / 1000.0 / rounds;
+    }
+
+    private static MetaData metaData(String host, String domainSocket) {
+        MetaData.NodeProperty nodeProperty = new MetaData.NodeProperty();
+        nodeProperty.weight = 1;
+        nodeProperty.domainSocket = domainSocket;
+        return MetaData.builder()
+                .protocol("tomato")
+                .host(host)
+                .port(PORT)
+                .microServiceId("uds-test")
+                .stage("dev")
+                .group("test")
+                .nodeProperty(nodeProperty)
+                .build();
+    }
+}
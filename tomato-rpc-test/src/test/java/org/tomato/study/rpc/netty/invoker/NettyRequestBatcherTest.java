@@ -0,0 +1,140 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.invoker;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tomato.study.rpc.core.DefalultProviderRegistry;
+import org.tomato.study.rpc.core.data.MetaData;
+import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.core.data.Response;
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.data.RpcRequestDTO;
+import org.tomato.study.rpc.core.data.RpcServerConfig;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.netty.transport.server.NettyRpcServer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class NettyRequestBatcherTest {
+
+    private static final String MICRO_SERVICE_ID = "batcher-test";
+    private static final int PORT = 40141;
+    private static final String SLOW = "slow";
+
+    private NettyRpcServer server;
+    private NettyRpcInvoker invoker;
+    private NettyRpcInvoker saturatedInvoker;
+
+    @Before
+    public void init() throws Exception {
+        DefalultProviderRegistry registry = new DefalultProviderRegistry();
+        registry.register(MICRO_SERVICE_ID, new EchoServiceImpl(), EchoService.class);
+        RpcServerConfig serverConfig = RpcServerConfig.builder()
+                .port(PORT)
+                .useBusinessThreadPool(true)
+                .businessThreadPoolSize(4)
+                .build();
+        server = new NettyRpcServer(serverConfig, registry);
+        server.init();
+        server.start();
+
+        invoker = new NettyRpcInvoker(nodeInfo(serverConfig.getHost()), RpcConfig.builder()
+                .clientBatchWindowMicroseconds(200)
+                .clientBatchMaxSize(16)
+                .build());
+        // 只有一个在途名额, 饱和后发送方最多等待5秒
+        saturatedInvoker = new NettyRpcInvoker(nodeInfo(serverConfig.getHost()), RpcConfig.builder()
+                .clientBatchWindowMicroseconds(200)
+                .clientBatchMaxSize(16)
+                .clientConnectionsPerNode(1)
+                .clientMaxInFlightPerConnection(1)
+                .clientSaturatedWaitMilliseconds(5000)
+                .build());
+    }
+
+    @After
+    public void destroy() throws Exception {
+        invoker.destroy();
+        saturatedInvoker.destroy();
+        server.stop();
+    }
+
+    @Test
+    public void saturatedNodeDoesNotDelayOtherBatchesTest() throws Exception {
+        CompletableFuture<Response> slow = call(saturatedInvoker, SLOW);
+        Thread.sleep(100);
+        // 连接饱和的批次在EventLoop上直接失败, 不占用共用的窗口定时线程
+        CompletableFuture<Response> rejected = call(saturatedInvoker, "rejected");
+        Response response = call(invoker, "hello").get(1, TimeUnit.SECONDS);
+        Assert.assertEquals(TomatoRpcErrorEnum.SUCCESS.getCode(), response.getCode());
+        Assert.assertEquals("hello", response.getData());
+
+        Assert.assertNotEquals(TomatoRpcErrorEnum.SUCCESS.getCode(), rejected.get(1, TimeUnit.SECONDS).getCode());
+        Assert.assertEquals(SLOW, slow.get(5, TimeUnit.SECONDS).getData());
+    }
+
+    private static CompletableFuture<Response> call(NettyRpcInvoker target, String message) throws Exception {
+        return target.invoke(RpcRequestDTO.builder()
+                .microServiceId(MICRO_SERVICE_ID)
+                .interfaceName(EchoService.class.getName())
+                .methodName("echo")
+                .argsTypes(new String[] {String.class.getName()})
+                .returnType(String.class.getName())
+                .args(new Object[] {message})
+                .build()).getResultAsync();
+    }
+
+    private static MetaData nodeInfo(String host) {
+        MetaData.NodeProperty nodeProperty = new MetaData.NodeProperty();
+        nodeProperty.version = ProtoConstants.LATEST_VERSION;
+        return MetaData.builder()
+                .protocol("tomato")
+                .host(host)
+                .port(PORT)
+                .microServiceId(MICRO_SERVICE_ID)
+                .stage("dev")
+                .group("default")
+                .nodeProperty(nodeProperty)
+                .build();
+    }
+
+    public interface EchoService {
+
+        String echo(String message);
+    }
+
+    public static class EchoServiceImpl implements EchoService {
+
+        @Override
+        public String echo(String message) {
+            if (SLOW.equals(message)) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return message;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.invoker;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tomato.study.rpc.netty.metrics.TimeoutMetrics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class RpcTimeoutSchedulerTest {
+
+    private final RpcTimeoutScheduler scheduler = RpcTimeoutScheduler.getInstance();
+
+    @Test
+    public void cancelOnCompleteTest() throws Exception {
+        TimeoutMetrics.Snapshot before = scheduler.getMetrics();
+        AtomicInteger fired = new AtomicInteger();
+        int count = 1000;
+        for (int i = 0; i < count; i++) {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            scheduler.newTimeout(future, timeout -> fired.incrementAndGet(), 10, TimeUnit.MINUTES);
+            future.complete(null);
+        }
+        // 已完成的future不再提交
+        scheduler.newTimeout(CompletableFuture.completedFuture(null),
+                timeout -> fired.incrementAndGet(), 10, TimeUnit.MINUTES);
+
+        TimeoutMetrics.Snapshot after = scheduler.getMetrics();
+        Assert.assertEquals(count, after.scheduled() - before.scheduled());
+        Assert.assertEquals(count, after.cancelled() - before.cancelled());
+        Assert.assertEquals(0, fired.get());
+
+        // 取消的任务在下一个刻度从时间轮中移除, 不会一直等到超时
+        long deadline = System.currentTimeMillis() + 5000;
+        while (scheduler.getMetrics().pending() > before.pending() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(scheduler.getMetrics().pending() <= before.pending());
+    }
+
+    @Test
+    public void expireTest() throws Exception {
+        TimeoutMetrics.Snapshot before = scheduler.getMetrics();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        scheduler.newTimeout(future, timeout -> latch.countDown(), 30, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assert.assertTrue(elapsedMs >= 30);
+
+        // 超时后完成future不会计入取消
+        future.complete(null);
+        TimeoutMetrics.Snapshot after = scheduler.getMetrics();
+        Assert.assertEquals(1, after.scheduled() - before.scheduled());
+        Assert.assertEquals(1, after.expired() - before.expired());
+        Assert.assertEquals(0, after.cancelled() - before.cancelled());
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.tomato.study.rpc.netty.invoker;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tomato.study.rpc.core.data.MetaData;
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.invoker.RpcInvokerFactory;
+import org.tomato.study.rpc.core.spi.SpiLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class ShmRpcInvokerFactoryTest {
+
+    @Test
+    public void defaultFactoryTest() {
+        Assert.assertTrue(SpiLoader.getLoader(RpcInvokerFactory.class).load() instanceof ShmRpcInvokerFactory);
+    }
+
+    @Test
+    public void selectSharedMemoryTest() throws Exception {
+        Path directory = Files.createTempDirectory("tomato-shm");
+        try {
+            RpcConfig rpcConfig = RpcConfig.builder().build();
+            Assert.assertEquals(directory.toString(),
+                    ShmRpcInvokerFactory.sharedMemoryPath(metaData("127.0.0.1", directory.toString()), rpcConfig));
+            // 服务端未开启、不在同一主机、目录不存在或客户端关闭时使用socket
+            Assert.assertNull(ShmRpcInvokerFactory.sharedMemoryPath(metaData("127.0.0.1", null), rpcConfig));
+            Assert.assertNull(ShmRpcInvokerFactory.sharedMemoryPath(
+                    metaData("192.0.2.1", directory.toString()), rpcConfig));
+            Assert.assertNull(ShmRpcInvokerFactory.sharedMemoryPath(
+                    metaData("127.0.0.1", directory.resolve("missing").toString()), rpcConfig));
+            Assert.assertNull(ShmRpcInvokerFactory.sharedMemoryPath(metaData("127.0.0.1", directory.toString()),
+                    RpcConfig.builder().clientUseSharedMemory(false).build()));
+        } finally {
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static MetaData metaData(String host, String sharedMemory) {
+        MetaData.NodeProperty nodeProperty = new MetaData.NodeProperty();
+        nodeProperty.weight = 1;
+        nodeProperty.sharedMemory = sharedMemory;
+        return MetaData.builder()
+                .protocol("tomato")
+                .host(host)
+                .port(9090)
+                .microServiceId("shm-test")
+                .stage("dev")
+                .group("test")
+                .nodeProperty(nodeProperty)
+                .build();
+    }
+}
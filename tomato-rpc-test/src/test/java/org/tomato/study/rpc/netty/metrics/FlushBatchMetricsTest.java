@@ -0,0 +1,137 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.metrics;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class FlushBatchMetricsTest {
+
+    private final LocalAddress address = new LocalAddress("flush-batch-metrics-test");
+
+    private EventLoopGroup group;
+
+    private Channel serverChannel;
+
+    @Before
+    public void init() throws InterruptedException {
+        group = new DefaultEventLoopGroup(2);
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter())
+                .bind(address)
+                .sync()
+                .channel();
+    }
+
+    @After
+    public void destroy() {
+        serverChannel.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
+
+    @Test
+    public void withoutConsolidationTest() throws InterruptedException {
+        FlushBatchMetrics metrics = new FlushBatchMetrics();
+        writeFromBusinessThread(connect(new FlushBatchMetricsHandler(metrics)), 10);
+
+        FlushBatchMetrics.Snapshot snapshot = metrics.snapshot();
+        Assert.assertEquals(10, snapshot.flushes());
+        Assert.assertEquals(10, snapshot.messages());
+        Assert.assertEquals(1, snapshot.maxBatchSize());
+        Assert.assertEquals(10, snapshot.buckets()[0]);
+    }
+
+    @Test
+    public void consolidationTest() throws InterruptedException {
+        FlushBatchMetrics metrics = new FlushBatchMetrics();
+        Channel channel = connect(new FlushBatchMetricsHandler(metrics), new FlushConsolidationHandler(64, true));
+
+        // 同一个EventLoop周期内的写入合并为一次flush
+        writeFromBusinessThread(channel, 10);
+        FlushBatchMetrics.Snapshot snapshot = metrics.snapshot();
+        Assert.assertEquals(1, snapshot.flushes());
+        Assert.assertEquals(10, snapshot.maxBatchSize());
+        Assert.assertEquals(10.0, snapshot.averageBatchSize(), 0.001);
+        Assert.assertEquals(1, snapshot.buckets()[2]);
+
+        // 累计达到上限后立即flush, 剩余的在周期结束时flush
+        writeFromBusinessThread(channel, 70);
+        snapshot = metrics.snapshot();
+        Assert.assertEquals(3, snapshot.flushes());
+        Assert.assertEquals(80, snapshot.messages());
+        Assert.assertEquals(64, snapshot.maxBatchSize());
+    }
+
+    private Channel connect(ChannelHandler... handlers) throws InterruptedException {
+        return new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                        ch.pipeline().addLast(handlers);
+                    }
+                })
+                .connect(address)
+                .sync()
+                .channel();
+    }
+
+    /**
+     * 先阻塞EventLoop, 保证业务线程的写入都排在同一个周期内
+     */
+    private static void writeFromBusinessThread(Channel channel, int count) throws InterruptedException {
+        CountDownLatch blocker = new CountDownLatch(1);
+        channel.eventLoop().execute(() -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        ChannelFuture last = null;
+        for (int i = 0; i < count; i++) {
+            last = channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[] {(byte) i}));
+        }
+        blocker.countDown();
+        last.sync();
+        // 等待排在最后的合并flush任务执行完
+        channel.eventLoop().submit(() -> { }).sync();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport;
+
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tomato.study.rpc.core.DefalultProviderRegistry;
+import org.tomato.study.rpc.core.data.MetaData;
+import org.tomato.study.rpc.core.data.MethodTableDTO;
+import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.core.data.ProviderMethod;
+import org.tomato.study.rpc.core.data.Response;
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.data.RpcRequestDTO;
+import org.tomato.study.rpc.core.data.RpcServerConfig;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.netty.invoker.NettyRpcInvoker;
+import org.tomato.study.rpc.netty.transport.client.MethodIdTable;
+import org.tomato.study.rpc.netty.transport.server.NettyRpcServer;
+import org.tomato.study.rpc.test.TestService;
+import org.tomato.study.rpc.test.TestServiceImpl;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class MethodIdTableTest {
+
+    private static final String MICRO_SERVICE_ID = "method-id-test";
+
+    @Test
+    public void registryAssignIdTest() {
+        DefalultProviderRegistry registry = new DefalultProviderRegistry();
+        registry.register(MICRO_SERVICE_ID, new TestServiceImpl(), TestService.class);
+        List<ProviderMethod> methods = registry.getMethods();
+        Assert.assertEquals(1, methods.size());
+        Assert.assertEquals(1, methods.get(0).getMethodId());
+        Assert.assertSame(methods.get(0), registry.getMethod(1));
+        Assert.assertNull(registry.getMethod(0));
+        Assert.assertNull(registry.getMethod(2));
+
+        // 重复注册复用已分配的id
+        TestService newProvider = new TestServiceImpl();
+        registry.register(MICRO_SERVICE_ID, newProvider, TestService.class);
+        Assert.assertEquals(1, registry.getMethods().size());
+        Assert.assertSame(newProvider, registry.getMethod(1).getProvider());
+
+        MethodIdTable table = new MethodIdTable(new MethodTableDTO(Collections.singletonList(new MethodTableDTO.Entry(
+                1, MICRO_SERVICE_ID, TestService.class.getName(), "sum", new String[]{List.class.getName()}))));
+        Assert.assertEquals(Integer.valueOf(1), table.lookup(sumRequest()));
+        RpcRequestDTO otherService = sumRequest();
+        otherService.setMicroServiceId("other");
+        Assert.assertNull(table.lookup(otherService));
+    }
+
+    @Test
+    public void invokeByMethodIdTest() throws Exception {
+        DefalultProviderRegistry registry = spy(new DefalultProviderRegistry());
+        registry.register(MICRO_SERVICE_ID, new TestServiceImpl(), TestService.class);
+        RpcServerConfig serverConfig = RpcServerConfig.builder().port(40011).build();
+        NettyRpcServer server = new NettyRpcServer(serverConfig, registry);
+        server.init();
+        server.start();
+
+        MetaData nodeInfo = MetaData.builder()
+                .protocol("tomato")
+                .host(serverConfig.getHost())
+                .port(serverConfig.getPort())
+                .microServiceId(MICRO_SERVICE_ID)
+                .stage("dev")
+                .group("default")
+                .build();
+        MetaData.NodeProperty nodeProperty = new MetaData.NodeProperty();
+        nodeProperty.version = ProtoConstants.LATEST_VERSION;
+        nodeInfo.setNodeProperty(nodeProperty);
+        NettyRpcInvoker invoker = new NettyRpcInvoker(nodeInfo, RpcConfig.builder().build());
+        try {
+            // 第一次调用时方法id表还没有获取, 使用完整的方法描述
+            Response first = invoker.invoke(sumRequest()).getResultSync();
+            Assert.assertEquals(TomatoRpcErrorEnum.SUCCESS.getCode(), first.getCode());
+            Assert.assertEquals(6, first.getData());
+            verify(registry, never()).getMethod(anyInt());
+
+            // 握手在第一次调用之前发出, 响应也先于第一次调用返回
+            Response second = invoker.invoke(sumRequest()).getResultSync();
+            Assert.assertEquals(TomatoRpcErrorEnum.SUCCESS.getCode(), second.getCode());
+            Assert.assertEquals(6, second.getData());
+            verify(registry, times(1)).getMethod(1);
+        } finally {
+            invoker.destroy();
+            server.stop();
+        }
+    }
+
+    private static RpcRequestDTO sumRequest() {
+        return RpcRequestDTO.builder()
+                .microServiceId(MICRO_SERVICE_ID)
+                .interfaceName(TestService.class.getName())
+                .methodName("sum")
+                .argsTypes(new String[]{List.class.getName()})
+                .returnType(Integer.class.getName())
+                .args(new Object[]{Lists.newArrayList(1, 2, 3)})
+                .build();
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.client;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.core.DefalultProviderRegistry;
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.data.RpcServerConfig;
+import org.tomato.study.rpc.netty.transport.server.NettyRpcServer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比每个客户端独占IO线程池与所有客户端共用IO线程池的线程数和内存占用
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class ClientEventLoopGroupBenchmarkTest {
+
+    private static final int CLIENT_COUNT = 64;
+    private static final int IO_THREADS = 4;
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+
+    @Test
+    public void sharedEventLoopGroupTest() throws Exception {
+        RpcServerConfig serverConfig = RpcServerConfig.builder().port(40022).build();
+        NettyRpcServer server = new NettyRpcServer(serverConfig, new DefalultProviderRegistry());
+        server.init();
+        server.start();
+        int referenceCount = ClientEventLoopGroupHolder.getReferenceCount();
+        URI uri = URI.create("tomato://" + serverConfig.getHost() + ":" + serverConfig.getPort());
+        RpcConfig rpcConfig = RpcConfig.builder().clientIoThreads(IO_THREADS).build();
+        NettyRpcClient first = new NettyRpcClient(uri, rpcConfig);
+        NettyRpcClient second = new NettyRpcClient(uri, rpcConfig);
+        try {
+            // 所有客户端的连接都注册在同一个IO线程池上, 客户端全部关闭后才释放
+            Channel firstChannel = first.createOrReconnect().getChannel();
+            Channel secondChannel = second.createOrReconnect().getChannel();
+            Assert.assertSame(firstChannel.eventLoop().parent(), secondChannel.eventLoop().parent());
+            Assert.assertEquals(referenceCount + 2, ClientEventLoopGroupHolder.getReferenceCount());
+        } finally {
+            first.stop();
+            second.stop();
+            server.stop();
+        }
+        Assert.assertEquals(referenceCount, ClientEventLoopGroupHolder.getReferenceCount());
+    }
+
+    /**
+     * 创建上百个IO线程, 耗时较长且结果依赖机器, 只在需要时手动运行
+     */
+    @Test
+    @Ignore("benchmark")
+    public void sharedEventLoopGroupBenchmark() throws Exception {
+        RpcServerConfig serverConfig = RpcServerConfig.builder().port(40021).build();
+        NettyRpcServer server = new NettyRpcServer(serverConfig, new DefalultProviderRegistry());
+        server.init();
+        server.start();
+        try {
+            // 改造前: 每个下游节点一个客户端, 每个客户端独占一个线程池
+            Snapshot before = snapshot();
+            List<EventLoopGroup> groups = new ArrayList<>(CLIENT_COUNT);
+            for (int i = 0; i < CLIENT_COUNT; i++) {
+                EventLoopGroup group = new NioEventLoopGroup();
+                groups.add(group);
+                new Bootstrap().group(group)
+                        .channel(NioSocketChannel.class)
+                        .handler(new ChannelInboundHandlerAdapter())
+                        .connect(serverConfig.getHost(), serverConfig.getPort())
+                        .sync();
+            }
+            Snapshot dedicated = snapshot().minus(before);
+            for (EventLoopGroup group : groups) {
+                group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+            }
+
+            // 改造后: 所有客户端共用一个线程池
+            boolean createdHere = ClientEventLoopGroupHolder.getReferenceCount() == 0;
+            before = snapshot();
+            URI uri = URI.create("tomato://" + serverConfig.getHost() + ":" + serverConfig.getPort());
+            RpcConfig rpcConfig = RpcConfig.builder().clientIoThreads(IO_THREADS).build();
+            List<NettyRpcClient> clients = new ArrayList<>(CLIENT_COUNT);
+            for (int i = 0; i < CLIENT_COUNT; i++) {
+                NettyRpcClient client = new NettyRpcClient(uri, rpcConfig);
+                clients.add(client);
+                Channel channel = client.createOrReconnect().getChannel();
+                Assert.assertTrue(channel.isActive());
+            }
+            Snapshot shared = snapshot().minus(before);
+            for (NettyRpcClient client : clients) {
+                client.stop();
+            }
+
+            Logger.DEFAULT.info("clients={}, dedicated groups: {}, shared group({} threads): {}",
+                    CLIENT_COUNT, dedicated, IO_THREADS, shared);
+            Assert.assertTrue(dedicated.threads >= CLIENT_COUNT);
+            if (createdHere) {
+                Assert.assertTrue(shared.threads <= IO_THREADS);
+            }
+            Assert.assertTrue(shared.threads < dedicated.threads);
+        } finally {
+            server.stop();
+        }
+    }
+
+    private Snapshot snapshot() {
+        System.gc();
+        return new Snapshot(threadMXBean.getThreadCount(),
+                memoryMXBean.getHeapMemoryUsage().getUsed() + memoryMXBean.getNonHeapMemoryUsage().getUsed());
+    }
+
+    private record Snapshot(int threads, long memoryBytes) {
+
+        private Snapshot minus(Snapshot other) {
+            return new Snapshot(threads - other.threads, memoryBytes - other.memoryBytes);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("+%d threads, %+d KB", threads, memoryBytes / 1024);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.client;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.core.data.Command;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class NettyResponseHolderTest {
+
+    private static final int THREADS = 64;
+    private static final int OPERATIONS_PER_THREAD = 200_000;
+
+    @Test
+    public void putAndRemoveTest() {
+        NettyResponseHolder holder = new NettyResponseHolder(4);
+        CompletableFuture<Command> first = new CompletableFuture<>();
+        long firstId = holder.put(first);
+        Assert.assertEquals(1, firstId);
+        Assert.assertSame(first, holder.remove(firstId));
+        Assert.assertNull(holder.remove(firstId));
+
+        // 槽位被复用后, 旧id的迟到响应拿不到新请求的future
+        for (int i = 0; i < 3; i++) {
+            holder.remove(holder.put(new CompletableFuture<>()));
+        }
+        CompletableFuture<Command> reused = new CompletableFuture<>();
+        long reusedId = holder.put(reused);
+        Assert.assertEquals(firstId & 3, reusedId & 3);
+        Assert.assertNull(holder.remove(firstId));
+        Assert.assertSame(reused, holder.remove(reusedId));
+        Assert.assertEquals(0, holder.size());
+    }
+
+    @Test
+    public void overflowTest() {
+        // 槽位被未响应的请求占满后进入溢出表
+        NettyResponseHolder holder = new NettyResponseHolder(4);
+        long[] ids = new long[10];
+        CompletableFuture<?>[] futures = new CompletableFuture[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            CompletableFuture<Command> future = new CompletableFuture<>();
+            futures[i] = future;
+            ids[i] = holder.put(future);
+        }
+        Assert.assertEquals(ids.length, holder.size());
+        for (int i = ids.length - 1; i >= 0; i--) {
+            Assert.assertSame(futures[i], holder.remove(ids[i]));
+        }
+        Assert.assertEquals(0, holder.size());
+    }
+
+    @Test
+    public void failAllTest() {
+        NettyResponseHolder holder = new NettyResponseHolder(4);
+        CompletableFuture<?>[] futures = new CompletableFuture[6];
+        for (int i = 0; i < futures.length; i++) {
+            CompletableFuture<Command> future = new CompletableFuture<>();
+            futures[i] = future;
+            holder.put(future);
+        }
+        RuntimeException cause = new RuntimeException("closed");
+        Assert.assertEquals(futures.length, holder.failAll(cause));
+        Assert.assertEquals(0, holder.size());
+        for (CompletableFuture<?> future : futures) {
+            Assert.assertTrue(future.isCompletedExceptionally());
+        }
+    }
+
+    /**
+     * 64个线程同时登记和删除future, 对比全局id生成器 + ConcurrentHashMap和按连接分配id的槽位表;
+     * 耗时较长且结果依赖机器, 只在需要时手动运行
+     */
+    @Test
+    @Ignore("benchmark")
+    public void concurrentComparisonTest() throws Exception {
+        // 预热
+        runMapTable();
+        runSlotTable(new NettyResponseHolder[] {new NettyResponseHolder()});
+
+        long mapNanos = runMapTable();
+        long singleNanos = runSlotTable(new NettyResponseHolder[] {new NettyResponseHolder()});
+        NettyResponseHolder[] pool = new NettyResponseHolder[4];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = new NettyResponseHolder();
+        }
+        long poolNanos = runSlotTable(pool);
+
+        long operations = (long) THREADS * OPERATIONS_PER_THREAD;
+        Logger.DEFAULT.info("threads={}, ops={}, global id + ConcurrentHashMap: {} ns/op, "
+                        + "slot table(1 connection): {} ns/op, slot table({} connections): {} ns/op",
+                THREADS, operations, mapNanos / operations, singleNanos / operations,
+                pool.length, poolNanos / operations);
+    }
+
+    private long runMapTable() throws Exception {
+        AtomicLong idGenerator = new AtomicLong();
+        ConcurrentMap<Long, CompletableFuture<Command>> map = new ConcurrentHashMap<>();
+        return run(thread -> {
+            CompletableFuture<Command> future = new CompletableFuture<>();
+            long id = idGenerator.incrementAndGet();
+            map.put(id, future);
+            return map.remove(id) == future ? 1 : 0;
+        });
+    }
+
+    private long runSlotTable(NettyResponseHolder[] holders) throws Exception {
+        return run(thread -> {
+            NettyResponseHolder holder = holders[thread % holders.length];
+            CompletableFuture<Command> future = new CompletableFuture<>();
+            return holder.remove(holder.put(future)) == future ? 1 : 0;
+        });
+    }
+
+    private long run(Operation operation) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(THREADS);
+        AtomicLong matched = new AtomicLong();
+        for (int i = 0; i < THREADS; i++) {
+            int thread = i;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    long count = 0;
+                    for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                        count += operation.apply(thread);
+                    }
+                    matched.addAndGet(count);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finish.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        finish.await();
+        long cost = System.nanoTime() - begin;
+        Assert.assertEquals((long) THREADS * OPERATIONS_PER_THREAD, matched.get());
+        return cost;
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        long apply(int thread);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.client;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tomato.study.rpc.core.DefalultProviderRegistry;
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.data.RpcServerConfig;
+import org.tomato.study.rpc.netty.transport.server.NettyRpcServer;
+
+import java.net.URI;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class NettyRpcClientPoolTest {
+
+    private static final int POOL_SIZE = 3;
+
+    private NettyRpcServer server;
+    private NettyRpcClient client;
+
+    @Before
+    public void init() throws Exception {
+        RpcServerConfig serverConfig = RpcServerConfig.builder().port(40041).build();
+        server = new NettyRpcServer(serverConfig, new DefalultProviderRegistry());
+        server.init();
+        server.start();
+        URI uri = URI.create("tomato://" + serverConfig.getHost() + ":" + serverConfig.getPort());
+        client = new NettyRpcClient(uri, RpcConfig.builder().clientConnectionsPerNode(POOL_SIZE).build());
+    }
+
+    @After
+    public void destroy() throws Exception {
+        client.stop();
+        server.stop();
+    }
+
+    @Test
+    public void leastInFlightTest() throws Exception {
+        // 每次都选在途请求最少的连接, 直到连接池中的连接都被占用
+        Set<ChannelWrapper> busy = new HashSet<>();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            ChannelWrapper connection = client.getConnection();
+            Assert.assertTrue(connection.isActiveChannel());
+            Assert.assertEquals(0, connection.getInFlight());
+            Assert.assertTrue(busy.add(connection));
+            connection.incrementInFlight();
+        }
+
+        ChannelWrapper idle = busy.iterator().next();
+        idle.decrementInFlight();
+        Assert.assertSame(idle, client.getConnection());
+    }
+
+    @Test
+    public void reconnectTest() throws Exception {
+        Set<ChannelWrapper> connections = new HashSet<>();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            connections.add(client.getConnection());
+        }
+        Assert.assertEquals(POOL_SIZE, connections.size());
+
+        // 断开的连接在后台重建, 其余连接不受影响
+        ChannelWrapper closed = connections.iterator().next();
+        closed.getChannel().close().sync();
+        long deadline = System.currentTimeMillis() + 5000;
+        Set<ChannelWrapper> reconnected = new HashSet<>();
+        while (reconnected.size() < POOL_SIZE) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            TimeUnit.MILLISECONDS.sleep(20);
+            reconnected.clear();
+            for (int i = 0; i < POOL_SIZE; i++) {
+                reconnected.add(client.getConnection());
+            }
+        }
+        Assert.assertFalse(reconnected.contains(closed));
+        reconnected.forEach(connection -> Assert.assertTrue(connection.isActiveChannel()));
+    }
+}
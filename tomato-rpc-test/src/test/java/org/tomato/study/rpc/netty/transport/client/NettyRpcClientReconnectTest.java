@@ -0,0 +1,197 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.client;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tomato.study.rpc.core.DefalultProviderRegistry;
+import org.tomato.study.rpc.core.ResponseFuture;
+import org.tomato.study.rpc.core.data.Command;
+import org.tomato.study.rpc.core.data.CommandType;
+import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.data.RpcServerConfig;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.error.TomatoRpcException;
+import org.tomato.study.rpc.core.error.TomatoRpcRuntimeException;
+import org.tomato.study.rpc.core.serializer.JsonSerializer;
+import org.tomato.study.rpc.netty.data.NettyCommandFactory;
+import org.tomato.study.rpc.netty.transport.server.NettyRpcServer;
+
+import java.net.URI;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class NettyRpcClientReconnectTest {
+
+    private static final int PORT = 40051;
+
+    private final RpcServerConfig serverConfig = RpcServerConfig.builder().port(PORT).build();
+
+    private final RpcConfig rpcConfig = RpcConfig.builder()
+            .clientReconnectBaseMilliseconds(50)
+            .clientReconnectMaxMilliseconds(400)
+            .build();
+
+    @Test
+    public void backoffTest() {
+        for (int attempts = 0; attempts < 64; attempts++) {
+            long cap = Math.min(400, 50L << Math.min(attempts, 20));
+            long delay = NettyRpcClient.backoffMilliseconds(attempts, 50, 400);
+            Assert.assertTrue(delay >= cap / 2);
+            Assert.assertTrue(delay <= cap);
+        }
+    }
+
+    @Test
+    public void failFastAndReconnectTest() throws Exception {
+        URI uri = URI.create("tomato://" + serverConfig.getHost() + ":" + PORT);
+        NettyRpcClient client = new NettyRpcClient(uri, rpcConfig);
+        try {
+            // 服务端未启动, 第一次建连失败后不再阻塞调用方
+            assertUnavailable(client);
+            long begin = System.nanoTime();
+            assertUnavailable(client);
+            Assert.assertTrue(System.nanoTime() - begin < TimeUnit.MILLISECONDS.toNanos(100));
+            Assert.assertFalse(client.isUsable());
+
+            // 服务端启动后后台重连成功
+            NettyRpcServer server = startServer();
+            ChannelWrapper connection;
+            try {
+                connection = awaitConnection(client);
+            } finally {
+                server.stop();
+            }
+
+            // 服务端关闭后连接断开, 调用方快速失败
+            connection.getChannel().closeFuture().await(5, TimeUnit.SECONDS);
+            assertUnavailable(client);
+
+            // 服务端恢复后重新连上
+            server = startServer();
+            try {
+                Assert.assertNotSame(connection, awaitConnection(client));
+            } finally {
+                server.stop();
+            }
+        } finally {
+            client.stop();
+        }
+    }
+
+    @Test
+    public void backoffOnImmediateCloseTest() throws Exception {
+        // 服务端接受连接后立即关闭
+        AtomicInteger accepted = new AtomicInteger();
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        Channel serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        accepted.incrementAndGet();
+                        channel.close();
+                    }
+                })
+                .bind(PORT).sync().channel();
+        URI uri = URI.create("tomato://" + serverConfig.getHost() + ":" + PORT);
+        NettyRpcClient client = null;
+        try {
+            client = new NettyRpcClient(uri, rpcConfig);
+            TimeUnit.MILLISECONDS.sleep(1000);
+            // 退避时间持续增长: 25~50, 50~100, 100~200, 200~400...
+            // 若每次建连成功都清零, 1秒内会以初始退避时间重连数十次
+            Assert.assertTrue("accepted: " + accepted.get(), accepted.get() <= 8);
+        } finally {
+            if (client != null) {
+                client.stop();
+            }
+            serverChannel.close().sync();
+            group.shutdownGracefully().sync();
+        }
+    }
+
+    @Test
+    public void failPendingOnCloseTest() throws Exception {
+        NettyRpcServer server = startServer();
+        URI uri = URI.create("tomato://" + serverConfig.getHost() + ":" + PORT);
+        NettyRpcClient client = new NettyRpcClient(uri, rpcConfig);
+        try {
+            // 服务端没有处理该类型消息的handler, 不会响应
+            ChannelWrapper connection = client.getConnection();
+            ResponseFuture<Command> responseFuture = client.send(connection, NettyCommandFactory.request(
+                    null, new JsonSerializer(), null, CommandType.KEEP_ALIVE_RESPONSE, ProtoConstants.VERSION2));
+            Assert.assertEquals(1, connection.getInFlight());
+
+            // 连接断开后不用等到超时, 立即以可重试的错误结束
+            connection.closeChannel();
+            try {
+                responseFuture.getFuture().get(1, TimeUnit.SECONDS);
+                Assert.fail();
+            } catch (ExecutionException exception) {
+                Assert.assertTrue(exception.getCause() instanceof TomatoRpcRuntimeException);
+                Assert.assertEquals(TomatoRpcErrorEnum.RPC_CONNECTION_CLOSED,
+                        ((TomatoRpcRuntimeException) exception.getCause()).getErrCode());
+            }
+            Assert.assertEquals(0, connection.getInFlight());
+            Assert.assertEquals(0, connection.getResponseHolder().size());
+        } finally {
+            client.stop();
+            server.stop();
+        }
+    }
+
+    private NettyRpcServer startServer() throws Exception {
+        NettyRpcServer server = new NettyRpcServer(serverConfig, new DefalultProviderRegistry());
+        server.init();
+        server.start();
+        return server;
+    }
+
+    private static void assertUnavailable(NettyRpcClient client) {
+        try {
+            client.getConnection();
+            Assert.fail();
+        } catch (TomatoRpcException exception) {
+            Assert.assertTrue(exception.getCause() instanceof TomatoRpcRuntimeException);
+            Assert.assertEquals(TomatoRpcErrorEnum.RPC_CONNECTION_UNAVAILABLE,
+                    ((TomatoRpcRuntimeException) exception.getCause()).getErrCode());
+        }
+    }
+
+    private static ChannelWrapper awaitConnection(NettyRpcClient client) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!client.isUsable()) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        ChannelWrapper connection = client.getConnection();
+        Assert.assertTrue(connection.isActiveChannel());
+        return connection;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.client;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tomato.study.rpc.core.DefalultProviderRegistry;
+import org.tomato.study.rpc.core.ResponseFuture;
+import org.tomato.study.rpc.core.data.Command;
+import org.tomato.study.rpc.core.data.CommandType;
+import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.data.RpcServerConfig;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.error.TomatoRpcException;
+import org.tomato.study.rpc.core.serializer.JsonSerializer;
+import org.tomato.study.rpc.netty.data.NettyCommandFactory;
+import org.tomato.study.rpc.netty.metrics.SaturationMetrics;
+import org.tomato.study.rpc.netty.transport.server.NettyRpcServer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class NettyRpcClientSaturationTest {
+
+    private static final int PORT = 40061;
+    private static final int MAX_IN_FLIGHT = 2;
+
+    private NettyRpcServer server;
+    private URI uri;
+    private final List<NettyRpcClient> clients = new ArrayList<>(0);
+
+    @Before
+    public void init() throws Exception {
+        RpcServerConfig serverConfig = RpcServerConfig.builder().port(PORT).build();
+        server = new NettyRpcServer(serverConfig, new DefalultProviderRegistry());
+        server.init();
+        server.start();
+        uri = URI.create("tomato://" + serverConfig.getHost() + ":" + PORT);
+    }
+
+    @After
+    public void destroy() throws Exception {
+        for (NettyRpcClient client : clients) {
+            client.stop();
+        }
+        server.stop();
+    }
+
+    @Test
+    public void waterMarkTest() throws Exception {
+        NettyRpcClient client = newClient(RpcConfig.builder()
+                .clientWriteBufferLowWaterMark(8 * 1024)
+                .clientWriteBufferHighWaterMark(16 * 1024)
+                .build());
+        ChannelWrapper connection = client.getConnection();
+        Assert.assertEquals(8 * 1024, connection.getChannel().config().getWriteBufferLowWaterMark());
+        Assert.assertEquals(16 * 1024, connection.getChannel().config().getWriteBufferHighWaterMark());
+    }
+
+    @Test
+    public void failFastTest() throws Exception {
+        NettyRpcClient client = newClient(RpcConfig.builder()
+                .clientMaxInFlightPerConnection(MAX_IN_FLIGHT)
+                .clientSaturatedWaitMilliseconds(0)
+                .build());
+        ChannelWrapper connection = client.getConnection();
+        List<ResponseFuture<Command>> pending = new ArrayList<>(0);
+        for (int i = 0; i < MAX_IN_FLIGHT; i++) {
+            pending.add(sendNoResponse(client, connection));
+        }
+        Assert.assertTrue(client.isSaturated());
+
+        // 在途请求数达到上限后立即失败
+        assertSaturated(client, connection);
+        Assert.assertEquals(MAX_IN_FLIGHT, connection.getInFlight());
+        SaturationMetrics.Snapshot snapshot = client.saturationSnapshot();
+        Assert.assertEquals(1, snapshot.rejected());
+        Assert.assertEquals(MAX_IN_FLIGHT, snapshot.inFlight());
+        Assert.assertTrue(snapshot.saturated());
+
+        // 有请求完成后恢复
+        complete(pending.get(0));
+        Assert.assertFalse(client.isSaturated());
+        sendNoResponse(client, connection);
+    }
+
+    @Test
+    public void waitTest() throws Exception {
+        NettyRpcClient client = newClient(RpcConfig.builder()
+                .clientMaxInFlightPerConnection(MAX_IN_FLIGHT)
+                .clientSaturatedWaitMilliseconds(2000)
+                .build());
+        ChannelWrapper connection = client.getConnection();
+        List<ResponseFuture<Command>> pending = new ArrayList<>(0);
+        for (int i = 0; i < MAX_IN_FLIGHT; i++) {
+            pending.add(sendNoResponse(client, connection));
+        }
+
+        // 等待期间有请求完成, 发送成功
+        CompletableFuture.runAsync(() -> complete(pending.get(0)),
+                CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+        long begin = System.nanoTime();
+        sendNoResponse(client, connection);
+        Assert.assertTrue(System.nanoTime() - begin >= TimeUnit.MILLISECONDS.toNanos(50));
+        Assert.assertEquals(1, client.saturationSnapshot().waited());
+        Assert.assertEquals(0, client.saturationSnapshot().rejected());
+    }
+
+    private NettyRpcClient newClient(RpcConfig rpcConfig) {
+        NettyRpcClient client = new NettyRpcClient(uri, rpcConfig);
+        clients.add(client);
+        return client;
+    }
+
+    /**
+     * 服务端没有处理该类型消息的handler, 不会响应
+     */
+    private static ResponseFuture<Command> sendNoResponse(NettyRpcClient client, ChannelWrapper connection)
+            throws TomatoRpcException {
+        return client.send(connection, NettyCommandFactory.request(
+                null, new JsonSerializer(), null, CommandType.KEEP_ALIVE_RESPONSE, ProtoConstants.VERSION2));
+    }
+
+    private static void complete(ResponseFuture<Command> responseFuture) {
+        responseFuture.destroy().ifPresent(future -> future.completeExceptionally(new RuntimeException("done")));
+    }
+
+    private static void assertSaturated(NettyRpcClient client, ChannelWrapper connection) {
+        try {
+            sendNoResponse(client, connection);
+            Assert.fail();
+        } catch (TomatoRpcException exception) {
+            Assert.assertEquals(TomatoRpcErrorEnum.RPC_CONNECTION_SATURATED, exception.getErrCode());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.handler;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tomato.study.rpc.core.DefalultProviderRegistry;
+import org.tomato.study.rpc.core.data.ExtensionHeader;
+import org.tomato.study.rpc.core.data.InvocationContext;
+import org.tomato.study.rpc.core.data.MetaData;
+import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.core.data.Response;
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.data.RpcRequestDTO;
+import org.tomato.study.rpc.core.data.RpcServerConfig;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.netty.invoker.NettyRpcInvoker;
+import org.tomato.study.rpc.netty.transport.server.NettyRpcServer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class CancelDispatchTest {
+
+    private static final String MICRO_SERVICE_ID = "cancel-test";
+    private static final int PORT = 40131;
+
+    private static final AtomicInteger EXECUTED = new AtomicInteger();
+    private static final AtomicInteger INTERRUPTED = new AtomicInteger();
+
+    private NettyRpcServer server;
+    private NettyRpcInvoker invoker;
+
+    @Before
+    public void init() throws Exception {
+        EXECUTED.set(0);
+        INTERRUPTED.set(0);
+        DefalultProviderRegistry registry = new DefalultProviderRegistry();
+        registry.register(MICRO_SERVICE_ID, new SleepServiceImpl(), SleepService.class);
+        // 只有一个业务线程, 慢请求执行期间后续请求在线程池中排队
+        RpcServerConfig serverConfig = RpcServerConfig.builder()
+                .port(PORT)
+                .useBusinessThreadPool(true)
+                .businessThreadPoolSize(1)
+                .build();
+        server = new NettyRpcServer(serverConfig, registry);
+        server.init();
+        server.start();
+
+        MetaData.NodeProperty nodeProperty = new MetaData.NodeProperty();
+        nodeProperty.version = ProtoConstants.LATEST_VERSION;
+        MetaData nodeInfo = MetaData.builder()
+                .protocol("tomato")
+                .host(serverConfig.getHost())
+                .port(PORT)
+                .microServiceId(MICRO_SERVICE_ID)
+                .stage("dev")
+                .group("default")
+                .nodeProperty(nodeProperty)
+                .build();
+        invoker = new NettyRpcInvoker(nodeInfo, RpcConfig.builder().build());
+    }
+
+    @After
+    public void destroy() throws Exception {
+        invoker.destroy();
+        server.stop();
+    }
+
+    @Test
+    public void cancelQueuedTest() throws Exception {
+        CompletableFuture<Response> slow = call(300, null);
+        CompletableFuture<Response> queued = call(0, null);
+        // 调用方取消后, 排队中的请求从业务线程池中移除
+        Assert.assertTrue(queued.cancel(false));
+        awaitTrue(() -> server.getDispatcherHandler().getCancelledRequests() == 1);
+
+        Assert.assertEquals(TomatoRpcErrorEnum.SUCCESS.getCode(), slow.get(5, TimeUnit.SECONDS).getCode());
+        Assert.assertEquals(TomatoRpcErrorEnum.SUCCESS.getCode(), call(0, null).get(5, TimeUnit.SECONDS).getCode());
+        Assert.assertEquals(2, EXECUTED.get());
+    }
+
+    @Test
+    public void cancelRunningTest() throws Exception {
+        CompletableFuture<Response> running = call(5000, null);
+        awaitTrue(() -> EXECUTED.get() == 1);
+        // 执行中的请求被中断
+        running.cancel(false);
+        awaitTrue(() -> INTERRUPTED.get() == 1);
+        Assert.assertEquals(1, server.getDispatcherHandler().getCancelledRequests());
+
+        // 取消时的中断标记不影响业务线程执行后续请求
+        Response response = call(50, null).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(TomatoRpcErrorEnum.SUCCESS.getCode(), response.getCode());
+        Assert.assertEquals(1, INTERRUPTED.get());
+    }
+
+    @Test
+    public void cancelOnTimeoutTest() throws Exception {
+        // 客户端超时后通知服务端停止处理
+        Response response = call(5000, 200L).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(TomatoRpcErrorEnum.RPC_INVOCATION_TIMEOUT.getCode(), response.getCode());
+        awaitTrue(() -> INTERRUPTED.get() == 1);
+        Assert.assertEquals(1, server.getDispatcherHandler().getCancelledRequests());
+    }
+
+    private CompletableFuture<Response> call(long sleepMs, Long timeoutMs) throws Exception {
+        Map<String, String> context = new HashMap<>(1);
+        if (timeoutMs != null) {
+            context.put(ExtensionHeader.TIMEOUT.getKeyName(), String.valueOf(timeoutMs));
+        }
+        InvocationContext.set(context);
+        try {
+            return invoker.invoke(RpcRequestDTO.builder()
+                    .microServiceId(MICRO_SERVICE_ID)
+                    .interfaceName(SleepService.class.getName())
+                    .methodName("sleep")
+                    .argsTypes(new String[] {long.class.getName()})
+                    .returnType(long.class.getName())
+                    .args(new Object[] {sleepMs})
+                    .build()).getResultAsync();
+        } finally {
+            InvocationContext.remove();
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue(System.nanoTime() - deadline < 0);
+            Thread.sleep(10);
+        }
+    }
+
+    public interface SleepService {
+
+        long sleep(long milliseconds);
+    }
+
+    public static class SleepServiceImpl implements SleepService {
+
+        @Override
+        public long sleep(long milliseconds) {
+            EXECUTED.incrementAndGet();
+            try {
+                Thread.sleep(milliseconds);
+            } catch (InterruptedException exception) {
+                INTERRUPTED.incrementAndGet();
+                Thread.currentThread().interrupt();
+            }
+            return milliseconds;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.handler;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tomato.study.rpc.core.DefalultProviderRegistry;
+import org.tomato.study.rpc.core.data.Command;
+import org.tomato.study.rpc.core.data.CommandType;
+import org.tomato.study.rpc.core.data.ExtensionHeader;
+import org.tomato.study.rpc.core.data.HeaderFlag;
+import org.tomato.study.rpc.core.data.InvocationContext;
+import org.tomato.study.rpc.core.data.MetaData;
+import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.core.data.Response;
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.data.RpcRequestDTO;
+import org.tomato.study.rpc.core.data.RpcResponse;
+import org.tomato.study.rpc.core.data.RpcServerConfig;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.serializer.Serializer;
+import org.tomato.study.rpc.core.serializer.SerializerHolder;
+import org.tomato.study.rpc.core.spi.SpiLoader;
+import org.tomato.study.rpc.netty.data.ByteBufCommand;
+import org.tomato.study.rpc.netty.data.NettyCommandFactory;
+import org.tomato.study.rpc.netty.invoker.NettyRpcInvoker;
+import org.tomato.study.rpc.netty.transport.client.NettyRpcClient;
+import org.tomato.study.rpc.netty.transport.server.NettyRpcServer;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class DeadlineDispatchTest {
+
+    private static final String MICRO_SERVICE_ID = "deadline-test";
+    private static final int PORT = 40121;
+
+    private static final AtomicInteger EXECUTED = new AtomicInteger();
+
+    private NettyRpcServer server;
+    private NettyRpcInvoker invoker;
+
+    @Before
+    public void init() throws Exception {
+        EXECUTED.set(0);
+        DefalultProviderRegistry registry = new DefalultProviderRegistry();
+        registry.register(MICRO_SERVICE_ID, new SleepServiceImpl(), SleepService.class);
+        // 只有一个业务线程, 慢请求执行期间后续请求在线程池中排队
+        RpcServerConfig serverConfig = RpcServerConfig.builder()
+                .port(PORT)
+                .useBusinessThreadPool(true)
+                .businessThreadPoolSize(1)
+                .build();
+        server = new NettyRpcServer(serverConfig, registry);
+        server.init();
+        server.start();
+
+        MetaData.NodeProperty nodeProperty = new MetaData.NodeProperty();
+        nodeProperty.version = ProtoConstants.LATEST_VERSION;
+        MetaData nodeInfo = MetaData.builder()
+                .protocol("tomato")
+                .host(serverConfig.getHost())
+                .port(PORT)
+                .microServiceId(MICRO_SERVICE_ID)
+                .stage("dev")
+                .group("default")
+                .nodeProperty(nodeProperty)
+                .build();
+        invoker = new NettyRpcInvoker(nodeInfo, RpcConfig.builder().build());
+    }
+
+    @After
+    public void destroy() throws Exception {
+        InvocationContext.remove();
+        invoker.destroy();
+        server.stop();
+    }
+
+    @Test
+    public void dropExpiredTest() throws Exception {
+        CompletableFuture<Response> slow = call(300, 5000L);
+        while (EXECUTED.get() == 0) {
+            Thread.sleep(10);
+        }
+        // 排队期间调用方已超时, 服务端不再执行; 直接通过连接发送, 客户端超时后不会取消请求
+        NettyRpcClient client = new NettyRpcClient(
+                URI.create("tomato://" + server.getHost() + ":" + PORT), RpcConfig.builder().build());
+        try {
+            Command response = client.send(expiredRequest(100)).getFuture().get(5, TimeUnit.SECONDS);
+            try {
+                RpcResponse rpcResponse = NettyCommandFactory.deserializeBody(response,
+                        SerializerHolder.getSerializer(response.getHeader().getSerializeType()), RpcResponse.class);
+                Assert.assertEquals(TomatoRpcErrorEnum.RPC_DEADLINE_EXCEEDED.getCode(), rpcResponse.getCode());
+            } finally {
+                ByteBufCommand.release(response);
+            }
+        } finally {
+            client.stop();
+        }
+
+        Assert.assertEquals(TomatoRpcErrorEnum.SUCCESS.getCode(), slow.get(5, TimeUnit.SECONDS).getCode());
+        // 没有截止时间的请求照常执行
+        Assert.assertEquals(TomatoRpcErrorEnum.SUCCESS.getCode(),
+                call(0, null).get(5, TimeUnit.SECONDS).getCode());
+        Assert.assertEquals(1, server.getDispatcherHandler().getExpiredRequests());
+        Assert.assertEquals(2, EXECUTED.get());
+    }
+
+    private static Command expiredRequest(long timeoutMs) {
+        Map<String, String> headers = new HashMap<>(1);
+        headers.put(ExtensionHeader.TIMEOUT.getKeyName(), String.valueOf(timeoutMs));
+        Command request = NettyCommandFactory.request(sleepRequest(0), SpiLoader.getLoader(Serializer.class).load(),
+                headers, CommandType.RPC_REQUEST, ProtoConstants.LATEST_VERSION);
+        HeaderFlag.HAS_DEADLINE.set(request.getHeader());
+        return request;
+    }
+
+    private static RpcRequestDTO sleepRequest(long sleepMs) {
+        return RpcRequestDTO.builder()
+                .microServiceId(MICRO_SERVICE_ID)
+                .interfaceName(SleepService.class.getName())
+                .methodName("sleep")
+                .argsTypes(new String[] {long.class.getName()})
+                .returnType(long.class.getName())
+                .args(new Object[] {sleepMs})
+                .build();
+    }
+
+    private CompletableFuture<Response> call(long sleepMs, Long timeoutMs) throws Exception {
+        Map<String, String> context = new HashMap<>(1);
+        if (timeoutMs != null) {
+            context.put(ExtensionHeader.TIMEOUT.getKeyName(), String.valueOf(timeoutMs));
+        }
+        InvocationContext.set(context);
+        try {
+            return invoker.invoke(sleepRequest(sleepMs)).getResultAsync();
+        } finally {
+            InvocationContext.remove();
+        }
+    }
+
+    public interface SleepService {
+
+        long sleep(long milliseconds);
+    }
+
+    public static class SleepServiceImpl implements SleepService {
+
+        @Override
+        public long sleep(long milliseconds) {
+            EXECUTED.incrementAndGet();
+            try {
+                Thread.sleep(milliseconds);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return milliseconds;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.tomato.study.rpc.netty.transport.handler;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.core.DefalultProviderRegistry;
+import org.tomato.study.rpc.core.annotation.RpcNonBlocking;
+import org.tomato.study.rpc.core.data.MetaData;
+import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.core.data.ProviderMethod;
+import org.tomato.study.rpc.core.data.Response;
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.data.RpcRequestDTO;
+import org.tomato.study.rpc.core.data.RpcServerConfig;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.netty.invoker.NettyRpcInvoker;
+import org.tomato.study.rpc.netty.transport.server.NettyRpcServer;
+
+import java.util.Arrays;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class NonBlockingDispatchTest {
+
+    private static final String MICRO_SERVICE_ID = "non-blocking-test";
+    private static final int PORT = 40111;
+    private static final int WARMUP_ROUNDS = 2000;
+    private static final int ROUNDS = 10000;
+
+    private DefalultProviderRegistry registry;
+    private NettyRpcServer server;
+    private NettyRpcInvoker invoker;
+
+    @Before
+    public void init() throws Exception {
+        registry = new DefalultProviderRegistry();
+        registry.register(MICRO_SERVICE_ID, new EchoServiceImpl(), EchoService.class);
+        RpcServerConfig serverConfig = RpcServerConfig.builder()
+                .port(PORT)
+                .useBusinessThreadPool(true)
+                .businessThreadPoolSize(4)
+                .build();
+        server = new NettyRpcServer(serverConfig, registry);
+        server.init();
+        server.start();
+
+        MetaData.NodeProperty nodeProperty = new MetaData.NodeProperty();
+        nodeProperty.version = ProtoConstants.LATEST_VERSION;
+        MetaData nodeInfo = MetaData.builder()
+                .protocol("tomato")
+                .host(serverConfig.getHost())
+                .port(PORT)
+                .microServiceId(MICRO_SERVICE_ID)
+                .stage("dev")
+                .group("default")
+                .nodeProperty(nodeProperty)
+                .build();
+        invoker = new NettyRpcInvoker(nodeInfo, RpcConfig.builder().build());
+    }
+
+    @After
+    public void destroy() throws Exception {
+        invoker.destroy();
+        server.stop();
+    }
+
+    @Test
+    public void registerTest() {
+        DefalultProviderRegistry providerRegistry = new DefalultProviderRegistry();
+        providerRegistry.register(MICRO_SERVICE_ID, new EchoServiceImpl(), EchoService.class);
+        Assert.assertTrue(method(providerRegistry, "inline").isNonBlocking());
+        Assert.assertFalse(method(providerRegistry, "pooled").isNonBlocking());
+
+        // 注册时指定整个服务实现不阻塞
+        providerRegistry = new DefalultProviderRegistry();
+        providerRegistry.register(MICRO_SERVICE_ID, new EchoServiceImpl(), EchoService.class, true);
+        Assert.assertTrue(method(providerRegistry, "pooled").isNonBlocking());
+    }
+
+    @Test
+    public void dispatchTest() throws Exception {
+        // 第一次调用时还没有方法id, 交给业务线程池
+        Assert.assertTrue(call("inline").startsWith("rpc-server-business-thread"));
+        Assert.assertTrue(call("inline").startsWith("rpc-server-worker-thread"));
+        Assert.assertTrue(call("pooled").startsWith("rpc-server-business-thread"));
+    }
+
+    /**
+     * 单连接串行调用, 对比IO线程直接处理和切换到业务线程池的往返延迟;
+     * 耗时较长且结果依赖机器, 只在需要时手动运行
+     */
+    @Test
+    @Ignore("benchmark")
+    public void latencyBenchmarkTest() throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            call("inline");
+            call("pooled");
+        }
+        long[] inline = new long[ROUNDS];
+        long[] pooled = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            inline[i] = roundTripNanos("inline");
+            pooled[i] = roundTripNanos("pooled");
+        }
+        Arrays.sort(inline);
+        Arrays.sort(pooled);
+        Logger.DEFAULT.info("round trip, io thread: p50 {} us, p99 {} us; business pool: p50 {} us, p99 {} us",
+                percentile(inline, 50), percentile(inline, 99), percentile(pooled, 50), percentile(pooled, 99));
+    }
+
+    private long roundTripNanos(String method) throws Exception {
+        long begin = System.nanoTime();
+        call(method);
+        return System.nanoTime() - begin;
+    }
+
+    private String call(String method) throws Exception {
+        Response response = invoker.invoke(RpcRequestDTO.builder()
+                .microServiceId(MICRO_SERVICE_ID)
+                .interfaceName(EchoService.class.getName())
+                .methodName(method)
+                .argsTypes(new String[] {String.class.getName()})
+                .returnType(String.class.getName())
+                .args(new Object[] {"ping"})
+                .build()).getResultSync();
+        Assert.assertEquals(TomatoRpcErrorEnum.SUCCESS.getCode(), response.getCode());
+        return (String) response.getData();
+    }
+
+    private static double percentile(long[] sortedNanos, int percentile) {
+        int index = Math.min(sortedNanos.length - 1, sortedNanos.length * percentile / 100);
+        return sortedNanos[index] / 1000.0;
+    }
+
+    private static ProviderMethod method(DefalultProviderRegistry providerRegistry, String name) {
+        return providerRegistry.getMethod(MICRO_SERVICE_ID, EchoService.class.getName(), name,
+                new String[] {String.class.getName()});
+    }
+
+    public interface EchoService {
+
+        /**
+         * 返回执行线程名
+         */
+        @RpcNonBlocking
+        String inline(String message);
+
+        /**
+         * 返回执行线程名
+         */
+        String pooled(String message);
+    }
+
+    public static class EchoServiceImpl implements EchoService {
+
+        @Override
+        public String inline(String message) {
+            return Thread.currentThread().getName();
+        }
+
+        @Override
+        public String pooled(String message) {
+            return Thread.currentThread().getName();
+        }
+    }
+}
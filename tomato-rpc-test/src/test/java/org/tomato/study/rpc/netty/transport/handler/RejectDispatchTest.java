@@ -0,0 +1,120 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.handler;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tomato.study.rpc.core.DefalultProviderRegistry;
+import org.tomato.study.rpc.core.data.Command;
+import org.tomato.study.rpc.core.data.CommandType;
+import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.core.data.RpcBatchRequestDTO;
+import org.tomato.study.rpc.core.data.RpcRequestDTO;
+import org.tomato.study.rpc.core.data.RpcResponse;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.serializer.Serializer;
+import org.tomato.study.rpc.core.serializer.SerializerHolder;
+import org.tomato.study.rpc.core.spi.SpiLoader;
+import org.tomato.study.rpc.netty.data.ByteBufCommand;
+import org.tomato.study.rpc.netty.data.NettyCommandFactory;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class RejectDispatchTest {
+
+    private final Serializer serializer = SpiLoader.getLoader(Serializer.class).load();
+
+    @Test
+    public void rejectRequestTest() {
+        assertRejected(NettyCommandFactory.request(request(), serializer, null,
+                CommandType.RPC_REQUEST, ProtoConstants.LATEST_VERSION));
+    }
+
+    @Test
+    public void rejectBatchRequestTest() {
+        RpcBatchRequestDTO batch = new RpcBatchRequestDTO(List.of(new RpcBatchRequestDTO.Entry(request(), null)));
+        assertRejected(NettyCommandFactory.request(batch, serializer, null,
+                CommandType.RPC_BATCH_REQUEST, ProtoConstants.LATEST_VERSION));
+    }
+
+    private void assertRejected(Command request) {
+        ByteBufCommand bufCommand = (ByteBufCommand) request;
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new DispatcherHandler(new DefalultProviderRegistry(), new RejectingExecutor()));
+        channel.writeInbound(request);
+
+        // 被业务线程池拒绝的请求释放内存并响应失败
+        Assert.assertEquals(0, bufCommand.bodyBuf().refCnt());
+        Command response = channel.readOutbound();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(request.getHeader().getId(), response.getHeader().getId());
+        RpcResponse rpcResponse = NettyCommandFactory.deserializeBody(response,
+                SerializerHolder.getSerializer(response.getHeader().getSerializeType()), RpcResponse.class);
+        Assert.assertEquals(TomatoRpcErrorEnum.NETTY_REQUEST_HANDLE_ERROR.getCode(), rpcResponse.getCode());
+        Assert.assertTrue(channel.isActive());
+        channel.finishAndReleaseAll();
+    }
+
+    private static RpcRequestDTO request() {
+        return RpcRequestDTO.builder()
+                .microServiceId("reject-test")
+                .interfaceName(Runnable.class.getName())
+                .methodName("run")
+                .argsTypes(new String[0])
+                .returnType(void.class.getName())
+                .args(new Object[0])
+                .build();
+    }
+
+    private static class RejectingExecutor extends AbstractExecutorService {
+
+        @Override
+        public void execute(Runnable command) {
+            throw new RejectedExecutionException("business executor is overload");
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
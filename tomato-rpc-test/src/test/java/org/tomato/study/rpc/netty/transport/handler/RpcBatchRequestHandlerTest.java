@@ -0,0 +1,145 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.handler;
+
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tomato.study.rpc.core.DefalultProviderRegistry;
+import org.tomato.study.rpc.core.data.Command;
+import org.tomato.study.rpc.core.data.CommandType;
+import org.tomato.study.rpc.core.data.ExtensionHeader;
+import org.tomato.study.rpc.core.data.InvocationContext;
+import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.core.data.RpcBatchRequestDTO;
+import org.tomato.study.rpc.core.data.RpcBatchResponse;
+import org.tomato.study.rpc.core.data.RpcRequestDTO;
+import org.tomato.study.rpc.core.data.RpcResponse;
+import org.tomato.study.rpc.core.error.TomatoRpcErrorEnum;
+import org.tomato.study.rpc.core.serializer.ProtostuffSerializer;
+import org.tomato.study.rpc.core.serializer.Serializer;
+import org.tomato.study.rpc.netty.data.ByteBufCommand;
+import org.tomato.study.rpc.netty.data.NettyCommandFactory;
+import org.tomato.study.rpc.test.TestService;
+import org.tomato.study.rpc.test.TestServiceImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class RpcBatchRequestHandlerTest {
+
+    private static final String MICRO_SERVICE_ID = "batch-test";
+
+    private final Serializer serializer = new ProtostuffSerializer();
+
+    @Test
+    public void sequentialBatchTest() {
+        RpcBatchRequestHandler handler = createHandler();
+        checkBatch(handler);
+    }
+
+    @Test
+    public void parallelBatchTest() {
+        RpcBatchRequestHandler handler = createHandler();
+        // 线程数少于批次大小, 剩余的调用由IO线程执行
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        handler.setBusinessExecutor(executor);
+        try {
+            checkBatch(handler);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void checkBatch(RpcBatchRequestHandler handler) {
+        List<RpcBatchRequestDTO.Entry> entries = new ArrayList<>();
+        entries.add(new RpcBatchRequestDTO.Entry(sumRequest(1, 2, 3), null));
+        entries.add(new RpcBatchRequestDTO.Entry(traceRequest(), traceContext("trace-1")));
+        entries.add(new RpcBatchRequestDTO.Entry(RpcRequestDTO.builder()
+                .microServiceId(MICRO_SERVICE_ID)
+                .interfaceName(TestService.class.getName())
+                .methodName("notExist")
+                .build(), null));
+        entries.add(new RpcBatchRequestDTO.Entry(traceRequest(), traceContext("trace-2")));
+        Command request = NettyCommandFactory.request(new RpcBatchRequestDTO(entries),
+                serializer, null, CommandType.RPC_BATCH_REQUEST, ProtoConstants.VERSION2);
+
+        Command response = handler.handle(request);
+        Assert.assertEquals(CommandType.RPC_BATCH_RESPONSE.getId(), response.getHeader().getMessageType());
+        Assert.assertEquals(request.getHeader().getId(), response.getHeader().getId());
+        List<RpcResponse> responses = NettyCommandFactory.deserializeBody(
+                response, serializer, RpcBatchResponse.class).getResponses();
+        ByteBufCommand.release(request);
+        ByteBufCommand.release(response);
+
+        // 响应的顺序与请求一致, 单个调用失败不影响其他调用
+        Assert.assertEquals(entries.size(), responses.size());
+        Assert.assertEquals(TomatoRpcErrorEnum.SUCCESS.getCode(), responses.get(0).getCode());
+        Assert.assertEquals(6, responses.get(0).getData());
+        Assert.assertEquals("trace-1", responses.get(1).getData());
+        Assert.assertEquals(TomatoRpcErrorEnum.NETTY_HANDLER_PROVIDER_NOT_FOUND.getCode(), responses.get(2).getCode());
+        Assert.assertEquals("trace-2", responses.get(3).getData());
+        Assert.assertNull(InvocationContext.get());
+    }
+
+    private RpcBatchRequestHandler createHandler() {
+        DefalultProviderRegistry registry = new DefalultProviderRegistry();
+        registry.register(MICRO_SERVICE_ID, new TestServiceImpl(), TestService.class);
+        registry.register(MICRO_SERVICE_ID,
+                () -> ExtensionHeader.TRACE_ID.getValueFromContext(), TraceService.class);
+        RpcBatchRequestHandler handler = new RpcBatchRequestHandler();
+        handler.setProviderRegistry(registry);
+        return handler;
+    }
+
+    private static RpcRequestDTO sumRequest(Integer... nums) {
+        return RpcRequestDTO.builder()
+                .microServiceId(MICRO_SERVICE_ID)
+                .interfaceName(TestService.class.getName())
+                .methodName("sum")
+                .argsTypes(new String[]{List.class.getName()})
+                .returnType(Integer.class.getName())
+                .args(new Object[]{Lists.newArrayList(nums)})
+                .build();
+    }
+
+    private static RpcRequestDTO traceRequest() {
+        return RpcRequestDTO.builder()
+                .microServiceId(MICRO_SERVICE_ID)
+                .interfaceName(TraceService.class.getName())
+                .methodName("traceId")
+                .argsTypes(new String[0])
+                .returnType(String.class.getName())
+                .args(new Object[0])
+                .build();
+    }
+
+    private static Map<String, String> traceContext(String traceId) {
+        return Collections.singletonMap(ExtensionHeader.TRACE_ID.getKeyName(), traceId);
+    }
+
+    public interface TraceService {
+
+        String traceId();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.tomato.study.rpc.netty.transport.server;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tomato.study.rpc.common.utils.VirtualThreadUtil;
+import org.tomato.study.rpc.core.DefalultProviderRegistry;
+import org.tomato.study.rpc.core.data.RpcServerConfig;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class VirtualThreadExecutorTest {
+
+    private static final int PORT = 40101;
+
+    @Test
+    public void maxConcurrencyTest() throws Exception {
+        VirtualThreadExecutor executor = new VirtualThreadExecutor("virtual-test", 2);
+        Assert.assertEquals(VirtualThreadUtil.isSupported(), executor.isVirtual());
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            executor.execute(() -> {
+                started.countDown();
+                awaitQuietly(release);
+            });
+        }
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(2, executor.getActiveCount());
+
+        // 达到上限后拒绝
+        try {
+            executor.execute(() -> { });
+            Assert.fail();
+        } catch (RejectedExecutionException ignored) {
+        }
+
+        // 有任务结束后恢复
+        release.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertTrue(executor.isTerminated());
+        try {
+            executor.execute(() -> { });
+            Assert.fail();
+        } catch (RejectedExecutionException ignored) {
+        }
+    }
+
+    @Test
+    public void serverTest() throws Exception {
+        NettyRpcServer server = new NettyRpcServer(RpcServerConfig.builder()
+                .port(PORT)
+                .useBusinessThreadPool(true)
+                .businessExecutorMode(RpcServerConfig.BUSINESS_EXECUTOR_VIRTUAL)
+                .businessMaxConcurrency(100)
+                .build(), new DefalultProviderRegistry());
+        server.init();
+        try {
+            ExecutorService businessExecutor = server.getDispatcherHandler().getBusinessExecutor();
+            if (VirtualThreadUtil.isSupported()) {
+                Assert.assertTrue(businessExecutor instanceof VirtualThreadExecutor);
+                Assert.assertEquals(100, ((VirtualThreadExecutor) businessExecutor).getMaxConcurrency());
+            } else {
+                // 不支持虚拟线程时退化为固定大小的业务线程池, 不会按并发上限创建平台线程
+                Assert.assertTrue(businessExecutor instanceof ThreadPoolExecutor);
+                Assert.assertEquals(Runtime.getRuntime().availableProcessors(),
+                        ((ThreadPoolExecutor) businessExecutor).getMaximumPoolSize());
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.tomato.study.rpc.netty.transport.shm;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.core.DefalultProviderRegistry;
+import org.tomato.study.rpc.core.data.Command;
+import org.tomato.study.rpc.core.data.CommandType;
+import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.data.RpcServerConfig;
+import org.tomato.study.rpc.core.serializer.JsonSerializer;
+import org.tomato.study.rpc.netty.data.ByteBufCommand;
+import org.tomato.study.rpc.netty.data.NettyCommandFactory;
+import org.tomato.study.rpc.netty.transport.client.ChannelWrapper;
+import org.tomato.study.rpc.netty.transport.client.NettyRpcClient;
+import org.tomato.study.rpc.netty.transport.server.NettyRpcServer;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class SharedMemoryTest {
+
+    private static final int PORT = 40091;
+    private static final int WARMUP_ROUNDS = 1000;
+    private static final int ROUNDS = 5000;
+
+    private Path directory;
+    private NettyRpcServer server;
+    private URI uri;
+
+    @Before
+    public void init() throws Exception {
+        // 优先使用内存文件系统
+        Path shm = Path.of("/dev/shm");
+        directory = Files.isDirectory(shm) && Files.isWritable(shm)
+                ? Files.createTempDirectory(shm, "tomato-rpc")
+                : Files.createTempDirectory("tomato-rpc");
+        server = new NettyRpcServer(RpcServerConfig.builder()
+                .port(PORT)
+                .sharedMemoryPath(directory.toString())
+                .build(), new DefalultProviderRegistry());
+        server.init();
+        server.start();
+        uri = URI.create("tomato://" + server.getHost() + ":" + PORT);
+    }
+
+    @After
+    public void destroy() throws Exception {
+        server.stop();
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void connectAndCloseTest() throws Exception {
+        NettyRpcClient client = new NettyRpcClient(uri, null, directory.toString(), RpcConfig.builder().build());
+        ChannelWrapper connection;
+        try {
+            Assert.assertTrue(client.isSharedMemory());
+            connection = client.getConnection();
+            Assert.assertTrue(connection.getChannel() instanceof ShmChannel);
+            Assert.assertEquals(directory, ((ShmAddress) connection.getChannel().remoteAddress()).path());
+            roundTrip(client);
+        } finally {
+            client.stop();
+        }
+        // 关闭后连接文件被删除, 服务端的轮询线程随之退出
+        connection.getChannel().closeFuture().await(1, TimeUnit.SECONDS);
+        try (var files = Files.list(directory)) {
+            Assert.assertEquals(0, files.count());
+        }
+    }
+
+    /**
+     * 同一主机上分别通过tcp和共享内存串行请求, 对比往返延迟;
+     * 耗时较长且结果依赖机器, 只在需要时手动运行
+     */
+    @Test
+    @Ignore("benchmark")
+    public void latencyComparisonTest() throws Exception {
+        // 先测tcp, 避免共享内存连接的轮询线程占用CPU
+        NettyRpcClient tcpClient = new NettyRpcClient(uri, RpcConfig.builder().build());
+        double tcp;
+        try {
+            Assert.assertFalse(tcpClient.isSharedMemory());
+            tcp = roundTripMicroseconds(tcpClient);
+        } finally {
+            tcpClient.stop();
+        }
+        NettyRpcClient sharedMemoryClient = new NettyRpcClient(
+                uri, null, directory.toString(), RpcConfig.builder().build());
+        try {
+            double sharedMemory = roundTripMicroseconds(sharedMemoryClient);
+            Logger.DEFAULT.info("round trip, tcp loopback: {} us/op, shared memory: {} us/op", tcp, sharedMemory);
+        } finally {
+            sharedMemoryClient.stop();
+        }
+    }
+
+    private static double roundTripMicroseconds(NettyRpcClient client) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            roundTrip(client);
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            roundTrip(client);
+        }
+        return (System.nanoTime() - begin) / 1000.0 / ROUNDS;
+    }
+
+    private static void roundTrip(NettyRpcClient client) throws Exception {
+        Command response = client.send(NettyCommandFactory.request(null, new JsonSerializer(), null,
+                CommandType.METHOD_TABLE_REQUEST, ProtoConstants.VERSION2)).getFuture().get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(CommandType.METHOD_TABLE_RESPONSE, CommandType.value(response.getHeader().getMessageType()));
+        ByteBufCommand.release(response);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.tomato.study.rpc.netty.transport.shm;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class ShmRingBufferTest {
+
+    private Path directory;
+    private ShmRingFile ringFile;
+
+    @Before
+    public void init() throws Exception {
+        directory = Files.createTempDirectory("tomato-shm");
+        ringFile = ShmRingFile.create(directory, 100);
+    }
+
+    @After
+    public void destroy() throws Exception {
+        ringFile.close();
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void openTest() throws Exception {
+        // 容量向上取整到2的幂
+        Assert.assertEquals(4096, ringFile.clientToServer().capacity());
+        Assert.assertTrue(ringFile.path().toString().endsWith(ShmRingFile.SUFFIX));
+        ShmRingFile opened = ShmRingFile.open(ringFile.path());
+        Assert.assertEquals(ShmRingFile.CONNECTING, opened.state());
+        opened.accept();
+        Assert.assertEquals(ShmRingFile.ACCEPTED, ringFile.state());
+        Assert.assertTrue(ringFile.isPeerAlive(true));
+
+        // 两端映射同一块内存
+        Assert.assertTrue(ringFile.clientToServer().offer(frame("ping")));
+        Assert.assertEquals("ping", read(opened.clientToServer()));
+        Assert.assertNull(opened.clientToServer().poll(ByteBufAllocator.DEFAULT));
+    }
+
+    @Test
+    public void wrapAroundTest() {
+        ShmRingBuffer ring = ringFile.clientToServer();
+        String message = "x".repeat(1000);
+        // 每条记录1008字节, 多次写满读空后跨越数据区尾部
+        for (int round = 0; round < 20; round++) {
+            int written = 0;
+            while (ring.offer(frame(message + round))) {
+                written++;
+            }
+            Assert.assertTrue(written > 0);
+            for (int i = 0; i < written; i++) {
+                Assert.assertEquals(message + round, read(ring));
+            }
+            // 写满时可能已经提交了尾部填充
+            Assert.assertNull(ring.poll(ByteBufAllocator.DEFAULT));
+            Assert.assertFalse(ring.isReadable());
+        }
+    }
+
+    @Test
+    public void wrapAroundLargeFrameTest() {
+        ShmRingBuffer ring = ringFile.clientToServer();
+        // 两条1024字节的记录把写位置推到数据区中间
+        for (int i = 0; i < 2; i++) {
+            Assert.assertTrue(ring.offer(frame("x".repeat(1020))));
+            Assert.assertEquals("x".repeat(1020), read(ring));
+        }
+        // 记录超过半个数据区, 尾部放不下; 先提交填充, 读端跳过填充后才有足够空间
+        String large = "y".repeat(3000);
+        Assert.assertFalse(ring.offer(frame(large)));
+        Assert.assertTrue(ring.isReadable());
+        Assert.assertNull(ring.poll(ByteBufAllocator.DEFAULT));
+        Assert.assertFalse(ring.isReadable());
+        Assert.assertTrue(ring.offer(frame(large)));
+        Assert.assertEquals(large, read(ring));
+        Assert.assertFalse(ring.isReadable());
+    }
+
+    @Test
+    public void tooLongFrameTest() {
+        try {
+            ringFile.clientToServer().offer(frame("x".repeat(4096)));
+            Assert.fail();
+        } catch (IllegalArgumentException exception) {
+            Assert.assertFalse(ringFile.clientToServer().isReadable());
+        }
+    }
+
+    @Test
+    public void deleteStaleTest() throws Exception {
+        ShmRingFile.deleteStale(directory);
+        Assert.assertFalse(Files.exists(ringFile.path()));
+    }
+
+    private static ByteBuf frame(String content) {
+        return Unpooled.copiedBuffer(content, StandardCharsets.UTF_8);
+    }
+
+    private static String read(ShmRingBuffer ring) {
+        ByteBuf frame = ring.poll(ByteBufAllocator.DEFAULT);
+        Assert.assertNotNull(frame);
+        try {
+            return frame.toString(StandardCharsets.UTF_8);
+        } finally {
+            frame.release();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.tomato.study.rpc.netty.transport.socket;
+
+import io.netty.channel.epoll.Epoll;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.tomato.study.rpc.common.utils.Logger;
+import org.tomato.study.rpc.core.DefalultProviderRegistry;
+import org.tomato.study.rpc.core.data.Command;
+import org.tomato.study.rpc.core.data.CommandType;
+import org.tomato.study.rpc.core.data.ProtoConstants;
+import org.tomato.study.rpc.core.data.RpcConfig;
+import org.tomato.study.rpc.core.data.RpcServerConfig;
+import org.tomato.study.rpc.core.serializer.JsonSerializer;
+import org.tomato.study.rpc.netty.data.ByteBufCommand;
+import org.tomato.study.rpc.netty.data.NettyCommandFactory;
+import org.tomato.study.rpc.netty.transport.client.ClientEventLoopGroupHolder;
+import org.tomato.study.rpc.netty.transport.client.NettyRpcClient;
+import org.tomato.study.rpc.netty.transport.server.NettyRpcServer;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Tomato
+ * Created on 2026.10.18
+ */
+public class TransportTest {
+
+    private static final int PORT = 40071;
+    private static final int WARMUP_ROUNDS = 1000;
+    private static final int ROUNDS = 5000;
+
+    @Test
+    public void loadTest() {
+        Assert.assertTrue(TransportLoader.load("nio") instanceof NioTransport);
+        // 不存在的实现退回nio
+        Assert.assertTrue(TransportLoader.load("io_uring") instanceof NioTransport);
+        Transport defaultTransport = TransportLoader.load(null);
+        Assert.assertTrue(Epoll.isAvailable()
+                ? defaultTransport instanceof EpollTransport
+                : defaultTransport instanceof NioTransport);
+    }
+
+    @Test
+    public void reusePortTest() throws Exception {
+        Assume.assumeTrue(Epoll.isAvailable());
+        NettyRpcServer server = startServer(RpcServerConfig.builder()
+                .port(PORT)
+                .transport("epoll")
+                .reusePortBinds(4)
+                .tcpQuickAck(true)
+                .busyPollMicroseconds(50)
+                .receiveBufferSize(256 * 1024));
+        try {
+            // 没有SO_REUSEPORT时重复绑定同一端口会失败
+            Assert.assertEquals(4, server.getBindCount());
+            for (int i = 0; i < 8; i++) {
+                try (Socket socket = new Socket()) {
+                    socket.connect(new InetSocketAddress(server.getHost(), PORT), 1000);
+                    Assert.assertTrue(socket.isConnected());
+                }
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * 依次使用各传输实现, 对比单连接串行请求(获取方法id表)的往返延迟;
+     * 耗时较长且结果依赖机器, 只在需要时手动运行
+     */
+    @Test
+    @Ignore("benchmark")
+    public void latencyComparisonTest() throws Exception {
+        StringBuilder result = new StringBuilder();
+        for (String name : new String[] {"nio", "epoll"}) {
+            if ("epoll".equals(name) && !Epoll.isAvailable()) {
+                continue;
+            }
+            result.append(String.format("%s: %.1f us/op; ", name, roundTripMicroseconds(name)));
+        }
+        Logger.DEFAULT.info("transport round trip, {}", result);
+    }
+
+    private double roundTripMicroseconds(String transport) throws Exception {
+        NettyRpcServer server = startServer(RpcServerConfig.builder().port(PORT).transport(transport));
+        URI uri = URI.create("tomato://" + server.getHost() + ":" + PORT);
+        NettyRpcClient client = new NettyRpcClient(uri, RpcConfig.builder()
+                .transport(transport)
+                .tcpQuickAck(true)
+                .build());
+        try {
+            // 共用的IO线程池已被其他客户端创建时, 客户端沿用已有的传输实现
+            Assert.assertNotNull(ClientEventLoopGroupHolder.transport());
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                roundTrip(client);
+            }
+            long begin = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                roundTrip(client);
+            }
+            return (System.nanoTime() - begin) / 1000.0 / ROUNDS;
+        } finally {
+            client.stop();
+            server.stop();
+        }
+    }
+
+    private static void roundTrip(NettyRpcClient client) throws Exception {
+        Command response = client.send(NettyCommandFactory.request(null, new JsonSerializer(), null,
+                CommandType.METHOD_TABLE_REQUEST, ProtoConstants.VERSION2)).getFuture().get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(CommandType.METHOD_TABLE_RESPONSE, CommandType.value(response.getHeader().getMessageType()));
+        ByteBufCommand.release(response);
+    }
+
+    private static NettyRpcServer startServer(RpcServerConfig.Builder builder) throws Exception {
+        NettyRpcServer server = new NettyRpcServer(builder.build(), new DefalultProviderRegistry());
+        server.init();
+        server.start();
+        return server;
+    }
+}